@@ -0,0 +1,239 @@
+package com.clearcapital.oss.rest;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.FileTime;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+
+/**
+ * A persistent, size-bounded on-disk cache for immutable binary artifacts, such as those returned by
+ * {@link BaseResourceClient#readStreamVersion(Long, Long, String, Long)}, keyed by (uri, id, updateId, extension).
+ *
+ * <ul>
+ * <li>Each artifact is one file, named by a hash of its key. The directory itself is the index: it is rescanned on
+ * startup, with file modification times (refreshed on every hit) restoring the LRU order.</li>
+ * <li>Writes go to a temporary file that is forced to disk and then atomically renamed into place, so a crash never
+ * leaves a partial entry. Stray temporary files are removed on startup.</li>
+ * <li>Hits are served from a read-only memory mapping of the file.</li>
+ * <li>When the total size exceeds {@code maxBytes}, least recently used artifacts are deleted.</li>
+ * </ul>
+ *
+ * <p>
+ * Keys do not include the host, so use one directory per service. Thread-safe within one process; do not share a
+ * directory between processes.
+ * </p>
+ */
+public class ArtifactCache {
+
+    private static final String ARTIFACT_SUFFIX = ".artifact";
+    private static final String TEMP_SUFFIX = ".tmp";
+    private static final char[] HEX = "0123456789abcdef".toCharArray();
+
+    private final Path directory;
+    private final long maxBytes;
+
+    /** File name to size, in least- to most-recently used order. Guarded by {@code this}. */
+    private final LinkedHashMap<String, Long> index = new LinkedHashMap<>(64, 0.75f, true);
+    private long totalBytes;
+
+    public ArtifactCache(final Path directory, final long maxBytes) throws IOException {
+        this.directory = directory;
+        this.maxBytes = maxBytes;
+        Files.createDirectories(directory);
+        load();
+    }
+
+    /**
+     * @return a stream over the cached artifact, or {@code null} on a miss.
+     */
+    public InputStream get(final String uri, final Long id, final Long updateId, final String extension)
+            throws IOException {
+        String name = fileName(uri, id, updateId, extension);
+        synchronized (this) {
+            if (index.get(name) == null) {
+                return null;
+            }
+        }
+
+        Path file = directory.resolve(name);
+        try {
+            InputStream result = map(file);
+            Files.setLastModifiedTime(file, FileTime.fromMillis(System.currentTimeMillis()));
+            return result;
+        } catch (NoSuchFileException e) {
+            // evicted (or deleted from outside) since we looked
+            remove(name);
+            return null;
+        }
+    }
+
+    /**
+     * Store the artifact read from {@code content}, replacing any previous copy.
+     *
+     * @return a stream over the stored artifact.
+     */
+    public InputStream put(final String uri, final Long id, final Long updateId, final String extension,
+            final InputStream content) throws IOException {
+        String name = fileName(uri, id, updateId, extension);
+        Path file = directory.resolve(name);
+        Path temp = Files.createTempFile(directory, name, TEMP_SUFFIX);
+        try {
+            try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.WRITE)) {
+                byte[] buffer = new byte[8192];
+                int read;
+                while ((read = content.read(buffer)) >= 0) {
+                    ByteBuffer wrapped = ByteBuffer.wrap(buffer, 0, read);
+                    while (wrapped.hasRemaining()) {
+                        channel.write(wrapped);
+                    }
+                }
+                channel.force(true);
+            }
+            Files.move(temp, file, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+
+        // Map before evicting, so that even an artifact larger than maxBytes can be served once.
+        InputStream result = map(file);
+        add(name, Files.size(file));
+        return result;
+    }
+
+    public synchronized long getTotalBytes() {
+        return totalBytes;
+    }
+
+    public synchronized int size() {
+        return index.size();
+    }
+
+    private void load() throws IOException {
+        List<Path> files = new ArrayList<>();
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(directory)) {
+            for (Path file : stream) {
+                String name = file.getFileName().toString();
+                if (name.endsWith(TEMP_SUFFIX)) {
+                    Files.deleteIfExists(file);
+                } else if (name.endsWith(ARTIFACT_SUFFIX)) {
+                    files.add(file);
+                }
+            }
+        }
+
+        final Map<Path, Long> lastUsed = new LinkedHashMap<>();
+        for (Path file : files) {
+            lastUsed.put(file, Files.getLastModifiedTime(file).toMillis());
+        }
+        Collections.sort(files, (a, b) -> Long.compare(lastUsed.get(a), lastUsed.get(b)));
+        for (Path file : files) {
+            add(file.getFileName().toString(), Files.size(file));
+        }
+    }
+
+    private synchronized void add(final String name, final long bytes) {
+        Long previous = index.put(name, bytes);
+        totalBytes += bytes - (previous != null ? previous : 0);
+
+        Iterator<Entry<String, Long>> lru = index.entrySet().iterator();
+        while (totalBytes > maxBytes && lru.hasNext()) {
+            Entry<String, Long> eldest = lru.next();
+            if (eldest.getKey().equals(name)) {
+                continue;
+            }
+            lru.remove();
+            totalBytes -= eldest.getValue();
+            try {
+                Files.deleteIfExists(directory.resolve(eldest.getKey()));
+            } catch (IOException e) {
+                // still mapped somewhere (on some platforms), or already gone; it will be retried on next startup
+            }
+        }
+    }
+
+    private synchronized void remove(final String name) {
+        Long bytes = index.remove(name);
+        if (bytes != null) {
+            totalBytes -= bytes;
+        }
+    }
+
+    private static InputStream map(final Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            return new ByteBufferInputStream(channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()));
+        }
+    }
+
+    static String fileName(final String uri, final Long id, final Long updateId, final String extension) {
+        String key = uri + '\n' + id + '\n' + updateId + '\n' + extension;
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(key.getBytes(StandardCharsets.UTF_8));
+            StringBuilder result = new StringBuilder(digest.length * 2 + ARTIFACT_SUFFIX.length());
+            for (byte b : digest) {
+                result.append(HEX[(b >> 4) & 0xF]).append(HEX[b & 0xF]);
+            }
+            return result.append(ARTIFACT_SUFFIX).toString();
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    }
+
+    /**
+     * An {@link InputStream} over a {@link ByteBuffer}, such as a memory mapping.
+     */
+    static class ByteBufferInputStream extends InputStream {
+
+        private final ByteBuffer buffer;
+
+        ByteBufferInputStream(final ByteBuffer buffer) {
+            this.buffer = buffer;
+        }
+
+        @Override
+        public int read() {
+            return buffer.hasRemaining() ? buffer.get() & 0xFF : -1;
+        }
+
+        @Override
+        public int read(final byte[] bytes, final int off, final int len) {
+            if (len == 0) {
+                return 0;
+            }
+            if (!buffer.hasRemaining()) {
+                return -1;
+            }
+            int count = Math.min(len, buffer.remaining());
+            buffer.get(bytes, off, count);
+            return count;
+        }
+
+        @Override
+        public long skip(final long n) {
+            int count = (int) Math.max(0, Math.min(n, buffer.remaining()));
+            buffer.position(buffer.position() + count);
+            return count;
+        }
+
+        @Override
+        public int available() {
+            return buffer.remaining();
+        }
+    }
+}
@@ -1,21 +1,47 @@
 package com.clearcapital.oss.rest;
 
+import java.io.IOException;
 import java.io.InputStream;
+import java.lang.reflect.Type;
 import java.net.URI;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
-import java.util.Map.Entry;
-
-import javax.ws.rs.client.Entity;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutorService;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
+
+import javax.ws.rs.HttpMethod;
+import javax.ws.rs.ProcessingException;
 import javax.ws.rs.client.Invocation.Builder;
 import javax.ws.rs.client.WebTarget;
 import javax.ws.rs.core.GenericType;
+import javax.ws.rs.core.HttpHeaders;
 import javax.ws.rs.core.MediaType;
+import javax.ws.rs.core.MultivaluedHashMap;
 import javax.ws.rs.core.MultivaluedMap;
 import javax.ws.rs.core.Response;
+import javax.ws.rs.core.Response.Status;
+import javax.ws.rs.core.Response.Status.Family;
 import javax.ws.rs.core.UriBuilder;
 
+import org.reactivestreams.Publisher;
+
+import com.clearcapital.oss.rest.WriteFingerprints.Fingerprint;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.MappingIterator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
 /**
  * A REST client for a single resource where the server follows these conventions:
  * 
@@ -42,28 +68,105 @@ import javax.ws.rs.core.UriBuilder;
  * <li>{@code GET _baseUri_/_key_ } will return a single {@code <T>} object, if there is one with the specified
  * {@code _key_}. If there are multiple versions, it will return the latest one.</li>
  * 
+ * <p>
+ * Entities are sent and received as JSON unless another {@link WireFormat} is set; see
+ * {@link #setWireFormat(WireFormat)}.
+ * </p>
+ * 
+ * <p>
+ * {@link #patch(Long, Object, Long)} sends only what changed since the entity was last read, as a JSON Merge Patch,
+ * where the server supports it; see {@link #setEntitySnapshots(EntitySnapshots, Function)}.
+ * </p>
+ * 
+ * <p>
+ * Writes of an unchanged entity can be skipped altogether; see {@link #setWriteFingerprints(WriteFingerprints)}.
+ * </p>
+ * 
+ * <p>
+ * Callers making many requests in one session can bind it once, with {@link #withSession(long)}.
+ * </p>
+ * 
+ * <p>
+ * An entity and its child resources can be read concurrently, as one; see
+ * {@link #readComposite(Long, Long, CompositeRead)}.
+ * </p>
+ * 
+ * <p>
+ * Hot lists and keyed reads can be kept loaded and refreshed in the background; see
+ * {@link #setRefreshAheadCache(RefreshAheadCache)}.
+ * </p>
+ * 
+ * <p>
+ * Many deletes, overwrites and updates can be run concurrently, without stopping at the first failure; see
+ * {@link #bulk(Stream, Long, int, boolean)}.
+ * </p>
+ * 
+ * <p>
+ * Fire-and-forget writes can be queued durably and sent in the background; see
+ * {@link #setWriteBehindJournal(WriteBehindJournal)}.
+ * </p>
+ * 
+ * <p>
+ * Requests are sent through a {@link RestTransport}. Clients constructed from a {@link WebTarget} use a
+ * {@link JerseyTransport}; any other transport can be supplied directly.
+ * </p>
  */
 public class BaseResourceClient<T> {
 
+    static final String SESSION_COOKIE = "X-SessionId";
+
+    private static final String[] JSON = { MediaType.APPLICATION_JSON };
+    private static final String[] ANY = {};
+    private static final int STREAM_CHUNK_SIZE = 8192;
+
+    /** For bodies coded outside the transport: streamed lists, lazy reads and journaled writes. */
+    private static final ConcurrentMap<WireFormat, ObjectMapper> STREAMING_MAPPERS = new ConcurrentHashMap<>();
+
     private WebTarget service;
+    private RestTransport transport;
     private Class<T> clazz;
     private String uri;
+    private ArtifactCache artifactCache;
+    private WriteBehindJournal writeBehindJournal;
+    private RefreshAheadCache refreshAheadCache;
+    private ExistenceCache existenceCache;
+    private Function<? super T, Long> idOf;
+    private EntitySnapshots entitySnapshots;
+    private Function<? super T, Long> snapshotIdOf;
+    private volatile boolean patchRefused;
+    private WriteFingerprints writeFingerprints;
+    private volatile WireFormat wireFormat = WireFormat.JSON;
+    private volatile String[] accept = JSON;
 
     public BaseResourceClient(final WebTarget target, final Class<T> clazz, final String uri) {
-        this.service = target;
-        this.clazz = clazz;
-        this.uri = uri;
+        this(target, new JerseyTransport(target), clazz, uri);
     }
 
     public BaseResourceClient(final WebTarget target, final GenericType<T> gt, final String uri) {
+        this(target, new JerseyTransport(target), rawType(gt), uri);
+    }
+
+    public BaseResourceClient(final RestTransport transport, final Class<T> clazz, final String uri) {
+        this(null, transport, clazz, uri);
+    }
+
+    public BaseResourceClient(final RestTransport transport, final GenericType<T> gt, final String uri) {
+        this(null, transport, rawType(gt), uri);
+    }
+
+    BaseResourceClient(final WebTarget target, final RestTransport transport, final Class<T> clazz,
+            final String uri) {
         this.service = target;
+        this.transport = transport;
+        this.clazz = clazz;
+        this.uri = uri;
+    }
 
+    private static <T> Class<T> rawType(final GenericType<T> gt) {
         // This cast is a bit lame. Jersey 2 vs Jersey 1 fail.
         @SuppressWarnings("unchecked")
         Class<T> rawType = (Class<T>) gt.getRawType();
-
-        this.clazz = rawType;
-        this.uri = uri;
+        return rawType;
     }
 
     /**
@@ -72,7 +175,12 @@ public class BaseResourceClient<T> {
      * {@code GET {uri}/id/available}
      */
     public Boolean available(final Long id) {
-        return service.path(uri).path(id.toString()).path("available").request().get(Boolean.class);
+        Boolean cached = existenceCache != null ? existenceCache.getAvailable(id) : null;
+        if (cached != null) {
+            return cached;
+        }
+        return cacheAvailable(id,
+                invoke(request(HttpMethod.GET, ANY).addPath(id.toString()).addPath("available"), Boolean.class));
     }
 
     /**
@@ -81,8 +189,24 @@ public class BaseResourceClient<T> {
      * {@code GET {uri}/id/available}
      */
     public Boolean available(final Long id, final Long sessionId) {
-        return service.path(uri).path(id.toString()).path("available").request()
-                .cookie("X-SessionId", sessionId.toString()).get(Boolean.class);
+        return available(id, sessionCookie(sessionId));
+    }
+
+    Boolean available(final Long id, final String sessionCookie) {
+        Boolean cached = existenceCache != null ? existenceCache.getAvailable(id) : null;
+        if (cached != null) {
+            return cached;
+        }
+        return cacheAvailable(id, invoke(
+                sessionRequest(HttpMethod.GET, sessionCookie, ANY).addPath(id.toString()).addPath("available"),
+                Boolean.class));
+    }
+
+    private Boolean cacheAvailable(final Long id, final Boolean result) {
+        if (existenceCache != null && result != null) {
+            existenceCache.putAvailable(id, result);
+        }
+        return result;
     }
 
     /**
@@ -91,7 +215,7 @@ public class BaseResourceClient<T> {
      * @return the entity, as returned by the service.
      */
     public T create(final T entity) {
-        return service.path(uri).request(MediaType.APPLICATION_JSON).post(Entity.json(entity), clazz);
+        return written(invoke(request(HttpMethod.POST, accept).setEntity(entity, contentType()), clazz));
     }
 
     /**
@@ -100,8 +224,12 @@ public class BaseResourceClient<T> {
      * @return the entity, as returned by the service.
      */
     public T create(final T entity, final Long sessionId) {
-        return service.path(uri).request(MediaType.APPLICATION_JSON).cookie("X-SessionId", sessionId.toString())
-                .post(Entity.json(entity), clazz);
+        return create(entity, sessionCookie(sessionId));
+    }
+
+    T create(final T entity, final String sessionCookie) {
+        return written(invoke(
+                sessionRequest(HttpMethod.POST, sessionCookie, accept).setEntity(entity, contentType()), clazz));
     }
 
     /**
@@ -110,8 +238,12 @@ public class BaseResourceClient<T> {
      * @return the entity, as returned by the service.
      */
     public T create(final T entity, final MultivaluedMap<String, String> queryParams, final Long sessionId) {
-        return applyQueryParams(service.path(uri), queryParams).request(MediaType.APPLICATION_JSON)
-                .cookie("X-SessionId", sessionId.toString()).post(Entity.json(entity), clazz);
+        return create(entity, queryParams, sessionCookie(sessionId));
+    }
+
+    T create(final T entity, final MultivaluedMap<String, String> queryParams, final String sessionCookie) {
+        return written(invoke(sessionRequest(HttpMethod.POST, sessionCookie, accept).setQueryParams(queryParams)
+                .setEntity(entity, contentType()), clazz));
     }
 
     /**
@@ -122,8 +254,11 @@ public class BaseResourceClient<T> {
      */
     @Deprecated
     public T create(final Long id, final T entity, final Long sessionId) {
-        return service.path(uri).path(id.toString()).request(MediaType.APPLICATION_JSON)
-                .cookie("X-SessionId", sessionId.toString()).post(Entity.json(entity), clazz);
+        T result = invoke(sessionRequest(HttpMethod.POST, sessionId, accept).addPath(id.toString())
+                .setEntity(entity, contentType()), clazz);
+        writtenId(id);
+        forgetFingerprint(id.toString());
+        return snapshot(id, result);
     }
 
     /**
@@ -134,27 +269,35 @@ public class BaseResourceClient<T> {
      */
     @Deprecated
     public T create(final String key, final T entity, final Long sessionId) {
-        return service.path(uri).path(key).request(MediaType.APPLICATION_JSON)
-                .cookie("X-SessionId", sessionId.toString()).post(Entity.json(entity), clazz);
+        return written(invoke(sessionRequest(HttpMethod.POST, sessionId, accept).addPath(key)
+                .setEntity(entity, contentType()), clazz));
     }
 
     /**
      * create empty list with session
      */
     public <U> U createList(final Long sessionId, final GenericType<U> superType) {
-        return getSessionRequest(sessionId, MediaType.APPLICATION_JSON)
-                .post(Entity.json(null), superType);
+        return invoke(sessionRequest(HttpMethod.POST, sessionId, accept).setEntity(null, MediaType.APPLICATION_JSON),
+                superType.getType());
     }
 
     /**
      * create given list and session id
      */
     public <U> U createList(final Collection<U> requestEntity, final Long sessionId, final GenericType<U> superType) {
-        return getSessionRequest(sessionId, MediaType.APPLICATION_JSON).post(Entity.json(requestEntity), superType);
+        return invoke(sessionRequest(HttpMethod.POST, sessionId, accept).setEntity(requestEntity,
+                contentType()), superType.getType());
     }
 
+    /**
+     * A JAX-RS request builder for {@code this.uri}, carrying the session cookie. Only available on clients that were
+     * constructed from a {@link WebTarget}.
+     */
     public Builder getSessionRequest(Long sessionId, String... acceptedResponseTypes) {
-        return service.path(uri).request(acceptedResponseTypes).cookie("X-SessionId", sessionId.toString());
+        if (service == null) {
+            throw new IllegalStateException("This client is not backed by a WebTarget");
+        }
+        return service.path(uri).request(acceptedResponseTypes).cookie(SESSION_COOKIE, sessionId.toString());
     }
 
     // TODO: support multi-part
@@ -168,51 +311,132 @@ public class BaseResourceClient<T> {
      * Create with session, expecting no content
      */
     public void createNoResponse(final T entity, final Long sessionId) {
-        service.path(uri).request(MediaType.APPLICATION_JSON).cookie("X-SessionId", sessionId.toString())
-                .post(Entity.json(entity));
+        createNoResponse(entity, sessionCookie(sessionId));
+    }
+
+    void createNoResponse(final T entity, final String sessionCookie) {
+        writeNoResponse(sessionRequest(HttpMethod.POST, sessionCookie, accept), entity);
+        if (existenceCache != null) {
+            existenceCache.writtenUnknown();
+        }
     }
 
     /**
      * Delete by Id
      */
     public Response delete(final Long id) {
-        return service.path(uri).path(id.toString()).request().delete();
+        return deleted(id, invoke(request(HttpMethod.DELETE, ANY).addPath(id.toString())));
     }
 
     /**
      * Delete by Id, with session
      */
     public Response delete(final Long id, final Long sessionId) {
-        return service.path(uri).path(id.toString()).request().cookie("X-SessionId", sessionId.toString()).delete();
+        return delete(id, sessionCookie(sessionId));
+    }
+
+    Response delete(final Long id, final String sessionCookie) {
+        return deleted(id, invoke(sessionRequest(HttpMethod.DELETE, sessionCookie, ANY).addPath(id.toString())));
+    }
+
+    /**
+     * Run a bulk delete, returning its outcome with the response status, and throwing, as the other bulk operations
+     * do, if it was unsuccessful.
+     */
+    BulkResult<T> delete(final BulkOperation<T> operation, final long index, final String sessionCookie) {
+        Long id = operation.getId();
+        RestResponse response = send(sessionRequest(HttpMethod.DELETE, sessionCookie, ANY).addPath(id.toString()));
+        deleted(id, null);
+        checkStatus(response).close();
+        return new BulkResult<T>(index, operation, response.getStatus(), null, null);
     }
 
     /**
      * Delete a specific version (id/updateId), given a sessionId
      */
     public Response delete(final Long id, final Long updateId, final Long sessionId) {
-        return service.path(uri).path(id.toString()).path("versions").path(updateId.toString()).request()
-                .cookie("X-SessionId", sessionId.toString()).delete();
+        Response response = invoke(sessionRequest(HttpMethod.DELETE, sessionId, ANY).addPath(id.toString())
+                .addPath("versions").addPath(updateId.toString()));
+        if (existenceCache != null) {
+            existenceCache.deleted(id, updateId);
+        }
+        if (entitySnapshots != null) {
+            entitySnapshots.remove(id);
+        }
+        forgetFingerprint(id.toString());
+        return response;
     }
 
     /**
      * Delete given id and queryParams
      */
     public Response delete(final Long id, final MultivaluedMap<String, String> queryParams) {
-        return applyQueryParams(service.path(uri).path(id.toString()), queryParams).request().delete();
+        return deleted(id,
+                invoke(request(HttpMethod.DELETE, ANY).addPath(id.toString()).setQueryParams(queryParams)));
     }
 
     /**
      * Delete by key, with session id.
      */
     public Response delete(final String key, final Long sessionId) {
-        return service.path(uri).path(key.toString()).request().cookie("X-SessionId", sessionId.toString()).delete();
+        return delete(key, sessionCookie(sessionId));
+    }
+
+    Response delete(final String key, final String sessionCookie) {
+        return deleted(null, invoke(sessionRequest(HttpMethod.DELETE, sessionCookie, ANY).addPath(key)));
+    }
+
+    /**
+     * Run many deletes, overwrites and updates with {@code sessionId}, up to {@code concurrency} at a time, passing
+     * the outcome of each to {@code results} as it completes, and returning once all have. A failed operation does not
+     * stop the others; its outcome holds the exception the single-item method would have thrown. When {@code ordered},
+     * operations on the same id or key are run one after another, in the order given; otherwise they may overlap or
+     * complete out of order.
+     * 
+     * <p>
+     * Operations are read as they are run, so {@code operations} may be arbitrarily long. {@code results} is called
+     * once at a time, but from the threads running the operations, so should be quick; anything it throws stops the
+     * run and is rethrown once the operations in flight have completed. If the calling thread is interrupted, no more
+     * operations are started, and the thread's interrupt status is set when this returns.
+     * </p>
+     */
+    public void bulk(final Iterator<? extends BulkOperation<T>> operations, final Long sessionId,
+            final int concurrency, final boolean ordered, final Consumer<? super BulkResult<T>> results) {
+        bulk(operations, sessionCookie(sessionId), concurrency, ordered, results);
+    }
+
+    void bulk(final Iterator<? extends BulkOperation<T>> operations, final String sessionCookie,
+            final int concurrency, final boolean ordered, final Consumer<? super BulkResult<T>> results) {
+        new BulkExecutor<T>(this, sessionCookie, concurrency, ordered, results, RestExecutors.defaultExecutor())
+                .run(operations);
+    }
+
+    /**
+     * As {@link #bulk(Iterator, Long, int, boolean, Consumer)}, collecting the outcomes in the order the operations
+     * were given.
+     */
+    public List<BulkResult<T>> bulk(final Stream<? extends BulkOperation<T>> operations, final Long sessionId,
+            final int concurrency, final boolean ordered) {
+        return bulk(operations, sessionCookie(sessionId), concurrency, ordered);
+    }
+
+    List<BulkResult<T>> bulk(final Stream<? extends BulkOperation<T>> operations, final String sessionCookie,
+            final int concurrency, final boolean ordered) {
+        List<BulkResult<T>> results = new ArrayList<>();
+        bulk(operations.iterator(), sessionCookie, concurrency, ordered, results::add);
+        results.sort(Comparator.comparingLong(BulkResult::getIndex));
+        return results;
     }
 
     /**
      * Delete all, given session id.
      */
     public Response deleteAll(final Long sessionId) {
-        return service.path(uri).request().cookie("X-SessionId", sessionId.toString()).delete();
+        return deleteAll(sessionCookie(sessionId));
+    }
+
+    Response deleteAll(final String sessionCookie) {
+        return deleted(null, invoke(sessionRequest(HttpMethod.DELETE, sessionCookie, ANY)));
     }
 
     /**
@@ -232,7 +456,7 @@ public class BaseResourceClient<T> {
         builder.path("" + updateId);
         builder.path(relativePath);
         URI subUri = builder.build();
-        return new BaseResourceClient<U>(service, childResourceClass, subUri.toString());
+        return new BaseResourceClient<U>(service, transport, childResourceClass, subUri.toString());
     }
 
     /**
@@ -249,7 +473,7 @@ public class BaseResourceClient<T> {
         builder.path("" + id);
         builder.path(relativePath);
         URI subUri = builder.build();
-        return new BaseResourceClient<U>(service, childResourceClass, subUri.toString());
+        return new BaseResourceClient<U>(service, transport, childResourceClass, subUri.toString());
     }
 
     /**
@@ -264,7 +488,7 @@ public class BaseResourceClient<T> {
         UriBuilder builder = UriBuilder.fromUri(uri);
         builder.path(relativePath);
         URI subUri = builder.build();
-        return new BaseResourceClient<U>(service, childResourceClass, subUri.toString());
+        return new BaseResourceClient<U>(service, transport, childResourceClass, subUri.toString());
     }
 
     /**
@@ -281,7 +505,7 @@ public class BaseResourceClient<T> {
         builder.path(key);
         builder.path(relativePath);
         URI subUri = builder.build();
-        return new BaseResourceClient<U>(service, childResourceClass, subUri.toString());
+        return new BaseResourceClient<U>(service, transport, childResourceClass, subUri.toString());
     }
 
     /**
@@ -298,7 +522,7 @@ public class BaseResourceClient<T> {
         builder.path("" + id);
         builder.path(relativePath);
         URI subUri = builder.build();
-        return new BaseResourceClient<U>(service, genericType, subUri.toString());
+        return new BaseResourceClient<U>(service, transport, rawType(genericType), subUri.toString());
     }
 
     /**
@@ -315,7 +539,7 @@ public class BaseResourceClient<T> {
         builder.path(key);
         builder.path(relativePath);
         URI subUri = builder.build();
-        return new BaseResourceClient<U>(service, genericType, subUri.toString());
+        return new BaseResourceClient<U>(service, transport, rawType(genericType), subUri.toString());
     }
 
     /**
@@ -328,18 +552,137 @@ public class BaseResourceClient<T> {
     public Map<Long, Long> getCounts(final Long sessionId) {
         GenericType<Map<Long, Long>> gt = new GenericType<Map<Long, Long>>() {
         };
-        return service.path(uri).request(MediaType.APPLICATION_JSON).cookie("X-SessionId", sessionId.toString())
-                .get(gt);
+        return invoke(sessionRequest(HttpMethod.GET, sessionId, accept), gt.getType());
     }
 
+    /**
+     * @return the {@link WebTarget} this client was constructed from, or {@code null} if it was constructed from some
+     *         other {@link RestTransport}.
+     */
     public WebTarget getService() {
         return service;
     }
 
+    public RestTransport getTransport() {
+        return transport;
+    }
+
+    /**
+     * A view of this client bound to {@code sessionId}, whose session cookie is rendered once rather than on every
+     * request. Views are cheap, and share this client's caches and settings.
+     */
+    public SessionClient<T> withSession(final long sessionId) {
+        return new SessionClient<T>(this, sessionId);
+    }
+
     public String getUri() {
         return uri;
     }
 
+    public ArtifactCache getArtifactCache() {
+        return artifactCache;
+    }
+
+    /**
+     * Serve {@link #readStreamVersion(Long, Long, String, Long)} from {@code artifactCache} where possible. Versioned
+     * artifacts are immutable, so cached copies never go stale. Not inherited by child clients.
+     */
+    public void setArtifactCache(final ArtifactCache artifactCache) {
+        this.artifactCache = artifactCache;
+    }
+
+    public WriteBehindJournal getWriteBehindJournal() {
+        return writeBehindJournal;
+    }
+
+    /**
+     * Append {@link #createNoResponse(Object, Long)} and {@link #updateNoResponse(String, Object, Long)} to
+     * {@code writeBehindJournal} rather than sending them, so that they return as soon as the write is recorded. The
+     * entity is encoded at once, as JSON whatever the {@link WireFormat}, since a journaled write cannot fall back to
+     * JSON if the server refuses the format. Not inherited by child clients.
+     */
+    public void setWriteBehindJournal(final WriteBehindJournal writeBehindJournal) {
+        this.writeBehindJournal = writeBehindJournal;
+    }
+
+    public RefreshAheadCache getRefreshAheadCache() {
+        return refreshAheadCache;
+    }
+
+    /**
+     * Serve {@link #readList(Long, GenericType)} (and its variants) and {@link #read(String, Long)} (with or without a
+     * session) from {@code refreshAheadCache}, which refreshes them in the background. Writes made through this client
+     * do not update it; call {@link RefreshAheadCache#expireAll()} to have everything refreshed. Not inherited by child
+     * clients.
+     */
+    public void setRefreshAheadCache(final RefreshAheadCache refreshAheadCache) {
+        this.refreshAheadCache = refreshAheadCache;
+    }
+
+    public WireFormat getWireFormat() {
+        return wireFormat;
+    }
+
+    /**
+     * Send entities as {@code wireFormat}, and ask for it in responses while still accepting JSON. If the server
+     * refuses the format (415 or 406), the request is repeated as JSON and this client stays on JSON from then on.
+     * Methods that take an explicit {@link MediaType} are unaffected.
+     */
+    public void setWireFormat(final WireFormat wireFormat) {
+        this.wireFormat = wireFormat;
+        this.accept = wireFormat.getAccept();
+    }
+
+    public ExistenceCache getExistenceCache() {
+        return existenceCache;
+    }
+
+    /**
+     * Serve {@link #available(Long)} and {@link #versionAvailable(Long, Long, Long)} from {@code existenceCache} where
+     * possible. Writes made through this client keep it current: creates and updates mark the entity available, and
+     * deletes forget the entity or version. Where only the returned entity identifies what was written, {@code idOf}
+     * extracts its id; if {@code idOf} is {@code null} or returns {@code null}, all negative answers are dropped
+     * instead. Not inherited by child clients.
+     */
+    public void setExistenceCache(final ExistenceCache existenceCache, final Function<? super T, Long> idOf) {
+        this.existenceCache = existenceCache;
+        this.idOf = idOf;
+    }
+
+    public EntitySnapshots getEntitySnapshots() {
+        return entitySnapshots;
+    }
+
+    /**
+     * Keep a snapshot of each entity read by id, for {@link #patch(Long, Object, Long)} to diff against. Writes made
+     * through this client keep the snapshots current: updates by id replace them, deletes drop them. Where only the
+     * returned entity identifies what was written, {@code idOf} extracts its id; if {@code idOf} is {@code null} or
+     * returns {@code null}, all snapshots are dropped instead. Not inherited by child clients.
+     */
+    public void setEntitySnapshots(final EntitySnapshots entitySnapshots, final Function<? super T, Long> idOf) {
+        this.entitySnapshots = entitySnapshots;
+        this.snapshotIdOf = idOf;
+    }
+
+    public WriteFingerprints getWriteFingerprints() {
+        return writeFingerprints;
+    }
+
+    /**
+     * Skip overwrites and updates by key or id when the entity is unchanged since it was last written or read at that
+     * key or id through this client, as judged by {@code writeFingerprints}; the skipped call returns the entity it was
+     * given. Each method that skips writes has an overload that takes {@code force}, to write regardless.
+     * 
+     * <p>
+     * Only writes made through this client are seen, so a change made elsewhere is not undone by rewriting the value
+     * this client last wrote; force the write, or clear the fingerprints, where that matters. Address each entity
+     * consistently, by id or by key, since the two are fingerprinted separately. Not inherited by child clients.
+     * </p>
+     */
+    public void setWriteFingerprints(final WriteFingerprints writeFingerprints) {
+        this.writeFingerprints = writeFingerprints;
+    }
+
     /**
      * Overwrite by {@code key}, with {@code sessionId}
      * 
@@ -353,8 +696,32 @@ public class BaseResourceClient<T> {
      * </pre>
      */
     public T overwrite(final String key, final T entity, final Long sessionId) {
-        return service.path(uri).path(key).request(MediaType.APPLICATION_JSON)
-                .cookie("X-SessionId", sessionId.toString()).put(Entity.json(entity), clazz);
+        return overwrite(key, entity, sessionId, false);
+    }
+
+    /**
+     * Overwrite by {@code key}, with {@code sessionId}, even if unchanged when {@code force}; see
+     * {@link #setWriteFingerprints(WriteFingerprints)}.
+     */
+    public T overwrite(final String key, final T entity, final Long sessionId, final boolean force) {
+        return overwrite(key, entity, sessionCookie(sessionId), force);
+    }
+
+    T overwrite(final String key, final T entity, final String sessionCookie, final boolean force) {
+        return elide(key, entity, force, () -> written(invoke(putRequest(key, entity, sessionCookie), clazz)));
+    }
+
+    /**
+     * Run a bulk overwrite, returning its outcome with the response status.
+     */
+    BulkResult<T> overwrite(final BulkOperation<T> operation, final long index, final String sessionCookie) {
+        String key = operation.getKey();
+        T entity = operation.getEntity();
+        return elide(key, entity, false, () -> {
+            RestResponse response = checkStatus(send(putRequest(key, entity, sessionCookie)));
+            T result = written(response.readEntity(clazz));
+            return new BulkResult<T>(index, operation, response.getStatus(), result, null);
+        }, new BulkResult<T>(index, operation, 0, entity, null));
     }
 
     /**
@@ -371,8 +738,8 @@ public class BaseResourceClient<T> {
      * </pre>
      */
     public T overwrite(final String key, final T entity, final MediaType mediaType, final Long sessionId) {
-        return service.path(uri).path(key).request(MediaType.APPLICATION_JSON)
-                .cookie("X-SessionId", sessionId.toString()).put(Entity.entity(entity, mediaType), clazz);
+        return written(invoke(sessionRequest(HttpMethod.PUT, sessionId, accept).addPath(key)
+                .setEntity(entity, mediaType.toString()), clazz));
     }
 
     /**
@@ -388,8 +755,12 @@ public class BaseResourceClient<T> {
      * </pre>
      */
     public T overwrite(final T entity, final Long sessionId) {
-        return service.path(uri).request(MediaType.APPLICATION_JSON).cookie("X-SessionId", sessionId.toString())
-                .put(Entity.json(entity), clazz);
+        return overwrite(entity, sessionCookie(sessionId));
+    }
+
+    T overwrite(final T entity, final String sessionCookie) {
+        return written(invoke(
+                sessionRequest(HttpMethod.PUT, sessionCookie, accept).setEntity(entity, contentType()), clazz));
     }
 
     /**
@@ -402,7 +773,7 @@ public class BaseResourceClient<T> {
      * </pre>
      */
     public T read() {
-        return service.path(uri).request(MediaType.APPLICATION_JSON).get(clazz);
+        return invoke(request(HttpMethod.GET, accept), clazz);
     }
 
     /**
@@ -416,8 +787,7 @@ public class BaseResourceClient<T> {
      * </pre>
      */
     public <U> U read(final GenericType<U> genericType, final Long sessionId) {
-        return service.path(uri).request(MediaType.APPLICATION_JSON).cookie("X-SessionId", sessionId.toString())
-                .get(genericType);
+        return invoke(sessionRequest(HttpMethod.GET, sessionId, accept), genericType.getType());
     }
 
     /**
@@ -432,8 +802,8 @@ public class BaseResourceClient<T> {
      */
     public <U> U read(final GenericType<U> genericType, final MultivaluedMap<String, String> queryParams,
             final Long sessionId) {
-        return applyQueryParams(service.path(uri), queryParams).request(MediaType.APPLICATION_JSON)
-                .cookie("X-SessionId", sessionId.toString()).get(genericType);
+        return invoke(sessionRequest(HttpMethod.GET, sessionId, accept).setQueryParams(queryParams),
+                genericType.getType());
     }
 
     /**
@@ -447,7 +817,8 @@ public class BaseResourceClient<T> {
      * </pre>
      */
     public T read(final Long id) {
-        return service.path(uri).path(id.toString()).request(MediaType.APPLICATION_JSON).get(clazz);
+        return fingerprinted(id.toString(),
+                snapshot(id, invoke(request(HttpMethod.GET, accept).addPath(id.toString()), clazz)));
     }
 
     /**
@@ -461,8 +832,12 @@ public class BaseResourceClient<T> {
      * </pre>
      */
     public T read(final Long id, final Long sessionId) {
-        return service.path(uri).path(id.toString()).request(MediaType.APPLICATION_JSON)
-                .cookie("X-SessionId", sessionId.toString()).get(clazz);
+        return read(id, sessionCookie(sessionId));
+    }
+
+    T read(final Long id, final String sessionCookie) {
+        return fingerprinted(id.toString(), snapshot(id,
+                invoke(sessionRequest(HttpMethod.GET, sessionCookie, accept).addPath(id.toString()), clazz)));
     }
 
     /**
@@ -476,8 +851,8 @@ public class BaseResourceClient<T> {
      * </pre>
      */
     public T read(final Long id, final Long sessionId, final GenericType<T> genericType) {
-        return service.path(uri).path(id.toString()).request(MediaType.APPLICATION_JSON)
-                .cookie("X-SessionId", sessionId.toString()).get(genericType);
+        return fingerprinted(id.toString(), snapshot(id, invoke(sessionRequest(HttpMethod.GET, sessionId, accept)
+                .addPath(id.toString()), genericType.getType())));
     }
 
     /**
@@ -498,17 +873,17 @@ public class BaseResourceClient<T> {
      */
     @Deprecated
     public String readString(final Long id, final MediaType mediaType, final Long sessionId) {
-        WebTarget resource = service.path(uri);
+        RestRequest.Builder request = sessionRequest(HttpMethod.GET, sessionId, mediaType.toString());
         if (!MediaType.APPLICATION_JSON_TYPE.equals(mediaType)) {
             String extension = ".json";
             if (MediaType.APPLICATION_XML_TYPE.equals(mediaType)) {
                 extension = ".xml";
             }
-            resource = resource.path(id.toString() + extension);
+            request.addPath(id.toString() + extension);
         } else {
-            resource = resource.path(id.toString());
+            request.addPath(id.toString());
         }
-        return resource.request(mediaType).cookie("X-SessionId", sessionId.toString()).get(String.class);
+        return invoke(request, String.class);
     }
 
     /**
@@ -522,8 +897,8 @@ public class BaseResourceClient<T> {
      * </pre>
      */
     public T read(final Long id, final MultivaluedMap<String, String> queryParams, final Long sessionId) {
-        return applyQueryParams(service.path(uri).path(id.toString()), queryParams).request(MediaType.APPLICATION_JSON)
-                .cookie("X-SessionId", sessionId.toString()).get(clazz);
+        return invoke(sessionRequest(HttpMethod.GET, sessionId, accept).addPath(id.toString())
+                .setQueryParams(queryParams), clazz);
     }
 
     /**
@@ -538,145 +913,498 @@ public class BaseResourceClient<T> {
      */
     T read(final Long id, final MultivaluedMap<String, String> queryParams, final Long sessionId,
             final GenericType<T> gt) {
-        return applyQueryParams(service.path(uri).path(id.toString()), queryParams).request(MediaType.APPLICATION_JSON)
-                .cookie("X-SessionId", sessionId.toString()).get(gt);
+        return invoke(sessionRequest(HttpMethod.GET, sessionId, accept).addPath(id.toString())
+                .setQueryParams(queryParams), gt.getType());
     }
 
     public T read(final MultivaluedMap<String, String> queryParams, final Long sessionId) {
-        return applyQueryParams(service.path(uri), queryParams).request(MediaType.APPLICATION_JSON)
-                .cookie("X-SessionId", sessionId.toString()).get(clazz);
+        return read(queryParams, sessionCookie(sessionId));
+    }
+
+    T read(final MultivaluedMap<String, String> queryParams, final String sessionCookie) {
+        return invoke(sessionRequest(HttpMethod.GET, sessionCookie, accept).setQueryParams(queryParams), clazz);
     }
 
     // read with key
     public T read(final String key) {
-        return service.path(uri).path(key).request(MediaType.APPLICATION_JSON).get(clazz);
+        return cached("key\n" + key, () -> fingerprinted(key, invoke(request(HttpMethod.GET, accept).addPath(key),
+                clazz)));
     }
 
     // read with session, using a key
     public T read(final String key, final Long sessionId) {
-        return service.path(uri).path(key).request(MediaType.APPLICATION_JSON)
-                .cookie("X-SessionId", sessionId.toString()).get(clazz);
+        return read(key, sessionCookie(sessionId));
+    }
+
+    T read(final String key, final String sessionCookie) {
+        return cached("key\n" + key + '\n' + sessionCookie, () -> fingerprinted(key,
+                invoke(sessionRequest(HttpMethod.GET, sessionCookie, accept).addPath(key), clazz)));
+    }
+
+    /**
+     * Get with given {@code id} and {@code sessionId}, but keep the entity as the body it arrived as, and decode only
+     * the parts of it that are asked for; see {@link LazyEntity}. Lazily read entities do not update the snapshots or
+     * fingerprints that {@link #patch(Long, Object, Long)} and {@link #setWriteFingerprints(WriteFingerprints)} rely
+     * on. As with {@link #publishList(Long, MultivaluedMap)}, parts are decoded with this library's standard Jackson
+     * configuration.
+     * 
+     * <pre>
+     * {@code
+     * GET _uri_/_id_
+     * Cookie: X-SessionId=_sessionId_
+     * }
+     * </pre>
+     */
+    public LazyEntity<T> readLazy(final Long id, final Long sessionId) {
+        return readLazy(id, sessionCookie(sessionId));
+    }
+
+    LazyEntity<T> readLazy(final Long id, final String sessionCookie) {
+        RestResponse response = checkStatus(
+                send(sessionRequest(HttpMethod.GET, sessionCookie, accept).addPath(id.toString())));
+        ObjectMapper objectMapper = mapperFor(response);
+        byte[] body = response.readEntity(byte[].class);
+        return new LazyEntity<T>(body != null ? body : new byte[0], objectMapper, clazz);
+    }
+
+    /**
+     * Get the entity with given {@code id} and {@code sessionId} along with the child resources declared by
+     * {@code read}, all at once rather than one after another, so that the whole takes about as long as the slowest
+     * single read. Each child is read as {@code getChildClient(type, id, relativePath).readList(sessionId, type)}
+     * would, on a background thread, while the parent is read on this one. A child that fails is reported in the
+     * result, with the rest; if the parent fails, its exception is thrown, without waiting for the children.
+     * 
+     * <pre>
+     * {@code
+     * GET _uri_/_id_
+     * GET _uri_/_id_/_relativePath_
+     * ...
+     * Cookie: X-SessionId=_sessionId_
+     * }
+     * </pre>
+     */
+    public CompositeEntity<T> readComposite(final Long id, final Long sessionId, final CompositeRead read) {
+        return readComposite(id, sessionCookie(sessionId), read);
+    }
+
+    CompositeEntity<T> readComposite(final Long id, final String sessionCookie, final CompositeRead read) {
+        return read.run(this, id, sessionCookie, RestExecutors.defaultExecutor());
+    }
+
+    /**
+     * Get {@code _uri_/_id_/_relativePath_}, as a child client would.
+     */
+    <U> U readChild(final Long id, final String relativePath, final Type type, final String sessionCookie) {
+        return invoke(sessionRequest(HttpMethod.GET, sessionCookie, JSON).addPath(id.toString()).addPath(relativePath),
+                type);
     }
 
     // read list of items
     public <U> U readList(final GenericType<U> superType) {
-        return service.path(uri).request(MediaType.APPLICATION_JSON).get(superType);
+        return cached("list\n" + superType.getType().getTypeName(),
+                () -> invoke(request(HttpMethod.GET, accept), superType.getType()));
     }
 
     // read list with session
     public <U> U readList(final Long sessionId, final GenericType<U> genericType) {
-        return service.path(uri).request(MediaType.APPLICATION_JSON).cookie("X-SessionId", sessionId.toString())
-                .get(genericType);
+        return readList(sessionCookie(sessionId), genericType);
+    }
+
+    <U> U readList(final String sessionCookie, final GenericType<U> genericType) {
+        return cached("list\n" + genericType.getType().getTypeName() + '\n' + sessionCookie,
+                () -> invoke(sessionRequest(HttpMethod.GET, sessionCookie, accept), genericType.getType()));
     }
 
     // read list with query params
     public <U> U readList(final Long sessionId, final MultivaluedMap<String, String> queryParams,
             final GenericType<U> superType) {
-        return applyQueryParams(service.path(uri), queryParams).request(MediaType.APPLICATION_JSON)
-                .cookie("X-SessionId", sessionId.toString()).get(superType);
+        return readList(sessionCookie(sessionId), queryParams, superType);
+    }
+
+    <U> U readList(final String sessionCookie, final MultivaluedMap<String, String> queryParams,
+            final GenericType<U> superType) {
+        RefreshAheadCache cache = refreshAheadCache;
+        if (cache == null) {
+            return invoke(sessionRequest(HttpMethod.GET, sessionCookie, accept).setQueryParams(queryParams),
+                    superType.getType());
+        }
+        // The cache keeps the loader, so it must not see later changes to the caller's map.
+        MultivaluedMap<String, String> params = queryParams != null ? new MultivaluedHashMap<>(queryParams) : null;
+        return cache.get("list\n" + superType.getType().getTypeName() + '\n' + sessionCookie + '\n'
+                + (params != null ? new TreeMap<>(params) : null), () -> invoke(
+                        sessionRequest(HttpMethod.GET, sessionCookie, accept).setQueryParams(params),
+                        superType.getType()));
+    }
+
+    /**
+     * Stream a list as its elements are decoded, rather than all at once. Nothing is sent until a subscriber requests
+     * elements, and the response is read only as fast as the subscriber requests them, so memory use stays constant
+     * whatever the length of the list. Reading and decoding happen on a background thread. Elements are decoded with
+     * this library's standard Jackson configuration, which may differ from that of a custom JAX-RS client.
+     * 
+     * <pre>
+     * {@code
+     * GET _uri_?_queryParams_
+     * Cookie: X-SessionId=_sessionId_
+     * }
+     * </pre>
+     */
+    public Publisher<T> publishList(final Long sessionId, final MultivaluedMap<String, String> queryParams) {
+        return publishList(sessionCookie(sessionId), queryParams);
+    }
+
+    Publisher<T> publishList(final String sessionCookie, final MultivaluedMap<String, String> queryParams) {
+        return publishList(sessionCookie, queryParams, clazz);
+    }
+
+    /**
+     * As {@link #publishList(Long, MultivaluedMap)}, for elements of {@code elementType}.
+     */
+    public <U> Publisher<U> publishList(final Long sessionId, final MultivaluedMap<String, String> queryParams,
+            final GenericType<U> elementType) {
+        return publishList(sessionCookie(sessionId), queryParams, elementType.getType());
+    }
+
+    <U> Publisher<U> publishList(final String sessionCookie, final MultivaluedMap<String, String> queryParams,
+            final Type elementType) {
+        return new BlockingSourcePublisher<U>(() -> {
+            RestResponse response = checkStatus(
+                    send(sessionRequest(HttpMethod.GET, sessionCookie, accept).setQueryParams(queryParams)));
+            ObjectMapper objectMapper = mapperFor(response);
+            try {
+                InputStream in = response.readEntity(InputStream.class);
+                // A root-level array is read element by element.
+                MappingIterator<U> elements = objectMapper
+                        .readerFor(objectMapper.getTypeFactory().constructType(elementType)).readValues(in);
+                return new BlockingSourcePublisher.Source<U>() {
+
+                    private boolean ended;
+
+                    @Override
+                    public U next() throws IOException {
+                        while (elements.hasNextValue()) {
+                            U element = elements.nextValue();
+                            if (element != null) {
+                                return element;
+                            }
+                        }
+                        ended = true;
+                        return null;
+                    }
+
+                    @Override
+                    public void close() throws IOException {
+                        if (!ended) {
+                            response.abort();
+                        }
+                        try {
+                            elements.close();
+                        } finally {
+                            response.close();
+                        }
+                    }
+                };
+            } catch (IOException | RuntimeException e) {
+                response.close();
+                throw e;
+            }
+        }, RestExecutors.defaultExecutor());
+    }
+
+    /**
+     * Stream the bytes of {@link #readStream(Long, String, Long)} in chunks, read off the socket only as fast as the
+     * subscriber requests them. Each chunk is a fresh buffer, which the subscriber may keep.
+     */
+    public Publisher<ByteBuffer> publishStream(final Long id, final String extensionWithDot, final Long sessionId) {
+        return publishStream(id, extensionWithDot, sessionCookie(sessionId));
+    }
+
+    Publisher<ByteBuffer> publishStream(final Long id, final String extensionWithDot, final String sessionCookie) {
+        return new BlockingSourcePublisher<ByteBuffer>(() -> {
+            RestResponse response = checkStatus(send(
+                    sessionRequest(HttpMethod.GET, sessionCookie, ANY).addPath(id.toString() + extensionWithDot)));
+            InputStream in = response.readEntity(InputStream.class);
+            return new BlockingSourcePublisher.Source<ByteBuffer>() {
+
+                private boolean ended;
+
+                @Override
+                public ByteBuffer next() throws IOException {
+                    byte[] chunk = new byte[STREAM_CHUNK_SIZE];
+                    int read = in.read(chunk);
+                    if (read < 0) {
+                        ended = true;
+                        return null;
+                    }
+                    return ByteBuffer.wrap(chunk, 0, read);
+                }
+
+                @Override
+                public void close() throws IOException {
+                    if (!ended) {
+                        response.abort();
+                    }
+                    in.close();
+                }
+            };
+        }, RestExecutors.defaultExecutor());
+    }
+
+    /**
+     * Read a paginated collection as a single lazy iterator, walking the pages as described by {@code strategy} and
+     * reading up to {@code prefetchDepth} pages ahead in the background.
+     * 
+     * <pre>
+     * {@code
+     * GET _uri_?_queryParams_&_paging params_
+     * Cookie: X-SessionId=_sessionId_
+     * }
+     * </pre>
+     */
+    public <U> PageIterator<U> readPages(final Long sessionId, final MultivaluedMap<String, String> queryParams,
+            final GenericType<List<U>> genericType, final PageStrategy strategy, final int prefetchDepth) {
+        return readPages(sessionId, queryParams, genericType, strategy, prefetchDepth,
+                RestExecutors.defaultExecutor());
+    }
+
+    /**
+     * As {@link #readPages(Long, MultivaluedMap, GenericType, PageStrategy, int)}, prefetching on {@code executor}.
+     */
+    public <U> PageIterator<U> readPages(final Long sessionId, final MultivaluedMap<String, String> queryParams,
+            final GenericType<List<U>> genericType, final PageStrategy strategy, final int prefetchDepth,
+            final ExecutorService executor) {
+        return readPages(sessionCookie(sessionId), queryParams, genericType, strategy, prefetchDepth, executor);
+    }
+
+    <U> PageIterator<U> readPages(final String sessionCookie, final MultivaluedMap<String, String> queryParams,
+            final GenericType<List<U>> genericType, final PageStrategy strategy, final int prefetchDepth,
+            final ExecutorService executor) {
+        return new PageIterator<U>(params -> readPage(sessionCookie, params, genericType, strategy),
+                strategy.firstPage(queryParams), prefetchDepth, executor);
+    }
+
+    /**
+     * The mapper for decoding {@code response} ourselves, for its {@link WireFormat}.
+     */
+    private static ObjectMapper mapperFor(final RestResponse response) {
+        WireFormat format = WireFormat.forMediaType(response.getHeaderString(HttpHeaders.CONTENT_TYPE));
+        return STREAMING_MAPPERS.computeIfAbsent(format != null ? format : WireFormat.JSON,
+                RestClient::buildObjectMapper);
+    }
+
+    private <U> PageIterator.Page<U> readPage(final String sessionCookie,
+            final MultivaluedMap<String, String> queryParams,
+            final GenericType<List<U>> genericType, final PageStrategy strategy) {
+        RestResponse response = checkStatus(
+                send(sessionRequest(HttpMethod.GET, sessionCookie, accept).setQueryParams(queryParams)));
+        List<U> items = response.readEntity(genericType.getType());
+        if (items == null || items.isEmpty()) {
+            return new PageIterator.Page<U>(Collections.<U> emptyList(), null);
+        }
+        return new PageIterator.Page<U>(items, strategy.nextPage(queryParams, items, response));
     }
 
     // read
     public T readNoId(final Long sessionId) {
-        return service.path(uri).request(MediaType.APPLICATION_JSON).cookie("X-SessionId", sessionId.toString())
-                .get(clazz);
+        return invoke(sessionRequest(HttpMethod.GET, sessionId, accept), clazz);
     }
 
     public T readNoIdAllTypes(final Long sessionId) {
-        return service.path(uri).request(MediaType.WILDCARD).cookie("X-SessionId", sessionId.toString()).get(clazz);
+        return invoke(sessionRequest(HttpMethod.GET, sessionId, MediaType.WILDCARD), clazz);
     }
 
     public InputStream readStream(final Long id, final String extensionWithDot, final Long sessionId) {
-        return service.path(uri).path(id.toString() + extensionWithDot).request()
-                .cookie("X-SessionId", sessionId.toString()).get(InputStream.class);
+        return readStream(id, extensionWithDot, sessionCookie(sessionId));
+    }
+
+    InputStream readStream(final Long id, final String extensionWithDot, final String sessionCookie) {
+        return invoke(sessionRequest(HttpMethod.GET, sessionCookie, ANY).addPath(id.toString() + extensionWithDot),
+                InputStream.class);
     }
 
     public InputStream readStreamVersion(final Long id, final Long updateId, final String extensionWithDot,
             final Long sessionId) {
-        return service.path(uri).path(id.toString()).path("versions").path(updateId.toString() + extensionWithDot)
-                .request().cookie("X-SessionId", sessionId.toString()).get(InputStream.class);
+        if (artifactCache != null) {
+            try {
+                InputStream cached = artifactCache.get(uri, id, updateId, extensionWithDot);
+                if (cached != null) {
+                    return cached;
+                }
+                try (InputStream fetched = fetchStreamVersion(id, updateId, extensionWithDot, sessionId)) {
+                    return artifactCache.put(uri, id, updateId, extensionWithDot, fetched);
+                }
+            } catch (IOException e) {
+                throw new ProcessingException(e);
+            }
+        }
+        return fetchStreamVersion(id, updateId, extensionWithDot, sessionId);
+    }
+
+    private InputStream fetchStreamVersion(final Long id, final Long updateId, final String extensionWithDot,
+            final Long sessionId) {
+        return invoke(sessionRequest(HttpMethod.GET, sessionId, ANY).addPath(id.toString()).addPath("versions")
+                .addPath(updateId.toString() + extensionWithDot), InputStream.class);
     }
 
     // read version
     public T readVersion(final Long id, final Long updateId) {
-        return service.path(uri).path(id.toString()).path("versions").path(updateId.toString())
-                .request(MediaType.APPLICATION_JSON).get(clazz);
+        return invoke(request(HttpMethod.GET, accept).addPath(id.toString()).addPath("versions")
+                .addPath(updateId.toString()), clazz);
     }
 
     // read with session and version
     public T readVersion(final Long id, final Long updateId, final Long sessionId) {
-        return service.path(uri).path(id.toString()).path("versions").path(updateId.toString())
-                .request(MediaType.APPLICATION_JSON).cookie("X-SessionId", sessionId.toString()).get(clazz);
+        return readVersion(id, updateId, sessionCookie(sessionId));
+    }
+
+    T readVersion(final Long id, final Long updateId, final String sessionCookie) {
+        return invoke(sessionRequest(HttpMethod.GET, sessionCookie, accept).addPath(id.toString()).addPath("versions")
+                .addPath(updateId.toString()), clazz);
     }
 
     // read version with session, and in specified format, and return string
     public String readVersion(final Long id, final Long updateId, final MediaType mediaType, final Long sessionId) {
-        WebTarget resource = service.path(uri).path(id.toString()).path("versions");
+        RestRequest.Builder request = sessionRequest(HttpMethod.GET, sessionId, mediaType.toString())
+                .addPath(id.toString()).addPath("versions");
         if (!MediaType.APPLICATION_JSON_TYPE.equals(mediaType)) {
             String extension = ".json";
             if (MediaType.APPLICATION_XML_TYPE.equals(mediaType)) {
                 extension = ".xml";
             }
-            resource = resource.path(updateId.toString() + extension);
+            request.addPath(updateId.toString() + extension);
         } else {
-            resource = resource.path(updateId.toString());
+            request.addPath(updateId.toString());
         }
-        return resource.request(mediaType).cookie("X-SessionId", sessionId.toString()).get(String.class);
+        return invoke(request, String.class);
     }
 
     // read with session and version and queryParams
     public T readVersion(final Long id, final Long updateId, final MultivaluedMap<String, String> queryParams,
             final Long sessionId) {
-        return applyQueryParams(service.path(uri).path(id.toString()).path("versions").path(updateId.toString()),
-                queryParams).request(MediaType.APPLICATION_JSON).cookie("X-SessionId", sessionId.toString()).get(clazz);
+        return invoke(sessionRequest(HttpMethod.GET, sessionId, accept).addPath(id.toString()).addPath("versions")
+                .addPath(updateId.toString()).setQueryParams(queryParams), clazz);
     }
 
     // read with key, version, and session
     public T readVersion(final String key, final Long updateId, final Long sessionId) {
-        return service.path(uri).path(key).path("versions").path(updateId.toString())
-                .request(MediaType.APPLICATION_JSON).cookie("X-SessionId", sessionId.toString()).get(clazz);
+        return invoke(sessionRequest(HttpMethod.GET, sessionId, accept).addPath(key).addPath("versions")
+                .addPath(updateId.toString()), clazz);
     }
 
     // Get collection of versions
     public <U> U readVersions(final Long id, final Long sessionId, final GenericType<U> superType) {
-        return service.path(uri).path(id.toString()).path("versions").request(MediaType.APPLICATION_JSON)
-                .cookie("X-SessionId", sessionId.toString()).get(superType);
+        return invoke(sessionRequest(HttpMethod.GET, sessionId, accept).addPath(id.toString()).addPath("versions"),
+                superType.getType());
+    }
+
+    /**
+     * Get collection of versions, with given {@code queryParams} (e.g. to select only the newer versions)
+     * 
+     * <pre>
+     * {@code
+     * GET _uri_/_id_/versions?_queryParams_
+     * Cookie: X-SessionId=_sessionId_
+     * }
+     * </pre>
+     * 
+     * @see VersionSync
+     */
+    public <U> U readVersions(final Long id, final MultivaluedMap<String, String> queryParams, final Long sessionId,
+            final GenericType<U> superType) {
+        return invoke(sessionRequest(HttpMethod.GET, sessionId, accept).addPath(id.toString()).addPath("versions")
+                .setQueryParams(queryParams), superType.getType());
     }
 
     // update empty body with session
     public void update(final Long id, final Long sessionId) {
-        service.path(uri).path(id.toString()).request(MediaType.APPLICATION_JSON)
-                .cookie("X-SessionId", sessionId.toString()).put(Entity.json(null));
+        invokeNoResponse(sessionRequest(HttpMethod.PUT, sessionId, accept).addPath(id.toString()).setEntity(null,
+                MediaType.APPLICATION_JSON));
+        writtenId(id);
+        if (entitySnapshots != null) {
+            entitySnapshots.remove(id);
+        }
+        forgetFingerprint(id.toString());
     }
 
     // create from non-canonical, serialized object, with session
     public T update(final Long id, final String instance, final MediaType mediaType, final Long sessionId) {
-        return service.path(uri).path(id.toString()).request(MediaType.APPLICATION_JSON)
-                .cookie("X-SessionId", sessionId.toString()).put(Entity.entity(instance, mediaType), clazz);
+        T result = invoke(sessionRequest(HttpMethod.PUT, sessionId, accept).addPath(id.toString()).setEntity(instance,
+                mediaType.toString()), clazz);
+        writtenId(id);
+        forgetFingerprint(id.toString());
+        return snapshot(id, result);
     }
 
     // update
     public T update(final Long id, final T entity) {
-        return service.path(uri).path(id.toString()).request(MediaType.APPLICATION_JSON).put(Entity.json(entity),
-                clazz);
+        return elide(id.toString(), entity, false, () -> {
+            T result = invoke(request(HttpMethod.PUT, accept).addPath(id.toString()).setEntity(entity,
+                    contentType()), clazz);
+            writtenId(id);
+            return snapshot(id, result);
+        });
     }
 
     // update with session
     public T update(final Long id, final T entity, final Long sessionId) {
-        return service.path(uri).path(id.toString()).request(MediaType.APPLICATION_JSON)
-                .cookie("X-SessionId", sessionId.toString()).put(Entity.json(entity), clazz);
+        return update(id, entity, sessionId, false);
+    }
+
+    /**
+     * Update by {@code id}, with {@code sessionId}, even if unchanged when {@code force}; see
+     * {@link #setWriteFingerprints(WriteFingerprints)}.
+     */
+    public T update(final Long id, final T entity, final Long sessionId, final boolean force) {
+        return update(id, entity, sessionCookie(sessionId), force);
+    }
+
+    T update(final Long id, final T entity, final String sessionCookie, final boolean force) {
+        return elide(id.toString(), entity, force, () -> {
+            T result = invoke(putRequest(id.toString(), entity, sessionCookie), clazz);
+            writtenId(id);
+            return snapshot(id, result);
+        });
+    }
+
+    /**
+     * Run a bulk update, returning its outcome with the response status.
+     */
+    BulkResult<T> update(final BulkOperation<T> operation, final long index, final String sessionCookie) {
+        Long id = operation.getId();
+        T entity = operation.getEntity();
+        return elide(id.toString(), entity, false, () -> {
+            RestResponse response = checkStatus(send(putRequest(id.toString(), entity, sessionCookie)));
+            T result = response.readEntity(clazz);
+            writtenId(id);
+            return new BulkResult<T>(index, operation, response.getStatus(), snapshot(id, result), null);
+        }, new BulkResult<T>(index, operation, 0, entity, null));
     }
 
     // update with session and key
     public T update(final String key, final T entity, final Long sessionId) {
-        return service.path(uri).path(key).request(MediaType.APPLICATION_JSON)
-                .cookie("X-SessionId", sessionId.toString()).put(Entity.json(entity), clazz);
+        return update(key, entity, sessionId, false);
+    }
+
+    /**
+     * Update by {@code key}, with {@code sessionId}, even if unchanged when {@code force}; see
+     * {@link #setWriteFingerprints(WriteFingerprints)}.
+     */
+    public T update(final String key, final T entity, final Long sessionId, final boolean force) {
+        return update(key, entity, sessionCookie(sessionId), force);
+    }
+
+    T update(final String key, final T entity, final String sessionCookie, final boolean force) {
+        return elide(key, entity, force, () -> written(invoke(putRequest(key, entity, sessionCookie), clazz)));
     }
 
     // update with session
     public T update(final T entity, final Long sessionId) {
-        return service.path(uri).request(MediaType.APPLICATION_JSON).cookie("X-SessionId", sessionId.toString())
-                .put(Entity.json(entity), clazz);
+        return update(entity, sessionCookie(sessionId));
+    }
+
+    T update(final T entity, final String sessionCookie) {
+        return written(invoke(
+                sessionRequest(HttpMethod.PUT, sessionCookie, accept).setEntity(entity, contentType()), clazz));
     }
 
     //
@@ -687,26 +1415,328 @@ public class BaseResourceClient<T> {
     // .cookie("X-SessionId", sessionId.toString()).put(clazz, formData);
     // }
 
+    /**
+     * Update {@code id} to {@code modified}, sending only what changed since the last snapshot of {@code id} (see
+     * {@link #setEntitySnapshots(EntitySnapshots, Function)}). Falls back to a full
+     * {@link #update(Long, Object, Long)} if there is no snapshot, or if the server refuses the patch (405, 415 or
+     * 501), in which case this client stops trying to patch.
+     * 
+     * <p>
+     * Members the snapshot and {@code modified} agree on are left alone, so concurrent changes to them by others
+     * survive, as they would not a full update; likewise, setting a member back to its snapshot value is a no-op.
+     * </p>
+     * 
+     * <pre>
+     * {@code
+     * PATCH _uri_/_id_
+     * Cookie: X-SessionId=_sessionId_
+     * Content-Type: application/merge-patch+json
+     * 
+     * _changes_
+     * }
+     * </pre>
+     */
+    public T patch(final Long id, final T modified, final Long sessionId) {
+        return patch(id, modified, sessionCookie(sessionId));
+    }
+
+    T patch(final Long id, final T modified, final String sessionCookie) {
+        JsonNode snapshot = entitySnapshots != null && !patchRefused ? entitySnapshots.get(id) : null;
+        if (snapshot == null) {
+            return update(id, modified, sessionCookie, false);
+        }
+        JsonNode changes = MergePatch.diff(snapshot, entitySnapshots.toTree(modified));
+        RestResponse response = send(sessionRequest(RestRequest.PATCH, sessionCookie, accept).addPath(id.toString())
+                .setEntity(changes, MergePatch.MEDIA_TYPE));
+        if (isPatchRefusal(response.getStatus())) {
+            response.close();
+            patchRefused = true;
+            return update(id, modified, sessionCookie, false);
+        }
+        T result = checkStatus(response).readEntity(clazz);
+        writtenId(id);
+        forgetFingerprint(id.toString());
+        entitySnapshots.put(id, result != null ? result : modified);
+        return result;
+    }
+
     public Boolean versionAvailable(final Long id, final Long updateId, final Long sessionId) {
-        return service.path(uri).path(id.toString()).path("versions").path(updateId.toString()).path("available")
-                .request().cookie("X-SessionId", sessionId.toString()).get(Boolean.class);
+        return versionAvailable(id, updateId, sessionCookie(sessionId));
+    }
+
+    Boolean versionAvailable(final Long id, final Long updateId, final String sessionCookie) {
+        Boolean cached = existenceCache != null ? existenceCache.getVersionAvailable(id, updateId) : null;
+        if (cached != null) {
+            return cached;
+        }
+        Boolean result = invoke(sessionRequest(HttpMethod.GET, sessionCookie, ANY).addPath(id.toString())
+                .addPath("versions").addPath(updateId.toString()).addPath("available"), Boolean.class);
+        if (existenceCache != null && result != null) {
+            existenceCache.putVersionAvailable(id, updateId, result);
+        }
+        return result;
     }
 
     // overwrite with session and key
     public void updateNoResponse(final String key, final T entity, final Long sessionId) {
-        service.path(uri).path(key).request(MediaType.APPLICATION_JSON).cookie("X-SessionId", sessionId.toString())
-                .put(Entity.json(entity));
+        updateNoResponse(key, entity, sessionCookie(sessionId));
     }
 
-    static private WebTarget applyQueryParams(WebTarget target, MultivaluedMap<String, String> queryParams) {
-        WebTarget result = target;
-        if (queryParams != null) {
-            for (Entry<String, List<String>> entry : queryParams.entrySet()) {
-                for (String value : entry.getValue()) {
-                    result = result.queryParam(entry.getKey(), value);
-                }
+    void updateNoResponse(final String key, final T entity, final String sessionCookie) {
+        writeNoResponse(sessionRequest(HttpMethod.PUT, sessionCookie, accept).addPath(key), entity);
+        if (existenceCache != null) {
+            existenceCache.writtenUnknown();
+        }
+        forgetFingerprint(key);
+    }
+
+    /**
+     * Keep the existence cache current after a create or update that returned {@code result}.
+     */
+    private T written(final T result) {
+        if (existenceCache != null) {
+            Long id = result != null && idOf != null ? idOf.apply(result) : null;
+            if (id != null) {
+                existenceCache.written(id);
+            } else {
+                existenceCache.writtenUnknown();
             }
         }
+        if (entitySnapshots != null) {
+            Long id = result != null && snapshotIdOf != null ? snapshotIdOf.apply(result) : null;
+            if (id != null) {
+                entitySnapshots.put(id, result);
+            } else {
+                entitySnapshots.clear();
+            }
+        }
+        return result;
+    }
+
+    private void writtenId(final Long id) {
+        if (existenceCache != null) {
+            existenceCache.written(id);
+        }
+    }
+
+    /**
+     * Keep the existence cache current after deleting {@code id}, or, if {@code null}, an unknown set of entities.
+     */
+    private Response deleted(final Long id, final Response response) {
+        if (existenceCache != null) {
+            if (id != null) {
+                existenceCache.deleted(id);
+            } else {
+                existenceCache.clear();
+            }
+        }
+        if (entitySnapshots != null) {
+            if (id != null) {
+                entitySnapshots.remove(id);
+            } else {
+                entitySnapshots.clear();
+            }
+        }
+        if (writeFingerprints != null) {
+            if (id != null) {
+                writeFingerprints.remove(fingerprintPath(id.toString()));
+            } else {
+                writeFingerprints.removeAll(fingerprintPath(""));
+            }
+        }
+        return response;
+    }
+
+    /**
+     * Remember {@code entity} as the current state of {@code id}, if keeping snapshots.
+     */
+    private T snapshot(final Long id, final T entity) {
+        if (entitySnapshots != null) {
+            if (entity != null) {
+                entitySnapshots.put(id, entity);
+            } else {
+                entitySnapshots.remove(id);
+            }
+        }
+        return entity;
+    }
+
+    /**
+     * Write {@code entity} to {@code this.uri/segment}, unless {@link #setWriteFingerprints(WriteFingerprints)} shows
+     * the server already has it.
+     */
+    private T elide(final String segment, final T entity, final boolean force, final Supplier<T> write) {
+        return elide(segment, entity, force, write, entity);
+    }
+
+    /**
+     * As {@link #elide(String, Object, boolean, Supplier)}, returning {@code unchanged} if the write is skipped.
+     */
+    private <R> R elide(final String segment, final T entity, final boolean force, final Supplier<R> write,
+            final R unchanged) {
+        if (writeFingerprints == null) {
+            return write.get();
+        }
+        String path = fingerprintPath(segment);
+        Fingerprint fingerprint = writeFingerprints.fingerprint(entity);
+        if (!force && writeFingerprints.isUnchanged(path, fingerprint)) {
+            return unchanged;
+        }
+        // Until the write succeeds, the server may hold either value.
+        writeFingerprints.remove(path);
+        R result = write.get();
+        writeFingerprints.put(path, fingerprint);
         return result;
     }
+
+    /**
+     * Remember {@code entity} as the value at {@code this.uri/segment}, if keeping fingerprints.
+     */
+    private T fingerprinted(final String segment, final T entity) {
+        if (writeFingerprints != null) {
+            if (entity != null) {
+                writeFingerprints.put(fingerprintPath(segment), writeFingerprints.fingerprint(entity));
+            } else {
+                writeFingerprints.remove(fingerprintPath(segment));
+            }
+        }
+        return entity;
+    }
+
+    private void forgetFingerprint(final String segment) {
+        if (writeFingerprints != null) {
+            writeFingerprints.remove(fingerprintPath(segment));
+        }
+    }
+
+    private String fingerprintPath(final String segment) {
+        return uri + '/' + segment;
+    }
+
+    private String contentType() {
+        return wireFormat.getMediaType();
+    }
+
+    /**
+     * Start a request against {@code this.uri}.
+     */
+    private RestRequest.Builder request(final String method, final String... accept) {
+        return RestRequest.builder(method).addPath(uri).setAccept(accept);
+    }
+
+    /**
+     * Start a request against {@code this.uri}, carrying the session cookie.
+     */
+    private RestRequest.Builder sessionRequest(final String method, final Long sessionId, final String... accept) {
+        return sessionRequest(method, sessionCookie(sessionId), accept);
+    }
+
+    private RestRequest.Builder sessionRequest(final String method, final String sessionCookie,
+            final String... accept) {
+        return request(method, accept).addHeader(HttpHeaders.COOKIE, sessionCookie);
+    }
+
+    /**
+     * {@code PUT this.uri/segment}, with {@code entity} in our content type.
+     */
+    private RestRequest.Builder putRequest(final String segment, final T entity, final String sessionCookie) {
+        return sessionRequest(HttpMethod.PUT, sessionCookie, accept).addPath(segment).setEntity(entity, contentType());
+    }
+
+    /**
+     * The {@code Cookie} header carrying {@code sessionId}, as sent with every request made with a session.
+     */
+    static String sessionCookie(final long sessionId) {
+        return SESSION_COOKIE + '=' + sessionId;
+    }
+
+    /**
+     * Send the request and decode a successful response as {@code responseType}. Unsuccessful responses are thrown as
+     * the matching {@link javax.ws.rs.WebApplicationException}, as a JAX-RS client would.
+     */
+    private <U> U invoke(final RestRequest.Builder request, final Type responseType) {
+        return checkStatus(send(request)).readEntity(responseType);
+    }
+
+    /**
+     * Send the request, repeating it as JSON if the server refuses our {@link WireFormat}.
+     */
+    private RestResponse send(final RestRequest.Builder builder) {
+        WireFormat format = wireFormat;
+        RestRequest request = builder.build();
+        RestResponse response = transport.invoke(request);
+        if (format == WireFormat.JSON) {
+            return response;
+        }
+        boolean sentFormat = format.getMediaType().equals(request.getMediaType());
+        boolean acceptedFormat = request.getAccept() == format.getAccept();
+        int status = response.getStatus();
+        if (!(sentFormat && status == Status.UNSUPPORTED_MEDIA_TYPE.getStatusCode())
+                && !(acceptedFormat && status == Status.NOT_ACCEPTABLE.getStatusCode())) {
+            return response;
+        }
+
+        response.close();
+        setWireFormat(WireFormat.JSON);
+        if (sentFormat) {
+            builder.setEntity(request.getEntity(), MediaType.APPLICATION_JSON);
+        }
+        if (acceptedFormat) {
+            builder.setAccept(JSON);
+        }
+        return transport.invoke(builder.build());
+    }
+
+    private static boolean isPatchRefusal(final int status) {
+        return status == Status.METHOD_NOT_ALLOWED.getStatusCode()
+                || status == Status.UNSUPPORTED_MEDIA_TYPE.getStatusCode() || status == 501;
+    }
+
+    private static RestResponse checkStatus(final RestResponse response) {
+        if (Family.familyOf(response.getStatus()) != Family.SUCCESSFUL) {
+            throw RestExceptions.forResponse(response.toBufferedResponse());
+        }
+        return response;
+    }
+
+    /**
+     * Send the request, returning the raw response whatever its status.
+     */
+    private Response invoke(final RestRequest.Builder request) {
+        return send(request).toResponse();
+    }
+
+    /**
+     * Read through the {@link RefreshAheadCache}, if there is one.
+     */
+    private <U> U cached(final String key, final Supplier<U> loader) {
+        RefreshAheadCache cache = refreshAheadCache;
+        return cache != null ? cache.get(key, loader) : loader.get();
+    }
+
+    /**
+     * Send the request with {@code entity}, discarding the response whatever its status, or append it to the
+     * {@link WriteBehindJournal} if there is one.
+     */
+    private void writeNoResponse(final RestRequest.Builder request, final T entity) {
+        WriteBehindJournal journal = writeBehindJournal;
+        if (journal == null) {
+            invokeNoResponse(request.setEntity(entity, contentType()));
+            return;
+        }
+        try {
+            byte[] body = STREAMING_MAPPERS.computeIfAbsent(WireFormat.JSON, RestClient::buildObjectMapper)
+                    .writeValueAsBytes(entity);
+            journal.append(request.setEntity(body, WireFormat.JSON.getMediaType()).build());
+        } catch (IOException e) {
+            throw new ProcessingException(e);
+        }
+    }
+
+    /**
+     * Send the request, discarding the response whatever its status.
+     */
+    private void invokeNoResponse(final RestRequest.Builder request) {
+        send(request).close();
+    }
 }
@@ -0,0 +1,179 @@
+package com.clearcapital.oss.rest;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.util.Objects;
+import java.util.concurrent.Callable;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.reactivestreams.Publisher;
+import org.reactivestreams.Subscriber;
+import org.reactivestreams.Subscription;
+
+/**
+ * A cold Reactive Streams {@link Publisher} over a blocking {@link Source}, such as a response body being decoded.
+ *
+ * <p>
+ * Each subscription opens its own source (typically by sending a request) on first demand, then reads from it only as
+ * far as the subscriber has asked, so that demand governs how fast the response is read off the socket. Reads happen
+ * on {@code executor}, never on the subscriber's thread, and signals to each subscriber are serialized. Cancelling
+ * closes the source, abandoning whatever is left of it. A {@link Deadline} in scope when
+ * {@link #subscribe(Subscriber)} is called applies to opening the source.
+ * </p>
+ */
+class BlockingSourcePublisher<T> implements Publisher<T> {
+
+    /**
+     * Items, read one at a time.
+     */
+    interface Source<T> extends Closeable {
+
+        /**
+         * @return the next item, or {@code null} at the end.
+         */
+        T next() throws IOException;
+
+        /**
+         * Called at the end, or on cancellation or error. A source closed before its end should abandon the rest
+         * (e.g. with {@link RestResponse#abort()}) rather than read it.
+         */
+        @Override
+        void close() throws IOException;
+    }
+
+    private final Callable<? extends Source<T>> opener;
+    private final Executor executor;
+
+    BlockingSourcePublisher(final Callable<? extends Source<T>> opener, final Executor executor) {
+        this.opener = opener;
+        this.executor = executor;
+    }
+
+    @Override
+    public void subscribe(final Subscriber<? super T> subscriber) {
+        Objects.requireNonNull(subscriber, "subscriber");
+        subscriber.onSubscribe(new SourceSubscription(subscriber, Deadline.current()));
+    }
+
+    private class SourceSubscription implements Subscription, Runnable {
+
+        private final Subscriber<? super T> subscriber;
+        private final Deadline deadline;
+        private final AtomicLong requested = new AtomicLong();
+        /** Signals not yet handled by {@link #run()}; only the thread that raises it from 0 schedules a drain. */
+        private final AtomicInteger pending = new AtomicInteger();
+        private volatile boolean cancelled;
+        private volatile IllegalArgumentException invalidRequest;
+
+        // Only touched by the draining thread.
+        private Source<T> source;
+        private boolean done;
+
+        SourceSubscription(final Subscriber<? super T> subscriber, final Deadline deadline) {
+            this.subscriber = subscriber;
+            this.deadline = deadline;
+        }
+
+        @Override
+        public void request(final long n) {
+            if (n <= 0) {
+                invalidRequest = new IllegalArgumentException(
+                        "Requested " + n + " items; must be positive (rule 3.9)");
+            } else {
+                long current;
+                do {
+                    current = requested.get();
+                    if (current == Long.MAX_VALUE) {
+                        break;
+                    }
+                } while (!requested.compareAndSet(current, current + n < 0 ? Long.MAX_VALUE : current + n));
+            }
+            schedule();
+        }
+
+        @Override
+        public void cancel() {
+            cancelled = true;
+            schedule();
+        }
+
+        private void schedule() {
+            if (pending.getAndIncrement() == 0) {
+                executor.execute(this);
+            }
+        }
+
+        @Override
+        public void run() {
+            int missed = 1;
+            do {
+                drain();
+                missed = pending.addAndGet(-missed);
+            } while (missed != 0);
+        }
+
+        private void drain() {
+            if (done) {
+                return;
+            }
+            if (cancelled) {
+                finish();
+                return;
+            }
+            if (invalidRequest != null) {
+                finish();
+                subscriber.onError(invalidRequest);
+                return;
+            }
+
+            try {
+                if (source == null) {
+                    source = open();
+                }
+                long limit = requested.get();
+                long emitted = 0;
+                while (emitted != limit) {
+                    if (cancelled) {
+                        finish();
+                        return;
+                    }
+                    T item = source.next();
+                    if (item == null) {
+                        finish();
+                        subscriber.onComplete();
+                        return;
+                    }
+                    subscriber.onNext(item);
+                    emitted++;
+                }
+                if (limit != Long.MAX_VALUE) {
+                    requested.addAndGet(-emitted);
+                }
+            } catch (Exception e) {
+                finish();
+                subscriber.onError(e);
+            }
+        }
+
+        private Source<T> open() throws Exception {
+            if (deadline == null) {
+                return opener.call();
+            }
+            return deadline.runWithin(opener::call);
+        }
+
+        private void finish() {
+            done = true;
+            if (source != null) {
+                try {
+                    source.close();
+                } catch (IOException | RuntimeException e) {
+                    // nothing more to read, and nobody left to tell
+                }
+                source = null;
+            }
+        }
+    }
+}
@@ -0,0 +1,367 @@
+package com.clearcapital.oss.rest;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.WeakReference;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * A bounded pool of fixed-size byte arrays, which {@link HttpClientTransport} reads response bodies into and writes
+ * request entities out of, so that a steady stream of requests does not allocate a fresh set of buffers for each one.
+ *
+ * <p>
+ * Buffers are handed out as {@link Buffer} leases, which must be closed to return them. When the pool is empty a new
+ * buffer is allocated, and when it is full a returned buffer is dropped, so a pool never blocks and never holds more
+ * than {@code maxBuffers}; a pool of none just allocates. With leak detection on, every lease remembers where it was
+ * taken, and any that is garbage collected without being closed is logged (with that stack trace) and counted; this
+ * costs a stack trace per lease, so is meant for tests and debugging. Thread-safe.
+ * </p>
+ */
+public class BufferPool {
+
+    static final int DEFAULT_BUFFER_SIZE = 8192;
+
+    /** Allocates every buffer; for transports not given a pool. */
+    static final BufferPool UNPOOLED = new BufferPool(0, DEFAULT_BUFFER_SIZE, false);
+
+    private static final Logger LOGGER = Logger.getLogger(BufferPool.class.getName());
+
+    private final int bufferSize;
+    private final BlockingQueue<byte[]> available;
+    private final boolean detectLeaks;
+    private final ReferenceQueue<Buffer> collected = new ReferenceQueue<>();
+    /** Keeps the references to open leases reachable, so that they are enqueued when the leases are collected. */
+    private final Set<LeakReference> open = ConcurrentHashMap.newKeySet();
+    private final AtomicLong allocated = new AtomicLong();
+    private final AtomicLong leaks = new AtomicLong();
+
+    /**
+     * @param maxBuffers
+     *            the most buffers kept for reuse; 0 means allocate every one.
+     * @param bufferSize
+     *            the size of each buffer.
+     * @param detectLeaks
+     *            whether to report leases that are never closed.
+     */
+    public BufferPool(final int maxBuffers, final int bufferSize, final boolean detectLeaks) {
+        if (maxBuffers < 0 || bufferSize <= 0) {
+            throw new IllegalArgumentException("maxBuffers must be at least 0 and bufferSize at least 1");
+        }
+        this.bufferSize = bufferSize;
+        this.available = maxBuffers > 0 ? new ArrayBlockingQueue<byte[]>(maxBuffers) : null;
+        this.detectLeaks = detectLeaks;
+    }
+
+    /**
+     * Take a buffer from the pool, or allocate one if it is empty.
+     */
+    public Buffer acquire() {
+        byte[] array = available != null ? available.poll() : null;
+        if (array == null) {
+            array = new byte[bufferSize];
+            allocated.incrementAndGet();
+        }
+        Buffer result = new Buffer(this, array);
+        if (detectLeaks) {
+            detectLeaks();
+            result.leak = new LeakReference(result, collected);
+            open.add(result.leak);
+        }
+        return result;
+    }
+
+    private void release(final Buffer buffer) {
+        if (buffer.leak != null) {
+            buffer.leak.clear();
+            open.remove(buffer.leak);
+        }
+        if (available != null) {
+            available.offer(buffer.array);
+        }
+    }
+
+    /**
+     * Report any leases collected without being closed since last time; done on each {@link #acquire()}.
+     */
+    void detectLeaks() {
+        LeakReference leak;
+        while ((leak = (LeakReference) collected.poll()) != null) {
+            if (open.remove(leak)) {
+                leaks.incrementAndGet();
+                LOGGER.log(Level.WARNING, "A pooled buffer was garbage collected without being released; a response "
+                        + "or stream was not closed. It was acquired here:", leak.acquired);
+            }
+        }
+    }
+
+    public int getBufferSize() {
+        return bufferSize;
+    }
+
+    /**
+     * @return how many buffers are waiting to be reused.
+     */
+    public int getAvailable() {
+        return available != null ? available.size() : 0;
+    }
+
+    /**
+     * @return how many buffers the pool has had to allocate.
+     */
+    public long getAllocated() {
+        return allocated.get();
+    }
+
+    /**
+     * @return how many leases have been found to leak; always 0 without leak detection.
+     */
+    public long getLeaks() {
+        return leaks.get();
+    }
+
+    /**
+     * Start an {@link Output} that takes its buffers from this pool.
+     */
+    Output output() {
+        return new Output(this);
+    }
+
+    /**
+     * A stream that reads {@code in} through a buffer from this pool, returned when the stream is closed.
+     */
+    InputStream buffered(final InputStream in) {
+        return new PooledInputStream(in, acquire());
+    }
+
+    /**
+     * A lease on one of the pool's buffers. Close it to return the buffer, after which it must not be used; closing it
+     * again does nothing.
+     */
+    public static final class Buffer implements AutoCloseable {
+
+        private final BufferPool pool;
+        private final byte[] array;
+        private LeakReference leak;
+        private boolean closed;
+
+        Buffer(final BufferPool pool, final byte[] array) {
+            this.pool = pool;
+            this.array = array;
+        }
+
+        public byte[] array() {
+            return array;
+        }
+
+        @Override
+        public void close() {
+            if (!closed) {
+                closed = true;
+                pool.release(this);
+            }
+        }
+    }
+
+    private static final class LeakReference extends WeakReference<Buffer> {
+
+        private final Throwable acquired = new Throwable("Buffer acquired");
+
+        LeakReference(final Buffer buffer, final ReferenceQueue<Buffer> queue) {
+            super(buffer, queue);
+        }
+    }
+
+    /**
+     * Bytes written into a chain of pooled buffers, so that growing never copies what has been written so far.
+     * {@link #release()} it to return the buffers; as with {@link java.io.ByteArrayOutputStream}, closing it does
+     * nothing, since encoders close the streams they write to.
+     */
+    static final class Output extends OutputStream {
+
+        private final BufferPool pool;
+        private final List<Buffer> buffers = new ArrayList<>(2);
+        private byte[] current;
+        private int position;
+        private long size;
+
+        Output(final BufferPool pool) {
+            this.pool = pool;
+        }
+
+        @Override
+        public void write(final int b) {
+            if (current == null || position == current.length) {
+                next();
+            }
+            current[position++] = (byte) b;
+            size++;
+        }
+
+        @Override
+        public void write(final byte[] b, int off, int len) {
+            while (len > 0) {
+                if (current == null || position == current.length) {
+                    next();
+                }
+                int count = Math.min(len, current.length - position);
+                System.arraycopy(b, off, current, position, count);
+                position += count;
+                off += count;
+                len -= count;
+                size += count;
+            }
+        }
+
+        private void next() {
+            Buffer buffer = pool.acquire();
+            buffers.add(buffer);
+            current = buffer.array();
+            position = 0;
+        }
+
+        /**
+         * Write everything in {@code in}, up to its end, without closing it.
+         */
+        Output readFrom(final InputStream in) throws IOException {
+            int read = 0;
+            while (read >= 0) {
+                if (current == null || position == current.length) {
+                    next();
+                }
+                read = in.read(current, position, current.length - position);
+                if (read > 0) {
+                    position += read;
+                    size += read;
+                }
+            }
+            return this;
+        }
+
+        long size() {
+            return size;
+        }
+
+        void writeTo(final OutputStream out) throws IOException {
+            for (int i = 0; i < buffers.size(); i++) {
+                out.write(buffers.get(i).array(), 0, i < buffers.size() - 1 ? pool.bufferSize : position);
+            }
+        }
+
+        byte[] toByteArray() {
+            byte[] result = new byte[(int) size];
+            int offset = 0;
+            for (int i = 0; i < buffers.size(); i++) {
+                int length = i < buffers.size() - 1 ? pool.bufferSize : position;
+                System.arraycopy(buffers.get(i).array(), 0, result, offset, length);
+                offset += length;
+            }
+            return result;
+        }
+
+        String toString(final Charset charset) {
+            // A single buffer can be decoded in place.
+            return buffers.size() == 1 ? new String(current, 0, position, charset) : new String(toByteArray(), charset);
+        }
+
+        void release() {
+            for (Buffer buffer : buffers) {
+                buffer.close();
+            }
+            buffers.clear();
+            current = null;
+        }
+    }
+
+    /**
+     * A {@link java.io.BufferedInputStream} over a pooled buffer, without mark and reset.
+     */
+    static final class PooledInputStream extends InputStream {
+
+        private final InputStream in;
+        private final Buffer buffer;
+        private int position;
+        private int limit;
+        private boolean closed;
+
+        PooledInputStream(final InputStream in, final Buffer buffer) {
+            this.in = in;
+            this.buffer = buffer;
+        }
+
+        private boolean fill() throws IOException {
+            if (closed) {
+                throw new IOException("Stream closed");
+            }
+            position = 0;
+            limit = Math.max(in.read(buffer.array()), 0);
+            return limit > 0;
+        }
+
+        @Override
+        public int read() throws IOException {
+            if (position == limit && !fill()) {
+                return -1;
+            }
+            return buffer.array()[position++] & 0xFF;
+        }
+
+        @Override
+        public int read(final byte[] b, final int off, final int len) throws IOException {
+            if (len == 0) {
+                return 0;
+            }
+            if (position == limit) {
+                if (len >= buffer.array().length) {
+                    // Nothing to gain by copying through the buffer.
+                    return in.read(b, off, len);
+                }
+                if (!fill()) {
+                    return -1;
+                }
+            }
+            int count = Math.min(len, limit - position);
+            System.arraycopy(buffer.array(), position, b, off, count);
+            position += count;
+            return count;
+        }
+
+        @Override
+        public long skip(final long n) throws IOException {
+            if (n <= 0) {
+                return 0;
+            }
+            if (position < limit) {
+                int count = (int) Math.min(n, limit - position);
+                position += count;
+                return count;
+            }
+            return in.skip(n);
+        }
+
+        @Override
+        public int available() throws IOException {
+            return limit - position + in.available();
+        }
+
+        @Override
+        public void close() throws IOException {
+            if (!closed) {
+                closed = true;
+                position = limit = 0;
+                buffer.close();
+                in.close();
+            }
+        }
+    }
+}
@@ -0,0 +1,160 @@
+package com.clearcapital.oss.rest;
+
+import java.util.ArrayDeque;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.function.Consumer;
+
+import javax.ws.rs.WebApplicationException;
+
+/**
+ * Runs a stream of {@link BulkOperation}s through a {@link BaseResourceClient}, up to {@code concurrency} at a time,
+ * reporting every outcome rather than stopping at the first failure.
+ *
+ * <p>
+ * The caller's thread reads the operations and hands each to a background thread, waiting whenever
+ * {@code concurrency} are in flight, so however long the stream, only that many operations are held at once (plus,
+ * when ordered, those queued behind an earlier operation on the same id or key). When ordered, an operation on an id
+ * or key that already has one in flight is not sent until that one completes, and is then sent by the same thread,
+ * without waiting for a free slot. A {@link Deadline} in scope when the run starts applies to every operation.
+ * </p>
+ */
+final class BulkExecutor<T> {
+
+    private final BaseResourceClient<T> client;
+    private final String sessionCookie;
+    private final int concurrency;
+    private final boolean ordered;
+    private final Consumer<? super BulkResult<T>> results;
+    private final Executor executor;
+    private final Deadline deadline = Deadline.current();
+    private final Semaphore slots;
+    /** By ordering key, the operations waiting for the one in flight. Guarded by itself. */
+    private final Map<String, ArrayDeque<Pending<T>>> waiting = new HashMap<>();
+    private volatile RuntimeException resultsFailure;
+
+    BulkExecutor(final BaseResourceClient<T> client, final String sessionCookie, final int concurrency,
+            final boolean ordered, final Consumer<? super BulkResult<T>> results, final Executor executor) {
+        if (concurrency < 1) {
+            throw new IllegalArgumentException("concurrency must be at least 1");
+        }
+        this.client = client;
+        this.sessionCookie = sessionCookie;
+        this.concurrency = concurrency;
+        this.ordered = ordered;
+        this.results = results;
+        this.executor = executor;
+        this.slots = new Semaphore(concurrency);
+    }
+
+    /**
+     * Run every operation, returning once all have completed. If interrupted, no more operations are started, but those
+     * in flight are still waited for.
+     *
+     * @throws RuntimeException
+     *             thrown by {@code operations} or by {@code results}; no more operations are started.
+     */
+    void run(final Iterator<? extends BulkOperation<T>> operations) {
+        long index = 0;
+        try {
+            while (resultsFailure == null && operations.hasNext()) {
+                Pending<T> pending = new Pending<T>(index++, operations.next());
+                if (ordered) {
+                    String key = pending.operation.orderingKey();
+                    synchronized (waiting) {
+                        ArrayDeque<Pending<T>> queue = waiting.get(key);
+                        if (queue != null) {
+                            queue.add(pending);
+                            continue;
+                        }
+                        waiting.put(key, new ArrayDeque<Pending<T>>(2));
+                    }
+                }
+                slots.acquire();
+                try {
+                    executor.execute(() -> runFrom(pending));
+                } catch (RejectedExecutionException e) {
+                    slots.release();
+                    throw e;
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            slots.acquireUninterruptibly(concurrency);
+        }
+        if (resultsFailure != null) {
+            throw resultsFailure;
+        }
+    }
+
+    /**
+     * Run {@code first}, then anything queued behind it, holding one slot throughout. Once {@code results} has
+     * thrown, the rest of the queue is dropped.
+     */
+    private void runFrom(final Pending<T> first) {
+        try {
+            Pending<T> pending = first;
+            while (pending != null) {
+                BulkResult<T> result = deadline != null ? runWithin(pending) : apply(pending);
+                report(result);
+                pending = ordered ? next(pending.operation.orderingKey()) : null;
+            }
+        } finally {
+            slots.release();
+        }
+    }
+
+    private BulkResult<T> runWithin(final Pending<T> pending) {
+        return deadline.runWithin(() -> apply(pending));
+    }
+
+    private BulkResult<T> apply(final Pending<T> pending) {
+        try {
+            return pending.operation.apply(client, sessionCookie, pending.index);
+        } catch (WebApplicationException e) {
+            return new BulkResult<T>(pending.index, pending.operation, e.getResponse().getStatus(), null, e);
+        } catch (RuntimeException e) {
+            return new BulkResult<T>(pending.index, pending.operation, -1, null, e);
+        }
+    }
+
+    private void report(final BulkResult<T> result) {
+        if (resultsFailure != null) {
+            return;
+        }
+        try {
+            synchronized (this) {
+                results.accept(result);
+            }
+        } catch (RuntimeException e) {
+            resultsFailure = e;
+        }
+    }
+
+    private Pending<T> next(final String key) {
+        synchronized (waiting) {
+            ArrayDeque<Pending<T>> queue = waiting.get(key);
+            Pending<T> result = resultsFailure == null ? queue.poll() : null;
+            if (result == null) {
+                waiting.remove(key);
+            }
+            return result;
+        }
+    }
+
+    private static final class Pending<T> {
+
+        final long index;
+        final BulkOperation<T> operation;
+
+        Pending(final long index, final BulkOperation<T> operation) {
+            this.index = index;
+            this.operation = operation;
+        }
+    }
+}
@@ -0,0 +1,91 @@
+package com.clearcapital.oss.rest;
+
+/**
+ * One mutation in a bulk run; see {@link BaseResourceClient#bulk(java.util.Iterator, Long, int, boolean,
+ * java.util.function.Consumer)}.
+ */
+public final class BulkOperation<T> {
+
+    public enum Kind {
+        /** {@link BaseResourceClient#delete(Long, Long)} */
+        DELETE,
+        /** {@link BaseResourceClient#overwrite(String, Object, Long)} */
+        OVERWRITE,
+        /** {@link BaseResourceClient#update(Long, Object, Long)} */
+        UPDATE
+    }
+
+    private final Kind kind;
+    private final Long id;
+    private final String key;
+    private final T entity;
+
+    private BulkOperation(final Kind kind, final Long id, final String key, final T entity) {
+        this.kind = kind;
+        this.id = id;
+        this.key = key;
+        this.entity = entity;
+    }
+
+    public static <T> BulkOperation<T> delete(final Long id) {
+        return new BulkOperation<T>(Kind.DELETE, id, null, null);
+    }
+
+    public static <T> BulkOperation<T> overwrite(final String key, final T entity) {
+        return new BulkOperation<T>(Kind.OVERWRITE, null, key, entity);
+    }
+
+    public static <T> BulkOperation<T> update(final Long id, final T entity) {
+        return new BulkOperation<T>(Kind.UPDATE, id, null, entity);
+    }
+
+    public Kind getKind() {
+        return kind;
+    }
+
+    /**
+     * @return the id deleted or updated, or {@code null} for an overwrite.
+     */
+    public Long getId() {
+        return id;
+    }
+
+    /**
+     * @return the key overwritten, or {@code null} for a delete or update.
+     */
+    public String getKey() {
+        return key;
+    }
+
+    public T getEntity() {
+        return entity;
+    }
+
+    /**
+     * What this operation is ordered by, when a bulk run keeps order: its id or key.
+     */
+    String orderingKey() {
+        return id != null ? "id " + id : "key " + key;
+    }
+
+    /**
+     * Run this operation through {@code client}, throwing on an unsuccessful response.
+     *
+     * @return the outcome, reported as the {@code index}th operation.
+     */
+    BulkResult<T> apply(final BaseResourceClient<T> client, final String sessionCookie, final long index) {
+        switch (kind) {
+        case DELETE:
+            return client.delete(this, index, sessionCookie);
+        case OVERWRITE:
+            return client.overwrite(this, index, sessionCookie);
+        default:
+            return client.update(this, index, sessionCookie);
+        }
+    }
+
+    @Override
+    public String toString() {
+        return kind + " " + (id != null ? id : key);
+    }
+}
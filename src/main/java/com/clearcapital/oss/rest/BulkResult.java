@@ -0,0 +1,64 @@
+package com.clearcapital.oss.rest;
+
+/**
+ * The outcome of one {@link BulkOperation}.
+ */
+public final class BulkResult<T> {
+
+    private final long index;
+    private final BulkOperation<T> operation;
+    private final int status;
+    private final T entity;
+    private final RuntimeException error;
+
+    BulkResult(final long index, final BulkOperation<T> operation, final int status, final T entity,
+            final RuntimeException error) {
+        this.index = index;
+        this.operation = operation;
+        this.status = status;
+        this.entity = entity;
+        this.error = error;
+    }
+
+    /**
+     * @return the position of the operation among those submitted, from 0.
+     */
+    public long getIndex() {
+        return index;
+    }
+
+    public BulkOperation<T> getOperation() {
+        return operation;
+    }
+
+    /**
+     * @return the response status; 0 if nothing was sent, because the write was unchanged (see
+     *         {@link BaseResourceClient#setWriteFingerprints(WriteFingerprints)}); or -1 if there was no response.
+     */
+    public int getStatus() {
+        return status;
+    }
+
+    /**
+     * @return the entity returned by a successful overwrite or update.
+     */
+    public T getEntity() {
+        return entity;
+    }
+
+    /**
+     * @return why the operation failed, as thrown by the single-item method, or {@code null} if it succeeded.
+     */
+    public RuntimeException getError() {
+        return error;
+    }
+
+    public boolean isSuccess() {
+        return error == null;
+    }
+
+    @Override
+    public String toString() {
+        return "#" + index + " " + operation + ": " + status + (error != null ? " " + error : "");
+    }
+}
@@ -0,0 +1,72 @@
+package com.clearcapital.oss.rest;
+
+import java.util.Collections;
+import java.util.Map;
+
+import com.clearcapital.oss.rest.CompositeRead.Child;
+
+/**
+ * An entity and its child resources, as read by {@link BaseResourceClient#readComposite(Long, Long, CompositeRead)}.
+ * Each child was read independently, so some may have failed while the rest succeeded.
+ */
+public final class CompositeEntity<T> {
+
+    private final T parent;
+    private final Map<Child<?>, Object> values;
+    private final Map<Child<?>, RuntimeException> errors;
+
+    CompositeEntity(final T parent, final Map<Child<?>, Object> values,
+            final Map<Child<?>, RuntimeException> errors) {
+        this.parent = parent;
+        this.values = values;
+        this.errors = Collections.unmodifiableMap(errors);
+    }
+
+    /**
+     * @return the parent entity, or {@code null} if it was not read; see
+     *         {@link CompositeRead.Builder#setWithParent(boolean)}.
+     */
+    public T getParent() {
+        return parent;
+    }
+
+    /**
+     * @return the value of {@code child}.
+     * @throws RuntimeException
+     *             the exception reading {@code child} failed with, as thrown by the single read.
+     * @throws IllegalArgumentException
+     *             if {@code child} was not read.
+     */
+    @SuppressWarnings("unchecked")
+    public <U> U get(final Child<U> child) {
+        RuntimeException error = errors.get(child);
+        if (error != null) {
+            throw error;
+        }
+        if (!values.containsKey(child)) {
+            throw new IllegalArgumentException("Child " + child + " was not read");
+        }
+        return (U) values.get(child);
+    }
+
+    /**
+     * @return the exception reading {@code child} failed with, or {@code null} if it succeeded.
+     */
+    public RuntimeException getError(final Child<?> child) {
+        return errors.get(child);
+    }
+
+    /**
+     * @return the children that failed, and why.
+     */
+    public Map<Child<?>, RuntimeException> getErrors() {
+        return errors;
+    }
+
+    /**
+     * True if every child was read successfully.
+     */
+    public boolean isComplete() {
+        return errors.isEmpty();
+    }
+}
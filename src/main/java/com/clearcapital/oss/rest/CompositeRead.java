@@ -0,0 +1,152 @@
+package com.clearcapital.oss.rest;
+
+import java.lang.reflect.Type;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+
+import javax.ws.rs.core.GenericType;
+
+/**
+ * Which child resources to read alongside an entity, for {@link BaseResourceClient#readComposite(Long, Long,
+ * CompositeRead)}: each a relative path, as given to {@link BaseResourceClient#getChildClient(GenericType, Long,
+ * String)}, and the type to read it as.
+ *
+ * <pre>
+ * {@code
+ * static final CompositeRead.Child<List<Item>> ITEMS = CompositeRead.child("items", Item.listGenericType);
+ * static final CompositeRead.Child<List<Note>> NOTES = CompositeRead.child("notes", Note.listGenericType);
+ * static final CompositeRead ORDER_PAGE = CompositeRead.builder().addChild(ITEMS).addChild(NOTES).build();
+ *
+ * CompositeEntity<Order> order = orders.readComposite(id, sessionId, ORDER_PAGE);
+ * render(order.getParent(), order.get(ITEMS), order.get(NOTES));
+ * }
+ * </pre>
+ *
+ * <p>
+ * Instances are immutable, so are best declared once and shared.
+ * </p>
+ */
+public final class CompositeRead {
+
+    private final List<Child<?>> children;
+    private final boolean withParent;
+
+    private CompositeRead(final List<Child<?>> children, final boolean withParent) {
+        this.children = Collections.unmodifiableList(new ArrayList<>(children));
+        this.withParent = withParent;
+    }
+
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    public static <U> Child<U> child(final String relativePath, final GenericType<U> type) {
+        return new Child<U>(relativePath, type.getType());
+    }
+
+    public static <U> Child<U> child(final String relativePath, final Class<U> type) {
+        return new Child<U>(relativePath, type);
+    }
+
+    public List<Child<?>> getChildren() {
+        return children;
+    }
+
+    public boolean isWithParent() {
+        return withParent;
+    }
+
+    /**
+     * Read the children of {@code id} on {@code executor}, and the parent, if wanted, on this thread meanwhile.
+     */
+    <T> CompositeEntity<T> run(final BaseResourceClient<T> client, final Long id, final String sessionCookie,
+            final Executor executor) {
+        final Deadline deadline = Deadline.current();
+        Map<Child<?>, CompletableFuture<Object>> reads = new LinkedHashMap<>();
+        for (Child<?> child : children) {
+            reads.put(child, CompletableFuture.supplyAsync(() -> {
+                if (deadline == null) {
+                    return client.readChild(id, child.relativePath, child.type, sessionCookie);
+                }
+                return deadline.runWithin(
+                        () -> client.readChild(id, child.relativePath, child.type, sessionCookie));
+            }, executor));
+        }
+        T parent = withParent ? client.read(id, sessionCookie) : null;
+
+        Map<Child<?>, Object> values = new LinkedHashMap<>();
+        Map<Child<?>, RuntimeException> errors = new LinkedHashMap<>();
+        for (Map.Entry<Child<?>, CompletableFuture<Object>> read : reads.entrySet()) {
+            try {
+                values.put(read.getKey(), read.getValue().join());
+            } catch (CompletionException e) {
+                if (e.getCause() instanceof Error) {
+                    throw (Error) e.getCause();
+                }
+                errors.put(read.getKey(), e.getCause() instanceof RuntimeException ? (RuntimeException) e.getCause()
+                        : e);
+            }
+        }
+        return new CompositeEntity<T>(parent, values, errors);
+    }
+
+    public static class Builder {
+
+        private final List<Child<?>> children = new ArrayList<>();
+        private boolean withParent = true;
+
+        Builder() {
+
+        }
+
+        public Builder addChild(final Child<?> value) {
+            children.add(value);
+            return this;
+        }
+
+        /**
+         * Whether to read the parent entity itself, as well as its children; by default, it is.
+         */
+        public Builder setWithParent(final boolean value) {
+            withParent = value;
+            return this;
+        }
+
+        public CompositeRead build() {
+            return new CompositeRead(children, withParent);
+        }
+    }
+
+    /**
+     * A child resource, and the type to read it as; also the key its value is found by in a {@link CompositeEntity}.
+     */
+    public static final class Child<U> {
+
+        private final String relativePath;
+        private final Type type;
+
+        Child(final String relativePath, final Type type) {
+            this.relativePath = relativePath;
+            this.type = type;
+        }
+
+        public String getRelativePath() {
+            return relativePath;
+        }
+
+        public Type getType() {
+            return type;
+        }
+
+        @Override
+        public String toString() {
+            return relativePath;
+        }
+    }
+}
@@ -0,0 +1,43 @@
+package com.clearcapital.oss.rest;
+
+import java.util.List;
+
+import javax.ws.rs.core.MultivaluedHashMap;
+import javax.ws.rs.core.MultivaluedMap;
+
+/**
+ * {@link PageStrategy} for resources that hand out an opaque continuation token in a response header, to be passed
+ * back as a query parameter.
+ */
+public class CursorPageStrategy implements PageStrategy {
+
+    private final String cursorParam;
+    private final String cursorHeader;
+
+    public CursorPageStrategy(final String cursorParam, final String cursorHeader) {
+        this.cursorParam = cursorParam;
+        this.cursorHeader = cursorHeader;
+    }
+
+    @Override
+    public MultivaluedMap<String, String> firstPage(final MultivaluedMap<String, String> queryParams) {
+        MultivaluedMap<String, String> result = new MultivaluedHashMap<>();
+        if (queryParams != null) {
+            result.putAll(queryParams);
+        }
+        return result;
+    }
+
+    @Override
+    public MultivaluedMap<String, String> nextPage(final MultivaluedMap<String, String> queryParams,
+            final List<?> page, final RestResponse response) {
+        String cursor = response.getHeaderString(cursorHeader);
+        if (cursor == null || cursor.isEmpty()) {
+            return null;
+        }
+        MultivaluedMap<String, String> result = new MultivaluedHashMap<>();
+        result.putAll(queryParams);
+        result.putSingle(cursorParam, cursor);
+        return result;
+    }
+}
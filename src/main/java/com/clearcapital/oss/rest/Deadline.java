@@ -0,0 +1,187 @@
+package com.clearcapital.oss.rest;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A point in time by which a call must be finished, including any time it spends queued, rate limited or waiting on
+ * the network.
+ *
+ * <p>
+ * Deadlines are scoped to a thread, so that a caller can bound a whole chain of calls, across clients, without
+ * threading a parameter through each:
+ * </p>
+ *
+ * <pre>
+ * {@code
+ * T entity = Deadline.after(200, TimeUnit.MILLISECONDS).runWithin(() -> {
+ *     T read = client.read(id, sessionId);
+ *     otherClient.update(otherId, transform(read), sessionId);
+ *     return read;
+ * });
+ * }
+ * </pre>
+ *
+ * <p>
+ * or, equivalently, between {@link #enter()} and closing the {@link Scope} it returns.
+ * </p>
+ *
+ * <p>
+ * Within the scope, a request made through a {@link DeadlineTransport} (as every {@link RestClient} transport is) is
+ * not sent once the deadline has passed, and fails with a {@link DeadlineExceededException}. Requests in flight are
+ * bounded too: {@link HttpClientTransport} aborts the connection when the deadline passes, and
+ * {@link JerseyTransport} caps its connect and read timeouts at the time remaining. Entering a deadline inside the
+ * scope of an earlier one has no effect; the earlier one still applies. Page prefetching started within a scope
+ * inherits its deadline.
+ * </p>
+ */
+public final class Deadline {
+
+    private static final ThreadLocal<Deadline> CURRENT = new ThreadLocal<>();
+
+    /** In {@link System#nanoTime()} terms. */
+    private final long expiresAt;
+    /** Whether the deadline ends with the arrival of the response, leaving reading its entity unbounded. */
+    private final boolean untilResponse;
+
+    private Deadline(final long expiresAt, final boolean untilResponse) {
+        this.expiresAt = expiresAt;
+        this.untilResponse = untilResponse;
+    }
+
+    /**
+     * @return a deadline {@code timeout} from now.
+     */
+    public static Deadline after(final long timeout, final TimeUnit unit) {
+        return after(timeout, unit, false);
+    }
+
+    /**
+     * @return a deadline {@code timeout} from now that bounds a single request only until its response arrives, as
+     *         {@link DeadlineTransport}'s default timeout does.
+     */
+    static Deadline untilResponse(final long timeout, final TimeUnit unit) {
+        return after(timeout, unit, true);
+    }
+
+    private static Deadline after(final long timeout, final TimeUnit unit, final boolean untilResponse) {
+        long now = System.nanoTime();
+        long nanos = unit.toNanos(timeout);
+        // Saturate rather than wrap, so that an enormous timeout means "never".
+        return new Deadline(nanos > Long.MAX_VALUE / 2 ? now + Long.MAX_VALUE / 2 : now + nanos, untilResponse);
+    }
+
+    /**
+     * @return the deadline in scope on this thread, or {@code null} if there is none.
+     */
+    public static Deadline current() {
+        return CURRENT.get();
+    }
+
+    /**
+     * @return whichever of {@code a} and {@code b} expires first; either may be {@code null}.
+     */
+    static Deadline earliest(final Deadline a, final Deadline b) {
+        if (a == null) {
+            return b;
+        }
+        if (b == null) {
+            return a;
+        }
+        return a.expiresAt - b.expiresAt <= 0 ? a : b;
+    }
+
+    /**
+     * @return the time left, or 0 if the deadline has passed.
+     */
+    public long remaining(final TimeUnit unit) {
+        return unit.convert(Math.max(0, expiresAt - System.nanoTime()), TimeUnit.NANOSECONDS);
+    }
+
+    public boolean isExpired() {
+        return expiresAt - System.nanoTime() <= 0;
+    }
+
+    /**
+     * @return whether the deadline also bounds reading the response entity, as it does unless it is a
+     *         {@link #untilResponse(long, TimeUnit)} deadline.
+     */
+    boolean coversEntity() {
+        return !untilResponse;
+    }
+
+    /**
+     * @return {@code configuredMillis} capped at the time left, rounded up so that a deadline that has not quite passed
+     *         never becomes 0, which means "no timeout" to the underlying clients. A {@code configuredMillis} of 0 or
+     *         less means none was configured.
+     */
+    int capTimeoutMillis(final int configuredMillis) {
+        long remainingNanos = Math.max(0, expiresAt - System.nanoTime());
+        long remainingMillis = Math.max(1, (remainingNanos + 999999) / 1000000);
+        if (configuredMillis > 0 && configuredMillis < remainingMillis) {
+            return configuredMillis;
+        }
+        return (int) Math.min(Integer.MAX_VALUE, remainingMillis);
+    }
+
+    /**
+     * Fail {@code request} if the deadline has already passed.
+     */
+    void check(final RestRequest request) {
+        if (isExpired()) {
+            throw new DeadlineExceededException(
+                    "Deadline exceeded before " + request.getMethod() + " " + request.getPath());
+        }
+    }
+
+    /**
+     * Make this the deadline for calls on this thread, unless an earlier one is already in scope, until the returned
+     * scope is closed.
+     */
+    public Scope enter() {
+        Deadline previous = CURRENT.get();
+        CURRENT.set(earliest(previous, this));
+        return new Scope(previous);
+    }
+
+    /**
+     * Run {@code call} with this as the deadline for calls on this thread, as {@link #enter()}, returning its result.
+     */
+    public <U, E extends Exception> U runWithin(final Call<U, E> call) throws E {
+        Scope scope = enter();
+        try {
+            return call.call();
+        } finally {
+            scope.close();
+        }
+    }
+
+    /**
+     * A call to make within a deadline, which may throw {@code E}.
+     */
+    @FunctionalInterface
+    public interface Call<U, E extends Exception> {
+
+        U call() throws E;
+    }
+
+    /**
+     * Restores the deadline that was in scope before {@link Deadline#enter()}.
+     */
+    public static final class Scope implements AutoCloseable {
+
+        private final Deadline previous;
+
+        private Scope(final Deadline previous) {
+            this.previous = previous;
+        }
+
+        @Override
+        public void close() {
+            if (previous != null) {
+                CURRENT.set(previous);
+            } else {
+                CURRENT.remove();
+            }
+        }
+    }
+}
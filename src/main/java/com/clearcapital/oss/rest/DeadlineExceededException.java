@@ -0,0 +1,20 @@
+package com.clearcapital.oss.rest;
+
+import javax.ws.rs.ProcessingException;
+
+/**
+ * Thrown when a request could not be completed before its {@link Deadline}, either because the deadline had passed
+ * before it was sent or because the request was cut off in flight.
+ */
+public class DeadlineExceededException extends ProcessingException {
+
+    private static final long serialVersionUID = 1L;
+
+    public DeadlineExceededException(final String message) {
+        super(message);
+    }
+
+    public DeadlineExceededException(final String message, final Throwable cause) {
+        super(message, cause);
+    }
+}
@@ -0,0 +1,58 @@
+package com.clearcapital.oss.rest;
+
+import java.util.concurrent.TimeUnit;
+
+import javax.ws.rs.ProcessingException;
+
+/**
+ * A {@link RestTransport} decorator that applies the {@link Deadline} in scope, or failing that a default timeout, to
+ * each request: a request is not sent once its deadline has passed, the transports beneath see the deadline through
+ * {@link Deadline#current()}, and a failure once it has passed is reported as a {@link DeadlineExceededException}.
+ *
+ * <p>
+ * The default timeout covers one request, from here until the response arrives; to bound several requests, or to
+ * bound reading the entity as well, enter a {@link Deadline} around them.
+ * </p>
+ */
+public class DeadlineTransport implements RestTransport {
+
+    private final RestTransport delegate;
+    private final long defaultTimeoutNanos;
+
+    /**
+     * @param defaultTimeout
+     *            applies to requests made outside any {@link Deadline} scope; 0 for none.
+     */
+    public DeadlineTransport(final RestTransport delegate, final long defaultTimeout, final TimeUnit unit) {
+        this.delegate = delegate;
+        this.defaultTimeoutNanos = unit.toNanos(defaultTimeout);
+    }
+
+    public RestTransport getDelegate() {
+        return delegate;
+    }
+
+    @Override
+    public RestResponse invoke(final RestRequest request) {
+        Deadline deadline = Deadline.current();
+        if (deadline == null && defaultTimeoutNanos > 0) {
+            deadline = Deadline.untilResponse(defaultTimeoutNanos, TimeUnit.NANOSECONDS);
+        }
+        if (deadline == null) {
+            return delegate.invoke(request);
+        }
+
+        deadline.check(request);
+        try {
+            return deadline.runWithin(() -> delegate.invoke(request));
+        } catch (DeadlineExceededException e) {
+            throw e;
+        } catch (ProcessingException e) {
+            if (deadline.isExpired()) {
+                throw new DeadlineExceededException(
+                        "Deadline exceeded during " + request.getMethod() + " " + request.getPath(), e);
+            }
+            throw e;
+        }
+    }
+}
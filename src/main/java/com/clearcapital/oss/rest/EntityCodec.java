@@ -0,0 +1,17 @@
+package com.clearcapital.oss.rest;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.lang.reflect.Type;
+
+/**
+ * Body writer and reader for transports that do not go through JAX-RS message body providers, such as
+ * {@link HttpClientTransport}.
+ */
+public interface EntityCodec {
+
+    void write(Object entity, OutputStream out) throws IOException;
+
+    Object read(InputStream in, Type type) throws IOException;
+}
@@ -0,0 +1,120 @@
+package com.clearcapital.oss.rest;
+
+import java.io.IOException;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import javax.ws.rs.ProcessingException;
+
+import com.clearcapital.oss.json.JsonSerializer;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+/**
+ * The last known state of entities, by id, so that {@link BaseResourceClient#patch(Long, Object, Long)} can send only
+ * what changed. See {@link BaseResourceClient#setEntitySnapshots(EntitySnapshots, java.util.function.Function)}.
+ *
+ * <p>
+ * Snapshots are kept as serialized JSON, a fraction of the size of a Jackson tree; beyond {@code maxEntries}, the
+ * least recently used are dropped. Use an {@code objectMapper} configured as the one that encodes requests, so that a
+ * snapshot and the entity it is compared with serialize alike. Snapshots are keyed by id alone, not by session, so
+ * use one instance per resource client. Thread-safe.
+ * </p>
+ */
+public class EntitySnapshots {
+
+    public static final int DEFAULT_MAX_ENTRIES = 1024;
+
+    private final ObjectMapper objectMapper;
+    private final Map<Long, byte[]> snapshots;
+
+    public EntitySnapshots() {
+        this(DEFAULT_MAX_ENTRIES);
+    }
+
+    public EntitySnapshots(final int maxEntries) {
+        this(defaultObjectMapper(), maxEntries);
+    }
+
+    public EntitySnapshots(final ObjectMapper objectMapper, final int maxEntries) {
+        this.objectMapper = objectMapper;
+        this.snapshots = new LinkedHashMap<Long, byte[]>(16, 0.75f, true) {
+
+            private static final long serialVersionUID = 1L;
+
+            @Override
+            protected boolean removeEldestEntry(final Map.Entry<Long, byte[]> eldest) {
+                return size() > maxEntries;
+            }
+        };
+    }
+
+    private static ObjectMapper defaultObjectMapper() {
+        ObjectMapper result = new ObjectMapper();
+        JsonSerializer.configureObjectMapper(result);
+        return result;
+    }
+
+    /**
+     * Remember {@code entity} as the current state of {@code id}.
+     */
+    public void put(final long id, final Object entity) {
+        byte[] snapshot = serialize(entity);
+        synchronized (snapshots) {
+            snapshots.put(id, snapshot);
+        }
+    }
+
+    /**
+     * @return the current state of {@code id}, or {@code null} if it is not known.
+     */
+    public JsonNode get(final long id) {
+        byte[] snapshot;
+        synchronized (snapshots) {
+            snapshot = snapshots.get(id);
+        }
+        return snapshot != null ? parse(snapshot) : null;
+    }
+
+    public void remove(final long id) {
+        synchronized (snapshots) {
+            snapshots.remove(id);
+        }
+    }
+
+    public void clear() {
+        synchronized (snapshots) {
+            snapshots.clear();
+        }
+    }
+
+    public int size() {
+        synchronized (snapshots) {
+            return snapshots.size();
+        }
+    }
+
+    /**
+     * {@code entity} as a tree comparable with a snapshot. It is serialized and parsed, rather than converted
+     * directly, so that numbers come out as the same node types they would have in a snapshot.
+     */
+    JsonNode toTree(final Object entity) {
+        return parse(serialize(entity));
+    }
+
+    private byte[] serialize(final Object entity) {
+        try {
+            return objectMapper.writeValueAsBytes(entity);
+        } catch (IOException e) {
+            throw new ProcessingException(e);
+        }
+    }
+
+    private JsonNode parse(final byte[] snapshot) {
+        try {
+            return objectMapper.readTree(snapshot);
+        } catch (IOException e) {
+            throw new ProcessingException(e);
+        }
+    }
+}
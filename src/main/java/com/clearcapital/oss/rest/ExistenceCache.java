@@ -0,0 +1,202 @@
+package com.clearcapital.oss.rest;
+
+import java.util.Iterator;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+
+/**
+ * Remembers the answers to {@link BaseResourceClient#available(Long)} and
+ * {@link BaseResourceClient#versionAvailable(Long, Long, Long)}, so that repeated existence checks do not each cost a
+ * round trip.
+ *
+ * <ul>
+ * <li>A version, once it exists, exists forever, so positive {@code versionAvailable} answers are kept indefinitely,
+ * in a compact set of {@code (id, updateId)} pairs. Only a delete made through the owning client removes them.</li>
+ * <li>Negative {@code versionAvailable} answers, and all {@code available} answers, can be changed by writes from
+ * elsewhere, so they are only trusted for {@code ttl}.</li>
+ * <li>Writes made through the owning client populate or invalidate the affected entries; see
+ * {@link BaseResourceClient#setExistenceCache(ExistenceCache, java.util.function.Function)}.</li>
+ * </ul>
+ *
+ * <p>
+ * Answers are keyed by id alone, not by session, so use one cache per resource client, and only where existence does
+ * not depend on who is asking. When more than {@code maxEntries} versions are known, the set is cleared and refilled
+ * from the service. Thread-safe.
+ * </p>
+ */
+public class ExistenceCache {
+
+    public static final long DEFAULT_TTL_MILLIS = 5000;
+    public static final int DEFAULT_MAX_ENTRIES = 1 << 20;
+
+    private final long ttlNanos;
+    private final int maxEntries;
+    private final LongSupplier clock;
+
+    private final LongPairSet versions = new LongPairSet();
+    /** id to a fresh {@code available} answer. */
+    private final ConcurrentMap<Long, Answer> available = new ConcurrentHashMap<>();
+    /** id to (updateId to expiry) for versions known to be missing. */
+    private final ConcurrentMap<Long, ConcurrentMap<Long, Long>> missingVersions = new ConcurrentHashMap<>();
+
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+
+    public ExistenceCache() {
+        this(DEFAULT_TTL_MILLIS, TimeUnit.MILLISECONDS, DEFAULT_MAX_ENTRIES);
+    }
+
+    public ExistenceCache(final long ttl, final TimeUnit unit, final int maxEntries) {
+        this(ttl, unit, maxEntries, System::nanoTime);
+    }
+
+    ExistenceCache(final long ttl, final TimeUnit unit, final int maxEntries, final LongSupplier clock) {
+        this.ttlNanos = unit.toNanos(ttl);
+        this.maxEntries = maxEntries;
+        this.clock = clock;
+    }
+
+    /**
+     * @return the cached {@code available} answer for {@code id}, or {@code null} if there is no fresh one.
+     */
+    public Boolean getAvailable(final long id) {
+        Answer answer = available.get(id);
+        if (answer != null && answer.expires - clock.getAsLong() > 0) {
+            hits.incrementAndGet();
+            return answer.value;
+        }
+        if (answer != null) {
+            available.remove(id, answer);
+        }
+        misses.incrementAndGet();
+        return null;
+    }
+
+    public void putAvailable(final long id, final boolean value) {
+        if (available.size() >= maxEntries) {
+            purgeExpired();
+        }
+        available.put(id, new Answer(value, clock.getAsLong() + ttlNanos));
+    }
+
+    /**
+     * @return the cached {@code versionAvailable} answer for {@code (id, updateId)}, or {@code null} if there is no
+     *         fresh one.
+     */
+    public Boolean getVersionAvailable(final long id, final long updateId) {
+        if (versions.contains(id, updateId)) {
+            hits.incrementAndGet();
+            return Boolean.TRUE;
+        }
+        ConcurrentMap<Long, Long> missing = missingVersions.get(id);
+        Long expires = missing != null ? missing.get(updateId) : null;
+        if (expires != null && expires - clock.getAsLong() > 0) {
+            hits.incrementAndGet();
+            return Boolean.FALSE;
+        }
+        if (expires != null) {
+            missing.remove(updateId, expires);
+        }
+        misses.incrementAndGet();
+        return null;
+    }
+
+    public void putVersionAvailable(final long id, final long updateId, final boolean value) {
+        if (value) {
+            if (versions.size() >= maxEntries) {
+                versions.clear();
+            }
+            versions.add(id, updateId);
+            ConcurrentMap<Long, Long> missing = missingVersions.get(id);
+            if (missing != null) {
+                missing.remove(updateId);
+            }
+        } else {
+            if (missingVersions.size() >= maxEntries) {
+                purgeExpired();
+            }
+            missingVersions.computeIfAbsent(id, k -> new ConcurrentHashMap<>()).put(updateId,
+                    clock.getAsLong() + ttlNanos);
+        }
+    }
+
+    /**
+     * Record that entity {@code id} was just written: it exists, and may have versions we previously saw as missing.
+     */
+    public void written(final long id) {
+        missingVersions.remove(id);
+        putAvailable(id, true);
+    }
+
+    /**
+     * Record that some entity was written, without knowing which: any negative answer may now be wrong.
+     */
+    public void writtenUnknown() {
+        missingVersions.clear();
+        available.values().removeIf(answer -> !answer.value);
+    }
+
+    /**
+     * Record that entity {@code id}, and so all of its versions, was deleted.
+     */
+    public void deleted(final long id) {
+        versions.removeAll(id);
+        missingVersions.remove(id);
+        available.remove(id);
+    }
+
+    /**
+     * Record that version {@code (id, updateId)} was deleted.
+     */
+    public void deleted(final long id, final long updateId) {
+        versions.remove(id, updateId);
+        available.remove(id);
+    }
+
+    public void clear() {
+        versions.clear();
+        missingVersions.clear();
+        available.clear();
+    }
+
+    public long getHits() {
+        return hits.get();
+    }
+
+    public long getMisses() {
+        return misses.get();
+    }
+
+    private void purgeExpired() {
+        long now = clock.getAsLong();
+        available.values().removeIf(answer -> answer.expires - now <= 0);
+        Iterator<ConcurrentMap<Long, Long>> missing = missingVersions.values().iterator();
+        while (missing.hasNext()) {
+            ConcurrentMap<Long, Long> expiries = missing.next();
+            expiries.values().removeIf(expires -> expires - now <= 0);
+            if (expiries.isEmpty()) {
+                missing.remove();
+            }
+        }
+        if (available.size() >= maxEntries) {
+            available.clear();
+        }
+        if (missingVersions.size() >= maxEntries) {
+            missingVersions.clear();
+        }
+    }
+
+    private static class Answer {
+
+        final boolean value;
+        final long expires;
+
+        Answer(final boolean value, final long expires) {
+            this.value = value;
+            this.expires = expires;
+        }
+    }
+}
@@ -24,7 +24,7 @@ public class HttpBasicAuthenticator {
 
     }
 
-    private String getBasicAuthentication() {
+    String getBasicAuthentication() {
         String token = this.user + ":" + this.password;
         try {
             return "BASIC " + DatatypeConverter.printBase64Binary(token.getBytes("UTF-8"));
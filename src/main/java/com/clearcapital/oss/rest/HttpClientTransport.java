@@ -0,0 +1,616 @@
+package com.clearcapital.oss.rest;
+
+import java.io.ByteArrayInputStream;
+import java.io.Closeable;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.lang.reflect.Type;
+import java.net.URI;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.nio.charset.UnsupportedCharsetException;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+import javax.ws.rs.ProcessingException;
+import javax.ws.rs.core.HttpHeaders;
+import javax.ws.rs.core.Response;
+import javax.ws.rs.core.Response.ResponseBuilder;
+
+import org.apache.http.Header;
+import org.apache.http.HttpConnection;
+import org.apache.http.HttpEntity;
+import org.apache.http.ParseException;
+import org.apache.http.client.config.RequestConfig;
+import org.apache.http.client.methods.CloseableHttpResponse;
+import org.apache.http.client.methods.HttpEntityEnclosingRequestBase;
+import org.apache.http.client.protocol.HttpClientContext;
+import org.apache.http.entity.AbstractHttpEntity;
+import org.apache.http.entity.ByteArrayEntity;
+import org.apache.http.entity.ContentType;
+import org.apache.http.entity.HttpEntityWrapper;
+import org.apache.http.entity.InputStreamEntity;
+import org.apache.http.impl.client.CloseableHttpClient;
+import org.apache.http.util.EntityUtils;
+
+/**
+ * A minimal {@link RestTransport} that talks to Apache HttpClient directly, bypassing JAX-RS provider lookup, property
+ * bags and interceptor chains. Entities are encoded and decoded by the {@link EntityCodec} registered for their media
+ * type, or the default codec; {@code String}, {@code byte[]} and {@code InputStream} bodies are passed through
+ * untouched.
+ *
+ * <p>
+ * Within a {@link Deadline}, each request's timeouts are capped at the time remaining, and the connection is aborted if
+ * the deadline passes before the response, or the stream read from it, is closed. {@link DeadlineTransport}'s default
+ * timeout ends when the response arrives, so reading its entity is bounded only by the configured socket timeout.
+ * </p>
+ *
+ * <p>
+ * Under a {@link TimingTransport}, request and response body sizes are reported, as are the connect, send and wait
+ * phases if {@code httpClient} was built with a {@link TimingRequestExecutor}.
+ * </p>
+ *
+ * <p>
+ * Encoded request entities, and response bodies read as a {@code String} or {@code byte[]}, pass through buffers
+ * from its {@link BufferPool}, as do response streams, whose buffer is returned when they are closed.
+ * </p>
+ *
+ * <p>
+ * Closing the transport closes the underlying {@link CloseableHttpClient}.
+ * </p>
+ */
+public class HttpClientTransport implements RestTransport, Closeable {
+
+    private static final boolean[] PATH_CHARS = allowedChars("/:@!$&'()*+,;=");
+    private static final boolean[] QUERY_CHARS = allowedChars("/:@!$'()*,;?");
+    private static final char[] HEX = "0123456789ABCDEF".toCharArray();
+
+    private final CloseableHttpClient httpClient;
+    private final String baseUri;
+    private final Map<String, String> defaultHeaders;
+    private final EntityCodec codec;
+    private final Map<String, EntityCodec> codecs;
+    private volatile RequestConfig requestConfig = RequestConfig.DEFAULT;
+    private volatile BufferPool bufferPool = BufferPool.UNPOOLED;
+
+    public HttpClientTransport(final CloseableHttpClient httpClient, final URI baseUri, final EntityCodec codec) {
+        this(httpClient, baseUri, Collections.<String, String> emptyMap(), codec);
+    }
+
+    /**
+     * @param defaultHeaders
+     *            headers (e.g. {@code Authorization}) sent with every request.
+     */
+    public HttpClientTransport(final CloseableHttpClient httpClient, final URI baseUri,
+            final Map<String, String> defaultHeaders, final EntityCodec codec) {
+        this(httpClient, baseUri, defaultHeaders, codec, Collections.<String, EntityCodec> emptyMap());
+    }
+
+    /**
+     * @param codecs
+     *            codecs for specific media types (e.g. {@code application/cbor}), keyed by lower-case type and subtype
+     *            without parameters; anything else uses {@code codec}.
+     */
+    public HttpClientTransport(final CloseableHttpClient httpClient, final URI baseUri,
+            final Map<String, String> defaultHeaders, final EntityCodec codec, final Map<String, EntityCodec> codecs) {
+        this.httpClient = httpClient;
+        this.baseUri = baseUri.toString();
+        this.defaultHeaders = defaultHeaders;
+        this.codec = codec;
+        this.codecs = codecs;
+    }
+
+    public RequestConfig getRequestConfig() {
+        return requestConfig;
+    }
+
+    /**
+     * The timeouts {@code httpClient} was built with, as the base for requests made within a {@link Deadline}, which
+     * override them.
+     */
+    public void setRequestConfig(final RequestConfig requestConfig) {
+        this.requestConfig = requestConfig;
+    }
+
+    public BufferPool getBufferPool() {
+        return bufferPool;
+    }
+
+    /**
+     * The pool to take body buffers from; by default, each one is allocated.
+     */
+    public void setBufferPool(final BufferPool bufferPool) {
+        this.bufferPool = bufferPool;
+    }
+
+    @Override
+    public RestResponse invoke(final RestRequest request) {
+        HttpRequest httpRequest = new HttpRequest(request.getMethod(), URI.create(buildUri(request)));
+        for (Entry<String, String> header : defaultHeaders.entrySet()) {
+            httpRequest.setHeader(header.getKey(), header.getValue());
+        }
+
+        String[] accept = request.getAccept();
+        if (accept.length == 1) {
+            httpRequest.setHeader(HttpHeaders.ACCEPT, accept[0]);
+        } else if (accept.length > 1) {
+            httpRequest.setHeader(HttpHeaders.ACCEPT, String.join(",", accept));
+        }
+
+        Map<String, String> cookies = request.getCookies();
+        if (!cookies.isEmpty()) {
+            StringBuilder cookie = new StringBuilder(32);
+            for (Entry<String, String> entry : cookies.entrySet()) {
+                if (cookie.length() > 0) {
+                    cookie.append("; ");
+                }
+                cookie.append(entry.getKey()).append('=').append(entry.getValue());
+            }
+            httpRequest.setHeader(HttpHeaders.COOKIE, cookie.toString());
+        }
+
+        for (Entry<String, String> header : request.getHeaders().entrySet()) {
+            httpRequest.setHeader(header.getKey(), header.getValue());
+        }
+
+        RequestTiming timing = RequestTiming.current();
+        Deadline deadline = Deadline.current();
+        HttpClientContext context = null;
+        if (timing != null || deadline != null) {
+            context = HttpClientContext.create();
+            if (timing != null) {
+                context.setAttribute(RequestTiming.CONTEXT_ATTRIBUTE, timing);
+            }
+        }
+
+        HttpEntity entity = null;
+        if (request.hasEntity() && request.getEntity() != null) {
+            entity = buildEntity(request.getEntity(), request.getMediaType());
+            httpRequest.setEntity(entity);
+            if (timing != null) {
+                timing.setRequestBytes(entity.getContentLength());
+            }
+        }
+
+        ScheduledFuture<?> abort = null;
+        if (deadline != null) {
+            RequestConfig config = requestConfig;
+            httpRequest.setConfig(RequestConfig.copy(config)
+                    .setConnectTimeout(deadline.capTimeoutMillis(config.getConnectTimeout()))
+                    .setConnectionRequestTimeout(deadline.capTimeoutMillis(config.getConnectionRequestTimeout()))
+                    .setSocketTimeout(deadline.capTimeoutMillis(config.getSocketTimeout())).build());
+            abort = RestExecutors.scheduler().schedule(httpRequest::abort, deadline.remaining(TimeUnit.NANOSECONDS),
+                    TimeUnit.NANOSECONDS);
+        }
+
+        try {
+            CloseableHttpResponse response = httpClient.execute(httpRequest, context);
+            if (deadline != null && !deadline.coversEntity()) {
+                cancel(abort);
+                abort = null;
+                restoreSocketTimeout(context);
+            }
+            if (timing != null && response.getEntity() != null) {
+                response.setEntity(new CountingEntity(response.getEntity(), timing));
+            }
+            return new HttpClientResponse(response, this, abort);
+        } catch (IOException e) {
+            cancel(abort);
+            throw new ProcessingException(e);
+        } catch (RuntimeException e) {
+            cancel(abort);
+            throw e;
+        } finally {
+            if (entity instanceof PooledEntity) {
+                // By now it has been sent, retries and all.
+                ((PooledEntity) entity).body.release();
+            }
+        }
+    }
+
+    /**
+     * Undo the deadline's cap on the socket timeout, for reading the rest of the response.
+     */
+    private void restoreSocketTimeout(final HttpClientContext context) {
+        HttpConnection connection = context.getConnection();
+        if (connection == null || !connection.isOpen()) {
+            return;
+        }
+        try {
+            connection.setSocketTimeout(Math.max(0, requestConfig.getSocketTimeout()));
+        } catch (RuntimeException e) {
+            // the connection has already been released; the next request sets its own timeout
+        }
+    }
+
+    private static void cancel(final ScheduledFuture<?> abort) {
+        if (abort != null) {
+            abort.cancel(false);
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        httpClient.close();
+    }
+
+    private HttpEntity buildEntity(final Object entity, final String mediaType) {
+        AbstractHttpEntity result;
+        if (entity instanceof String) {
+            result = new ByteArrayEntity(((String) entity).getBytes(StandardCharsets.UTF_8));
+        } else if (entity instanceof byte[]) {
+            result = new ByteArrayEntity((byte[]) entity);
+        } else if (entity instanceof InputStream) {
+            result = new InputStreamEntity((InputStream) entity);
+        } else {
+            BufferPool.Output out = bufferPool.output();
+            boolean written = false;
+            try {
+                codecFor(mediaType).write(entity, out);
+                written = true;
+            } catch (IOException e) {
+                throw new ProcessingException(e);
+            } finally {
+                if (!written) {
+                    out.release();
+                }
+            }
+            result = new PooledEntity(out);
+        }
+        result.setContentType(mediaType);
+        return result;
+    }
+
+    EntityCodec codecFor(final String mediaType) {
+        if (mediaType == null || codecs.isEmpty()) {
+            return codec;
+        }
+        int end = mediaType.indexOf(';');
+        EntityCodec result = codecs.get((end < 0 ? mediaType : mediaType.substring(0, end)).trim().toLowerCase());
+        return result != null ? result : codec;
+    }
+
+    String buildUri(final RestRequest request) {
+        StringBuilder result = new StringBuilder(baseUri.length() + 64).append(baseUri);
+        for (String segment : request.getPath()) {
+            if (segment.isEmpty()) {
+                continue;
+            }
+            boolean endsWithSlash = result.charAt(result.length() - 1) == '/';
+            int start = 0;
+            if (segment.charAt(0) == '/') {
+                start = endsWithSlash ? 1 : 0;
+            } else if (!endsWithSlash) {
+                result.append('/');
+            }
+            appendEncoded(result, segment, start, PATH_CHARS);
+        }
+
+        char separator = '?';
+        for (Entry<String, List<String>> entry : request.getQueryParams().entrySet()) {
+            for (String value : entry.getValue()) {
+                result.append(separator);
+                appendEncoded(result, entry.getKey(), 0, QUERY_CHARS);
+                result.append('=');
+                appendEncoded(result, value, 0, QUERY_CHARS);
+                separator = '&';
+            }
+        }
+        return result.toString();
+    }
+
+    /**
+     * Percent-encode {@code value} onto {@code result}, leaving already-encoded {@code %XX} sequences alone (as
+     * {@code WebTarget.path()} does).
+     */
+    private static void appendEncoded(final StringBuilder result, final String value, final int start,
+            final boolean[] allowed) {
+        for (int i = start; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c < 128 && allowed[c]) {
+                result.append(c);
+            } else if (c == '%' && i + 2 < value.length() && isHex(value.charAt(i + 1))
+                    && isHex(value.charAt(i + 2))) {
+                result.append(c);
+            } else {
+                int codePoint = value.codePointAt(i);
+                i += Character.charCount(codePoint) - 1;
+                for (byte b : new String(Character.toChars(codePoint)).getBytes(StandardCharsets.UTF_8)) {
+                    result.append('%').append(HEX[(b >> 4) & 0xF]).append(HEX[b & 0xF]);
+                }
+            }
+        }
+    }
+
+    private static boolean isHex(final char c) {
+        return (c >= '0' && c <= '9') || (c >= 'A' && c <= 'F') || (c >= 'a' && c <= 'f');
+    }
+
+    private static boolean[] allowedChars(final String extra) {
+        boolean[] result = new boolean[128];
+        for (char c = 'a'; c <= 'z'; c++) {
+            result[c] = true;
+        }
+        for (char c = 'A'; c <= 'Z'; c++) {
+            result[c] = true;
+        }
+        for (char c = '0'; c <= '9'; c++) {
+            result[c] = true;
+        }
+        for (char c : "-._~".toCharArray()) {
+            result[c] = true;
+        }
+        for (char c : extra.toCharArray()) {
+            result[c] = true;
+        }
+        return result;
+    }
+
+    /**
+     * An HttpClient request for an arbitrary method, which may or may not carry an entity.
+     */
+    static class HttpRequest extends HttpEntityEnclosingRequestBase {
+
+        private final String method;
+
+        HttpRequest(final String method, final URI uri) {
+            this.method = method;
+            setURI(uri);
+        }
+
+        @Override
+        public String getMethod() {
+            return method;
+        }
+    }
+
+    /**
+     * A request entity encoded into pooled buffers, which {@link #invoke(RestRequest)} returns once it has been sent.
+     */
+    static class PooledEntity extends AbstractHttpEntity {
+
+        private final BufferPool.Output body;
+
+        PooledEntity(final BufferPool.Output body) {
+            this.body = body;
+        }
+
+        @Override
+        public boolean isRepeatable() {
+            return true;
+        }
+
+        @Override
+        public long getContentLength() {
+            return body.size();
+        }
+
+        @Override
+        public InputStream getContent() {
+            return new ByteArrayInputStream(body.toByteArray());
+        }
+
+        @Override
+        public void writeTo(final OutputStream out) throws IOException {
+            body.writeTo(out);
+        }
+
+        @Override
+        public boolean isStreaming() {
+            return false;
+        }
+    }
+
+    /**
+     * Counts the bytes of a response body as they are read, for its {@link RequestTiming}.
+     */
+    static class CountingEntity extends HttpEntityWrapper {
+
+        private final RequestTiming timing;
+
+        CountingEntity(final HttpEntity entity, final RequestTiming timing) {
+            super(entity);
+            this.timing = timing;
+        }
+
+        @Override
+        public InputStream getContent() throws IOException {
+            return new FilterInputStream(super.getContent()) {
+
+                @Override
+                public int read() throws IOException {
+                    int result = super.read();
+                    if (result >= 0) {
+                        timing.received(1);
+                    }
+                    return result;
+                }
+
+                @Override
+                public int read(final byte[] b, final int off, final int len) throws IOException {
+                    int result = super.read(b, off, len);
+                    if (result > 0) {
+                        timing.received(result);
+                    }
+                    return result;
+                }
+
+                @Override
+                public long skip(final long n) throws IOException {
+                    long result = super.skip(n);
+                    timing.received(result);
+                    return result;
+                }
+            };
+        }
+
+        @Override
+        public void writeTo(final OutputStream out) throws IOException {
+            try (InputStream in = getContent()) {
+                byte[] buffer = new byte[4096];
+                int read;
+                while ((read = in.read(buffer)) >= 0) {
+                    out.write(buffer, 0, read);
+                }
+            }
+        }
+    }
+
+    static class HttpClientResponse implements RestResponse {
+
+        private final CloseableHttpResponse response;
+        private final HttpClientTransport transport;
+        /** Aborts the request when its deadline passes; {@code null} if there is no deadline. */
+        private final ScheduledFuture<?> abort;
+
+        HttpClientResponse(final CloseableHttpResponse response, final HttpClientTransport transport,
+                final ScheduledFuture<?> abort) {
+            this.response = response;
+            this.transport = transport;
+            this.abort = abort;
+        }
+
+        @Override
+        public int getStatus() {
+            return response.getStatusLine().getStatusCode();
+        }
+
+        @Override
+        public String getHeaderString(final String name) {
+            Header[] headers = response.getHeaders(name);
+            if (headers.length == 0) {
+                return null;
+            }
+            if (headers.length == 1) {
+                return headers[0].getValue();
+            }
+            StringBuilder result = new StringBuilder();
+            for (Header header : headers) {
+                if (result.length() > 0) {
+                    result.append(',');
+                }
+                result.append(header.getValue());
+            }
+            return result.toString();
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        public <U> U readEntity(final Type type) {
+            HttpEntity entity = response.getEntity();
+            boolean release = type != InputStream.class;
+            try {
+                if (type == InputStream.class) {
+                    if (entity == null) {
+                        cancel(abort);
+                        return (U) new ByteArrayInputStream(new byte[0]);
+                    }
+                    // Closing the stream hands the connection, and its buffer, back to their pools.
+                    InputStream in = transport.bufferPool.buffered(entity.getContent());
+                    return (U) (abort != null ? new FilterInputStream(in) {
+
+                        @Override
+                        public void close() throws IOException {
+                            cancel(abort);
+                            super.close();
+                        }
+                    } : in);
+                }
+                if (entity == null) {
+                    return null;
+                }
+                if (type == String.class || type == byte[].class) {
+                    BufferPool.Output body = transport.bufferPool.output();
+                    try (InputStream in = entity.getContent()) {
+                        body.readFrom(in);
+                        return (U) (type == byte[].class ? body.toByteArray() : body.toString(charsetOf(entity)));
+                    } finally {
+                        body.release();
+                    }
+                }
+                if (entity.getContentLength() == 0) {
+                    return null;
+                }
+                try (InputStream in = entity.getContent()) {
+                    Header contentType = entity.getContentType();
+                    return (U) transport.codecFor(contentType != null ? contentType.getValue() : null).read(in, type);
+                }
+            } catch (IOException e) {
+                release = true;
+                throw new ProcessingException(e);
+            } finally {
+                if (release) {
+                    close();
+                }
+            }
+        }
+
+        private static Charset charsetOf(final HttpEntity entity) {
+            try {
+                ContentType contentType = ContentType.get(entity);
+                Charset charset = contentType != null ? contentType.getCharset() : null;
+                return charset != null ? charset : StandardCharsets.UTF_8;
+            } catch (ParseException | UnsupportedCharsetException e) {
+                return StandardCharsets.UTF_8;
+            }
+        }
+
+        @Override
+        public Response toResponse() {
+            return toBufferedResponse();
+        }
+
+        @Override
+        public Response toBufferedResponse() {
+            ResponseBuilder builder = Response.status(getStatus());
+            for (Header header : response.getAllHeaders()) {
+                builder.header(header.getName(), header.getValue());
+            }
+            HttpEntity entity = response.getEntity();
+            if (entity != null) {
+                BufferPool.Output body = transport.bufferPool.output();
+                try (InputStream in = entity.getContent()) {
+                    body.readFrom(in);
+                    if (body.size() > 0) {
+                        builder.entity(body.toByteArray());
+                    }
+                } catch (IOException e) {
+                    // The body is lost, but the status and headers are still worth reporting.
+                } finally {
+                    body.release();
+                }
+            }
+            close();
+            return builder.build();
+        }
+
+        @Override
+        public void abort() {
+            cancel(abort);
+            try {
+                // Without consuming the entity first, this shuts the connection down instead of releasing it.
+                response.close();
+            } catch (IOException e) {
+                // the connection has already been released or discarded
+            }
+        }
+
+        @Override
+        public void close() {
+            cancel(abort);
+            // Drain rather than abort, so that the connection can be reused.
+            EntityUtils.consumeQuietly(response.getEntity());
+            try {
+                response.close();
+            } catch (IOException e) {
+                // the connection has already been released or discarded
+            }
+        }
+    }
+}
@@ -0,0 +1,44 @@
+package com.clearcapital.oss.rest;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.lang.reflect.Type;
+
+import com.fasterxml.jackson.databind.JavaType;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+/**
+ * {@link EntityCodec} backed by a Jackson {@link ObjectMapper}.
+ */
+public class JacksonEntityCodec implements EntityCodec {
+
+    private final ObjectMapper objectMapper;
+
+    public JacksonEntityCodec(final ObjectMapper objectMapper) {
+        this.objectMapper = objectMapper;
+    }
+
+    public ObjectMapper getObjectMapper() {
+        return objectMapper;
+    }
+
+    /**
+     * Build and cache the serializer and deserializer for {@code type} now, rather than on first use.
+     */
+    public void prepare(final Type type) {
+        JavaType javaType = objectMapper.getTypeFactory().constructType(type);
+        objectMapper.canSerialize(javaType.getRawClass());
+        objectMapper.canDeserialize(javaType);
+    }
+
+    @Override
+    public void write(final Object entity, final OutputStream out) throws IOException {
+        objectMapper.writeValue(out, entity);
+    }
+
+    @Override
+    public Object read(final InputStream in, final Type type) throws IOException {
+        return objectMapper.readValue(in, objectMapper.getTypeFactory().constructType(type));
+    }
+}
@@ -0,0 +1,78 @@
+package com.clearcapital.oss.rest;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.lang.annotation.Annotation;
+import java.lang.reflect.Type;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.Map.Entry;
+
+import javax.ws.rs.WebApplicationException;
+import javax.ws.rs.core.MediaType;
+import javax.ws.rs.core.MultivaluedMap;
+import javax.ws.rs.ext.MessageBodyReader;
+import javax.ws.rs.ext.MessageBodyWriter;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+/**
+ * JAX-RS reader and writer for a set of {@link WireFormat}s, each backed by an {@link ObjectMapper} for that format.
+ * Lets a Jersey client exchange the binary formats; JSON is left to Jersey's own Jackson provider.
+ *
+ * <p>
+ * Jersey keeps only one registration per provider class, so a single instance must cover every format a client uses.
+ * </p>
+ */
+public class JacksonFormatProvider implements MessageBodyReader<Object>, MessageBodyWriter<Object> {
+
+    private final Map<WireFormat, JacksonEntityCodec> codecs = new EnumMap<>(WireFormat.class);
+
+    /**
+     * @param objectMappers
+     *            the mapper for each format to handle.
+     */
+    public JacksonFormatProvider(final Map<WireFormat, ObjectMapper> objectMappers) {
+        for (Entry<WireFormat, ObjectMapper> entry : objectMappers.entrySet()) {
+            codecs.put(entry.getKey(), new JacksonEntityCodec(entry.getValue()));
+        }
+    }
+
+    @Override
+    public boolean isReadable(final Class<?> type, final Type genericType, final Annotation[] annotations,
+            final MediaType mediaType) {
+        return codecFor(mediaType) != null;
+    }
+
+    @Override
+    public Object readFrom(final Class<Object> type, final Type genericType, final Annotation[] annotations,
+            final MediaType mediaType, final MultivaluedMap<String, String> httpHeaders, final InputStream entityStream)
+            throws IOException, WebApplicationException {
+        return codecFor(mediaType).read(entityStream, genericType != null ? genericType : type);
+    }
+
+    @Override
+    public boolean isWriteable(final Class<?> type, final Type genericType, final Annotation[] annotations,
+            final MediaType mediaType) {
+        return codecFor(mediaType) != null;
+    }
+
+    @Override
+    public long getSize(final Object entity, final Class<?> type, final Type genericType,
+            final Annotation[] annotations, final MediaType mediaType) {
+        return -1;
+    }
+
+    @Override
+    public void writeTo(final Object entity, final Class<?> type, final Type genericType,
+            final Annotation[] annotations, final MediaType mediaType, final MultivaluedMap<String, Object> httpHeaders,
+            final OutputStream entityStream) throws IOException, WebApplicationException {
+        codecFor(mediaType).write(entity, entityStream);
+    }
+
+    private JacksonEntityCodec codecFor(final MediaType mediaType) {
+        WireFormat format = mediaType != null ? WireFormat.forMediaType(mediaType.toString()) : null;
+        return format != null ? codecs.get(format) : null;
+    }
+}
@@ -0,0 +1,140 @@
+package com.clearcapital.oss.rest;
+
+import java.lang.reflect.Type;
+import java.util.List;
+import java.util.Map.Entry;
+
+import javax.ws.rs.ProcessingException;
+import javax.ws.rs.client.Entity;
+import javax.ws.rs.client.Invocation.Builder;
+import javax.ws.rs.client.WebTarget;
+import javax.ws.rs.core.GenericType;
+import javax.ws.rs.core.Response;
+
+import org.glassfish.jersey.client.ClientProperties;
+import org.glassfish.jersey.client.HttpUrlConnectorProvider;
+
+/**
+ * {@link RestTransport} on top of a JAX-RS {@link WebTarget}. Entities are encoded and decoded by whatever providers
+ * are registered with the target's client.
+ *
+ * <p>
+ * Within a {@link Deadline}, each request's connect and read timeouts are capped at the time remaining. A JAX-RS
+ * request cannot be aborted once sent, so a server that keeps trickling data can still hold it past the deadline.
+ * </p>
+ */
+public class JerseyTransport implements RestTransport {
+
+    private final WebTarget target;
+
+    public JerseyTransport(final WebTarget target) {
+        this.target = target;
+    }
+
+    public WebTarget getTarget() {
+        return target;
+    }
+
+    @Override
+    public RestResponse invoke(final RestRequest request) {
+        WebTarget resource = target;
+        for (String segment : request.getPath()) {
+            resource = resource.path(segment);
+        }
+        for (Entry<String, List<String>> entry : request.getQueryParams().entrySet()) {
+            for (String value : entry.getValue()) {
+                resource = resource.queryParam(entry.getKey(), value);
+            }
+        }
+
+        Builder builder = resource.request(request.getAccept());
+        for (Entry<String, String> cookie : request.getCookies().entrySet()) {
+            builder = builder.cookie(cookie.getKey(), cookie.getValue());
+        }
+        for (Entry<String, String> header : request.getHeaders().entrySet()) {
+            builder = builder.header(header.getKey(), header.getValue());
+        }
+
+        Deadline deadline = Deadline.current();
+        if (deadline != null) {
+            builder = builder.property(ClientProperties.CONNECT_TIMEOUT,
+                    deadline.capTimeoutMillis(configuredTimeout(ClientProperties.CONNECT_TIMEOUT)));
+            builder = builder.property(ClientProperties.READ_TIMEOUT,
+                    deadline.capTimeoutMillis(configuredTimeout(ClientProperties.READ_TIMEOUT)));
+        }
+        if (RestRequest.PATCH.equals(request.getMethod())) {
+            // HttpURLConnection rejects PATCH; other connectors ignore this.
+            builder = builder.property(HttpUrlConnectorProvider.SET_METHOD_WORKAROUND, true);
+        }
+
+        Response response;
+        if (request.hasEntity()) {
+            response = builder.method(request.getMethod(),
+                    Entity.entity(request.getEntity(), request.getMediaType()));
+        } else {
+            response = builder.method(request.getMethod());
+        }
+        return new JerseyResponse(response);
+    }
+
+    private int configuredTimeout(final String property) {
+        Object value = target.getConfiguration().getProperty(property);
+        return value instanceof Number ? ((Number) value).intValue() : 0;
+    }
+
+    static class JerseyResponse implements RestResponse {
+
+        private final Response response;
+
+        JerseyResponse(final Response response) {
+            this.response = response;
+        }
+
+        @Override
+        public int getStatus() {
+            return response.getStatus();
+        }
+
+        @Override
+        public String getHeaderString(final String name) {
+            return response.getHeaderString(name);
+        }
+
+        @Override
+        public <U> U readEntity(final Type type) {
+            return response.readEntity(new GenericType<U>(type));
+        }
+
+        @Override
+        public Response toResponse() {
+            return response;
+        }
+
+        @Override
+        public Response toBufferedResponse() {
+            try {
+                // Reads the body and closes the entity stream, which releases the connection.
+                response.bufferEntity();
+            } catch (ProcessingException e) {
+                // The body is lost, but the status and headers are still worth reporting.
+                response.close();
+                return response;
+            }
+            if (!response.hasEntity()) {
+                response.close();
+            }
+            return response;
+        }
+
+        @Override
+        public void abort() {
+            // Jersey's connectors close the connection, rather than drain it, if the body has not been read.
+            response.close();
+        }
+
+        @Override
+        public void close() {
+            response.close();
+        }
+    }
+}
@@ -0,0 +1,146 @@
+package com.clearcapital.oss.rest;
+
+import java.io.IOException;
+
+import javax.ws.rs.ProcessingException;
+import javax.ws.rs.core.GenericType;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonPointer;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.JavaType;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+/**
+ * An entity kept as the response body it arrived as, and decoded a part at a time, on demand; see
+ * {@link BaseResourceClient#readLazy(Long, Long)}.
+ *
+ * <p>
+ * Parts are addressed by JSON Pointer (RFC 6901), e.g. {@code /address/city} or {@code /items/0}. Finding one scans
+ * the body with a streaming parser, skipping everything else without building it, and only the part itself is
+ * decoded. For a caller that wants a few fields of a large entity, that is far less work and garbage than decoding
+ * the whole of it, and the body retained in the meantime is far smaller than the object graph would be. Nothing is
+ * cached: each call scans again, so read the parts you want once. Thread-safe.
+ * </p>
+ */
+public final class LazyEntity<T> {
+
+    private final byte[] body;
+    private final ObjectMapper objectMapper;
+    private final JavaType type;
+
+    LazyEntity(final byte[] body, final ObjectMapper objectMapper, final Class<T> type) {
+        this.body = body;
+        this.objectMapper = objectMapper;
+        this.type = objectMapper.getTypeFactory().constructType(type);
+    }
+
+    /**
+     * Decode the whole entity.
+     */
+    public T get() {
+        try {
+            return objectMapper.readValue(body, type);
+        } catch (IOException e) {
+            throw new ProcessingException(e);
+        }
+    }
+
+    /**
+     * Decode the part at {@code pointer} as {@code valueType}.
+     *
+     * @return the part, or {@code null} if there is none.
+     */
+    public <V> V get(final String pointer, final Class<V> valueType) {
+        return get(pointer, objectMapper.getTypeFactory().constructType(valueType));
+    }
+
+    /**
+     * Decode the part at {@code pointer} as {@code valueType}.
+     *
+     * @return the part, or {@code null} if there is none.
+     */
+    public <V> V get(final String pointer, final GenericType<V> valueType) {
+        return get(pointer, objectMapper.getTypeFactory().constructType(valueType.getType()));
+    }
+
+    /**
+     * The part at {@code pointer}, as a tree.
+     *
+     * @return the part, or {@code null} if there is none.
+     */
+    public JsonNode getTree(final String pointer) {
+        return get(pointer, objectMapper.getTypeFactory().constructType(JsonNode.class));
+    }
+
+    /**
+     * True if there is a part at {@code pointer}, even a {@code null} one.
+     */
+    public boolean has(final String pointer) {
+        try (JsonParser parser = objectMapper.getFactory().createParser(body)) {
+            return seek(parser, JsonPointer.compile(pointer));
+        } catch (IOException e) {
+            throw new ProcessingException(e);
+        }
+    }
+
+    /**
+     * The size of the retained body, in bytes.
+     */
+    public int size() {
+        return body.length;
+    }
+
+    private <V> V get(final String pointer, final JavaType valueType) {
+        try (JsonParser parser = objectMapper.getFactory().createParser(body)) {
+            if (!seek(parser, JsonPointer.compile(pointer)) || parser.getCurrentToken() == JsonToken.VALUE_NULL) {
+                return null;
+            }
+            return objectMapper.readValue(parser, valueType);
+        } catch (IOException e) {
+            throw new ProcessingException(e);
+        }
+    }
+
+    /**
+     * Advance {@code parser} to the first token of the value at {@code pointer}, skipping over everything else.
+     *
+     * @return false if there is no such value.
+     */
+    private static boolean seek(final JsonParser parser, JsonPointer pointer) throws IOException {
+        JsonToken token = parser.nextToken();
+        while (token != null && !pointer.matches()) {
+            if (token == JsonToken.START_OBJECT) {
+                String property = pointer.getMatchingProperty();
+                while ((token = parser.nextToken()) == JsonToken.FIELD_NAME) {
+                    token = parser.nextToken();
+                    if (property.equals(parser.getCurrentName())) {
+                        break;
+                    }
+                    parser.skipChildren();
+                }
+                if (token == JsonToken.END_OBJECT) {
+                    return false;
+                }
+            } else if (token == JsonToken.START_ARRAY) {
+                int index = pointer.getMatchingIndex();
+                if (index < 0) {
+                    return false;
+                }
+                token = parser.nextToken();
+                for (int i = 0; i < index && token != JsonToken.END_ARRAY; i++) {
+                    parser.skipChildren();
+                    token = parser.nextToken();
+                }
+                if (token == JsonToken.END_ARRAY) {
+                    return false;
+                }
+            } else {
+                return false;
+            }
+            pointer = pointer.tail();
+        }
+        return token != null;
+    }
+}
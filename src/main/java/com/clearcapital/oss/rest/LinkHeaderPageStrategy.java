@@ -0,0 +1,95 @@
+package com.clearcapital.oss.rest;
+
+import java.io.UnsupportedEncodingException;
+import java.net.URI;
+import java.net.URLDecoder;
+import java.util.List;
+
+import javax.ws.rs.core.MultivaluedHashMap;
+import javax.ws.rs.core.MultivaluedMap;
+
+/**
+ * {@link PageStrategy} that follows {@code Link: <...>; rel="next"} response headers.
+ *
+ * <p>
+ * The query parameters of the next link replace the same-named parameters of the current page; the request still goes
+ * to this resource's uri.
+ * </p>
+ */
+public class LinkHeaderPageStrategy implements PageStrategy {
+
+    @Override
+    public MultivaluedMap<String, String> firstPage(final MultivaluedMap<String, String> queryParams) {
+        MultivaluedMap<String, String> result = new MultivaluedHashMap<>();
+        if (queryParams != null) {
+            result.putAll(queryParams);
+        }
+        return result;
+    }
+
+    @Override
+    public MultivaluedMap<String, String> nextPage(final MultivaluedMap<String, String> queryParams,
+            final List<?> page, final RestResponse response) {
+        String next = findNextLink(response.getHeaderString("Link"));
+        if (next == null) {
+            return null;
+        }
+
+        MultivaluedMap<String, String> linkParams = parseQuery(URI.create(next).getRawQuery());
+        MultivaluedMap<String, String> result = new MultivaluedHashMap<>();
+        result.putAll(queryParams);
+        result.putAll(linkParams);
+        return result;
+    }
+
+    /**
+     * @return the target of the first link with relation type {@code next}, or {@code null}.
+     */
+    static String findNextLink(final String header) {
+        if (header == null) {
+            return null;
+        }
+        int start = header.indexOf('<');
+        while (start >= 0) {
+            int end = header.indexOf('>', start);
+            if (end < 0) {
+                return null;
+            }
+            int following = header.indexOf('<', end);
+            String params = header.substring(end + 1, following < 0 ? header.length() : following).trim();
+            if (params.endsWith(",")) {
+                params = params.substring(0, params.length() - 1);
+            }
+            for (String param : params.split(";")) {
+                String[] pair = param.trim().split("=", 2);
+                if (pair.length == 2 && pair[0].trim().equalsIgnoreCase("rel")) {
+                    for (String rel : pair[1].trim().replace("\"", "").split("\\s+")) {
+                        if (rel.equalsIgnoreCase("next")) {
+                            return header.substring(start + 1, end);
+                        }
+                    }
+                }
+            }
+            start = following;
+        }
+        return null;
+    }
+
+    private static MultivaluedMap<String, String> parseQuery(final String query) {
+        MultivaluedMap<String, String> result = new MultivaluedHashMap<>();
+        if (query == null || query.isEmpty()) {
+            return result;
+        }
+        try {
+            for (String pair : query.split("&")) {
+                int eq = pair.indexOf('=');
+                String name = URLDecoder.decode(eq < 0 ? pair : pair.substring(0, eq), "UTF-8");
+                String value = eq < 0 ? "" : URLDecoder.decode(pair.substring(eq + 1), "UTF-8");
+                result.add(name, value);
+            }
+        } catch (UnsupportedEncodingException e) {
+            throw new IllegalStateException("Cannot decode with UTF-8", e);
+        }
+        return result;
+    }
+}
@@ -0,0 +1,291 @@
+package com.clearcapital.oss.rest;
+
+import java.io.Closeable;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.LongSupplier;
+
+import javax.ws.rs.HttpMethod;
+import javax.ws.rs.ProcessingException;
+
+/**
+ * A {@link RestTransport} that spreads requests over several equivalent endpoints, each reached through its own
+ * transport.
+ *
+ * <ul>
+ * <li>Each request goes to the better of two randomly chosen endpoints ("power of two choices"), where better means a
+ * lower {@code (in-flight requests + 1) * latency EWMA}. This avoids both herding onto one endpoint and the cost of
+ * scanning them all.</li>
+ * <li>An endpoint that fails {@value #EJECT_AFTER_FAILURES} times in a row (connection failures, 502, 503 or 504) is
+ * ejected for a backoff that doubles with each consecutive ejection. After the backoff it is tried again; a single
+ * success reinstates it fully.</li>
+ * <li>Optionally, {@link #startHealthChecks(String, long, TimeUnit)} polls every endpoint, ejecting those that fail and
+ * reinstating those that recover without waiting for live traffic to find out. Each probe has a {@link Deadline} of
+ * one interval, and an endpoint whose last probe is still running is skipped, so a hung endpoint holds at most one
+ * probe.</li>
+ * </ul>
+ *
+ * <p>
+ * If every endpoint is ejected, requests go to the one due back soonest rather than failing outright. Requests are not
+ * retried on another endpoint, since they may not be idempotent.
+ * </p>
+ */
+public class LoadBalancedTransport implements RestTransport, Closeable {
+
+    static final int EJECT_AFTER_FAILURES = 3;
+    static final long DEFAULT_BASE_BACKOFF_MILLIS = 1000;
+    static final long DEFAULT_MAX_BACKOFF_MILLIS = 60000;
+    static final long DEFAULT_HEALTH_CHECK_INTERVAL_MILLIS = 10000;
+
+    /** Weight of the newest sample in the latency EWMA. */
+    private static final double EWMA_WEIGHT = 0.2;
+
+    private final List<Endpoint> endpoints;
+    private final long baseBackoffNanos;
+    private final long maxBackoffNanos;
+    private final LongSupplier clock;
+    private volatile ScheduledFuture<?> healthChecks;
+
+    public LoadBalancedTransport(final List<? extends RestTransport> transports) {
+        this(transports, DEFAULT_BASE_BACKOFF_MILLIS, DEFAULT_MAX_BACKOFF_MILLIS, TimeUnit.MILLISECONDS);
+    }
+
+    public LoadBalancedTransport(final List<? extends RestTransport> transports, final long baseBackoff,
+            final long maxBackoff, final TimeUnit unit) {
+        this(transports, baseBackoff, maxBackoff, unit, System::nanoTime);
+    }
+
+    LoadBalancedTransport(final List<? extends RestTransport> transports, final long baseBackoff,
+            final long maxBackoff, final TimeUnit unit, final LongSupplier clock) {
+        if (transports.isEmpty()) {
+            throw new IllegalArgumentException("No endpoints");
+        }
+        List<Endpoint> result = new ArrayList<>(transports.size());
+        for (RestTransport transport : transports) {
+            result.add(new Endpoint(transport));
+        }
+        this.endpoints = Collections.unmodifiableList(result);
+        this.baseBackoffNanos = unit.toNanos(baseBackoff);
+        this.maxBackoffNanos = unit.toNanos(maxBackoff);
+        this.clock = clock;
+    }
+
+    public List<Endpoint> getEndpoints() {
+        return endpoints;
+    }
+
+    @Override
+    public RestResponse invoke(final RestRequest request) {
+        Endpoint endpoint = select();
+        endpoint.inFlight.incrementAndGet();
+        long start = clock.getAsLong();
+        try {
+            RestResponse response = endpoint.transport.invoke(request);
+            long now = clock.getAsLong();
+            endpoint.recordLatency(now - start);
+            if (isEndpointFailure(response.getStatus())) {
+                failed(endpoint, now);
+            } else {
+                endpoint.succeeded();
+            }
+            return response;
+        } catch (ProcessingException e) {
+            // A request cut short by its caller's deadline says nothing about the endpoint.
+            Deadline deadline = Deadline.current();
+            if (deadline == null || !deadline.isExpired()) {
+                failed(endpoint, clock.getAsLong());
+            }
+            throw e;
+        } finally {
+            endpoint.inFlight.decrementAndGet();
+        }
+    }
+
+    /**
+     * Every {@code interval}, send {@code GET path} to each endpoint: any 2xx reinstates it, anything else (including
+     * no response within {@code interval}) ejects it.
+     */
+    public synchronized void startHealthChecks(final String path, final long interval, final TimeUnit unit) {
+        if (healthChecks != null) {
+            healthChecks.cancel(false);
+        }
+        final long timeoutNanos = unit.toNanos(interval);
+        healthChecks = RestExecutors.scheduler().scheduleWithFixedDelay(() -> {
+            for (Endpoint endpoint : endpoints) {
+                if (!endpoint.probing.compareAndSet(false, true)) {
+                    continue;
+                }
+                try {
+                    RestExecutors.defaultExecutor().execute(() -> probe(endpoint, path, timeoutNanos));
+                } catch (RejectedExecutionException e) {
+                    endpoint.probing.set(false);
+                }
+            }
+        }, 0, interval, unit);
+    }
+
+    /**
+     * Stop any health checks. The endpoint transports are not closed.
+     */
+    @Override
+    public synchronized void close() {
+        if (healthChecks != null) {
+            healthChecks.cancel(false);
+            healthChecks = null;
+        }
+    }
+
+    private void probe(final Endpoint endpoint, final String path, final long timeoutNanos) {
+        try {
+            Deadline.after(timeoutNanos, TimeUnit.NANOSECONDS).runWithin(() -> checkHealth(endpoint, path));
+        } finally {
+            endpoint.probing.set(false);
+        }
+    }
+
+    /**
+     * @return whether {@code endpoint} is healthy.
+     */
+    boolean checkHealth(final Endpoint endpoint, final String path) {
+        try (RestResponse response = endpoint.transport.invoke(RestRequest.builder(HttpMethod.GET).addPath(path)
+                .build())) {
+            if (response.getStatus() >= 200 && response.getStatus() < 300) {
+                endpoint.succeeded();
+                return true;
+            }
+            eject(endpoint, clock.getAsLong());
+            return false;
+        } catch (ProcessingException e) {
+            eject(endpoint, clock.getAsLong());
+            return false;
+        }
+    }
+
+    private Endpoint select() {
+        int size = endpoints.size();
+        if (size == 1) {
+            return endpoints.get(0);
+        }
+
+        long now = clock.getAsLong();
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        int first = random.nextInt(size);
+        int second = random.nextInt(size - 1);
+        if (second >= first) {
+            second++;
+        }
+        Endpoint a = endpoints.get(first);
+        Endpoint b = endpoints.get(second);
+        boolean aAvailable = a.isAvailable(now);
+        boolean bAvailable = b.isAvailable(now);
+        if (aAvailable && bAvailable) {
+            return a.score() <= b.score() ? a : b;
+        }
+        if (aAvailable) {
+            return a;
+        }
+        if (bAvailable) {
+            return b;
+        }
+
+        // Both picks are ejected; fall back to the best available endpoint, or, if none is, the one due back soonest.
+        Endpoint best = null;
+        Endpoint soonest = null;
+        for (Endpoint endpoint : endpoints) {
+            if (endpoint.isAvailable(now)) {
+                if (best == null || endpoint.score() < best.score()) {
+                    best = endpoint;
+                }
+            } else if (soonest == null || endpoint.ejectedUntil - soonest.ejectedUntil < 0) {
+                soonest = endpoint;
+            }
+        }
+        return best != null ? best : soonest;
+    }
+
+    private void failed(final Endpoint endpoint, final long now) {
+        if (endpoint.consecutiveFailures.incrementAndGet() >= EJECT_AFTER_FAILURES) {
+            eject(endpoint, now);
+        }
+    }
+
+    private void eject(final Endpoint endpoint, final long now) {
+        int ejections = endpoint.ejections.incrementAndGet();
+        long backoff = baseBackoffNanos << Math.min(ejections - 1, 20);
+        endpoint.ejectedUntil = now + Math.min(backoff, maxBackoffNanos);
+        endpoint.ejected = true;
+    }
+
+    private static boolean isEndpointFailure(final int status) {
+        return status == 502 || status == 503 || status == 504;
+    }
+
+    /**
+     * One endpoint and its health. Updates are best effort: a lost race costs a slightly stale statistic, never a
+     * wrong answer.
+     */
+    public static class Endpoint {
+
+        private final RestTransport transport;
+        private final AtomicInteger inFlight = new AtomicInteger();
+        private final AtomicInteger consecutiveFailures = new AtomicInteger();
+        private final AtomicInteger ejections = new AtomicInteger();
+        /** Whether a health check probe is running. */
+        private final AtomicBoolean probing = new AtomicBoolean();
+        private volatile double latencyEwma;
+        private volatile boolean ejected;
+        private volatile long ejectedUntil;
+
+        Endpoint(final RestTransport transport) {
+            this.transport = transport;
+        }
+
+        public RestTransport getTransport() {
+            return transport;
+        }
+
+        public int getInFlight() {
+            return inFlight.get();
+        }
+
+        /**
+         * Smoothed time to a response, in nanos; 0 until the first response.
+         */
+        public double getLatencyEwma() {
+            return latencyEwma;
+        }
+
+        public boolean isEjected() {
+            return ejected;
+        }
+
+        boolean isAvailable(final long now) {
+            return !ejected || now - ejectedUntil >= 0;
+        }
+
+        /**
+         * Lower is better. Endpoints with no latency sample yet score 0, so each is tried early.
+         */
+        double score() {
+            return (inFlight.get() + 1) * latencyEwma;
+        }
+
+        void recordLatency(final long nanos) {
+            double previous = latencyEwma;
+            latencyEwma = previous == 0 ? nanos : previous + EWMA_WEIGHT * (nanos - previous);
+        }
+
+        void succeeded() {
+            consecutiveFailures.set(0);
+            ejections.set(0);
+            ejected = false;
+        }
+    }
+}
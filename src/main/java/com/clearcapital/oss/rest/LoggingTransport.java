@@ -0,0 +1,273 @@
+package com.clearcapital.oss.rest;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import javax.ws.rs.core.HttpHeaders;
+import javax.ws.rs.core.MediaType;
+
+/**
+ * A {@link RestTransport} decorator that logs a sample of requests, and their responses, to a {@link RequestLog}: a
+ * lighter-weight replacement for Jersey's {@code LoggingFilter}, cheap enough to turn on in production.
+ *
+ * <p>
+ * Each request is logged with probability {@code sampleRate}; the rest pass straight through. A logged request costs
+ * copying its method, path and headers, and encoding up to {@code maxBodyBytes} of its entity, if JSON or a string;
+ * everything else, including formatting, is done by the log's writer. Response bodies are not logged, since they are
+ * decoded straight from the connection, and keeping a copy would mean buffering all of them. The values of the
+ * {@code Authorization} and {@code Proxy-Authorization} headers and of the session cookie are always redacted.
+ * </p>
+ */
+public class LoggingTransport implements RestTransport {
+
+    static final String REDACTED = "<redacted>";
+
+    private static final Pattern SESSION_COOKIE = Pattern
+            .compile("(^|;\\s*)(" + Pattern.quote(BaseResourceClient.SESSION_COOKIE) + ")=[^;]*");
+
+    private final RestTransport delegate;
+    private final RequestLog log;
+    private final double sampleRate;
+    private final int maxBodyBytes;
+    private final EntityCodec codec;
+
+    /**
+     * @param sampleRate
+     *            the fraction of requests to log, from 0 to 1.
+     * @param maxBodyBytes
+     *            how much of each request entity to log; 0 for none.
+     * @param codec
+     *            to encode JSON entities with, or {@code null} to log only string entities.
+     */
+    public LoggingTransport(final RestTransport delegate, final RequestLog log, final double sampleRate,
+            final int maxBodyBytes, final EntityCodec codec) {
+        if (sampleRate < 0 || sampleRate > 1 || maxBodyBytes < 0) {
+            throw new IllegalArgumentException("sampleRate must be from 0 to 1, and maxBodyBytes at least 0");
+        }
+        this.delegate = delegate;
+        this.log = log;
+        this.sampleRate = sampleRate;
+        this.maxBodyBytes = maxBodyBytes;
+        this.codec = codec;
+    }
+
+    public RestTransport getDelegate() {
+        return delegate;
+    }
+
+    public RequestLog getLog() {
+        return log;
+    }
+
+    @Override
+    public RestResponse invoke(final RestRequest request) {
+        if (sampleRate < 1 && (sampleRate == 0 || ThreadLocalRandom.current().nextDouble() >= sampleRate)) {
+            return delegate.invoke(request);
+        }
+
+        Record record = new Record(request, body(request));
+        long start = System.nanoTime();
+        RestResponse response;
+        try {
+            response = delegate.invoke(request);
+        } catch (RuntimeException e) {
+            record.failed(System.nanoTime() - start, e);
+            log.offer(record);
+            throw e;
+        }
+        record.responded(System.nanoTime() - start, response.getStatus(),
+                response.getHeaderString(HttpHeaders.CONTENT_TYPE),
+                response.getHeaderString(HttpHeaders.CONTENT_LENGTH));
+        log.offer(record);
+        return response;
+    }
+
+    /**
+     * Up to {@code maxBodyBytes} of the request entity, and how long it is; or {@code null} if it is not to be logged.
+     */
+    private Body body(final RestRequest request) {
+        if (maxBodyBytes == 0 || !request.hasEntity() || request.getEntity() == null) {
+            return null;
+        }
+        Object entity = request.getEntity();
+        if (entity instanceof String) {
+            byte[] bytes = ((String) entity).getBytes(StandardCharsets.UTF_8);
+            return new Body(bytes, Math.min(bytes.length, maxBodyBytes), bytes.length);
+        }
+        if (codec == null || !isJson(request.getMediaType())) {
+            return null;
+        }
+        Prefix prefix = new Prefix(maxBodyBytes);
+        try {
+            codec.write(entity, prefix);
+        } catch (IOException | RuntimeException e) {
+            // Prefix stops the encoder once it has enough, and a partial body is all the more reason to log.
+        }
+        return new Body(prefix.bytes, prefix.length, prefix.complete ? prefix.length : -1);
+    }
+
+    private static boolean isJson(final String mediaType) {
+        return mediaType != null && mediaType.startsWith(MediaType.APPLICATION_JSON);
+    }
+
+    /**
+     * {@code value}, less any session cookie's value.
+     */
+    static String redactCookies(final String value) {
+        Matcher matcher = SESSION_COOKIE.matcher(value);
+        return matcher.find() ? matcher.replaceAll("$1$2=" + REDACTED) : value;
+    }
+
+    static boolean isSecret(final String header) {
+        return HttpHeaders.AUTHORIZATION.equalsIgnoreCase(header) || "Proxy-Authorization".equalsIgnoreCase(header);
+    }
+
+    private static final class Body {
+
+        final byte[] bytes;
+        final int length;
+        /** -1 if unknown, because encoding stopped early. */
+        final int total;
+
+        Body(final byte[] bytes, final int length, final int total) {
+            this.bytes = bytes;
+            this.length = length;
+            this.total = total;
+        }
+    }
+
+    /**
+     * Keeps the first {@code limit} bytes written, then fails, so that a large entity is not encoded in full.
+     */
+    private static final class Prefix extends OutputStream {
+
+        final byte[] bytes;
+        int length;
+        boolean complete = true;
+
+        Prefix(final int limit) {
+            bytes = new byte[limit];
+        }
+
+        @Override
+        public void write(final int b) throws IOException {
+            write(new byte[] { (byte) b }, 0, 1);
+        }
+
+        @Override
+        public void write(final byte[] b, final int off, final int len) throws IOException {
+            int count = Math.min(len, bytes.length - length);
+            System.arraycopy(b, off, bytes, length, count);
+            length += count;
+            if (count < len) {
+                complete = false;
+                throw new IOException("Body truncated");
+            }
+        }
+    }
+
+    /**
+     * One logged request, captured on the caller's thread and formatted on the log's.
+     */
+    private static final class Record {
+
+        private final String method;
+        private final List<String> path;
+        private final Map<String, List<String>> queryParams;
+        private final Map<String, String> headers;
+        private final Map<String, String> cookies;
+        private final String mediaType;
+        private final Body body;
+        private long elapsedNanos;
+        private int status;
+        private String contentType;
+        private String contentLength;
+        private RuntimeException error;
+
+        Record(final RestRequest request, final Body body) {
+            // Requests are not changed once sent, so these need not be copied.
+            this.method = request.getMethod();
+            this.path = request.getPath();
+            this.queryParams = request.getQueryParams();
+            this.headers = request.getHeaders();
+            this.cookies = request.getCookies();
+            this.mediaType = request.getMediaType();
+            this.body = body;
+        }
+
+        void responded(final long elapsedNanos, final int status, final String contentType,
+                final String contentLength) {
+            this.elapsedNanos = elapsedNanos;
+            this.status = status;
+            this.contentType = contentType;
+            this.contentLength = contentLength;
+        }
+
+        void failed(final long elapsedNanos, final RuntimeException error) {
+            this.elapsedNanos = elapsedNanos;
+            this.error = error;
+        }
+
+        @Override
+        public String toString() {
+            StringBuilder result = new StringBuilder(256).append(method).append(' ');
+            for (String segment : path) {
+                if (result.charAt(result.length() - 1) != '/' && !segment.startsWith("/")) {
+                    result.append('/');
+                }
+                result.append(segment);
+            }
+            char separator = '?';
+            for (Map.Entry<String, List<String>> param : queryParams.entrySet()) {
+                for (String value : param.getValue()) {
+                    result.append(separator).append(param.getKey()).append('=').append(value);
+                    separator = '&';
+                }
+            }
+
+            for (Map.Entry<String, String> header : headers.entrySet()) {
+                String value = header.getValue();
+                if (isSecret(header.getKey())) {
+                    value = REDACTED;
+                } else if (value != null && HttpHeaders.COOKIE.equalsIgnoreCase(header.getKey())) {
+                    value = redactCookies(value);
+                }
+                result.append("\n> ").append(header.getKey()).append(": ").append(value);
+            }
+            for (Map.Entry<String, String> cookie : cookies.entrySet()) {
+                result.append("\n> Cookie: ").append(cookie.getKey()).append('=')
+                        .append(BaseResourceClient.SESSION_COOKIE.equals(cookie.getKey()) ? REDACTED
+                                : cookie.getValue());
+            }
+            if (mediaType != null) {
+                result.append("\n> Content-Type: ").append(mediaType);
+            }
+            if (body != null) {
+                result.append("\n> ").append(new String(body.bytes, 0, body.length, StandardCharsets.UTF_8));
+                if (body.total != body.length) {
+                    result.append("... (").append(body.total < 0 ? "more than " + body.length : body.total)
+                            .append(" bytes)");
+                }
+            }
+
+            if (error != null) {
+                result.append("\n< failed: ").append(error);
+            } else {
+                result.append("\n< ").append(status);
+                if (contentType != null) {
+                    result.append(' ').append(contentType);
+                }
+                if (contentLength != null) {
+                    result.append(", ").append(contentLength).append(" bytes");
+                }
+            }
+            return result.append(" in ").append(String.format("%.3f", elapsedNanos / 1e6)).append("ms").toString();
+        }
+    }
+}
@@ -0,0 +1,142 @@
+package com.clearcapital.oss.rest;
+
+/**
+ * A compact set of {@code (long, long)} pairs: open addressing with linear probing over two parallel {@code long[]}s,
+ * so there is no per-entry object. Pairs whose first element is {@code Long.MIN_VALUE} cannot be stored (that value
+ * marks an empty slot) and are silently ignored.
+ *
+ * <p>
+ * Thread-safe.
+ * </p>
+ */
+class LongPairSet {
+
+    private static final long EMPTY = Long.MIN_VALUE;
+    private static final int MIN_CAPACITY = 16;
+
+    private long[] firsts;
+    private long[] seconds;
+    private int size;
+
+    LongPairSet() {
+        allocate(MIN_CAPACITY);
+    }
+
+    synchronized boolean contains(final long first, final long second) {
+        return first != EMPTY && indexOf(first, second) >= 0;
+    }
+
+    synchronized void add(final long first, final long second) {
+        if (first == EMPTY) {
+            return;
+        }
+        if ((size + 1) * 4 > firsts.length * 3) {
+            rehash(firsts.length * 2);
+        }
+        int mask = firsts.length - 1;
+        int slot = hash(first, second) & mask;
+        while (firsts[slot] != EMPTY) {
+            if (firsts[slot] == first && seconds[slot] == second) {
+                return;
+            }
+            slot = (slot + 1) & mask;
+        }
+        firsts[slot] = first;
+        seconds[slot] = second;
+        size++;
+    }
+
+    synchronized void remove(final long first, final long second) {
+        if (first == EMPTY) {
+            return;
+        }
+        int slot = indexOf(first, second);
+        if (slot < 0) {
+            return;
+        }
+
+        // Backward-shift deletion: pull later entries of the same probe run into the hole, so lookups never stop
+        // early at it.
+        int mask = firsts.length - 1;
+        int hole = slot;
+        int next = slot;
+        while (true) {
+            next = (next + 1) & mask;
+            if (firsts[next] == EMPTY) {
+                break;
+            }
+            int home = hash(firsts[next], seconds[next]) & mask;
+            boolean movable = next > hole ? (home <= hole || home > next) : (home <= hole && home > next);
+            if (movable) {
+                firsts[hole] = firsts[next];
+                seconds[hole] = seconds[next];
+                hole = next;
+            }
+        }
+        firsts[hole] = EMPTY;
+        size--;
+    }
+
+    /**
+     * Remove every pair whose first element is {@code first}. Linear in the capacity of the set.
+     */
+    synchronized void removeAll(final long first) {
+        long[] oldFirsts = firsts;
+        long[] oldSeconds = seconds;
+        allocate(oldFirsts.length);
+        for (int i = 0; i < oldFirsts.length; i++) {
+            if (oldFirsts[i] != EMPTY && oldFirsts[i] != first) {
+                add(oldFirsts[i], oldSeconds[i]);
+            }
+        }
+    }
+
+    synchronized void clear() {
+        allocate(MIN_CAPACITY);
+    }
+
+    synchronized int size() {
+        return size;
+    }
+
+    private int indexOf(final long first, final long second) {
+        int mask = firsts.length - 1;
+        int slot = hash(first, second) & mask;
+        while (firsts[slot] != EMPTY) {
+            if (firsts[slot] == first && seconds[slot] == second) {
+                return slot;
+            }
+            slot = (slot + 1) & mask;
+        }
+        return -1;
+    }
+
+    private void rehash(final int capacity) {
+        long[] oldFirsts = firsts;
+        long[] oldSeconds = seconds;
+        allocate(capacity);
+        for (int i = 0; i < oldFirsts.length; i++) {
+            if (oldFirsts[i] != EMPTY) {
+                add(oldFirsts[i], oldSeconds[i]);
+            }
+        }
+    }
+
+    private void allocate(final int capacity) {
+        firsts = new long[capacity];
+        seconds = new long[capacity];
+        java.util.Arrays.fill(firsts, EMPTY);
+        size = 0;
+    }
+
+    private static int hash(final long first, final long second) {
+        // murmur3 finalizer over a combination of both halves
+        long h = first * 0x9E3779B97F4A7C15L + second;
+        h ^= h >>> 33;
+        h *= 0xFF51AFD7ED558CCDL;
+        h ^= h >>> 33;
+        h *= 0xC4CEB9FE1A85EC53L;
+        h ^= h >>> 33;
+        return (int) h;
+    }
+}
@@ -0,0 +1,83 @@
+package com.clearcapital.oss.rest;
+
+import java.util.Iterator;
+import java.util.Map.Entry;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.node.JsonNodeFactory;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+
+/**
+ * RFC 7396 JSON Merge Patch. A patch is a JSON document shaped like its target: objects are merged member by member,
+ * a {@code null} member removes that member, and any other value replaces the target's value whole.
+ */
+public final class MergePatch {
+
+    public static final String MEDIA_TYPE = "application/merge-patch+json";
+
+    private MergePatch() {
+
+    }
+
+    /**
+     * @return the smallest merge patch that turns {@code source} into {@code target}: for objects, only the members
+     *         that were added, removed or changed, recursively; anything else, arrays included, is {@code target}
+     *         itself. Since a {@code null} member means "remove", a member that becomes {@code null} is sent as a
+     *         removal.
+     */
+    public static JsonNode diff(final JsonNode source, final JsonNode target) {
+        if (!source.isObject() || !target.isObject()) {
+            return target;
+        }
+        ObjectNode patch = JsonNodeFactory.instance.objectNode();
+        Iterator<String> names = source.fieldNames();
+        while (names.hasNext()) {
+            String name = names.next();
+            if (!target.has(name)) {
+                patch.putNull(name);
+            }
+        }
+        Iterator<Entry<String, JsonNode>> fields = target.fields();
+        while (fields.hasNext()) {
+            Entry<String, JsonNode> field = fields.next();
+            JsonNode before = source.get(field.getKey());
+            JsonNode after = field.getValue();
+            if (before == null) {
+                if (!after.isNull()) {
+                    patch.set(field.getKey(), after);
+                }
+            } else if (!before.equals(after)) {
+                patch.set(field.getKey(), diff(before, after));
+            }
+        }
+        return patch;
+    }
+
+    /**
+     * @return {@code target} with {@code patch} applied. {@code target} is not modified.
+     */
+    public static JsonNode apply(final JsonNode target, final JsonNode patch) {
+        if (!patch.isObject()) {
+            return patch;
+        }
+        ObjectNode result = target != null && target.isObject() ? ((ObjectNode) target).deepCopy()
+                : JsonNodeFactory.instance.objectNode();
+        Iterator<Entry<String, JsonNode>> fields = patch.fields();
+        while (fields.hasNext()) {
+            Entry<String, JsonNode> field = fields.next();
+            if (field.getValue().isNull()) {
+                result.remove(field.getKey());
+            } else {
+                result.set(field.getKey(), apply(result.get(field.getKey()), field.getValue()));
+            }
+        }
+        return result;
+    }
+
+    /**
+     * @return true if {@code patch} changes nothing.
+     */
+    public static boolean isEmpty(final JsonNode patch) {
+        return patch.isObject() && patch.size() == 0;
+    }
+}
@@ -0,0 +1,48 @@
+package com.clearcapital.oss.rest;
+
+import java.util.List;
+
+import javax.ws.rs.core.MultivaluedHashMap;
+import javax.ws.rs.core.MultivaluedMap;
+
+/**
+ * {@link PageStrategy} for resources paged by {@code ?offset=&limit=}.
+ */
+public class OffsetLimitPageStrategy implements PageStrategy {
+
+    private final String offsetParam;
+    private final String limitParam;
+    private final int limit;
+
+    public OffsetLimitPageStrategy(final String offsetParam, final String limitParam, final int limit) {
+        this.offsetParam = offsetParam;
+        this.limitParam = limitParam;
+        this.limit = limit;
+    }
+
+    @Override
+    public MultivaluedMap<String, String> firstPage(final MultivaluedMap<String, String> queryParams) {
+        return withOffset(queryParams, 0);
+    }
+
+    @Override
+    public MultivaluedMap<String, String> nextPage(final MultivaluedMap<String, String> queryParams,
+            final List<?> page, final RestResponse response) {
+        if (page.size() < limit) {
+            return null;
+        }
+        long offset = Long.parseLong(queryParams.getFirst(offsetParam));
+        return withOffset(queryParams, offset + page.size());
+    }
+
+    private MultivaluedMap<String, String> withOffset(final MultivaluedMap<String, String> queryParams,
+            final long offset) {
+        MultivaluedMap<String, String> result = new MultivaluedHashMap<>();
+        if (queryParams != null) {
+            result.putAll(queryParams);
+        }
+        result.putSingle(offsetParam, Long.toString(offset));
+        result.putSingle(limitParam, Integer.toString(limit));
+        return result;
+    }
+}
@@ -0,0 +1,179 @@
+package com.clearcapital.oss.rest;
+
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+
+import javax.ws.rs.ProcessingException;
+import javax.ws.rs.core.MultivaluedMap;
+
+/**
+ * A lazy iterator over every item of a paginated collection, as returned by
+ * {@link BaseResourceClient#readPages(Long, MultivaluedMap, javax.ws.rs.core.GenericType, PageStrategy, int)}.
+ *
+ * <p>
+ * With a prefetch depth of {@code n > 0}, a background task reads pages ahead of the caller and buffers up to
+ * {@code n} of them, so that page N+1 is usually on hand by the time page N has been consumed. With a depth of 0, each
+ * page is read on the calling thread when it is first needed.
+ * </p>
+ *
+ * <p>
+ * Errors reading a page are rethrown from {@link #hasNext()} once the pages before it have been consumed. Callers that
+ * stop early should {@link #close()} the iterator, which stops the background task.
+ * </p>
+ */
+public class PageIterator<T> implements Iterator<T>, AutoCloseable {
+
+    interface PageFetcher<T> {
+
+        Page<T> fetch(MultivaluedMap<String, String> queryParams);
+    }
+
+    static class Page<T> {
+
+        final List<T> items;
+        final MultivaluedMap<String, String> next;
+
+        Page(final List<T> items, final MultivaluedMap<String, String> next) {
+            this.items = items;
+            this.next = next;
+        }
+    }
+
+    private static final Object END = new Object();
+
+    private final PageFetcher<T> fetcher;
+    private final BlockingQueue<Object> prefetched;
+    private final Future<?> producer;
+    private MultivaluedMap<String, String> nextParams;
+    private Iterator<T> current = Collections.emptyIterator();
+    private boolean done;
+
+    PageIterator(final PageFetcher<T> fetcher, final MultivaluedMap<String, String> firstParams,
+            final int prefetchDepth, final ExecutorService executor) {
+        this.fetcher = fetcher;
+        this.nextParams = firstParams;
+        if (prefetchDepth > 0) {
+            prefetched = new ArrayBlockingQueue<>(prefetchDepth);
+            final Deadline deadline = Deadline.current();
+            producer = executor.submit(new Runnable() {
+
+                @Override
+                public void run() {
+                    if (deadline == null) {
+                        produce(firstParams);
+                        return;
+                    }
+                    deadline.runWithin(() -> {
+                        produce(firstParams);
+                        return null;
+                    });
+                }
+            });
+        } else {
+            prefetched = null;
+            producer = null;
+        }
+    }
+
+    @Override
+    public boolean hasNext() {
+        while (!current.hasNext()) {
+            if (done) {
+                return false;
+            }
+            Page<T> page = prefetched != null ? takePrefetched() : fetchNext();
+            if (page == null) {
+                done = true;
+                return false;
+            }
+            current = page.items.iterator();
+        }
+        return true;
+    }
+
+    @Override
+    public T next() {
+        if (!hasNext()) {
+            throw new NoSuchElementException();
+        }
+        return current.next();
+    }
+
+    /**
+     * Stop reading pages. Items already handed out are unaffected.
+     */
+    @Override
+    public void close() {
+        done = true;
+        current = Collections.emptyIterator();
+        if (producer != null) {
+            producer.cancel(true);
+            prefetched.clear();
+        }
+    }
+
+    private Page<T> fetchNext() {
+        if (nextParams == null) {
+            return null;
+        }
+        Page<T> page = fetcher.fetch(nextParams);
+        nextParams = page.next;
+        return page.items.isEmpty() ? null : page;
+    }
+
+    @SuppressWarnings("unchecked")
+    private Page<T> takePrefetched() {
+        Object item;
+        try {
+            item = prefetched.take();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new ProcessingException("Interrupted while waiting for the next page", e);
+        }
+
+        if (item == END) {
+            return null;
+        }
+        if (item instanceof Throwable) {
+            done = true;
+            if (item instanceof RuntimeException) {
+                throw (RuntimeException) item;
+            }
+            if (item instanceof Error) {
+                throw (Error) item;
+            }
+            throw new ProcessingException((Throwable) item);
+        }
+        return (Page<T>) item;
+    }
+
+    /**
+     * Background loop: read pages one after another until the last one, blocking whenever the buffer is full.
+     */
+    private void produce(final MultivaluedMap<String, String> firstParams) {
+        MultivaluedMap<String, String> params = firstParams;
+        try {
+            try {
+                while (params != null && !Thread.currentThread().isInterrupted()) {
+                    Page<T> page = fetcher.fetch(params);
+                    if (page.items.isEmpty()) {
+                        break;
+                    }
+                    prefetched.put(page);
+                    params = page.next;
+                }
+                prefetched.put(END);
+            } catch (RuntimeException | Error e) {
+                prefetched.put(e);
+            }
+        } catch (InterruptedException e) {
+            // closed by the consumer
+        }
+    }
+}
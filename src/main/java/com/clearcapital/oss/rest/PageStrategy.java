@@ -0,0 +1,55 @@
+package com.clearcapital.oss.rest;
+
+import java.util.List;
+
+import javax.ws.rs.core.MultivaluedMap;
+
+/**
+ * Describes how a paginated collection resource is walked: which query parameters select the first page, and how the
+ * parameters for the following page are derived from the page just read.
+ *
+ * @see BaseResourceClient#readPages(Long, MultivaluedMap, javax.ws.rs.core.GenericType, PageStrategy, int)
+ */
+public interface PageStrategy {
+
+    /**
+     * @param queryParams
+     *            the caller's query parameters, possibly {@code null}. Must not be modified.
+     * @return the query parameters for the first page.
+     */
+    MultivaluedMap<String, String> firstPage(MultivaluedMap<String, String> queryParams);
+
+    /**
+     * @param queryParams
+     *            the query parameters that produced {@code page}. Must not be modified.
+     * @param page
+     *            the items just read; never empty.
+     * @param response
+     *            the response that carried {@code page}; only its headers may be used.
+     * @return the query parameters for the next page, or {@code null} if {@code page} was the last one.
+     */
+    MultivaluedMap<String, String> nextPage(MultivaluedMap<String, String> queryParams, List<?> page,
+            RestResponse response);
+
+    /**
+     * Page by {@code offsetParam} and {@code limitParam}; a short page is the last one.
+     */
+    static PageStrategy offsetLimit(final String offsetParam, final String limitParam, final int limit) {
+        return new OffsetLimitPageStrategy(offsetParam, limitParam, limit);
+    }
+
+    /**
+     * Page by passing the opaque token found in response header {@code cursorHeader} back as {@code cursorParam}; a
+     * response without the header is the last one.
+     */
+    static PageStrategy cursor(final String cursorParam, final String cursorHeader) {
+        return new CursorPageStrategy(cursorParam, cursorHeader);
+    }
+
+    /**
+     * Page by following the {@code rel="next"} entry of the {@code Link} response header (RFC 5988).
+     */
+    static PageStrategy linkHeader() {
+        return new LinkHeaderPageStrategy();
+    }
+}
@@ -0,0 +1,16 @@
+package com.clearcapital.oss.rest;
+
+import javax.ws.rs.ProcessingException;
+
+/**
+ * Thrown by {@link RateLimitedTransport} when no permit could be had within the configured wait; the request was not
+ * sent.
+ */
+public class RateLimitExceededException extends ProcessingException {
+
+    private static final long serialVersionUID = 1L;
+
+    public RateLimitExceededException(final String message) {
+        super(message);
+    }
+}
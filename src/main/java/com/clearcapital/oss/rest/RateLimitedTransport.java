@@ -0,0 +1,169 @@
+package com.clearcapital.oss.rest;
+
+import java.time.Instant;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A {@link RestTransport} decorator that spaces requests out to stay under the server's quotas: one
+ * {@link RateLimiter} for the whole target, and optionally one per resource uri (the first path segment of each
+ * request, i.e. {@link BaseResourceClient#getUri()}, matched by longest prefix so that child clients share their
+ * parent's limit).
+ *
+ * <p>
+ * A 429 response tightens every limiter the request passed through, honouring {@code Retry-After}; successful
+ * responses let them recover. Requests that cannot get a permit within {@code maxWaitNanos} fail with a
+ * {@link RateLimitExceededException} without being sent: {@code 0} fails fast, {@code Long.MAX_VALUE} blocks. Within
+ * a {@link Deadline}, they wait no longer than the time remaining.
+ * </p>
+ */
+public class RateLimitedTransport implements RestTransport {
+
+    static final int TOO_MANY_REQUESTS = 429;
+    static final String RETRY_AFTER = "Retry-After";
+
+    private final RestTransport delegate;
+    private final RateLimiter targetLimiter;
+    private final Map<String, RateLimiter> uriLimiters;
+    private final long maxWaitNanos;
+
+    /**
+     * @param targetLimiter
+     *            applies to every request; may be {@code null}.
+     * @param uriLimiters
+     *            keyed by resource uri; may be empty.
+     */
+    public RateLimitedTransport(final RestTransport delegate, final RateLimiter targetLimiter,
+            final Map<String, RateLimiter> uriLimiters, final long maxWait, final TimeUnit unit) {
+        this.delegate = delegate;
+        this.targetLimiter = targetLimiter;
+        this.uriLimiters = uriLimiters != null ? new LinkedHashMap<>(uriLimiters)
+                : Collections.<String, RateLimiter> emptyMap();
+        this.maxWaitNanos = unit.toNanos(maxWait);
+    }
+
+    public RestTransport getDelegate() {
+        return delegate;
+    }
+
+    @Override
+    public RestResponse invoke(final RestRequest request) {
+        RateLimiter uriLimiter = uriLimiterFor(request.getPath());
+        acquire(uriLimiter, request);
+        try {
+            acquire(targetLimiter, request);
+        } catch (RuntimeException e) {
+            // the request will not be sent, so its uri permit should not count against the quota
+            if (uriLimiter != null) {
+                uriLimiter.release();
+            }
+            throw e;
+        }
+
+        RestResponse response = delegate.invoke(request);
+        int status = response.getStatus();
+        if (status == TOO_MANY_REQUESTS) {
+            long retryAfterNanos = parseRetryAfter(response.getHeaderString(RETRY_AFTER), System.currentTimeMillis());
+            throttled(uriLimiter, retryAfterNanos);
+            throttled(targetLimiter, retryAfterNanos);
+        } else if (status >= 200 && status < 300) {
+            succeeded(uriLimiter);
+            succeeded(targetLimiter);
+        }
+        return response;
+    }
+
+    private void acquire(final RateLimiter limiter, final RestRequest request) {
+        if (limiter == null) {
+            return;
+        }
+        Deadline deadline = Deadline.current();
+        long maxWait = maxWaitNanos;
+        boolean deadlineFirst = false;
+        if (deadline != null) {
+            long remaining = deadline.remaining(TimeUnit.NANOSECONDS);
+            deadlineFirst = remaining < maxWait;
+            maxWait = Math.min(maxWait, remaining);
+        }
+
+        boolean acquired;
+        if (maxWait == Long.MAX_VALUE) {
+            limiter.acquire();
+            acquired = true;
+        } else {
+            acquired = limiter.tryAcquire(maxWait, TimeUnit.NANOSECONDS);
+        }
+        if (!acquired && deadlineFirst) {
+            throw new DeadlineExceededException("Deadline exceeded waiting for the rate limit for "
+                    + request.getMethod() + " " + request.getPath());
+        }
+        if (!acquired) {
+            throw new RateLimitExceededException(
+                    "Rate limit exceeded for " + request.getMethod() + " " + request.getPath());
+        }
+    }
+
+    private static void throttled(final RateLimiter limiter, final long retryAfterNanos) {
+        if (limiter != null) {
+            limiter.onThrottled(retryAfterNanos);
+        }
+    }
+
+    private static void succeeded(final RateLimiter limiter) {
+        if (limiter != null) {
+            limiter.onSuccess();
+        }
+    }
+
+    private RateLimiter uriLimiterFor(final List<String> path) {
+        if (uriLimiters.isEmpty() || path.isEmpty()) {
+            return null;
+        }
+        String resource = path.get(0);
+        RateLimiter result = null;
+        int matched = -1;
+        for (Entry<String, RateLimiter> entry : uriLimiters.entrySet()) {
+            String uri = entry.getKey();
+            if (uri.length() > matched && isPrefix(uri, resource)) {
+                result = entry.getValue();
+                matched = uri.length();
+            }
+        }
+        return result;
+    }
+
+    private static boolean isPrefix(final String uri, final String resource) {
+        return resource.startsWith(uri) && (resource.length() == uri.length() || uri.endsWith("/")
+                || resource.charAt(uri.length()) == '/');
+    }
+
+    /**
+     * Parse a {@code Retry-After} header, which is either a number of seconds or an HTTP date.
+     *
+     * @return the delay in nanos, or 0 if the header is absent or malformed.
+     */
+    static long parseRetryAfter(final String header, final long nowMillis) {
+        if (header == null || header.trim().isEmpty()) {
+            return 0;
+        }
+        String value = header.trim();
+        try {
+            return TimeUnit.SECONDS.toNanos(Math.max(0, Long.parseLong(value)));
+        } catch (NumberFormatException e) {
+            // not delta-seconds; try a date
+        }
+        try {
+            Instant until = ZonedDateTime.parse(value, DateTimeFormatter.RFC_1123_DATE_TIME).toInstant();
+            return TimeUnit.MILLISECONDS.toNanos(Math.max(0, until.toEpochMilli() - nowMillis));
+        } catch (DateTimeParseException e) {
+            return 0;
+        }
+    }
+}
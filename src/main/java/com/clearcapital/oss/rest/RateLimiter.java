@@ -0,0 +1,185 @@
+package com.clearcapital.oss.rest;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.LongSupplier;
+
+import javax.ws.rs.ProcessingException;
+
+/**
+ * A lock-free token bucket, implemented as a generic cell rate algorithm: the whole bucket is one "theoretical arrival
+ * time", advanced by compare-and-set, so permits are spaced evenly rather than released in bursts larger than
+ * {@code burst}.
+ *
+ * <p>
+ * The limiter adapts to the server's own quota: {@link #onThrottled(long)} (a 429) halves the rate, down to 1/16th of
+ * the configured rate, and holds every permit back until any {@code Retry-After} has passed. Requests already in
+ * flight tend to come back throttled together, so the rate is halved at most once per {@code Retry-After} or second,
+ * whichever is longer. Each {@link #onSuccess()} then wins back a fraction of the difference, so the rate recovers
+ * gradually rather than bouncing straight back into the quota.
+ * </p>
+ */
+public class RateLimiter {
+
+    /** How far the rate may be tightened, as a multiple of the configured interval between permits. */
+    private static final int MAX_BACKOFF = 16;
+    /** Each success recovers 1/RECOVERY_STEPS of the remaining penalty. */
+    private static final int RECOVERY_STEPS = 32;
+    /** The shortest time between two decreases of the rate. */
+    private static final long DECREASE_WINDOW = TimeUnit.SECONDS.toNanos(1);
+
+    private final long baseInterval;
+    private final int burst;
+    private final LongSupplier clock;
+
+    /** Nanos between permits at the current rate. */
+    private final AtomicLong interval;
+    /** The time at which the bucket would be empty, were every reserved permit spaced {@code interval} apart. */
+    private final AtomicLong arrival;
+    /** Until this time, further 429s are taken to belong to the last decrease and do not tighten the rate again. */
+    private final AtomicLong decreaseWindowEnd;
+
+    public RateLimiter(final double permitsPerSecond, final int burst) {
+        this(permitsPerSecond, burst, System::nanoTime);
+    }
+
+    RateLimiter(final double permitsPerSecond, final int burst, final LongSupplier clock) {
+        if (!(permitsPerSecond > 0)) {
+            throw new IllegalArgumentException("permitsPerSecond must be positive: " + permitsPerSecond);
+        }
+        this.baseInterval = Math.max(1, (long) (TimeUnit.SECONDS.toNanos(1) / permitsPerSecond));
+        this.burst = Math.max(1, burst);
+        this.clock = clock;
+        this.interval = new AtomicLong(baseInterval);
+        this.arrival = new AtomicLong(clock.getAsLong());
+        this.decreaseWindowEnd = new AtomicLong(arrival.get());
+    }
+
+    /**
+     * Take a permit, waiting as long as necessary.
+     *
+     * @throws ProcessingException
+     *             if interrupted while waiting.
+     */
+    public void acquire() {
+        pause(reserve(Long.MAX_VALUE));
+    }
+
+    /**
+     * Take a permit if one is available now.
+     */
+    public boolean tryAcquire() {
+        return reserve(0) >= 0;
+    }
+
+    /**
+     * Take a permit if one becomes available within {@code timeout}, waiting for it.
+     *
+     * @throws ProcessingException
+     *             if interrupted while waiting.
+     */
+    public boolean tryAcquire(final long timeout, final TimeUnit unit) {
+        long wait = reserve(unit.toNanos(timeout));
+        if (wait < 0) {
+            return false;
+        }
+        pause(wait);
+        return true;
+    }
+
+    /**
+     * The server rejected a request for exceeding its quota: halve the rate, unless it was already halved within the
+     * last {@code retryAfterNanos} or second, and release no further permits until {@code retryAfterNanos} from now.
+     */
+    public void onThrottled(final long retryAfterNanos) {
+        long now = clock.getAsLong();
+        long step = interval.get();
+        long windowEnd = decreaseWindowEnd.get();
+        if (now - windowEnd >= 0
+                && decreaseWindowEnd.compareAndSet(windowEnd, now + Math.max(retryAfterNanos, DECREASE_WINDOW))) {
+            long current;
+            do {
+                current = interval.get();
+                step = Math.min(current * 2, baseInterval * MAX_BACKOFF);
+            } while (current != step && !interval.compareAndSet(current, step));
+        }
+
+        if (retryAfterNanos > 0) {
+            // Permits are released while now >= arrival - tolerance, so this blocks everything until the deadline.
+            long resume = now + retryAfterNanos + tolerance(step);
+            long previous;
+            do {
+                previous = arrival.get();
+            } while (previous - resume < 0 && !arrival.compareAndSet(previous, resume));
+        }
+    }
+
+    /**
+     * The server accepted a request: recover part of any rate lost to {@link #onThrottled(long)}. Best effort; lost
+     * races are not retried.
+     */
+    public void onSuccess() {
+        long current = interval.get();
+        if (current > baseInterval) {
+            interval.compareAndSet(current, current - Math.max(1, (current - baseInterval) / RECOVERY_STEPS));
+        }
+    }
+
+    /**
+     * Give back a permit that was taken but never used, e.g. because the request then failed to get a permit from
+     * another limiter. Best effort: the permit is returned at the current rate.
+     */
+    void release() {
+        long step = interval.get();
+        long current;
+        do {
+            current = arrival.get();
+        } while (!arrival.compareAndSet(current, current - step));
+    }
+
+    /**
+     * The rate currently in force, which is below the configured rate while recovering from throttling.
+     */
+    public double getPermitsPerSecond() {
+        return (double) TimeUnit.SECONDS.toNanos(1) / interval.get();
+    }
+
+    /**
+     * Reserve the next permit, if it can be had within {@code maxWaitNanos}.
+     *
+     * @return how long to wait before using the permit, or -1 if none was reserved.
+     */
+    private long reserve(final long maxWaitNanos) {
+        while (true) {
+            long now = clock.getAsLong();
+            long step = interval.get();
+            long current = arrival.get();
+            long wait = Math.max(0, current - tolerance(step) - now);
+            if (wait > maxWaitNanos) {
+                return -1;
+            }
+            long next = (current - now > 0 ? current : now) + step;
+            if (arrival.compareAndSet(current, next)) {
+                return wait;
+            }
+        }
+    }
+
+    private long tolerance(final long step) {
+        return (burst - 1) * step;
+    }
+
+    private void pause(final long nanos) {
+        long deadline = clock.getAsLong() + nanos;
+        long remaining = nanos;
+        while (remaining > 0) {
+            LockSupport.parkNanos(this, remaining);
+            if (Thread.interrupted()) {
+                Thread.currentThread().interrupt();
+                throw new ProcessingException(new InterruptedException("Interrupted waiting for a rate limit permit"));
+            }
+            remaining = deadline - clock.getAsLong();
+        }
+    }
+}
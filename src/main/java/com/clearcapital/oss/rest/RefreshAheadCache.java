@@ -0,0 +1,283 @@
+package com.clearcapital.oss.rest;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.LongSupplier;
+import java.util.function.Supplier;
+
+/**
+ * Keeps hot, rarely changing reads, such as configuration and lookup tables, loaded ahead of need, so that callers
+ * never wait on the network for them after the first time; see
+ * {@link BaseResourceClient#setRefreshAheadCache(RefreshAheadCache)}.
+ *
+ * <ul>
+ * <li>The first caller for a key loads it; anyone else asking meanwhile waits for that same load. If it fails, they
+ * all see the failure and the next caller tries again.</li>
+ * <li>From then on, the cached value is always returned at once. Once it is {@code ttl - refreshAhead} old, the first
+ * caller to notice starts a refresh in the background, and the value is swapped when the refresh completes. Past
+ * {@code ttl}, the value is stale, but is still served while the refresh is in progress.</li>
+ * <li>At most {@code maxConcurrentRefreshes} refreshes run at once, across all keys; a refresh that finds none free
+ * is left to the next caller. A failed refresh keeps the old value, and is retried after a tenth of {@code ttl}.</li>
+ * <li>A value more than {@code maxStale} past its {@code ttl} (say, because refreshes keep failing) is no longer
+ * served; the caller loads it again instead, and anyone else asking meanwhile waits for that same load.</li>
+ * </ul>
+ *
+ * <p>
+ * Values are shared between callers, so must not be modified. Values are keyed by session as well as by what was read,
+ * so use one cache per resource client, and only for reads made in a handful of sessions. When more than
+ * {@code maxEntries} keys are cached, the cache is cleared and refilled from the service. Thread-safe.
+ * </p>
+ */
+public class RefreshAheadCache {
+
+    public static final long DEFAULT_TTL_MILLIS = 60000;
+    public static final long DEFAULT_REFRESH_AHEAD_MILLIS = 15000;
+    public static final int DEFAULT_MAX_CONCURRENT_REFRESHES = 2;
+    public static final int DEFAULT_MAX_ENTRIES = 1024;
+
+    private final long ttlNanos;
+    private final long refreshAheadNanos;
+    private final long maxStaleNanos;
+    private final long retryNanos;
+    private final int maxEntries;
+    private final Semaphore refreshPermits;
+    private final Executor executor;
+    private final LongSupplier clock;
+
+    private final ConcurrentMap<String, Entry> entries = new ConcurrentHashMap<>();
+
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong refreshes = new AtomicLong();
+    private final AtomicLong refreshFailures = new AtomicLong();
+
+    /**
+     * Refresh every {@value #DEFAULT_TTL_MILLIS}ms, {@value #DEFAULT_REFRESH_AHEAD_MILLIS}ms ahead, and serve stale
+     * values for as long as it takes.
+     */
+    public RefreshAheadCache() {
+        this(DEFAULT_TTL_MILLIS, DEFAULT_REFRESH_AHEAD_MILLIS, Long.MAX_VALUE, TimeUnit.MILLISECONDS,
+                DEFAULT_MAX_CONCURRENT_REFRESHES, DEFAULT_MAX_ENTRIES);
+    }
+
+    /**
+     * @param maxStale
+     *            {@code Long.MAX_VALUE} for no limit.
+     */
+    public RefreshAheadCache(final long ttl, final long refreshAhead, final long maxStale, final TimeUnit unit,
+            final int maxConcurrentRefreshes, final int maxEntries) {
+        this(ttl, refreshAhead, maxStale, unit, maxConcurrentRefreshes, maxEntries, RestExecutors.defaultExecutor(),
+                System::nanoTime);
+    }
+
+    RefreshAheadCache(final long ttl, final long refreshAhead, final long maxStale, final TimeUnit unit,
+            final int maxConcurrentRefreshes, final int maxEntries, final Executor executor,
+            final LongSupplier clock) {
+        if (refreshAhead < 0 || refreshAhead > ttl || maxConcurrentRefreshes < 1) {
+            throw new IllegalArgumentException("refreshAhead must be within ttl, and maxConcurrentRefreshes positive");
+        }
+        this.ttlNanos = unit.toNanos(ttl);
+        this.refreshAheadNanos = unit.toNanos(refreshAhead);
+        this.maxStaleNanos = unit.toNanos(maxStale);
+        this.retryNanos = Math.max(ttlNanos / 10, 1);
+        this.maxEntries = maxEntries;
+        this.refreshPermits = new Semaphore(maxConcurrentRefreshes);
+        this.executor = executor;
+        this.clock = clock;
+    }
+
+    /**
+     * @return the value cached under {@code key}, loading it with {@code loader} if there is none. The same loader
+     *         refreshes it later, so it must not depend on anything but the key.
+     */
+    @SuppressWarnings("unchecked")
+    public <V> V get(final String key, final Supplier<V> loader) {
+        Entry entry = entries.get(key);
+        if (entry == null) {
+            if (entries.size() >= maxEntries) {
+                entries.clear();
+            }
+            Entry created = new Entry(loader);
+            entry = entries.putIfAbsent(key, created);
+            if (entry == null) {
+                misses.incrementAndGet();
+                return (V) load(key, created);
+            }
+        }
+        if (!entry.first.isDone()) {
+            misses.incrementAndGet();
+            return (V) await(entry.first);
+        }
+
+        long now = clock.getAsLong();
+        if (isTooStale(entry, now)) {
+            misses.incrementAndGet();
+            return (V) reload(entry);
+        }
+        if (now - entry.refreshAt >= 0) {
+            refresh(entry);
+        }
+        hits.incrementAndGet();
+        return (V) entry.value;
+    }
+
+    /**
+     * Refresh every entry in the background as soon as it is next read, serving the current values until then.
+     */
+    public void expireAll() {
+        long now = clock.getAsLong();
+        for (Entry entry : entries.values()) {
+            entry.refreshAt = now;
+        }
+    }
+
+    public void clear() {
+        entries.clear();
+    }
+
+    public int size() {
+        return entries.size();
+    }
+
+    public long getHits() {
+        return hits.get();
+    }
+
+    /**
+     * @return how many reads had to wait on the network.
+     */
+    public long getMisses() {
+        return misses.get();
+    }
+
+    public long getRefreshes() {
+        return refreshes.get();
+    }
+
+    public long getRefreshFailures() {
+        return refreshFailures.get();
+    }
+
+    private Object load(final String key, final Entry entry) {
+        try {
+            Object value = entry.loader.get();
+            entry.loaded(value, clock.getAsLong());
+            entry.first.complete(value);
+            return value;
+        } catch (RuntimeException | Error e) {
+            entries.remove(key, entry);
+            entry.first.completeExceptionally(e);
+            throw e;
+        }
+    }
+
+    private boolean isTooStale(final Entry entry, final long now) {
+        return now - entry.loadedAt - ttlNanos > maxStaleNanos;
+    }
+
+    /**
+     * Load a value too stale to serve again, sharing one load between everyone asking for it meanwhile.
+     */
+    private Object reload(final Entry entry) {
+        while (true) {
+            CompletableFuture<Object> inFlight = entry.reload.get();
+            if (inFlight != null) {
+                return await(inFlight);
+            }
+            CompletableFuture<Object> created = new CompletableFuture<>();
+            if (!entry.reload.compareAndSet(null, created)) {
+                continue;
+            }
+            try {
+                Object value;
+                if (isTooStale(entry, clock.getAsLong())) {
+                    value = entry.loader.get();
+                    entry.loaded(value, clock.getAsLong());
+                } else {
+                    // reloaded by someone else since we looked
+                    value = entry.value;
+                }
+                created.complete(value);
+                return value;
+            } catch (RuntimeException | Error e) {
+                created.completeExceptionally(e);
+                throw e;
+            } finally {
+                entry.reload.set(null);
+            }
+        }
+    }
+
+    private static Object await(final CompletableFuture<Object> load) {
+        try {
+            return load.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            if (e.getCause() instanceof Error) {
+                throw (Error) e.getCause();
+            }
+            throw e;
+        }
+    }
+
+    private void refresh(final Entry entry) {
+        if (!entry.refreshing.compareAndSet(false, true)) {
+            return;
+        }
+        if (!refreshPermits.tryAcquire()) {
+            entry.refreshing.set(false);
+            return;
+        }
+        try {
+            executor.execute(() -> {
+                try {
+                    entry.loaded(entry.loader.get(), clock.getAsLong());
+                    refreshes.incrementAndGet();
+                } catch (RuntimeException e) {
+                    refreshFailures.incrementAndGet();
+                    entry.refreshAt = clock.getAsLong() + retryNanos;
+                } finally {
+                    refreshPermits.release();
+                    entry.refreshing.set(false);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            refreshPermits.release();
+            entry.refreshing.set(false);
+        }
+    }
+
+    private final class Entry {
+
+        final Supplier<?> loader;
+        /** Completes with the first load. */
+        final CompletableFuture<Object> first = new CompletableFuture<>();
+        final AtomicBoolean refreshing = new AtomicBoolean();
+        /** The load in progress of a value too stale to serve, if any. */
+        final AtomicReference<CompletableFuture<Object>> reload = new AtomicReference<>();
+        volatile Object value;
+        volatile long loadedAt;
+        volatile long refreshAt;
+
+        Entry(final Supplier<?> loader) {
+            this.loader = loader;
+        }
+
+        void loaded(final Object value, final long now) {
+            this.value = value;
+            this.loadedAt = now;
+            this.refreshAt = now + ttlNanos - refreshAheadNanos;
+        }
+    }
+}
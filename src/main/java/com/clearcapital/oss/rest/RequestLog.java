@@ -0,0 +1,131 @@
+package com.clearcapital.oss.rest;
+
+import java.io.Closeable;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Where {@link LoggingTransport} sends its records: a bounded queue, drained by a background writer, so that logging
+ * never makes a request wait on I/O or on a lock.
+ *
+ * <p>
+ * Records are formatted and written on the writer thread, one after another, to the {@code java.util.logging} logger
+ * named after this class, at {@code INFO}. When {@code capacity} records are already waiting, a new record is dropped
+ * and counted, rather than waiting for room; so however slow the log, at most that many records are held, and
+ * requests are slowed only by the work of capturing them. No thread is kept while there is nothing to write.
+ * Thread-safe.
+ * </p>
+ */
+public class RequestLog implements Closeable {
+
+    public static final int DEFAULT_CAPACITY = 1024;
+
+    private static final Logger LOGGER = Logger.getLogger(RequestLog.class.getName());
+
+    private final int capacity;
+    private final Consumer<String> writer;
+    private final Executor executor;
+    private final Queue<Object> queue = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger size = new AtomicInteger();
+    private final AtomicBoolean draining = new AtomicBoolean();
+    private final AtomicLong written = new AtomicLong();
+    private final AtomicLong dropped = new AtomicLong();
+    private volatile boolean closed;
+
+    public RequestLog() {
+        this(DEFAULT_CAPACITY);
+    }
+
+    public RequestLog(final int capacity) {
+        this(capacity, RequestLog::log, RestExecutors.defaultExecutor());
+    }
+
+    RequestLog(final int capacity, final Consumer<String> writer, final Executor executor) {
+        if (capacity < 1) {
+            throw new IllegalArgumentException("capacity must be at least 1");
+        }
+        this.capacity = capacity;
+        this.writer = writer;
+        this.executor = executor;
+    }
+
+    private static void log(final String record) {
+        LOGGER.logp(Level.INFO, RequestLog.class.getName(), "log", record);
+    }
+
+    /**
+     * Queue {@code record} to be written, unless the queue is full or the log is closed. Its {@code toString()} is
+     * called on the writer thread, so it may defer formatting until then, but must not change meanwhile.
+     *
+     * @return false if the record was dropped.
+     */
+    public boolean offer(final Object record) {
+        if (closed || size.incrementAndGet() > capacity) {
+            size.decrementAndGet();
+            dropped.incrementAndGet();
+            return false;
+        }
+        queue.add(record);
+        if (draining.compareAndSet(false, true)) {
+            try {
+                executor.execute(this::drain);
+            } catch (RejectedExecutionException e) {
+                draining.set(false);
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Write everything queued, then stop, unless more has been queued meanwhile.
+     */
+    private void drain() {
+        do {
+            Object record;
+            while ((record = queue.poll()) != null) {
+                size.decrementAndGet();
+                try {
+                    writer.accept(record.toString());
+                    written.incrementAndGet();
+                } catch (RuntimeException e) {
+                    LOGGER.log(Level.WARNING, "Could not write a request log record", e);
+                }
+            }
+            draining.set(false);
+        } while (!queue.isEmpty() && draining.compareAndSet(false, true));
+    }
+
+    /**
+     * @return how many records are waiting to be written.
+     */
+    public int getQueued() {
+        return size.get();
+    }
+
+    public long getWritten() {
+        return written.get();
+    }
+
+    /**
+     * @return how many records were dropped, because the queue was full or the log closed.
+     */
+    public long getDropped() {
+        return dropped.get();
+    }
+
+    /**
+     * Accept no more records. Those already queued are still written.
+     */
+    @Override
+    public void close() {
+        closed = true;
+    }
+}
@@ -0,0 +1,201 @@
+package com.clearcapital.oss.rest;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Where the time went in one request, as reported to a {@link RequestTimingListener} by a {@link TimingTransport}.
+ *
+ * <p>
+ * Every request is split into the time until its response headers arrived ({@link #getResponseNanos()}) and the time
+ * spent reading and decoding its body ({@link #getReadNanos()}). Transports that can see further into the exchange
+ * (today, {@link HttpClientTransport} on a client built by {@link RestClient}) also split the former into getting a
+ * connection, sending the request and waiting for the first byte of the response. Durations that were not measured are
+ * {@code -1}, as are byte counts that are not known.
+ * </p>
+ */
+public final class RequestTiming {
+
+    /** The {@code HttpContext} attribute under which {@link HttpClientTransport} passes the timing along. */
+    static final String CONTEXT_ATTRIBUTE = RequestTiming.class.getName();
+
+    private static final ThreadLocal<RequestTiming> CURRENT = new ThreadLocal<>();
+
+    private final String method;
+    private final String resource;
+    private final long startNanos;
+    private int status = -1;
+    private long requestBytes = -1;
+    private long declaredResponseBytes = -1;
+    private long receivedBytes = -1;
+    private long connectNanos = -1;
+    private long sendNanos = -1;
+    private long waitNanos = -1;
+    private long responseNanos = -1;
+    private long readNanos = -1;
+    private long totalNanos = -1;
+    private boolean finished;
+
+    RequestTiming(final String method, final String resource) {
+        this.method = method;
+        this.resource = resource;
+        this.startNanos = System.nanoTime();
+    }
+
+    /**
+     * The timing of the request being sent on this thread, if it is being timed.
+     */
+    static RequestTiming current() {
+        return CURRENT.get();
+    }
+
+    /**
+     * Make this the {@link #current()} timing, returning the one it replaces, for {@link #restore(RequestTiming)}.
+     */
+    RequestTiming enter() {
+        RequestTiming previous = CURRENT.get();
+        CURRENT.set(this);
+        return previous;
+    }
+
+    static void restore(final RequestTiming previous) {
+        if (previous == null) {
+            CURRENT.remove();
+        } else {
+            CURRENT.set(previous);
+        }
+    }
+
+    /** A connection is ready for the request; retries and redirects count from the start. */
+    void connected() {
+        connectNanos = System.nanoTime() - startNanos;
+    }
+
+    void sent(final long nanos) {
+        sendNanos = sendNanos < 0 ? nanos : sendNanos + nanos;
+    }
+
+    void waited(final long nanos) {
+        waitNanos = waitNanos < 0 ? nanos : waitNanos + nanos;
+    }
+
+    void setRequestBytes(final long requestBytes) {
+        this.requestBytes = requestBytes;
+    }
+
+    /** Bytes of the response body were read; transports that count them call this as they go. */
+    void received(final long bytes) {
+        receivedBytes = receivedBytes < 0 ? bytes : receivedBytes + bytes;
+    }
+
+    void responded(final int status, final long declaredResponseBytes) {
+        this.status = status;
+        this.declaredResponseBytes = declaredResponseBytes;
+        responseNanos = System.nanoTime() - startNanos;
+    }
+
+    void read(final long nanos) {
+        readNanos = nanos;
+    }
+
+    /**
+     * Stop the clock; true the first time only.
+     */
+    boolean finish() {
+        if (finished) {
+            return false;
+        }
+        finished = true;
+        totalNanos = System.nanoTime() - startNanos;
+        return true;
+    }
+
+    public String getMethod() {
+        return method;
+    }
+
+    /**
+     * The resource uri the request was made against, i.e. {@link BaseResourceClient#getUri()}, without any id or key
+     * beneath it.
+     */
+    public String getResource() {
+        return resource;
+    }
+
+    /**
+     * @return the response status, or {@code -1} if there was no response.
+     */
+    public int getStatus() {
+        return status;
+    }
+
+    /**
+     * @return the size of the request body, or {@code -1} if unknown.
+     */
+    public long getRequestBytes() {
+        return requestBytes;
+    }
+
+    /**
+     * @return the number of bytes of the response body read, if the transport counts them, or else the size declared
+     *         by its {@code Content-Length}, or {@code -1} if unknown.
+     */
+    public long getResponseBytes() {
+        return receivedBytes >= 0 ? receivedBytes : declaredResponseBytes;
+    }
+
+    /**
+     * @return the time to get a connection (from the pool, or by connecting and handshaking), or {@code -1} if not
+     *         measured.
+     */
+    public long getConnectNanos() {
+        return connectNanos;
+    }
+
+    /**
+     * @return the time to write the request, or {@code -1} if not measured.
+     */
+    public long getSendNanos() {
+        return sendNanos;
+    }
+
+    /**
+     * @return the time from sending the request to receiving the response headers, or {@code -1} if not measured.
+     */
+    public long getWaitNanos() {
+        return waitNanos;
+    }
+
+    /**
+     * @return the time from the start of the request until its response headers arrived, or {@code -1} if there was no
+     *         response.
+     */
+    public long getResponseNanos() {
+        return responseNanos;
+    }
+
+    /**
+     * @return the time to read and decode the response body, or, if it was handed back as a stream, until the stream
+     *         was read to the end or closed; {@code -1} if it was not read.
+     */
+    public long getReadNanos() {
+        return readNanos;
+    }
+
+    /**
+     * @return the time from the start of the request until its response was read, closed or failed.
+     */
+    public long getTotalNanos() {
+        return totalNanos;
+    }
+
+    @Override
+    public String toString() {
+        return method + " " + resource + " " + status + " in " + millis(totalNanos) + "ms (connect "
+                + millis(connectNanos) + ", send " + millis(sendNanos) + ", wait " + millis(waitNanos) + ", read "
+                + millis(readNanos) + "; " + requestBytes + "/" + getResponseBytes() + " bytes)";
+    }
+
+    private static String millis(final long nanos) {
+        return nanos < 0 ? "-" : Long.toString(TimeUnit.NANOSECONDS.toMillis(nanos));
+    }
+}
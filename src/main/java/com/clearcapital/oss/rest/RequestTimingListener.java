@@ -0,0 +1,15 @@
+package com.clearcapital.oss.rest;
+
+/**
+ * Receives the {@link RequestTiming} of each request sent through a {@link TimingTransport}, e.g. to commit it as a
+ * Flight Recorder event or record it in a histogram.
+ *
+ * <p>
+ * Called on the thread that finished the request, once per request, before the result is returned to the caller, so
+ * implementations should be quick and must be thread-safe. Exceptions they throw are ignored.
+ * </p>
+ */
+public interface RequestTimingListener {
+
+    void requestTimed(RequestTiming timing);
+}
@@ -1,8 +1,25 @@
 package com.clearcapital.oss.rest;
 
+import java.io.IOException;
+import java.lang.reflect.Type;
+import java.net.InetAddress;
 import java.net.URI;
+import java.net.UnknownHostException;
 import java.security.SecureRandom;
 import java.security.cert.X509Certificate;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
 
 import javax.net.ssl.HostnameVerifier;
 import javax.net.ssl.HttpsURLConnection;
@@ -10,9 +27,32 @@ import javax.net.ssl.SSLContext;
 import javax.net.ssl.SSLSession;
 import javax.net.ssl.TrustManager;
 import javax.net.ssl.X509TrustManager;
+import javax.ws.rs.client.Client;
 import javax.ws.rs.client.ClientBuilder;
 import javax.ws.rs.client.WebTarget;
+import javax.ws.rs.core.HttpHeaders;
 
+import org.apache.http.HttpClientConnection;
+import org.apache.http.HttpHost;
+import org.apache.http.client.config.RequestConfig;
+import org.apache.http.client.protocol.HttpClientContext;
+import org.apache.http.client.utils.URIUtils;
+import org.apache.http.config.Registry;
+import org.apache.http.config.RegistryBuilder;
+import org.apache.http.conn.ConnectionRequest;
+import org.apache.http.conn.routing.HttpRoute;
+import org.apache.http.conn.socket.ConnectionSocketFactory;
+import org.apache.http.conn.socket.PlainConnectionSocketFactory;
+import org.apache.http.conn.ssl.NoopHostnameVerifier;
+import org.apache.http.conn.ssl.SSLConnectionSocketFactory;
+import org.apache.http.impl.client.CloseableHttpClient;
+import org.apache.http.impl.client.HttpClients;
+import org.apache.http.impl.conn.PoolingHttpClientConnectionManager;
+import org.apache.http.ssl.SSLContexts;
+import org.glassfish.jersey.apache.connector.ApacheClientProperties;
+import org.glassfish.jersey.apache.connector.ApacheConnectorProvider;
+import org.glassfish.jersey.client.ClientConfig;
+import org.glassfish.jersey.client.ClientProperties;
 import org.glassfish.jersey.filter.LoggingFilter;
 
 import com.clearcapital.oss.java.AssertHelpers;
@@ -33,37 +73,80 @@ import com.fasterxml.jackson.databind.module.SimpleModule;
  * {Entity}ResourceClient subclass of BaseClient, passing a call to the getService() method below; and (3) exercise the
  * various methods of the resource client to persist, find, etc. objects of the associated entity.
  * 
+ * Resource clients may be built either on {@link #getWebTarget()} or on {@link #getTransport()}; the latter honours
+ * every {@link TransportType}, rate limits, {@link Deadline}s and, given several {@code uris}, load balancing, and can
+ * report how long each phase of each request took; see {@link #addTimingListener(RequestTimingListener)}.
+ * 
+ * To keep the first requests after startup from paying for DNS lookups, TCP connects and TLS handshakes, configure
+ * {@code warmupConnections} (or call {@link #warmUp(int, long, TimeUnit)}) and {@link #warmUpCodecs(Type...)}.
+ * 
+ * To log a sample of requests without slowing them, configure {@code requestLogSampleRate}; see
+ * {@link LoggingTransport}.
+ * 
  * @author david.prinzing
  */
 public class RestClient {
 
+    static final int DEFAULT_MAX_CONNECTIONS = 20;
+    static final int DEFAULT_MAX_CONNECTIONS_PER_ROUTE = 10;
+    static final long DEFAULT_WARMUP_TIMEOUT_MILLIS = 10000;
+    static final int DEFAULT_REQUEST_LOG_MAX_BODY_BYTES = 1024;
+    static final int TLS_SESSION_CACHE_SIZE = 1000;
+    static final int TLS_SESSION_TIMEOUT_SECONDS = 24 * 60 * 60;
+
+    private final List<URI> uris;
+    private final JacksonEntityCodec codec;
+    private final Map<String, EntityCodec> codecs = new HashMap<>();
+    private final WireFormat wireFormat;
+    private final PoolingHttpClientConnectionManager connectionManager;
+    private final Client client;
     private final WebTarget webTarget;
+    private final RestTransport transport;
+    private final CloseableHttpClient httpClient;
+    private final LoadBalancedTransport loadBalancer;
+    private final TimingTransport timingTransport;
+    private final BufferPool bufferPool;
+    private final RequestLog requestLog;
 
     public void flushCache() {
         // TODO: figure out how to flush the cache
     }
 
+    /**
+     * Close the underlying client, releasing any pooled connections and stopping any health checks.
+     */
     public void close() {
-        // TODO figure out how to close a webTarget.
+        if (loadBalancer != null) {
+            loadBalancer.close();
+        }
+        if (requestLog != null) {
+            requestLog.close();
+        }
+        client.close();
+        if (httpClient != null) {
+            try {
+                httpClient.close();
+            } catch (IOException e) {
+                // nothing more we can do; the pool is gone either way
+            }
+        }
     }
 
     public RestClient(RestClientConfiguration restEndpointConfig) throws AssertException {
         AssertHelpers.notNull(restEndpointConfig, "restEndpointConfig");
         AssertHelpers.notNull(restEndpointConfig.getKey(), "restEndpointConfig.key");
         AssertHelpers.notNull(restEndpointConfig.getPassword(), "restEndpointConfig.password");
-        AssertHelpers.notNull(restEndpointConfig.getUri(), "restEndpointConfig.uri");
+        if (restEndpointConfig.getUris() == null || restEndpointConfig.getUris().isEmpty()) {
+            AssertHelpers.notNull(restEndpointConfig.getUri(), "restEndpointConfig.uri");
+            uris = Collections.singletonList(restEndpointConfig.getUri());
+        } else {
+            uris = new ArrayList<>(restEndpointConfig.getUris());
+        }
 
         if (restEndpointConfig.getDisableCertificateValidation())
             disableCertificateValidation(); // disabled to accommodate self-signed certificates
 
-        ObjectMapper objectMapper = new ObjectMapper();
-        JsonSerializer.configureObjectMapper(objectMapper);
-        objectMapper.enable(DeserializationFeature.ACCEPT_EMPTY_STRING_AS_NULL_OBJECT);
-
-        @SuppressWarnings("deprecation")
-        SimpleModule module = new SimpleModule("EmptyStringHandlingModule", new Version(0, 1, 0, "SNAPSHOT))"));
-        module.addKeyDeserializer(Integer.class, new EmptyStringAsNullIntegerKeyDeserializer());
-        objectMapper.registerModule(module);
+        ObjectMapper objectMapper = buildObjectMapper(WireFormat.JSON);
 
         // executor = Executors.newFixedThreadPool(1);
         // client = new JerseyClientBuilder().using(jerseyClientConfig)
@@ -87,20 +170,410 @@ public class RestClient {
         // the false above into a true.
         // setRetries(1);
 
-        URI uri = restEndpointConfig.getUri();
-        webTarget = ClientBuilder.newClient(restEndpointConfig.getJaxRsConfiguration())
-                .register(new HttpBasicAuthenticator(restEndpointConfig.getKey(), restEndpointConfig.getPassword()))
-                .target(uri);
+        URI uri = restEndpointConfig.getUri() != null ? restEndpointConfig.getUri() : uris.get(0);
+        codec = new JacksonEntityCodec(objectMapper);
+        wireFormat = restEndpointConfig.getWireFormat() != null ? restEndpointConfig.getWireFormat() : WireFormat.JSON;
+        HttpBasicAuthenticator authenticator = new HttpBasicAuthenticator(restEndpointConfig.getKey(),
+                restEndpointConfig.getPassword());
+        TransportType transportType = restEndpointConfig.getTransport();
+        connectionManager = transportType == TransportType.POOLED || transportType == TransportType.DIRECT
+                ? buildConnectionManager(restEndpointConfig) : null;
+        RequestConfig requestConfig = buildRequestConfig(restEndpointConfig);
+        client = buildClient(restEndpointConfig, requestConfig);
+        if (restEndpointConfig.getConnectTimeoutMillis() != null) {
+            client.property(ClientProperties.CONNECT_TIMEOUT, restEndpointConfig.getConnectTimeoutMillis());
+        }
+        if (restEndpointConfig.getReadTimeoutMillis() != null) {
+            client.property(ClientProperties.READ_TIMEOUT, restEndpointConfig.getReadTimeoutMillis());
+        }
+        Map<WireFormat, ObjectMapper> formatMappers = new EnumMap<>(WireFormat.class);
+        for (WireFormat format : WireFormat.values()) {
+            if (format != WireFormat.JSON) {
+                ObjectMapper formatMapper = buildObjectMapper(format);
+                codecs.put(format.getMediaType(), new JacksonEntityCodec(formatMapper));
+                formatMappers.put(format, formatMapper);
+            }
+        }
+        client.register(new JacksonFormatProvider(formatMappers));
+        webTarget = client.register(authenticator).target(uri);
         if (restEndpointConfig.getWithLoggingFilter()) {
             webTarget.register(new LoggingFilter());
         }
+
+        httpClient = transportType == TransportType.DIRECT
+                ? HttpClients.custom().setConnectionManager(connectionManager).setDefaultRequestConfig(requestConfig)
+                        .setRequestExecutor(new TimingRequestExecutor()).disableCookieManagement().build()
+                : null;
+        bufferPool = httpClient != null ? buildBufferPool(restEndpointConfig) : null;
+        List<RestTransport> endpointTransports = new ArrayList<>(uris.size());
+        for (URI endpoint : uris) {
+            if (httpClient != null) {
+                HttpClientTransport endpointTransport = new HttpClientTransport(httpClient, endpoint,
+                        Collections.singletonMap(HttpHeaders.AUTHORIZATION, authenticator.getBasicAuthentication()),
+                        codec, codecs);
+                endpointTransport.setRequestConfig(requestConfig);
+                endpointTransport.setBufferPool(bufferPool);
+                endpointTransports.add(endpointTransport);
+            } else if (endpoint.equals(uri)) {
+                endpointTransports.add(new JerseyTransport(webTarget));
+            } else {
+                WebTarget endpointTarget = client.target(endpoint);
+                if (restEndpointConfig.getWithLoggingFilter()) {
+                    endpointTarget.register(new LoggingFilter());
+                }
+                endpointTransports.add(new JerseyTransport(endpointTarget));
+            }
+        }
+
+        RestTransport baseTransport;
+        if (endpointTransports.size() > 1) {
+            Long backoff = restEndpointConfig.getEjectionBackoffMillis();
+            loadBalancer = new LoadBalancedTransport(endpointTransports,
+                    backoff != null ? backoff : LoadBalancedTransport.DEFAULT_BASE_BACKOFF_MILLIS,
+                    LoadBalancedTransport.DEFAULT_MAX_BACKOFF_MILLIS, TimeUnit.MILLISECONDS);
+            if (restEndpointConfig.getHealthCheckPath() != null) {
+                Long interval = restEndpointConfig.getHealthCheckIntervalMillis();
+                loadBalancer.startHealthChecks(restEndpointConfig.getHealthCheckPath(),
+                        interval != null ? interval : LoadBalancedTransport.DEFAULT_HEALTH_CHECK_INTERVAL_MILLIS,
+                        TimeUnit.MILLISECONDS);
+            }
+            baseTransport = loadBalancer;
+        } else {
+            loadBalancer = null;
+            baseTransport = endpointTransports.get(0);
+        }
+        Double sampleRate = restEndpointConfig.getRequestLogSampleRate();
+        if (sampleRate != null && sampleRate > 0) {
+            Integer capacity = restEndpointConfig.getRequestLogCapacity();
+            Integer maxBodyBytes = restEndpointConfig.getRequestLogMaxBodyBytes();
+            requestLog = new RequestLog(capacity != null ? capacity : RequestLog.DEFAULT_CAPACITY);
+            baseTransport = new LoggingTransport(baseTransport, requestLog, sampleRate,
+                    maxBodyBytes != null ? maxBodyBytes : DEFAULT_REQUEST_LOG_MAX_BODY_BYTES, codec);
+        } else {
+            requestLog = null;
+        }
+        Long requestTimeout = restEndpointConfig.getRequestTimeoutMillis();
+        timingTransport = new TimingTransport(baseTransport);
+        transport = new DeadlineTransport(rateLimit(timingTransport, restEndpointConfig),
+                requestTimeout != null ? requestTimeout : 0, TimeUnit.MILLISECONDS);
+
+        Integer warmupConnections = restEndpointConfig.getWarmupConnections();
+        if (warmupConnections != null && warmupConnections > 0) {
+            Long timeout = restEndpointConfig.getWarmupTimeoutMillis();
+            warmUp(warmupConnections, timeout != null ? timeout : DEFAULT_WARMUP_TIMEOUT_MILLIS,
+                    TimeUnit.MILLISECONDS);
+        }
+    }
+
+    /**
+     * Resolve each endpoint's host name and, for {@link TransportType#POOLED} and {@link TransportType#DIRECT}, open up
+     * to {@code connections} pooled connections to it (including their TLS handshakes, whose sessions later
+     * connections resume), returning them to the pool idle. Waits at most {@code timeout}. Best effort: failures are
+     * not reported, other than by the result.
+     * 
+     * @return the number of connections now open and idle in the pool, including any that already were.
+     */
+    public int warmUp(int connections, long timeout, TimeUnit unit) {
+        long deadline = System.nanoTime() + unit.toNanos(timeout);
+        int opened = 0;
+        for (URI endpoint : uris) {
+            opened += warmUp(endpoint, connections, deadline, unit.toMillis(timeout));
+        }
+        return opened;
+    }
+
+    private int warmUp(URI uri, int connections, long deadline, long timeoutMillis) {
+        try {
+            InetAddress.getAllByName(uri.getHost());
+        } catch (UnknownHostException e) {
+            return 0;
+        }
+        if (connectionManager == null) {
+            return 0;
+        }
+
+        HttpHost host = URIUtils.extractHost(uri);
+        if (host.getPort() < 0) {
+            host = new HttpHost(host.getHostName(), "https".equalsIgnoreCase(host.getSchemeName()) ? 443 : 80,
+                    host.getSchemeName());
+        }
+        final HttpRoute route = new HttpRoute(host, null, "https".equalsIgnoreCase(host.getSchemeName()));
+        int count = Math.min(connections,
+                Math.min(connectionManager.getMaxPerRoute(route), connectionManager.getMaxTotal()));
+
+        // Hold every connection until all are open, so that each task gets a fresh one rather than an idle one.
+        final int connectTimeout = (int) Math.min(Integer.MAX_VALUE, timeoutMillis);
+        List<CompletableFuture<HttpClientConnection>> pending = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            pending.add(CompletableFuture.supplyAsync(() -> {
+                try {
+                    return openConnection(route, connectTimeout);
+                } catch (IOException | InterruptedException | ExecutionException e) {
+                    throw new CompletionException(e);
+                }
+            }, RestExecutors.defaultExecutor()));
+        }
+
+        int opened = 0;
+        List<HttpClientConnection> leased = new ArrayList<>(count);
+        for (CompletableFuture<HttpClientConnection> future : pending) {
+            try {
+                leased.add(future.get(Math.max(0, deadline - System.nanoTime()), TimeUnit.NANOSECONDS));
+                opened++;
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                releaseWhenOpen(future);
+            } catch (TimeoutException e) {
+                releaseWhenOpen(future);
+            } catch (ExecutionException e) {
+                // nothing was leased
+            }
+        }
+        for (HttpClientConnection connection : leased) {
+            connectionManager.releaseConnection(connection, null, 0, TimeUnit.MILLISECONDS);
+        }
+        return opened;
+    }
+
+    private HttpClientConnection openConnection(HttpRoute route, int connectTimeout)
+            throws IOException, InterruptedException, ExecutionException {
+        ConnectionRequest request = connectionManager.requestConnection(route, null);
+        HttpClientConnection connection = request.get(connectTimeout, TimeUnit.MILLISECONDS);
+        try {
+            if (!connection.isOpen()) {
+                HttpClientContext context = HttpClientContext.create();
+                connectionManager.connect(connection, route, connectTimeout, context);
+                connectionManager.routeComplete(connection, route, context);
+            }
+            return connection;
+        } catch (IOException | RuntimeException e) {
+            connectionManager.releaseConnection(connection, null, 0, TimeUnit.MILLISECONDS);
+            throw e;
+        }
+    }
+
+    /**
+     * A connect already under way cannot be cancelled, so hand its connection back to the pool whenever it opens,
+     * rather than leaving it leased for good.
+     */
+    private void releaseWhenOpen(CompletableFuture<HttpClientConnection> future) {
+        future.thenAccept(connection -> connectionManager.releaseConnection(connection, null, 0,
+                TimeUnit.MILLISECONDS));
+    }
+
+    /**
+     * Build and cache the JSON serializers and deserializers for {@code types} ahead of the first request, so that it
+     * does not pay for introspecting them. Applies to the codec used by {@link TransportType#DIRECT}.
+     */
+    public void warmUpCodecs(Type... types) {
+        JacksonEntityCodec formatCodec = (JacksonEntityCodec) codecs.get(wireFormat.getMediaType());
+        for (Type type : types) {
+            codec.prepare(type);
+            if (formatCodec != null) {
+                formatCodec.prepare(type);
+            }
+        }
+    }
+
+    /**
+     * The {@link WireFormat} configured for this endpoint, for {@link BaseResourceClient#setWireFormat(WireFormat)}.
+     * Every format can be read and written whatever the configuration.
+     */
+    public WireFormat getWireFormat() {
+        return wireFormat;
+    }
+
+    /**
+     * An {@link ObjectMapper} for {@code format}, configured as JSON always has been for this client.
+     */
+    static ObjectMapper buildObjectMapper(WireFormat format) {
+        ObjectMapper objectMapper = new ObjectMapper(format.newFactory());
+        JsonSerializer.configureObjectMapper(objectMapper);
+        objectMapper.enable(DeserializationFeature.ACCEPT_EMPTY_STRING_AS_NULL_OBJECT);
+
+        @SuppressWarnings("deprecation")
+        SimpleModule module = new SimpleModule("EmptyStringHandlingModule", new Version(0, 1, 0, "SNAPSHOT))"));
+        module.addKeyDeserializer(Integer.class, new EmptyStringAsNullIntegerKeyDeserializer());
+        objectMapper.registerModule(module);
+        return objectMapper;
+    }
+
+    /**
+     * Wrap {@code transport} in a {@link RateLimitedTransport}, if any rate limits are configured.
+     */
+    private static RestTransport rateLimit(RestTransport transport, RestClientConfiguration restEndpointConfig) {
+        Double requestsPerSecond = restEndpointConfig.getRequestsPerSecond();
+        Map<String, Double> uriRequestsPerSecond = restEndpointConfig.getUriRequestsPerSecond();
+        if (requestsPerSecond == null && (uriRequestsPerSecond == null || uriRequestsPerSecond.isEmpty())) {
+            return transport;
+        }
+
+        int burst = restEndpointConfig.getRateLimitBurst() != null ? restEndpointConfig.getRateLimitBurst() : 1;
+        Map<String, RateLimiter> uriLimiters = new LinkedHashMap<>();
+        if (uriRequestsPerSecond != null) {
+            for (Entry<String, Double> entry : uriRequestsPerSecond.entrySet()) {
+                uriLimiters.put(entry.getKey(), new RateLimiter(entry.getValue(), burst));
+            }
+        }
+        Long maxWaitMillis = restEndpointConfig.getRateLimitMaxWaitMillis();
+        return new RateLimitedTransport(transport,
+                requestsPerSecond != null ? new RateLimiter(requestsPerSecond, burst) : null, uriLimiters,
+                maxWaitMillis != null ? maxWaitMillis : Long.MAX_VALUE,
+                maxWaitMillis != null ? TimeUnit.MILLISECONDS : TimeUnit.NANOSECONDS);
     }
     
     public WebTarget getWebTarget() {
         return webTarget;
     }
 
+    /**
+     * The transport selected by {@link RestClientConfiguration#getTransport()}, for use with
+     * {@link BaseResourceClient#BaseResourceClient(RestTransport, Class, String)}.
+     */
+    public RestTransport getTransport() {
+        return transport;
+    }
+
+    /**
+     * Report the {@link RequestTiming} of every request made through {@link #getTransport()} to {@code listener},
+     * from now on. Requests are only timed while there are listeners. Time spent waiting on rate limits is not
+     * included.
+     */
+    public void addTimingListener(RequestTimingListener listener) {
+        timingTransport.addListener(listener);
+    }
+
+    public void removeTimingListener(RequestTimingListener listener) {
+        timingTransport.removeListener(listener);
+    }
+
+    /**
+     * The pool of body buffers shared by the endpoints of a {@link TransportType#DIRECT} client, for monitoring; else
+     * {@code null}.
+     */
+    public BufferPool getBufferPool() {
+        return bufferPool;
+    }
+
+    /**
+     * The log sampled requests made through {@link #getTransport()} are written to, for monitoring; {@code null} unless
+     * {@link RestClientConfiguration#getRequestLogSampleRate()} is set.
+     */
+    public RequestLog getRequestLog() {
+        return requestLog;
+    }
+
+    /**
+     * By default, enough buffers for a request and a response on every pooled connection.
+     */
+    private static BufferPool buildBufferPool(RestClientConfiguration restEndpointConfig) {
+        Integer maxBuffers = restEndpointConfig.getMaxPooledBuffers();
+        Integer maxConnections = restEndpointConfig.getMaxConnections();
+        Integer bufferSize = restEndpointConfig.getBufferSize();
+        if (maxBuffers == null) {
+            maxBuffers = 2 * (maxConnections != null ? maxConnections : DEFAULT_MAX_CONNECTIONS);
+        }
+        return new BufferPool(maxBuffers, bufferSize != null ? bufferSize : BufferPool.DEFAULT_BUFFER_SIZE,
+                restEndpointConfig.getDetectBufferLeaks());
+    }
+
+    /**
+     * The configured timeouts, for Apache HttpClient. Unset timeouts are left at HttpClient's defaults.
+     */
+    private static RequestConfig buildRequestConfig(RestClientConfiguration restEndpointConfig) {
+        RequestConfig.Builder result = RequestConfig.custom();
+        if (restEndpointConfig.getConnectTimeoutMillis() != null) {
+            result.setConnectTimeout(restEndpointConfig.getConnectTimeoutMillis());
+        }
+        if (restEndpointConfig.getReadTimeoutMillis() != null) {
+            result.setSocketTimeout(restEndpointConfig.getReadTimeoutMillis());
+        }
+        if (restEndpointConfig.getConnectionRequestTimeoutMillis() != null) {
+            result.setConnectionRequestTimeout(restEndpointConfig.getConnectionRequestTimeoutMillis());
+        }
+        return result.build();
+    }
+
+    /**
+     * Build the JAX-RS client for the configured {@link TransportType}.
+     */
+    private Client buildClient(RestClientConfiguration restEndpointConfig, RequestConfig requestConfig) {
+        if (restEndpointConfig.getTransport() != TransportType.POOLED) {
+            if (restEndpointConfig.getJaxRsConfiguration() == null) {
+                return ClientBuilder.newClient();
+            }
+            return ClientBuilder.newClient(restEndpointConfig.getJaxRsConfiguration());
+        }
+
+        ClientConfig clientConfig = new ClientConfig();
+        if (restEndpointConfig.getJaxRsConfiguration() != null) {
+            clientConfig.loadFrom(restEndpointConfig.getJaxRsConfiguration());
+        }
+        clientConfig.property(ApacheClientProperties.CONNECTION_MANAGER, connectionManager);
+        if (restEndpointConfig.getConnectionRequestTimeoutMillis() != null) {
+            clientConfig.property(ApacheClientProperties.REQUEST_CONFIG, requestConfig);
+        }
+        clientConfig.connectorProvider(new ApacheConnectorProvider());
+        return ClientBuilder.newClient(clientConfig);
+    }
+
+    /**
+     * Build the bounded connection pool used by {@link TransportType#POOLED} and {@link TransportType#DIRECT}. Requests
+     * beyond the per-route limit wait for a pooled connection instead of opening a new socket, so TLS sessions are
+     * reused as well. New connections share one {@link SSLContext}, whose session cache lets them resume an earlier
+     * handshake rather than repeat it.
+     */
+    private static PoolingHttpClientConnectionManager buildConnectionManager(
+            RestClientConfiguration restEndpointConfig) {
+        SSLContext trustAllContext = restEndpointConfig.getDisableCertificateValidation()
+                ? buildTrustAllSslContext() : null;
+        SSLConnectionSocketFactory sslSocketFactory;
+        if (trustAllContext != null) {
+            sslSocketFactory = new SSLConnectionSocketFactory(enableSessionCache(trustAllContext),
+                    NoopHostnameVerifier.INSTANCE);
+        } else {
+            sslSocketFactory = new SSLConnectionSocketFactory(enableSessionCache(SSLContexts.createDefault()));
+        }
+        Registry<ConnectionSocketFactory> registry = RegistryBuilder.<ConnectionSocketFactory> create()
+                .register("http", PlainConnectionSocketFactory.getSocketFactory()).register("https", sslSocketFactory)
+                .build();
+        PoolingHttpClientConnectionManager connectionManager = new PoolingHttpClientConnectionManager(registry);
+
+        Integer maxConnections = restEndpointConfig.getMaxConnections();
+        Integer maxConnectionsPerRoute = restEndpointConfig.getMaxConnectionsPerRoute();
+        connectionManager.setMaxTotal(maxConnections != null ? maxConnections : DEFAULT_MAX_CONNECTIONS);
+        connectionManager.setDefaultMaxPerRoute(
+                maxConnectionsPerRoute != null ? maxConnectionsPerRoute : DEFAULT_MAX_CONNECTIONS_PER_ROUTE);
+        return connectionManager;
+    }
+
+    private static SSLContext enableSessionCache(SSLContext sslContext) {
+        sslContext.getClientSessionContext().setSessionCacheSize(TLS_SESSION_CACHE_SIZE);
+        sslContext.getClientSessionContext().setSessionTimeout(TLS_SESSION_TIMEOUT_SECONDS);
+        return sslContext;
+    }
+
     private void disableCertificateValidation() {
+        SSLContext sc = buildTrustAllSslContext();
+        if (sc == null) {
+            return;
+        }
+
+        // Ignore differences between given hostname and certificate hostname
+        HostnameVerifier hv = new HostnameVerifier() {
+
+            @Override
+            public boolean verify(final String hostname, final SSLSession session) {
+                return true;
+            }
+        };
+
+        // Install the all-trusting trust manager
+        HttpsURLConnection.setDefaultSSLSocketFactory(sc.getSocketFactory());
+        HttpsURLConnection.setDefaultHostnameVerifier(hv);
+    }
+
+    private static SSLContext buildTrustAllSslContext() {
         // Create a trust manager that does not validate certificate chains
         TrustManager[] trustAllCerts = new TrustManager[] { new X509TrustManager() {
 
@@ -118,24 +591,14 @@ public class RestClient {
             }
         } };
 
-        // Ignore differences between given hostname and certificate hostname
-        HostnameVerifier hv = new HostnameVerifier() {
-
-            @Override
-            public boolean verify(final String hostname, final SSLSession session) {
-                return true;
-            }
-        };
-
-        // Install the all-trusting trust manager
         try {
             SSLContext sc = SSLContext.getInstance("SSL");
             sc.init(null, trustAllCerts, new SecureRandom());
-            HttpsURLConnection.setDefaultSSLSocketFactory(sc.getSocketFactory());
-            HttpsURLConnection.setDefaultHostnameVerifier(hv);
+            return sc;
         } catch (RuntimeException e) {
             throw e;
         } catch (Exception e) {
+            return null;
         }
     }
 
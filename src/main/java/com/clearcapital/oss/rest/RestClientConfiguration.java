@@ -1,6 +1,8 @@
 package com.clearcapital.oss.rest;
 
 import java.net.URI;
+import java.util.List;
+import java.util.Map;
 
 import javax.ws.rs.core.Configuration;
 
@@ -9,11 +11,35 @@ import com.fasterxml.jackson.annotation.JsonProperty;
 public class RestClientConfiguration {
 
     private URI uri;
+    private List<URI> uris;
+    private String healthCheckPath;
+    private Long healthCheckIntervalMillis;
+    private Long ejectionBackoffMillis;
     private String key;
     private String password;
     private boolean disableCertificateValidation;
     private Boolean withLoggingFilter;
     private Configuration jaxRsConfiguration;
+    private TransportType transport;
+    private Integer maxConnections;
+    private Integer maxConnectionsPerRoute;
+    private Double requestsPerSecond;
+    private Map<String, Double> uriRequestsPerSecond;
+    private Integer rateLimitBurst;
+    private Long rateLimitMaxWaitMillis;
+    private Integer warmupConnections;
+    private Long warmupTimeoutMillis;
+    private WireFormat wireFormat;
+    private Integer connectTimeoutMillis;
+    private Integer readTimeoutMillis;
+    private Integer connectionRequestTimeoutMillis;
+    private Long requestTimeoutMillis;
+    private Integer maxPooledBuffers;
+    private Integer bufferSize;
+    private boolean detectBufferLeaks;
+    private Double requestLogSampleRate;
+    private Integer requestLogMaxBodyBytes;
+    private Integer requestLogCapacity;
 
     public RestClientConfiguration() {
 
@@ -28,6 +54,37 @@ public class RestClientConfiguration {
         return uri;
     }
 
+    /**
+     * Equivalent endpoints for {@link RestClient#getTransport()} to spread requests over, in place of {@link #getUri()}
+     * (which, if unset, defaults to the first of them). See {@link LoadBalancedTransport}.
+     */
+    @JsonProperty
+    public List<URI> getUris() {
+        return uris;
+    }
+
+    /**
+     * Path, relative to each of {@link #getUris()}, to poll for endpoint health; {@code null} means no active health
+     * checks.
+     */
+    @JsonProperty
+    public String getHealthCheckPath() {
+        return healthCheckPath;
+    }
+
+    @JsonProperty
+    public Long getHealthCheckIntervalMillis() {
+        return healthCheckIntervalMillis;
+    }
+
+    /**
+     * How long an unhealthy endpoint is first ejected for; doubles with each consecutive ejection.
+     */
+    @JsonProperty
+    public Long getEjectionBackoffMillis() {
+        return ejectionBackoffMillis;
+    }
+
     @JsonProperty
     public String getKey() {
         return key;
@@ -38,6 +95,11 @@ public class RestClientConfiguration {
         return password;
     }
 
+    /**
+     * Whether to register Jersey's {@code LoggingFilter}, which logs every request and response in full, on the
+     * calling thread; for debugging only. Does not apply to {@link TransportType#DIRECT}. See
+     * {@link #getRequestLogSampleRate()} for logging that is safe in production.
+     */
     @JsonProperty
     public Boolean getWithLoggingFilter() {
         return withLoggingFilter;
@@ -47,6 +109,178 @@ public class RestClientConfiguration {
         return disableCertificateValidation;
     }
 
+    /**
+     * The transport to use; {@code null} means {@link TransportType#DEFAULT}.
+     */
+    @JsonProperty
+    public TransportType getTransport() {
+        return transport;
+    }
+
+    /**
+     * Upper bound on open connections across all hosts, for {@link TransportType#POOLED}.
+     */
+    @JsonProperty
+    public Integer getMaxConnections() {
+        return maxConnections;
+    }
+
+    /**
+     * Upper bound on open connections to a single host, for {@link TransportType#POOLED}.
+     */
+    @JsonProperty
+    public Integer getMaxConnectionsPerRoute() {
+        return maxConnectionsPerRoute;
+    }
+
+    /**
+     * Client-side limit on requests per second to this target, across all resources; {@code null} means unlimited.
+     * Only applies to {@link RestClient#getTransport()}.
+     */
+    @JsonProperty
+    public Double getRequestsPerSecond() {
+        return requestsPerSecond;
+    }
+
+    /**
+     * Client-side limits on requests per second to individual resources, keyed by {@link BaseResourceClient#getUri()}
+     * (which also covers their child clients).
+     */
+    @JsonProperty
+    public Map<String, Double> getUriRequestsPerSecond() {
+        return uriRequestsPerSecond;
+    }
+
+    /**
+     * How many requests may be sent back to back before the rate limits apply; {@code null} means 1.
+     */
+    @JsonProperty
+    public Integer getRateLimitBurst() {
+        return rateLimitBurst;
+    }
+
+    /**
+     * How long a request may wait for the rate limits before failing with a {@link RateLimitExceededException};
+     * {@code null} means wait as long as necessary, and 0 means fail fast.
+     */
+    @JsonProperty
+    public Long getRateLimitMaxWaitMillis() {
+        return rateLimitMaxWaitMillis;
+    }
+
+    /**
+     * How many pooled connections {@link RestClient} opens before its constructor returns; {@code null} or 0 means
+     * none. See {@link RestClient#warmUp(int, long, java.util.concurrent.TimeUnit)}.
+     */
+    @JsonProperty
+    public Integer getWarmupConnections() {
+        return warmupConnections;
+    }
+
+    /**
+     * How long warm-up may take; {@code null} means {@value RestClient#DEFAULT_WARMUP_TIMEOUT_MILLIS}.
+     */
+    @JsonProperty
+    public Long getWarmupTimeoutMillis() {
+        return warmupTimeoutMillis;
+    }
+
+    /**
+     * The preferred entity encoding; {@code null} means {@link WireFormat#JSON}. See
+     * {@link RestClient#getWireFormat()}.
+     */
+    @JsonProperty
+    public WireFormat getWireFormat() {
+        return wireFormat;
+    }
+
+    /**
+     * How long to wait for a connection to be established; {@code null} or 0 means no limit.
+     */
+    @JsonProperty
+    public Integer getConnectTimeoutMillis() {
+        return connectTimeoutMillis;
+    }
+
+    /**
+     * How long to wait for each read from a connection; {@code null} or 0 means no limit.
+     */
+    @JsonProperty
+    public Integer getReadTimeoutMillis() {
+        return readTimeoutMillis;
+    }
+
+    /**
+     * For {@link TransportType#POOLED} and {@link TransportType#DIRECT}, how long to wait for a pooled connection to
+     * become free; {@code null} or 0 means no limit.
+     */
+    @JsonProperty
+    public Integer getConnectionRequestTimeoutMillis() {
+        return connectionRequestTimeoutMillis;
+    }
+
+    /**
+     * The {@link Deadline} for each request made outside any other, covering queueing and rate limiting as well as the
+     * exchange itself; {@code null} or 0 means none. See {@link DeadlineTransport}.
+     */
+    @JsonProperty
+    public Long getRequestTimeoutMillis() {
+        return requestTimeoutMillis;
+    }
+
+    /**
+     * For {@link TransportType#DIRECT}, how many body buffers to keep for reuse; {@code null} means twice the
+     * connection limit, and 0 means none. See {@link BufferPool}.
+     */
+    @JsonProperty
+    public Integer getMaxPooledBuffers() {
+        return maxPooledBuffers;
+    }
+
+    /**
+     * The size of each pooled buffer; {@code null} means {@value BufferPool#DEFAULT_BUFFER_SIZE}.
+     */
+    @JsonProperty
+    public Integer getBufferSize() {
+        return bufferSize;
+    }
+
+    /**
+     * Whether to log pooled buffers that are never returned, i.e. responses and streams that are never closed. Costs a
+     * stack trace per buffer; for tests and debugging.
+     */
+    @JsonProperty
+    public boolean getDetectBufferLeaks() {
+        return detectBufferLeaks;
+    }
+
+    /**
+     * The fraction of requests made through {@link RestClient#getTransport()} to log, from 0 to 1, in the background;
+     * {@code null} or 0 means none. See {@link LoggingTransport}.
+     */
+    @JsonProperty
+    public Double getRequestLogSampleRate() {
+        return requestLogSampleRate;
+    }
+
+    /**
+     * How much of each logged request entity to include; {@code null} means
+     * {@value RestClient#DEFAULT_REQUEST_LOG_MAX_BODY_BYTES} bytes, and 0 none.
+     */
+    @JsonProperty
+    public Integer getRequestLogMaxBodyBytes() {
+        return requestLogMaxBodyBytes;
+    }
+
+    /**
+     * How many log records may wait to be written before more are dropped; {@code null} means
+     * {@value RequestLog#DEFAULT_CAPACITY}.
+     */
+    @JsonProperty
+    public Integer getRequestLogCapacity() {
+        return requestLogCapacity;
+    }
+
     public static class Builder {
 
         RestClientConfiguration result;
@@ -55,16 +289,111 @@ public class RestClientConfiguration {
             result = new RestClientConfiguration();
         }
 
+        public Builder setBufferSize(Integer value) {
+            result.bufferSize = value;
+            return this;
+        }
+
+        public Builder setConnectTimeoutMillis(Integer value) {
+            result.connectTimeoutMillis = value;
+            return this;
+        }
+
+        public Builder setConnectionRequestTimeoutMillis(Integer value) {
+            result.connectionRequestTimeoutMillis = value;
+            return this;
+        }
+
+        public Builder setDetectBufferLeaks(boolean value) {
+            result.detectBufferLeaks = value;
+            return this;
+        }
+
         public Builder setDisableCertificateValidation(boolean value) {
             result.disableCertificateValidation = value;
             return this;
         }
 
+        public Builder setEjectionBackoffMillis(Long value) {
+            result.ejectionBackoffMillis = value;
+            return this;
+        }
+
+        public Builder setHealthCheckIntervalMillis(Long value) {
+            result.healthCheckIntervalMillis = value;
+            return this;
+        }
+
+        public Builder setHealthCheckPath(String value) {
+            result.healthCheckPath = value;
+            return this;
+        }
+
         public Builder setJaxRsConfiguration(Configuration value) {
             result.jaxRsConfiguration = value;
             return this;
         }
 
+        public Builder setMaxConnections(Integer value) {
+            result.maxConnections = value;
+            return this;
+        }
+
+        public Builder setMaxConnectionsPerRoute(Integer value) {
+            result.maxConnectionsPerRoute = value;
+            return this;
+        }
+
+        public Builder setMaxPooledBuffers(Integer value) {
+            result.maxPooledBuffers = value;
+            return this;
+        }
+
+        public Builder setRateLimitBurst(Integer value) {
+            result.rateLimitBurst = value;
+            return this;
+        }
+
+        public Builder setRateLimitMaxWaitMillis(Long value) {
+            result.rateLimitMaxWaitMillis = value;
+            return this;
+        }
+
+        public Builder setReadTimeoutMillis(Integer value) {
+            result.readTimeoutMillis = value;
+            return this;
+        }
+
+        public Builder setRequestLogCapacity(Integer value) {
+            result.requestLogCapacity = value;
+            return this;
+        }
+
+        public Builder setRequestLogMaxBodyBytes(Integer value) {
+            result.requestLogMaxBodyBytes = value;
+            return this;
+        }
+
+        public Builder setRequestLogSampleRate(Double value) {
+            result.requestLogSampleRate = value;
+            return this;
+        }
+
+        public Builder setRequestTimeoutMillis(Long value) {
+            result.requestTimeoutMillis = value;
+            return this;
+        }
+
+        public Builder setRequestsPerSecond(Double value) {
+            result.requestsPerSecond = value;
+            return this;
+        }
+
+        public Builder setUriRequestsPerSecond(Map<String, Double> value) {
+            result.uriRequestsPerSecond = value;
+            return this;
+        }
+
         public Builder setKey(String key) {
             result.key = key;
             return this;
@@ -75,11 +404,36 @@ public class RestClientConfiguration {
             return this;
         }
 
+        public Builder setTransport(TransportType value) {
+            result.transport = value;
+            return this;
+        }
+
         public Builder setUri(URI uri) {
             result.uri = uri;
             return this;
         }
 
+        public Builder setUris(List<URI> value) {
+            result.uris = value;
+            return this;
+        }
+
+        public Builder setWarmupConnections(Integer value) {
+            result.warmupConnections = value;
+            return this;
+        }
+
+        public Builder setWarmupTimeoutMillis(Long value) {
+            result.warmupTimeoutMillis = value;
+            return this;
+        }
+
+        public Builder setWireFormat(WireFormat value) {
+            result.wireFormat = value;
+            return this;
+        }
+
         public Builder setWithLoggingFilter(Boolean value) {
             result.withLoggingFilter = value;
             return this;
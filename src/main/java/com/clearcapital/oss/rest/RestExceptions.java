@@ -0,0 +1,60 @@
+package com.clearcapital.oss.rest;
+
+import javax.ws.rs.BadRequestException;
+import javax.ws.rs.ClientErrorException;
+import javax.ws.rs.ForbiddenException;
+import javax.ws.rs.InternalServerErrorException;
+import javax.ws.rs.NotAcceptableException;
+import javax.ws.rs.NotAuthorizedException;
+import javax.ws.rs.NotFoundException;
+import javax.ws.rs.NotSupportedException;
+import javax.ws.rs.RedirectionException;
+import javax.ws.rs.ServerErrorException;
+import javax.ws.rs.ServiceUnavailableException;
+import javax.ws.rs.WebApplicationException;
+import javax.ws.rs.core.Response;
+
+/**
+ * Maps unsuccessful responses onto the same {@link WebApplicationException} subclasses that a JAX-RS client throws, so
+ * that callers see the same exceptions regardless of the {@link RestTransport} in use.
+ */
+final class RestExceptions {
+
+    private RestExceptions() {
+
+    }
+
+    static WebApplicationException forResponse(final Response response) {
+        switch (response.getStatus()) {
+        case 400:
+            return new BadRequestException(response);
+        case 401:
+            return new NotAuthorizedException(response);
+        case 403:
+            return new ForbiddenException(response);
+        case 404:
+            return new NotFoundException(response);
+        case 406:
+            return new NotAcceptableException(response);
+        case 415:
+            return new NotSupportedException(response);
+        case 500:
+            return new InternalServerErrorException(response);
+        case 503:
+            return new ServiceUnavailableException(response);
+        default:
+            break;
+        }
+
+        switch (response.getStatusInfo().getFamily()) {
+        case REDIRECTION:
+            return new RedirectionException(response);
+        case CLIENT_ERROR:
+            return new ClientErrorException(response);
+        case SERVER_ERROR:
+            return new ServerErrorException(response);
+        default:
+            return new WebApplicationException(response);
+        }
+    }
+}
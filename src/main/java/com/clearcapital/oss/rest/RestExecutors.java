@@ -0,0 +1,54 @@
+package com.clearcapital.oss.rest;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Shared background executors for work that the client does on the caller's behalf (e.g. prefetching pages, health
+ * checks). Threads are daemons, so an idle client never keeps the JVM alive.
+ */
+final class RestExecutors {
+
+    private static final AtomicInteger THREAD_COUNT = new AtomicInteger();
+
+    private static final ThreadFactory THREAD_FACTORY = new ThreadFactory() {
+
+        @Override
+        public Thread newThread(final Runnable runnable) {
+            Thread thread = new Thread(runnable, "rest-client-" + THREAD_COUNT.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        }
+    };
+
+    private static final ExecutorService DEFAULT_EXECUTOR = Executors.newCachedThreadPool(THREAD_FACTORY);
+
+    private static final ScheduledExecutorService SCHEDULER = newScheduler();
+
+    private RestExecutors() {
+
+    }
+
+    private static ScheduledExecutorService newScheduler() {
+        ScheduledThreadPoolExecutor result = new ScheduledThreadPoolExecutor(1, THREAD_FACTORY);
+        // Most deadline timers are cancelled long before they are due; drop them from the queue at once.
+        result.setRemoveOnCancelPolicy(true);
+        return result;
+    }
+
+    static ExecutorService defaultExecutor() {
+        return DEFAULT_EXECUTOR;
+    }
+
+    /**
+     * For periodic and delayed tasks. Tasks should be short, handing anything that blocks to
+     * {@link #defaultExecutor()}.
+     */
+    static ScheduledExecutorService scheduler() {
+        return SCHEDULER;
+    }
+}
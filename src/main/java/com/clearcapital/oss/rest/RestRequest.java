@@ -0,0 +1,143 @@
+package com.clearcapital.oss.rest;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A single HTTP request, as handed to a {@link RestTransport}: a method, a path relative to the transport's base URI,
+ * query parameters, headers, cookies and an optional entity.
+ *
+ * <p>
+ * Path segments are appended the same way {@code WebTarget.path()} appends them, so a segment may itself contain
+ * slashes (e.g. {@code /v1/entities}).
+ * </p>
+ */
+public class RestRequest {
+
+    /** Not among the {@code javax.ws.rs.HttpMethod} constants until JAX-RS 2.1. */
+    public static final String PATCH = "PATCH";
+
+    private static final String[] NO_MEDIA_TYPES = new String[0];
+
+    private String method;
+    private final List<String> path = new ArrayList<>(4);
+    private Map<String, List<String>> queryParams;
+    private String[] accept = NO_MEDIA_TYPES;
+    private Map<String, String> cookies;
+    private Map<String, String> headers;
+    private Object entity;
+    private String mediaType;
+
+    RestRequest() {
+
+    }
+
+    public static Builder builder(String method) {
+        return new Builder(method);
+    }
+
+    public String getMethod() {
+        return method;
+    }
+
+    public List<String> getPath() {
+        return path;
+    }
+
+    /**
+     * @return the query parameters, never {@code null}.
+     */
+    public Map<String, List<String>> getQueryParams() {
+        return queryParams != null ? queryParams : Collections.<String, List<String>> emptyMap();
+    }
+
+    public String[] getAccept() {
+        return accept;
+    }
+
+    /**
+     * @return the cookies, never {@code null}.
+     */
+    public Map<String, String> getCookies() {
+        return cookies != null ? cookies : Collections.<String, String> emptyMap();
+    }
+
+    /**
+     * @return the headers, never {@code null}.
+     */
+    public Map<String, String> getHeaders() {
+        return headers != null ? headers : Collections.<String, String> emptyMap();
+    }
+
+    /**
+     * True if this request carries an entity, even a {@code null} one (as in {@code Entity.json(null)}).
+     */
+    public boolean hasEntity() {
+        return mediaType != null;
+    }
+
+    public Object getEntity() {
+        return entity;
+    }
+
+    public String getMediaType() {
+        return mediaType;
+    }
+
+    public static class Builder {
+
+        RestRequest result;
+
+        Builder(String method) {
+            result = new RestRequest();
+            result.method = method;
+        }
+
+        public Builder addPath(String value) {
+            result.path.add(value);
+            return this;
+        }
+
+        /**
+         * Use {@code value} (e.g. a {@code MultivaluedMap}) as the query parameters. The map is not copied.
+         */
+        public Builder setQueryParams(Map<String, List<String>> value) {
+            result.queryParams = value;
+            return this;
+        }
+
+        public Builder setAccept(String... value) {
+            result.accept = value;
+            return this;
+        }
+
+        public Builder addCookie(String name, String value) {
+            if (result.cookies == null) {
+                result.cookies = new LinkedHashMap<>(4);
+            }
+            result.cookies.put(name, value);
+            return this;
+        }
+
+        public Builder addHeader(String name, String value) {
+            if (result.headers == null) {
+                result.headers = new LinkedHashMap<>(4);
+            }
+            result.headers.put(name, value);
+            return this;
+        }
+
+        public Builder setEntity(Object entity, String mediaType) {
+            result.entity = entity;
+            result.mediaType = mediaType;
+            return this;
+        }
+
+        public RestRequest build() {
+            return result;
+        }
+    }
+}
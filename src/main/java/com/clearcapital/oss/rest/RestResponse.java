@@ -0,0 +1,47 @@
+package com.clearcapital.oss.rest;
+
+import java.lang.reflect.Type;
+
+import javax.ws.rs.core.Response;
+
+/**
+ * The response half of the {@link RestTransport} SPI.
+ */
+public interface RestResponse extends AutoCloseable {
+
+    int getStatus();
+
+    /**
+     * The value(s) of the named header as a single comma-separated string, or {@code null} if it is absent. Headers
+     * remain available after the entity has been read.
+     */
+    String getHeaderString(String name);
+
+    /**
+     * Decode the response body as {@code type}, then release the response. If {@code type} is {@code InputStream},
+     * the stream is returned undecoded and the caller is responsible for closing it.
+     */
+    <U> U readEntity(Type type);
+
+    /**
+     * A JAX-RS view of this response, for the parts of the public API that return a {@link Response}. Ownership passes
+     * to the caller. Transports that do not use JAX-RS read the body into memory and release the underlying connection
+     * first; the result's {@code getEntity()} is then the body as a {@code byte[]}, or {@code null} if it was empty.
+     */
+    Response toResponse();
+
+    /**
+     * As {@link #toResponse()}, but with the body always read into memory and the underlying connection released, so
+     * that the result can be held (e.g. by an exception) without holding the connection.
+     */
+    Response toBufferedResponse();
+
+    /**
+     * Release the response without reading the rest of its body, discarding the connection rather than draining it
+     * for reuse; for when the rest of the body is unwanted and may be large or endless.
+     */
+    void abort();
+
+    @Override
+    void close();
+}
@@ -0,0 +1,18 @@
+package com.clearcapital.oss.rest;
+
+/**
+ * The narrow transport SPI that {@link BaseResourceClient} runs on: send one {@link RestRequest}, get back one
+ * {@link RestResponse}.
+ *
+ * <p>
+ * Implementations must not interpret the response status; that is up to the caller. Failures to send the request or
+ * to read a response should be reported as {@link javax.ws.rs.ProcessingException}, the same as JAX-RS does.
+ * </p>
+ *
+ * @see JerseyTransport
+ * @see HttpClientTransport
+ */
+public interface RestTransport {
+
+    RestResponse invoke(RestRequest request);
+}
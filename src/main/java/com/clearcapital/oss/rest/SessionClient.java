@@ -0,0 +1,281 @@
+package com.clearcapital.oss.rest;
+
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.util.Iterator;
+import java.util.List;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+
+import javax.ws.rs.core.GenericType;
+import javax.ws.rs.core.MultivaluedMap;
+import javax.ws.rs.core.Response;
+
+import org.reactivestreams.Publisher;
+
+/**
+ * A {@link BaseResourceClient} bound to one session; see {@link BaseResourceClient#withSession(long)}.
+ *
+ * <p>
+ * Each method is the {@link BaseResourceClient} method of the same name, less its {@code sessionId} parameter. The
+ * session cookie is rendered once, when the view is created, so long-lived sessions making many calls do not box and
+ * format their id on every request. Views hold no state of their own beyond that, and are as thread-safe as the
+ * client they view.
+ * </p>
+ */
+public final class SessionClient<T> {
+
+    private final BaseResourceClient<T> client;
+    private final long sessionId;
+    private final String sessionCookie;
+
+    SessionClient(final BaseResourceClient<T> client, final long sessionId) {
+        this.client = client;
+        this.sessionId = sessionId;
+        this.sessionCookie = BaseResourceClient.sessionCookie(sessionId);
+    }
+
+    public BaseResourceClient<T> getClient() {
+        return client;
+    }
+
+    public long getSessionId() {
+        return sessionId;
+    }
+
+    /**
+     * @see BaseResourceClient#available(Long, Long)
+     */
+    public Boolean available(final Long id) {
+        return client.available(id, sessionCookie);
+    }
+
+    /**
+     * @see BaseResourceClient#bulk(Iterator, Long, int, boolean, Consumer)
+     */
+    public void bulk(final Iterator<? extends BulkOperation<T>> operations, final int concurrency,
+            final boolean ordered, final Consumer<? super BulkResult<T>> results) {
+        client.bulk(operations, sessionCookie, concurrency, ordered, results);
+    }
+
+    /**
+     * @see BaseResourceClient#bulk(Stream, Long, int, boolean)
+     */
+    public List<BulkResult<T>> bulk(final Stream<? extends BulkOperation<T>> operations, final int concurrency,
+            final boolean ordered) {
+        return client.bulk(operations, sessionCookie, concurrency, ordered);
+    }
+
+    /**
+     * @see BaseResourceClient#create(Object, Long)
+     */
+    public T create(final T entity) {
+        return client.create(entity, sessionCookie);
+    }
+
+    /**
+     * @see BaseResourceClient#create(Object, MultivaluedMap, Long)
+     */
+    public T create(final T entity, final MultivaluedMap<String, String> queryParams) {
+        return client.create(entity, queryParams, sessionCookie);
+    }
+
+    /**
+     * @see BaseResourceClient#createNoResponse(Object, Long)
+     */
+    public void createNoResponse(final T entity) {
+        client.createNoResponse(entity, sessionCookie);
+    }
+
+    /**
+     * @see BaseResourceClient#delete(Long, Long)
+     */
+    public Response delete(final Long id) {
+        return client.delete(id, sessionCookie);
+    }
+
+    /**
+     * @see BaseResourceClient#delete(String, Long)
+     */
+    public Response delete(final String key) {
+        return client.delete(key, sessionCookie);
+    }
+
+    /**
+     * @see BaseResourceClient#deleteAll(Long)
+     */
+    public Response deleteAll() {
+        return client.deleteAll(sessionCookie);
+    }
+
+    /**
+     * @see BaseResourceClient#overwrite(String, Object, Long)
+     */
+    public T overwrite(final String key, final T entity) {
+        return client.overwrite(key, entity, sessionCookie, false);
+    }
+
+    /**
+     * @see BaseResourceClient#overwrite(String, Object, Long, boolean)
+     */
+    public T overwrite(final String key, final T entity, final boolean force) {
+        return client.overwrite(key, entity, sessionCookie, force);
+    }
+
+    /**
+     * @see BaseResourceClient#overwrite(Object, Long)
+     */
+    public T overwrite(final T entity) {
+        return client.overwrite(entity, sessionCookie);
+    }
+
+    /**
+     * @see BaseResourceClient#patch(Long, Object, Long)
+     */
+    public T patch(final Long id, final T modified) {
+        return client.patch(id, modified, sessionCookie);
+    }
+
+    /**
+     * @see BaseResourceClient#publishList(Long, MultivaluedMap)
+     */
+    public Publisher<T> publishList(final MultivaluedMap<String, String> queryParams) {
+        return client.publishList(sessionCookie, queryParams);
+    }
+
+    /**
+     * @see BaseResourceClient#publishList(Long, MultivaluedMap, GenericType)
+     */
+    public <U> Publisher<U> publishList(final MultivaluedMap<String, String> queryParams,
+            final GenericType<U> elementType) {
+        return client.publishList(sessionCookie, queryParams, elementType.getType());
+    }
+
+    /**
+     * @see BaseResourceClient#publishStream(Long, String, Long)
+     */
+    public Publisher<ByteBuffer> publishStream(final Long id, final String extensionWithDot) {
+        return client.publishStream(id, extensionWithDot, sessionCookie);
+    }
+
+    /**
+     * @see BaseResourceClient#read(Long, Long)
+     */
+    public T read(final Long id) {
+        return client.read(id, sessionCookie);
+    }
+
+    /**
+     * @see BaseResourceClient#read(MultivaluedMap, Long)
+     */
+    public T read(final MultivaluedMap<String, String> queryParams) {
+        return client.read(queryParams, sessionCookie);
+    }
+
+    /**
+     * @see BaseResourceClient#read(String, Long)
+     */
+    public T read(final String key) {
+        return client.read(key, sessionCookie);
+    }
+
+    /**
+     * @see BaseResourceClient#readLazy(Long, Long)
+     */
+    public LazyEntity<T> readLazy(final Long id) {
+        return client.readLazy(id, sessionCookie);
+    }
+
+    /**
+     * @see BaseResourceClient#readComposite(Long, Long, CompositeRead)
+     */
+    public CompositeEntity<T> readComposite(final Long id, final CompositeRead read) {
+        return client.readComposite(id, sessionCookie, read);
+    }
+
+    /**
+     * @see BaseResourceClient#readList(Long, GenericType)
+     */
+    public <U> U readList(final GenericType<U> genericType) {
+        return client.readList(sessionCookie, genericType);
+    }
+
+    /**
+     * @see BaseResourceClient#readList(Long, MultivaluedMap, GenericType)
+     */
+    public <U> U readList(final MultivaluedMap<String, String> queryParams, final GenericType<U> superType) {
+        return client.readList(sessionCookie, queryParams, superType);
+    }
+
+    /**
+     * @see BaseResourceClient#readPages(Long, MultivaluedMap, GenericType, PageStrategy, int)
+     */
+    public <U> PageIterator<U> readPages(final MultivaluedMap<String, String> queryParams,
+            final GenericType<List<U>> genericType, final PageStrategy strategy, final int prefetchDepth) {
+        return client.readPages(sessionCookie, queryParams, genericType, strategy, prefetchDepth,
+                RestExecutors.defaultExecutor());
+    }
+
+    /**
+     * @see BaseResourceClient#readStream(Long, String, Long)
+     */
+    public InputStream readStream(final Long id, final String extensionWithDot) {
+        return client.readStream(id, extensionWithDot, sessionCookie);
+    }
+
+    /**
+     * @see BaseResourceClient#readVersion(Long, Long, Long)
+     */
+    public T readVersion(final Long id, final Long updateId) {
+        return client.readVersion(id, updateId, sessionCookie);
+    }
+
+    /**
+     * @see BaseResourceClient#update(Long, Object, Long)
+     */
+    public T update(final Long id, final T entity) {
+        return client.update(id, entity, sessionCookie, false);
+    }
+
+    /**
+     * @see BaseResourceClient#update(Long, Object, Long, boolean)
+     */
+    public T update(final Long id, final T entity, final boolean force) {
+        return client.update(id, entity, sessionCookie, force);
+    }
+
+    /**
+     * @see BaseResourceClient#update(String, Object, Long)
+     */
+    public T update(final String key, final T entity) {
+        return client.update(key, entity, sessionCookie, false);
+    }
+
+    /**
+     * @see BaseResourceClient#update(String, Object, Long, boolean)
+     */
+    public T update(final String key, final T entity, final boolean force) {
+        return client.update(key, entity, sessionCookie, force);
+    }
+
+    /**
+     * @see BaseResourceClient#update(Object, Long)
+     */
+    public T update(final T entity) {
+        return client.update(entity, sessionCookie);
+    }
+
+    /**
+     * @see BaseResourceClient#updateNoResponse(String, Object, Long)
+     */
+    public void updateNoResponse(final String key, final T entity) {
+        client.updateNoResponse(key, entity, sessionCookie);
+    }
+
+    /**
+     * @see BaseResourceClient#versionAvailable(Long, Long, Long)
+     */
+    public Boolean versionAvailable(final Long id, final Long updateId) {
+        return client.versionAvailable(id, updateId, sessionCookie);
+    }
+}
@@ -0,0 +1,61 @@
+package com.clearcapital.oss.rest;
+
+import java.io.IOException;
+
+import org.apache.http.HttpClientConnection;
+import org.apache.http.HttpException;
+import org.apache.http.HttpRequest;
+import org.apache.http.HttpResponse;
+import org.apache.http.protocol.HttpContext;
+import org.apache.http.protocol.HttpRequestExecutor;
+
+/**
+ * An {@link HttpRequestExecutor} that fills in the connect, send and wait phases of the {@link RequestTiming} passed
+ * along by {@link HttpClientTransport}, if any. HttpClient calls it once the connection is leased and connected.
+ */
+class TimingRequestExecutor extends HttpRequestExecutor {
+
+    @Override
+    public HttpResponse execute(final HttpRequest request, final HttpClientConnection conn, final HttpContext context)
+            throws IOException, HttpException {
+        RequestTiming timing = timing(context);
+        if (timing != null) {
+            timing.connected();
+        }
+        return super.execute(request, conn, context);
+    }
+
+    @Override
+    protected HttpResponse doSendRequest(final HttpRequest request, final HttpClientConnection conn,
+            final HttpContext context) throws IOException, HttpException {
+        RequestTiming timing = timing(context);
+        if (timing == null) {
+            return super.doSendRequest(request, conn, context);
+        }
+        long start = System.nanoTime();
+        try {
+            return super.doSendRequest(request, conn, context);
+        } finally {
+            timing.sent(System.nanoTime() - start);
+        }
+    }
+
+    @Override
+    protected HttpResponse doReceiveResponse(final HttpRequest request, final HttpClientConnection conn,
+            final HttpContext context) throws HttpException, IOException {
+        RequestTiming timing = timing(context);
+        if (timing == null) {
+            return super.doReceiveResponse(request, conn, context);
+        }
+        long start = System.nanoTime();
+        try {
+            return super.doReceiveResponse(request, conn, context);
+        } finally {
+            timing.waited(System.nanoTime() - start);
+        }
+    }
+
+    private static RequestTiming timing(final HttpContext context) {
+        return context != null ? (RequestTiming) context.getAttribute(RequestTiming.CONTEXT_ATTRIBUTE) : null;
+    }
+}
@@ -0,0 +1,220 @@
+package com.clearcapital.oss.rest;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.lang.reflect.Type;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import javax.ws.rs.core.HttpHeaders;
+import javax.ws.rs.core.Response;
+
+/**
+ * A {@link RestTransport} decorator that times each request, phase by phase, and reports the {@link RequestTiming} to
+ * its {@link RequestTimingListener}s once the response has been read or closed, or the request has failed. A response
+ * read as an {@code InputStream} is reported once the stream has been read to the end or closed.
+ *
+ * <p>
+ * Listeners can be added and removed at any time. While there are none, requests pass straight through untimed.
+ * </p>
+ */
+public class TimingTransport implements RestTransport {
+
+    private final RestTransport delegate;
+    private final List<RequestTimingListener> listeners = new CopyOnWriteArrayList<>();
+
+    public TimingTransport(final RestTransport delegate) {
+        this.delegate = delegate;
+    }
+
+    public RestTransport getDelegate() {
+        return delegate;
+    }
+
+    public void addListener(final RequestTimingListener listener) {
+        listeners.add(listener);
+    }
+
+    public void removeListener(final RequestTimingListener listener) {
+        listeners.remove(listener);
+    }
+
+    @Override
+    public RestResponse invoke(final RestRequest request) {
+        if (listeners.isEmpty()) {
+            return delegate.invoke(request);
+        }
+
+        List<String> path = request.getPath();
+        RequestTiming timing = new RequestTiming(request.getMethod(), path.isEmpty() ? "" : path.get(0));
+        RestResponse response;
+        RequestTiming previous = timing.enter();
+        try {
+            response = delegate.invoke(request);
+        } catch (RuntimeException e) {
+            finish(timing);
+            throw e;
+        } finally {
+            RequestTiming.restore(previous);
+        }
+        timing.responded(response.getStatus(), contentLength(response));
+        return new TimedResponse(response, timing);
+    }
+
+    private static long contentLength(final RestResponse response) {
+        String value = response.getHeaderString(HttpHeaders.CONTENT_LENGTH);
+        if (value == null) {
+            return -1;
+        }
+        try {
+            return Long.parseLong(value.trim());
+        } catch (NumberFormatException e) {
+            return -1;
+        }
+    }
+
+    private void finish(final RequestTiming timing) {
+        if (!timing.finish()) {
+            return;
+        }
+        for (RequestTimingListener listener : listeners) {
+            try {
+                listener.requestTimed(timing);
+            } catch (RuntimeException e) {
+                // a broken listener is no reason to fail the request
+            }
+        }
+    }
+
+    private class TimedResponse implements RestResponse {
+
+        private final RestResponse response;
+        private final RequestTiming timing;
+
+        TimedResponse(final RestResponse response, final RequestTiming timing) {
+            this.response = response;
+            this.timing = timing;
+        }
+
+        @Override
+        public int getStatus() {
+            return response.getStatus();
+        }
+
+        @Override
+        public String getHeaderString(final String name) {
+            return response.getHeaderString(name);
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        public <U> U readEntity(final Type type) {
+            long start = System.nanoTime();
+            if (type == InputStream.class) {
+                InputStream in;
+                try {
+                    in = response.readEntity(type);
+                } catch (RuntimeException e) {
+                    finish(timing);
+                    throw e;
+                }
+                if (in == null) {
+                    finish(timing);
+                    return null;
+                }
+                return (U) new TimedStream(in, timing, start);
+            }
+            try {
+                return response.readEntity(type);
+            } finally {
+                timing.read(System.nanoTime() - start);
+                finish(timing);
+            }
+        }
+
+        @Override
+        public Response toResponse() {
+            try {
+                return response.toResponse();
+            } finally {
+                finish(timing);
+            }
+        }
+
+        @Override
+        public Response toBufferedResponse() {
+            try {
+                return response.toBufferedResponse();
+            } finally {
+                finish(timing);
+            }
+        }
+
+        @Override
+        public void abort() {
+            try {
+                response.abort();
+            } finally {
+                finish(timing);
+            }
+        }
+
+        @Override
+        public void close() {
+            try {
+                response.close();
+            } finally {
+                finish(timing);
+            }
+        }
+    }
+
+    /**
+     * A response stream, whose timing is reported, body and all, once it is read to the end or closed.
+     */
+    private class TimedStream extends FilterInputStream {
+
+        private final RequestTiming timing;
+        private final long start;
+
+        TimedStream(final InputStream in, final RequestTiming timing, final long start) {
+            super(in);
+            this.timing = timing;
+            this.start = start;
+        }
+
+        @Override
+        public int read() throws IOException {
+            return ended(super.read());
+        }
+
+        @Override
+        public int read(final byte[] b, final int off, final int len) throws IOException {
+            return ended(super.read(b, off, len));
+        }
+
+        @Override
+        public void close() throws IOException {
+            try {
+                super.close();
+            } finally {
+                finished();
+            }
+        }
+
+        private int ended(final int result) {
+            if (result < 0) {
+                finished();
+            }
+            return result;
+        }
+
+        private void finished() {
+            if (timing.getTotalNanos() < 0) {
+                timing.read(System.nanoTime() - start);
+                finish(timing);
+            }
+        }
+    }
+}
@@ -0,0 +1,26 @@
+package com.clearcapital.oss.rest;
+
+/**
+ * Selects the HTTP transport that a {@link RestClient} uses to talk to its endpoint.
+ */
+public enum TransportType {
+
+    /**
+     * Jersey's default {@code HttpURLConnection} based connector. Every concurrent request needs its own socket.
+     */
+    DEFAULT,
+
+    /**
+     * Jersey's Apache HttpClient connector over a bounded, shared connection pool. Concurrent requests against the
+     * same host are spread over at most {@code maxConnectionsPerRoute} persistent connections (and their TLS
+     * sessions), waiting for a free connection rather than opening a new socket.
+     */
+    POOLED,
+
+    /**
+     * The same bounded connection pool as {@link #POOLED}, but driven directly through {@link HttpClientTransport}
+     * with no JAX-RS machinery on the request path. Only clients built on {@link RestClient#getTransport()} benefit;
+     * {@link RestClient#getWebTarget()} still uses Jersey's default connector.
+     */
+    DIRECT
+}
@@ -0,0 +1,62 @@
+package com.clearcapital.oss.rest;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Marks an interface, described with the JAX-RS annotations, from which {@link TypedClientProcessor} generates a
+ * client at compile time.
+ *
+ * <pre>
+ * {@code
+ * @TypedClient
+ * @Path("/v1/orders")
+ * public interface Orders {
+ *
+ *     @GET
+ *     @Path("{id}")
+ *     Order read(@PathParam("id") long id, @CookieParam("X-SessionId") Long sessionId);
+ *
+ *     @GET
+ *     @Path("{id}/items")
+ *     List<Item> readItems(@PathParam("id") long id, @QueryParam("limit") Integer limit,
+ *             @CookieParam("X-SessionId") Long sessionId);
+ *
+ *     @PUT
+ *     @Path("{id}")
+ *     Order update(@PathParam("id") long id, Order order, @CookieParam("X-SessionId") Long sessionId);
+ *
+ *     @DELETE
+ *     @Path("{id}")
+ *     Response delete(@PathParam("id") long id, @CookieParam("X-SessionId") Long sessionId);
+ * }
+ *
+ * Orders orders = new OrdersClient(restClient.getTransport());
+ * }
+ * </pre>
+ *
+ * <p>
+ * Each abstract method needs an HTTP method annotation ({@code @GET}, {@code @PUT} and so on, or any annotation
+ * meta-annotated with {@code @HttpMethod}), and may have a {@code @Path}, relative to the interface's. Parameters are
+ * {@code @PathParam}s, {@code @QueryParam}s (left out when {@code null}; a collection adds one value per element),
+ * {@code @HeaderParam}s, {@code @CookieParam}s (sent as a {@code Cookie} header, as
+ * {@link BaseResourceClient} sends the session id), or, for at most one, the entity, sent as {@code @Consumes} or
+ * JSON. Responses are accepted as {@code @Produces} or JSON. A method returning {@link javax.ws.rs.core.Response}
+ * gets the response whatever its status; any other throws unsuccessful responses as
+ * {@link BaseResourceClient} does, and returns the entity, decoded as the declared return type, or nothing.
+ * </p>
+ */
+@Documented
+@Retention(RetentionPolicy.SOURCE)
+@Target(ElementType.TYPE)
+public @interface TypedClient {
+
+    /**
+     * The simple name of the generated class, in the interface's package; by default, the interface's name followed
+     * by {@code Client}, or {@code Impl} if it already ends with {@code Client}.
+     */
+    String value() default "";
+}
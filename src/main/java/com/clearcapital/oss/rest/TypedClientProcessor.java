@@ -0,0 +1,491 @@
+package com.clearcapital.oss.rest;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import javax.annotation.processing.AbstractProcessor;
+import javax.annotation.processing.RoundEnvironment;
+import javax.annotation.processing.SupportedAnnotationTypes;
+import javax.lang.model.SourceVersion;
+import javax.lang.model.element.AnnotationMirror;
+import javax.lang.model.element.Element;
+import javax.lang.model.element.ElementKind;
+import javax.lang.model.element.ExecutableElement;
+import javax.lang.model.element.Modifier;
+import javax.lang.model.element.TypeElement;
+import javax.lang.model.element.VariableElement;
+import javax.lang.model.type.ArrayType;
+import javax.lang.model.type.DeclaredType;
+import javax.lang.model.type.ExecutableType;
+import javax.lang.model.type.PrimitiveType;
+import javax.lang.model.type.TypeKind;
+import javax.lang.model.type.TypeMirror;
+import javax.lang.model.util.ElementFilter;
+import javax.tools.Diagnostic;
+import javax.ws.rs.Consumes;
+import javax.ws.rs.CookieParam;
+import javax.ws.rs.HeaderParam;
+import javax.ws.rs.HttpMethod;
+import javax.ws.rs.Path;
+import javax.ws.rs.PathParam;
+import javax.ws.rs.Produces;
+import javax.ws.rs.QueryParam;
+import javax.ws.rs.core.HttpHeaders;
+import javax.ws.rs.core.MediaType;
+
+/**
+ * Generates a client for each {@link TypedClient} interface, at compile time; registered as a service, so it runs
+ * whenever this library is on the compiler's classpath.
+ *
+ * <p>
+ * A generated client is a plain class that builds each {@link RestRequest} directly, from path segments, media types
+ * and response types worked out once, when the interface is compiled, and sends it through a {@link RestTransport}.
+ * Unlike {@link BaseResourceClient}, nothing is looked up, built by reflection or boxed behind a {@code GenericType}
+ * at run time, so calls do no more work than the request itself needs, and nothing in the client stands in the way of
+ * ahead-of-time compilation. Response types keep their full generic type, so a {@code List<Item>} is decoded as such;
+ * pass {@code responseTypes()} to {@link RestClient#warmUpCodecs(java.lang.reflect.Type...)} to build their decoders
+ * up front as well.
+ * </p>
+ */
+@SupportedAnnotationTypes("com.clearcapital.oss.rest.TypedClient")
+public class TypedClientProcessor extends AbstractProcessor {
+
+    private static final String RUNTIME = TypedClients.class.getName();
+    private static final String TYPE = java.lang.reflect.Type.class.getName();
+    private static final String[] JSON = { MediaType.APPLICATION_JSON };
+
+    @Override
+    public SourceVersion getSupportedSourceVersion() {
+        return SourceVersion.latestSupported();
+    }
+
+    @Override
+    public boolean process(final Set<? extends TypeElement> annotations, final RoundEnvironment roundEnv) {
+        for (Element element : roundEnv.getElementsAnnotatedWith(TypedClient.class)) {
+            if (element.getKind() != ElementKind.INTERFACE) {
+                error("@TypedClient must be on an interface", element);
+                continue;
+            }
+            try {
+                generate((TypeElement) element);
+            } catch (Invalid e) {
+                error(e.getMessage(), e.element);
+            } catch (IOException e) {
+                error("Could not write the client: " + e, element);
+            }
+        }
+        return true;
+    }
+
+    private void error(final String message, final Element element) {
+        processingEnv.getMessager().printMessage(Diagnostic.Kind.ERROR, message, element);
+    }
+
+    private void generate(final TypeElement api) throws Invalid, IOException {
+        if (!api.getTypeParameters().isEmpty()) {
+            throw new Invalid("@TypedClient interfaces cannot be generic", api);
+        }
+        String packageName = processingEnv.getElementUtils().getPackageOf(api).getQualifiedName().toString();
+        String className = className(api);
+        Path path = api.getAnnotation(Path.class);
+        if (path != null && path.value().contains("{")) {
+            throw new Invalid("Interface @Path cannot have parameters", api);
+        }
+
+        Source source = new Source(api, path != null ? path.value() : null);
+        for (ExecutableElement method : ElementFilter.methodsIn(processingEnv.getElementUtils().getAllMembers(api))) {
+            if (method.getModifiers().contains(Modifier.ABSTRACT)) {
+                source.method(method);
+            }
+        }
+
+        String qualifiedName = packageName.isEmpty() ? className : packageName + '.' + className;
+        try (Writer writer = processingEnv.getFiler().createSourceFile(qualifiedName, api).openWriter()) {
+            writer.write(source.toString(packageName, className));
+        }
+    }
+
+    private static String className(final TypeElement api) {
+        TypedClient annotation = api.getAnnotation(TypedClient.class);
+        if (!annotation.value().isEmpty()) {
+            return annotation.value();
+        }
+        String name = api.getSimpleName().toString();
+        for (Element outer = api.getEnclosingElement(); outer instanceof TypeElement; outer = outer
+                .getEnclosingElement()) {
+            name = outer.getSimpleName() + "_" + name;
+        }
+        return name + (name.endsWith("Client") ? "Impl" : "Client");
+    }
+
+    /**
+     * The body of a generated client, built up a method at a time.
+     */
+    private final class Source {
+
+        private final TypeElement api;
+        private final String path;
+        /** Initializer to constant name. */
+        private final Map<String, String> accepts = new LinkedHashMap<>();
+        private final Map<String, String> types = new LinkedHashMap<>();
+        private final StringBuilder methods = new StringBuilder();
+
+        Source(final TypeElement api, final String path) {
+            this.api = api;
+            this.path = path;
+        }
+
+        void method(final ExecutableElement method) throws Invalid {
+            if (!method.getTypeParameters().isEmpty()) {
+                throw new Invalid("@TypedClient methods cannot be generic", method);
+            }
+            String httpMethod = httpMethod(method);
+            ExecutableType type = (ExecutableType) processingEnv.getTypeUtils()
+                    .asMemberOf((DeclaredType) api.asType(), method);
+            List<? extends VariableElement> parameters = method.getParameters();
+            List<? extends TypeMirror> parameterTypes = type.getParameterTypes();
+            TypeMirror returnType = type.getReturnType();
+
+            StringBuilder m = methods.append("\n    @Override\n    public ").append(returnType).append(' ')
+                    .append(method.getSimpleName()).append('(');
+            for (int i = 0; i < parameters.size(); i++) {
+                String parameterType = parameterTypes.get(i).toString();
+                if (method.isVarArgs() && i == parameters.size() - 1) {
+                    parameterType = ((ArrayType) parameterTypes.get(i)).getComponentType() + "...";
+                }
+                m.append(i > 0 ? ", " : "").append("final ").append(parameterType).append(' ')
+                        .append(parameters.get(i).getSimpleName());
+            }
+            m.append(')');
+            for (int i = 0; i < type.getThrownTypes().size(); i++) {
+                m.append(i > 0 ? ", " : " throws ").append(type.getThrownTypes().get(i));
+            }
+            m.append(" {\n        " + RestRequest.class.getName() + ".Builder request$ = "
+                    + RestRequest.class.getName() + ".builder(").append(literal(httpMethod)).append(");\n");
+            if (path != null) {
+                m.append("        request$.addPath(PATH);\n");
+            }
+
+            Set<String> pathParams = new LinkedHashSet<>();
+            String entity = null;
+            boolean hasQuery = false;
+            boolean hasCookie = false;
+            for (VariableElement parameter : parameters) {
+                String name = parameter.getSimpleName().toString();
+                if (parameter.getAnnotation(PathParam.class) != null) {
+                    pathParams.add(parameter.getAnnotation(PathParam.class).value());
+                } else if (parameter.getAnnotation(QueryParam.class) == null
+                        && parameter.getAnnotation(HeaderParam.class) == null
+                        && parameter.getAnnotation(CookieParam.class) == null) {
+                    if (entity != null) {
+                        throw new Invalid("Only one parameter can be the entity; annotate the others", parameter);
+                    }
+                    entity = name;
+                }
+            }
+
+            Path methodPath = method.getAnnotation(Path.class);
+            List<List<String[]>> segments;
+            try {
+                segments = segments(methodPath != null ? methodPath.value() : "");
+            } catch (IllegalArgumentException e) {
+                throw new Invalid(e.getMessage(), method);
+            }
+            Set<String> used = new LinkedHashSet<>();
+            for (List<String[]> segment : segments) {
+                m.append("        request$.addPath(");
+                for (int i = 0; i < segment.size(); i++) {
+                    String[] part = segment.get(i);
+                    m.append(i > 0 ? " + " : "");
+                    if (part[1] == null) {
+                        m.append(literal(part[0]));
+                        continue;
+                    }
+                    if (!pathParams.contains(part[1])) {
+                        throw new Invalid("No @PathParam(\"" + part[1] + "\")", method);
+                    }
+                    used.add(part[1]);
+                    VariableElement parameter = pathParameter(parameters, part[1]);
+                    if (parameter.asType().getKind().isPrimitive()) {
+                        m.append("String.valueOf(").append(parameter.getSimpleName()).append(')');
+                    } else {
+                        m.append(RUNTIME + ".segment(").append(literal(part[1])).append(", ")
+                                .append(parameter.getSimpleName()).append(')');
+                    }
+                }
+                m.append(");\n");
+            }
+            pathParams.removeAll(used);
+            if (!pathParams.isEmpty()) {
+                throw new Invalid("@PathParam " + pathParams + " not in the @Path", method);
+            }
+
+            for (int i = 0; i < parameters.size(); i++) {
+                VariableElement parameter = parameters.get(i);
+                String name = parameter.getSimpleName().toString();
+                QueryParam query = parameter.getAnnotation(QueryParam.class);
+                HeaderParam header = parameter.getAnnotation(HeaderParam.class);
+                CookieParam cookie = parameter.getAnnotation(CookieParam.class);
+                if (query != null) {
+                    if (!hasQuery) {
+                        m.append("        java.util.Map<String, java.util.List<String>> query$ = null;\n");
+                        hasQuery = true;
+                    }
+                    m.append("        query$ = " + RUNTIME + ".query(query$, ").append(literal(query.value()))
+                            .append(", ").append(name).append(");\n");
+                } else if (cookie != null) {
+                    if (!hasCookie) {
+                        m.append("        String cookie$ = null;\n");
+                        hasCookie = true;
+                    }
+                    m.append("        cookie$ = " + RUNTIME + ".cookie(cookie$, ").append(literal(cookie.value()))
+                            .append(", ").append(name).append(");\n");
+                } else if (header != null) {
+                    if (parameterTypes.get(i).getKind().isPrimitive()) {
+                        m.append("        request$.addHeader(").append(literal(header.value()))
+                                .append(", String.valueOf(").append(name).append("));\n");
+                    } else {
+                        m.append("        if (").append(name).append(" != null) {\n            request$.addHeader(")
+                                .append(literal(header.value())).append(", String.valueOf(").append(name)
+                                .append("));\n        }\n");
+                    }
+                }
+            }
+            if (hasQuery) {
+                m.append("        if (query$ != null) {\n            request$.setQueryParams(query$);\n        }\n");
+            }
+            if (hasCookie) {
+                m.append("        if (cookie$ != null) {\n            request$.addHeader(")
+                        .append(literal(HttpHeaders.COOKIE)).append(", cookie$);\n        }\n");
+            }
+            if (entity != null) {
+                Consumes consumes = method.getAnnotation(Consumes.class);
+                if (consumes == null) {
+                    consumes = api.getAnnotation(Consumes.class);
+                }
+                String mediaType = consumes != null && consumes.value().length > 0 ? consumes.value()[0]
+                        : MediaType.APPLICATION_JSON;
+                m.append("        request$.setEntity(").append(entity).append(", ").append(literal(mediaType))
+                        .append(");\n");
+            }
+
+            Produces produces = method.getAnnotation(Produces.class);
+            if (produces == null) {
+                produces = api.getAnnotation(Produces.class);
+            }
+            m.append("        request$.setAccept(").append(accept(produces != null ? produces.value() : JSON))
+                    .append(");\n");
+
+            if (returnType.getKind() == TypeKind.VOID) {
+                m.append("        " + RUNTIME + ".send(this.transport, request$.build());\n");
+            } else if (returnType.toString().equals(javax.ws.rs.core.Response.class.getName())) {
+                m.append("        return " + RUNTIME + ".exchange(this.transport, request$.build());\n");
+            } else {
+                TypeMirror boxed = returnType.getKind().isPrimitive()
+                        ? processingEnv.getTypeUtils().boxedClass((PrimitiveType) returnType).asType()
+                        : returnType;
+                m.append("        return " + RUNTIME + ".<").append(boxed)
+                        .append(">read(this.transport, request$.build(), ").append(type(boxed, method)).append(");\n");
+            }
+            m.append("    }\n");
+        }
+
+        private String httpMethod(final ExecutableElement method) throws Invalid {
+            for (AnnotationMirror annotation : method.getAnnotationMirrors()) {
+                HttpMethod httpMethod = annotation.getAnnotationType().asElement().getAnnotation(HttpMethod.class);
+                if (httpMethod != null) {
+                    return httpMethod.value();
+                }
+            }
+            throw new Invalid("Method needs an HTTP method annotation, such as @GET", method);
+        }
+
+        private String accept(final String[] mediaTypes) {
+            StringBuilder initializer = new StringBuilder("{ ");
+            for (int i = 0; i < mediaTypes.length; i++) {
+                initializer.append(i > 0 ? ", " : "").append(literal(mediaTypes[i]));
+            }
+            return constant(accepts, initializer.append(" }").toString(), "ACCEPT_");
+        }
+
+        /**
+         * A constant holding {@code type}, as a {@link java.lang.reflect.Type}.
+         */
+        private String type(final TypeMirror type, final Element element) throws Invalid {
+            if (!isReifiable(type, element)) {
+                return constant(types, "new javax.ws.rs.core.GenericType<" + type + ">() {\n    }.getType()", "TYPE_");
+            }
+            return constant(types, processingEnv.getTypeUtils().erasure(type) + ".class", "TYPE_");
+        }
+
+        private boolean isReifiable(final TypeMirror type, final Element element) throws Invalid {
+            switch (type.getKind()) {
+            case DECLARED:
+                return ((DeclaredType) type).getTypeArguments().isEmpty();
+            case ARRAY:
+                return isReifiable(((ArrayType) type).getComponentType(), element);
+            default:
+                if (type.getKind().isPrimitive()) {
+                    return true;
+                }
+                throw new Invalid("Cannot decode a response as " + type, element);
+            }
+        }
+
+        private String constant(final Map<String, String> constants, final String initializer, final String prefix) {
+            String name = constants.get(initializer);
+            if (name == null) {
+                name = prefix + constants.size();
+                constants.put(initializer, name);
+            }
+            return name;
+        }
+
+        String toString(final String packageName, final String className) {
+            StringBuilder result = new StringBuilder(4096);
+            result.append("// Generated by ").append(TypedClientProcessor.class.getName()).append(" from ")
+                    .append(api.getQualifiedName()).append("; do not edit.\n");
+            if (!packageName.isEmpty()) {
+                result.append("package ").append(packageName).append(";\n");
+            }
+            result.append("\n").append(api.getModifiers().contains(Modifier.PUBLIC) ? "public " : "")
+                    .append("final class ").append(className).append(" implements ").append(api.getQualifiedName())
+                    .append(" {\n\n");
+            if (path != null) {
+                result.append("    private static final String PATH = ").append(literal(path)).append(";\n");
+            }
+            for (Map.Entry<String, String> accept : accepts.entrySet()) {
+                result.append("    private static final String[] ").append(accept.getValue()).append(" = ")
+                        .append(accept.getKey()).append(";\n");
+            }
+            for (Map.Entry<String, String> type : types.entrySet()) {
+                result.append("    private static final " + TYPE + " ").append(type.getValue()).append(" = ")
+                        .append(type.getKey()).append(";\n");
+            }
+            String transport = RestTransport.class.getName();
+            result.append("\n    private final ").append(transport).append(" transport;\n\n");
+            result.append("    public ").append(className).append("(final ").append(transport)
+                    .append(" transport) {\n        this.transport = transport;\n    }\n\n");
+            result.append("    /**\n     * The types responses are decoded as; see {@link "
+                    + RestClient.class.getName() + "#warmUpCodecs(" + TYPE + "...)}.\n     */\n");
+            result.append("    public static " + TYPE + "[] responseTypes() {\n        return new " + TYPE + "[] {");
+            int i = 0;
+            for (String name : types.values()) {
+                result.append(i++ > 0 ? ", " : " ").append(name);
+            }
+            result.append(" };\n    }\n").append(methods).append("}\n");
+            return result.toString();
+        }
+    }
+
+    private static VariableElement pathParameter(final List<? extends VariableElement> parameters,
+            final String name) {
+        for (VariableElement parameter : parameters) {
+            PathParam pathParam = parameter.getAnnotation(PathParam.class);
+            if (pathParam != null && pathParam.value().equals(name)) {
+                return parameter;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Split a {@code @Path} template into segments, each a list of parts: {@code {literal, null}} or
+     * {@code {null, parameter name}}. A parameter's regular expression, as in {@code {id: \d+}}, is ignored.
+     */
+    static List<List<String[]>> segments(final String template) {
+        List<List<String[]>> result = new ArrayList<>();
+        List<String[]> segment = new ArrayList<>();
+        StringBuilder literal = new StringBuilder();
+        for (int i = 0; i < template.length(); i++) {
+            char c = template.charAt(i);
+            if (c == '/') {
+                if (literal.length() > 0) {
+                    segment.add(new String[] { literal.toString(), null });
+                    literal.setLength(0);
+                }
+                if (!segment.isEmpty()) {
+                    result.add(segment);
+                    segment = new ArrayList<>();
+                }
+            } else if (c == '{') {
+                int depth = 1;
+                int end = i + 1;
+                while (end < template.length() && depth > 0) {
+                    char d = template.charAt(end++);
+                    depth += d == '{' ? 1 : d == '}' ? -1 : 0;
+                }
+                if (depth > 0) {
+                    throw new IllegalArgumentException("Unclosed { in @Path \"" + template + "\"");
+                }
+                if (literal.length() > 0) {
+                    segment.add(new String[] { literal.toString(), null });
+                    literal.setLength(0);
+                }
+                String name = template.substring(i + 1, end - 1);
+                int colon = name.indexOf(':');
+                segment.add(new String[] { null, (colon >= 0 ? name.substring(0, colon) : name).trim() });
+                i = end - 1;
+            } else {
+                literal.append(c);
+            }
+        }
+        if (literal.length() > 0) {
+            segment.add(new String[] { literal.toString(), null });
+        }
+        if (!segment.isEmpty()) {
+            result.add(segment);
+        }
+        return result;
+    }
+
+    /**
+     * {@code value} as a Java string literal.
+     */
+    static String literal(final String value) {
+        StringBuilder result = new StringBuilder(value.length() + 2).append('"');
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            switch (c) {
+            case '"':
+            case '\\':
+                result.append('\\').append(c);
+                break;
+            case '\n':
+                result.append("\\n");
+                break;
+            case '\r':
+                result.append("\\r");
+                break;
+            case '\t':
+                result.append("\\t");
+                break;
+            default:
+                if (c < 0x20 || c > 0x7e) {
+                    result.append(String.format("\\u%04x", (int) c));
+                } else {
+                    result.append(c);
+                }
+            }
+        }
+        return result.append('"').toString();
+    }
+
+    static final class Invalid extends Exception {
+
+        private static final long serialVersionUID = 1L;
+
+        final Element element;
+
+        Invalid(final String message, final Element element) {
+            super(message);
+            this.element = element;
+        }
+    }
+}
@@ -0,0 +1,103 @@
+package com.clearcapital.oss.rest;
+
+import java.lang.reflect.Type;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import javax.ws.rs.core.Response;
+import javax.ws.rs.core.Response.Status.Family;
+
+/**
+ * What clients generated by {@link TypedClientProcessor} call at run time; not for use by anything else.
+ */
+public final class TypedClients {
+
+    private TypedClients() {
+
+    }
+
+    /**
+     * Send {@code request}, and decode a successful response as {@code responseType}.
+     */
+    public static <U> U read(final RestTransport transport, final RestRequest request, final Type responseType) {
+        return checkStatus(transport.invoke(request)).readEntity(responseType);
+    }
+
+    /**
+     * Send {@code request}, throwing an unsuccessful response, and discard the response.
+     */
+    public static void send(final RestTransport transport, final RestRequest request) {
+        checkStatus(transport.invoke(request)).close();
+    }
+
+    /**
+     * Send {@code request}, returning the response whatever its status.
+     */
+    public static Response exchange(final RestTransport transport, final RestRequest request) {
+        return transport.invoke(request).toResponse();
+    }
+
+    private static RestResponse checkStatus(final RestResponse response) {
+        if (Family.familyOf(response.getStatus()) != Family.SUCCESSFUL) {
+            throw RestExceptions.forResponse(response.toBufferedResponse());
+        }
+        return response;
+    }
+
+    /**
+     * A path segment for the parameter {@code name}.
+     */
+    public static String segment(final String name, final Object value) {
+        if (value == null) {
+            throw new IllegalArgumentException("Path parameter " + name + " is null");
+        }
+        return value.toString();
+    }
+
+    /**
+     * Add {@code value}, or each of its elements if it is a collection, to {@code params}, unless it is {@code null}.
+     *
+     * @return {@code params}, created if {@code null} and needed.
+     */
+    public static Map<String, List<String>> query(Map<String, List<String>> params, final String name,
+            final Object value) {
+        if (value == null) {
+            return params;
+        }
+        if (params == null) {
+            params = new LinkedHashMap<>(4);
+        }
+        List<String> values = params.get(name);
+        if (values == null) {
+            values = new ArrayList<>(1);
+            params.put(name, values);
+        }
+        if (value instanceof Collection) {
+            for (Object element : (Collection<?>) value) {
+                if (element != null) {
+                    values.add(element.toString());
+                }
+            }
+        } else {
+            values.add(value.toString());
+        }
+        return params;
+    }
+
+    /**
+     * Add the cookie {@code name=value} to the {@code Cookie} header {@code header}, unless {@code value} is
+     * {@code null}.
+     *
+     * @return the header, or {@code null} if it is still empty.
+     */
+    public static String cookie(final String header, final String name, final Object value) {
+        if (value == null) {
+            return header;
+        }
+        String cookie = name + '=' + value;
+        return header != null ? header + "; " + cookie : cookie;
+    }
+}
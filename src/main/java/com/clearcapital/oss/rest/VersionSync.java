@@ -0,0 +1,118 @@
+package com.clearcapital.oss.rest;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.NavigableMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.function.ToLongFunction;
+
+import javax.ws.rs.core.GenericType;
+import javax.ws.rs.core.MultivaluedHashMap;
+import javax.ws.rs.core.MultivaluedMap;
+
+/**
+ * Incrementally mirrors the version history ({@code GET _uri_/_id_/versions}) of entities into a local index, keyed by
+ * id and then by updateId.
+ *
+ * <p>
+ * Each {@link #sync(Long, Long)} only asks for versions newer than the highest updateId already held for that id, by
+ * passing it as {@code sinceParam}. If the service has no such parameter, construct with a {@code null}
+ * {@code sinceParam}: the full history is fetched every time, but only new versions are merged and returned. Either way
+ * versions at or below the known updateId are ignored, so a service that disregards the parameter is harmless.
+ * </p>
+ *
+ * <p>
+ * Thread-safe. Versions are immutable, so entries are never replaced once indexed.
+ * </p>
+ */
+public class VersionSync<V> {
+
+    private final BaseResourceClient<?> client;
+    private final GenericType<List<V>> genericType;
+    private final ToLongFunction<V> updateIdOf;
+    private final String sinceParam;
+    private final ConcurrentMap<Long, NavigableMap<Long, V>> index = new ConcurrentHashMap<>();
+
+    /**
+     * @param updateIdOf
+     *            extracts the updateId from a version.
+     * @param sinceParam
+     *            the query parameter that restricts {@code /versions} to updateIds greater than its value, or
+     *            {@code null} to filter on the client side.
+     */
+    public VersionSync(final BaseResourceClient<?> client, final GenericType<List<V>> genericType,
+            final ToLongFunction<V> updateIdOf, final String sinceParam) {
+        this.client = client;
+        this.genericType = genericType;
+        this.updateIdOf = updateIdOf;
+        this.sinceParam = sinceParam;
+    }
+
+    /**
+     * Fetch any versions of {@code id} newer than those already indexed, and merge them in.
+     * 
+     * @return the newly indexed versions, in updateId order.
+     */
+    public List<V> sync(final Long id, final Long sessionId) {
+        Long known = getLatestUpdateId(id);
+
+        MultivaluedMap<String, String> queryParams = null;
+        if (known != null && sinceParam != null) {
+            queryParams = new MultivaluedHashMap<>();
+            queryParams.putSingle(sinceParam, known.toString());
+        }
+        List<V> fetched = client.readVersions(id, queryParams, sessionId, genericType);
+
+        NavigableMap<Long, V> versions = versionsOf(id);
+        List<V> added = new ArrayList<>();
+        if (fetched != null) {
+            for (V version : fetched) {
+                long updateId = updateIdOf.applyAsLong(version);
+                if ((known == null || updateId > known) && versions.putIfAbsent(updateId, version) == null) {
+                    added.add(version);
+                }
+            }
+        }
+        added.sort((a, b) -> Long.compare(updateIdOf.applyAsLong(a), updateIdOf.applyAsLong(b)));
+        return added;
+    }
+
+    /**
+     * @return the highest updateId indexed for {@code id}, or {@code null} if none.
+     */
+    public Long getLatestUpdateId(final Long id) {
+        NavigableMap<Long, V> versions = index.get(id);
+        return versions == null || versions.isEmpty() ? null : versions.lastKey();
+    }
+
+    /**
+     * @return a read-only view of the versions indexed for {@code id}, keyed by updateId.
+     */
+    public NavigableMap<Long, V> getVersions(final Long id) {
+        NavigableMap<Long, V> versions = index.get(id);
+        return versions == null ? Collections.<Long, V> emptyNavigableMap()
+                : Collections.unmodifiableNavigableMap(versions);
+    }
+
+    /**
+     * Drop everything indexed for {@code id}; the next sync fetches its full history.
+     */
+    public void forget(final Long id) {
+        index.remove(id);
+    }
+
+    private NavigableMap<Long, V> versionsOf(final Long id) {
+        NavigableMap<Long, V> result = index.get(id);
+        if (result == null) {
+            NavigableMap<Long, V> created = new ConcurrentSkipListMap<>();
+            result = index.putIfAbsent(id, created);
+            if (result == null) {
+                result = created;
+            }
+        }
+        return result;
+    }
+}
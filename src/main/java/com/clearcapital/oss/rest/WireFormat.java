@@ -0,0 +1,84 @@
+package com.clearcapital.oss.rest;
+
+import javax.ws.rs.core.MediaType;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.databind.MappingJsonFactory;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+
+/**
+ * The encoding used for entities. Every format is produced by Jackson from the same entity classes and annotations; the
+ * binary formats are smaller and faster to parse than JSON, which matters most for large lists.
+ */
+public enum WireFormat {
+
+    JSON(MediaType.APPLICATION_JSON) {
+
+        @Override
+        public JsonFactory newFactory() {
+            return new MappingJsonFactory();
+        }
+    },
+
+    /** Jackson's binary JSON. */
+    SMILE("application/x-jackson-smile") {
+
+        @Override
+        public JsonFactory newFactory() {
+            return new SmileFactory();
+        }
+    },
+
+    /** RFC 7049 Concise Binary Object Representation. */
+    CBOR("application/cbor") {
+
+        @Override
+        public JsonFactory newFactory() {
+            return new CBORFactory();
+        }
+    };
+
+    private final String mediaType;
+    private final String[] accept;
+
+    WireFormat(final String mediaType) {
+        this.mediaType = mediaType;
+        this.accept = MediaType.APPLICATION_JSON.equals(mediaType) ? new String[] { mediaType }
+                : new String[] { mediaType, MediaType.APPLICATION_JSON + ";q=0.5" };
+    }
+
+    public String getMediaType() {
+        return mediaType;
+    }
+
+    /**
+     * The {@code Accept} header values for this format: this format by preference, with JSON as a fallback. Shared;
+     * do not modify.
+     */
+    String[] getAccept() {
+        return accept;
+    }
+
+    /**
+     * A factory for an {@code ObjectMapper} that reads and writes this format.
+     */
+    public abstract JsonFactory newFactory();
+
+    /**
+     * @return the format whose media type matches {@code mediaType} (ignoring parameters), or {@code null}.
+     */
+    public static WireFormat forMediaType(final String mediaType) {
+        if (mediaType == null) {
+            return null;
+        }
+        int end = mediaType.indexOf(';');
+        String type = (end < 0 ? mediaType : mediaType.substring(0, end)).trim();
+        for (WireFormat format : values()) {
+            if (format.mediaType.equalsIgnoreCase(type)) {
+                return format;
+            }
+        }
+        return null;
+    }
+}
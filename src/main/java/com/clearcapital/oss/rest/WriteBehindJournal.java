@@ -0,0 +1,591 @@
+package com.clearcapital.oss.rest;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import java.util.zip.CRC32;
+
+/**
+ * A durable queue of fire-and-forget writes, such as {@link BaseResourceClient#createNoResponse(Object, Long)} and
+ * {@link BaseResourceClient#updateNoResponse(String, Object, Long)} once a client is given one with
+ * {@link BaseResourceClient#setWriteBehindJournal(WriteBehindJournal)}. {@link #append(RestRequest)} records the
+ * request and returns at once; background workers send it later, and keep trying until it gets through.
+ *
+ * <ul>
+ * <li>Requests are appended to memory-mapped segment files of {@code segmentBytes} each, as length- and CRC-prefixed
+ * records. A delivered record is marked so in place, and a segment is deleted once the writer has moved on and every
+ * record in it is delivered.</li>
+ * <li>On startup, every undelivered record left in the directory is queued again, so delivery is at least once across
+ * restarts. A record torn by a crash fails its CRC and ends the scan of its segment.</li>
+ * <li>Records are spread over {@code workers} by path, so writes to the same resource (or the same key beneath it) are
+ * sent one at a time, in order. Each worker takes up to {@code batchSize} records at a time, and marks them delivered
+ * (and, with {@code force}, syncs them to disk) together.</li>
+ * <li>Connection failures, 408, 429 and 5xx responses are retried after a backoff that doubles up to a limit, holding
+ * back the writes behind them. A 401 or 403 usually means the session the write was recorded with has expired, so the
+ * record is logged, counted as parked and left in the journal to be sent again after the next startup, as is a record
+ * that cannot be sent at all. Any other 4xx can never succeed, so the record is logged, counted as rejected and
+ * dropped.</li>
+ * </ul>
+ *
+ * <p>
+ * Without {@code force}, appended records survive the process crashing, since the operating system still writes the
+ * mapped pages out, but not the machine crashing. With it, every append is synced to disk before it returns. Closing
+ * the journal stops the workers, leaving undelivered records for next time. Thread-safe within one process; do not
+ * share a directory between processes.
+ * </p>
+ */
+public class WriteBehindJournal implements Closeable {
+
+    static final int DEFAULT_WORKERS = 2;
+    static final int DEFAULT_BATCH_SIZE = 32;
+    static final long DEFAULT_SEGMENT_BYTES = 16 * 1024 * 1024;
+    static final long DEFAULT_BASE_BACKOFF_MILLIS = 100;
+    static final long DEFAULT_MAX_BACKOFF_MILLIS = 30000;
+
+    private static final Logger LOGGER = Logger.getLogger(WriteBehindJournal.class.getName());
+    private static final String SEGMENT_SUFFIX = ".journal";
+    /** Length, CRC and state. */
+    private static final int RECORD_HEADER_BYTES = 9;
+    private static final byte PENDING = 0;
+    private static final byte DONE = 1;
+
+    private final Path directory;
+    private final RestTransport transport;
+    private final long segmentBytes;
+    private final boolean force;
+    private final long baseBackoffNanos;
+    private final long maxBackoffNanos;
+    private final List<BlockingQueue<Record>> queues;
+    private final List<Future<?>> workers;
+    private final AtomicLong delivered = new AtomicLong();
+    private final AtomicLong rejected = new AtomicLong();
+    private final AtomicLong parked = new AtomicLong();
+
+    /** Guarded by {@code this}. */
+    private Segment current;
+    private long nextSequence;
+    private long pending;
+    private volatile boolean closed;
+
+    public WriteBehindJournal(final Path directory, final RestTransport transport) throws IOException {
+        this(directory, transport, DEFAULT_WORKERS, DEFAULT_BATCH_SIZE, DEFAULT_SEGMENT_BYTES, false);
+    }
+
+    /**
+     * @param workers
+     *            how many requests may be in flight at once.
+     * @param batchSize
+     *            the most records a worker takes at a time.
+     * @param segmentBytes
+     *            the size of each segment file; larger records get a segment of their own.
+     * @param force
+     *            whether to sync each append to disk before returning.
+     */
+    public WriteBehindJournal(final Path directory, final RestTransport transport, final int workers,
+            final int batchSize, final long segmentBytes, final boolean force) throws IOException {
+        this(directory, transport, workers, batchSize, segmentBytes, force, DEFAULT_BASE_BACKOFF_MILLIS,
+                DEFAULT_MAX_BACKOFF_MILLIS, TimeUnit.MILLISECONDS);
+    }
+
+    WriteBehindJournal(final Path directory, final RestTransport transport, final int workers, final int batchSize,
+            final long segmentBytes, final boolean force, final long baseBackoff, final long maxBackoff,
+            final TimeUnit unit) throws IOException {
+        if (workers < 1 || batchSize < 1 || segmentBytes <= RECORD_HEADER_BYTES || segmentBytes > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("workers and batchSize must be at least 1, and segmentBytes in range");
+        }
+        this.directory = directory;
+        this.transport = transport;
+        this.segmentBytes = segmentBytes;
+        this.force = force;
+        this.baseBackoffNanos = unit.toNanos(baseBackoff);
+        this.maxBackoffNanos = unit.toNanos(maxBackoff);
+        List<BlockingQueue<Record>> result = new ArrayList<>(workers);
+        for (int i = 0; i < workers; i++) {
+            result.add(new LinkedBlockingQueue<Record>());
+        }
+        this.queues = Collections.unmodifiableList(result);
+
+        Files.createDirectories(directory);
+        load();
+
+        List<Future<?>> futures = new ArrayList<>(workers);
+        for (BlockingQueue<Record> queue : queues) {
+            futures.add(RestExecutors.defaultExecutor().submit(() -> drain(queue, batchSize)));
+        }
+        this.workers = futures;
+    }
+
+    /**
+     * Record {@code request} for sending later. Its entity, if any, must already be encoded, as a {@code byte[]} or
+     * {@code String}.
+     *
+     * @throws IOException
+     *             if the record could not be written; nothing was queued.
+     */
+    public void append(final RestRequest request) throws IOException {
+        byte[] payload = encode(request);
+        Record record;
+        synchronized (this) {
+            if (closed) {
+                throw new IllegalStateException("Journal is closed");
+            }
+            int recordBytes = RECORD_HEADER_BYTES + payload.length;
+            if (current == null || current.remaining() < recordBytes) {
+                if (current != null) {
+                    current.seal();
+                }
+                current = Segment.create(directory.resolve(segmentName(nextSequence++)),
+                        Math.max(segmentBytes, recordBytes + 4L));
+            }
+            record = current.append(payload);
+            if (force) {
+                current.buffer.force();
+            }
+            pending++;
+        }
+        queueFor(request.getPath()).add(record);
+    }
+
+    /**
+     * @return how many records are waiting to be delivered, not counting those parked.
+     */
+    public synchronized long getPending() {
+        return pending;
+    }
+
+    /**
+     * @return how many records have been delivered since startup.
+     */
+    public long getDelivered() {
+        return delivered.get();
+    }
+
+    /**
+     * @return how many records the server refused outright since startup.
+     */
+    public long getRejected() {
+        return rejected.get();
+    }
+
+    /**
+     * @return how many records have been parked until the next startup since this one.
+     */
+    public long getParked() {
+        return parked.get();
+    }
+
+    /**
+     * Wait until every record appended so far has been delivered, rejected or parked.
+     *
+     * @return false if the wait timed out.
+     */
+    public synchronized boolean awaitDrained(final long timeout, final TimeUnit unit) throws InterruptedException {
+        long deadline = System.nanoTime() + unit.toNanos(timeout);
+        while (pending > 0) {
+            long remaining = deadline - System.nanoTime();
+            if (remaining <= 0) {
+                return false;
+            }
+            TimeUnit.NANOSECONDS.timedWait(this, remaining);
+        }
+        return true;
+    }
+
+    /**
+     * Stop the workers, once they finish any request in flight. Undelivered records are sent after the next startup.
+     */
+    @Override
+    public void close() {
+        synchronized (this) {
+            if (closed) {
+                return;
+            }
+            closed = true;
+            if (current != null) {
+                current.buffer.force();
+            }
+        }
+        for (Future<?> worker : workers) {
+            worker.cancel(true);
+        }
+    }
+
+    private void load() throws IOException {
+        List<Path> files = new ArrayList<>();
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(directory, "*" + SEGMENT_SUFFIX)) {
+            for (Path file : stream) {
+                files.add(file);
+            }
+        }
+        Collections.sort(files);
+
+        for (Path file : files) {
+            String name = file.getFileName().toString();
+            nextSequence = Math.max(nextSequence,
+                    Long.parseLong(name.substring(0, name.length() - SEGMENT_SUFFIX.length())) + 1);
+            Segment segment = Segment.open(file);
+            List<Record> records = segment.scan();
+            segment.seal();
+            if (records.isEmpty()) {
+                continue;
+            }
+            for (Record record : records) {
+                queueFor(decode(record).getPath()).add(record);
+            }
+            pending += records.size();
+        }
+    }
+
+    private BlockingQueue<Record> queueFor(final List<String> path) {
+        return queues.get((path.hashCode() & Integer.MAX_VALUE) % queues.size());
+    }
+
+    private void drain(final BlockingQueue<Record> queue, final int batchSize) {
+        List<Record> batch = new ArrayList<>(batchSize);
+        List<Record> finished = new ArrayList<>(batchSize);
+        try {
+            while (!closed) {
+                batch.add(queue.take());
+                queue.drainTo(batch, batchSize - 1);
+                for (Record record : batch) {
+                    boolean done;
+                    try {
+                        done = deliver(record);
+                    } catch (RuntimeException e) {
+                        // Leave it for next time rather than let it stop the worker.
+                        parked.incrementAndGet();
+                        LOGGER.log(Level.SEVERE, "Parking a journaled write that could not be sent", e);
+                        done = false;
+                    }
+                    if (done) {
+                        finished.add(record);
+                    }
+                }
+                done(finished, batch.size());
+                batch.clear();
+                finished.clear();
+            }
+        } catch (InterruptedException e) {
+            // closed; whatever is left stays in the journal
+        }
+    }
+
+    /**
+     * Send {@code record} until it is accepted, refused outright or parked.
+     *
+     * @return false if parked, so that the record stays in the journal.
+     */
+    private boolean deliver(final Record record) throws InterruptedException {
+        RestRequest request = decode(record);
+        long backoff = baseBackoffNanos;
+        while (true) {
+            int status;
+            try {
+                RestResponse response = transport.invoke(request);
+                status = response.getStatus();
+                response.close();
+            } catch (RuntimeException e) {
+                status = -1;
+            }
+            if (status >= 200 && status < 400) {
+                delivered.incrementAndGet();
+                return true;
+            }
+            if (status == 401 || status == 403) {
+                parked.incrementAndGet();
+                LOGGER.log(Level.WARNING, "Parking journaled {0} to {1} until restart, as it was refused with {2}",
+                        new Object[] { request.getMethod(), request.getPath(), status });
+                return false;
+            }
+            if (status >= 400 && status < 500 && status != 408 && status != 429) {
+                rejected.incrementAndGet();
+                LOGGER.log(Level.WARNING, "Dropping journaled {0} to {1}, which was refused with {2}",
+                        new Object[] { request.getMethod(), request.getPath(), status });
+                return true;
+            }
+            if (closed) {
+                throw new InterruptedException();
+            }
+            TimeUnit.NANOSECONDS.sleep(backoff);
+            backoff = Math.min(backoff * 2, maxBackoffNanos);
+        }
+    }
+
+    /**
+     * Mark {@code finished} delivered, and {@code settled} records, parked ones included, no longer pending.
+     */
+    private void done(final List<Record> finished, final int settled) {
+        Segment forced = null;
+        for (Record record : finished) {
+            record.segment.done(record);
+            if (force && record.segment != forced) {
+                forced = record.segment;
+                forced.buffer.force();
+            }
+        }
+        synchronized (this) {
+            pending -= settled;
+            if (pending == 0) {
+                notifyAll();
+            }
+        }
+    }
+
+    static String segmentName(final long sequence) {
+        return String.format("%020d%s", sequence, SEGMENT_SUFFIX);
+    }
+
+    static byte[] encode(final RestRequest request) {
+        Object entity = request.getEntity();
+        byte[] body;
+        if (entity == null) {
+            body = null;
+        } else if (entity instanceof byte[]) {
+            body = (byte[]) entity;
+        } else if (entity instanceof String) {
+            body = ((String) entity).getBytes(StandardCharsets.UTF_8);
+        } else {
+            throw new IllegalArgumentException("Journaled entities must be encoded first");
+        }
+
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(128 + (body != null ? body.length : 0));
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            out.writeUTF(request.getMethod());
+            out.writeInt(request.getPath().size());
+            for (String segment : request.getPath()) {
+                out.writeUTF(segment);
+            }
+            out.writeInt(request.getQueryParams().size());
+            for (Entry<String, List<String>> param : request.getQueryParams().entrySet()) {
+                out.writeUTF(param.getKey());
+                out.writeInt(param.getValue().size());
+                for (String value : param.getValue()) {
+                    out.writeUTF(value);
+                }
+            }
+            out.writeInt(request.getAccept().length);
+            for (String accept : request.getAccept()) {
+                out.writeUTF(accept);
+            }
+            writeMap(out, request.getCookies());
+            writeMap(out, request.getHeaders());
+            out.writeBoolean(request.hasEntity());
+            if (request.hasEntity()) {
+                out.writeUTF(request.getMediaType());
+                out.writeInt(body != null ? body.length : -1);
+                if (body != null) {
+                    out.write(body);
+                }
+            }
+        } catch (IOException e) {
+            throw new IllegalStateException("Cannot happen with a ByteArrayOutputStream", e);
+        }
+        return bytes.toByteArray();
+    }
+
+    private static void writeMap(final DataOutputStream out, final Map<String, String> map) throws IOException {
+        out.writeInt(map.size());
+        for (Entry<String, String> entry : map.entrySet()) {
+            out.writeUTF(entry.getKey());
+            out.writeUTF(entry.getValue());
+        }
+    }
+
+    static RestRequest decode(final Record record) {
+        try (DataInputStream in = new DataInputStream(new ByteArrayInputStream(record.payload()))) {
+            RestRequest.Builder result = RestRequest.builder(in.readUTF());
+            for (int i = in.readInt(); i > 0; i--) {
+                result.addPath(in.readUTF());
+            }
+            int params = in.readInt();
+            if (params > 0) {
+                Map<String, List<String>> queryParams = new LinkedHashMap<>(params * 2);
+                for (int i = 0; i < params; i++) {
+                    String key = in.readUTF();
+                    int count = in.readInt();
+                    List<String> values = new ArrayList<>(count);
+                    for (int j = 0; j < count; j++) {
+                        values.add(in.readUTF());
+                    }
+                    queryParams.put(key, values);
+                }
+                result.setQueryParams(queryParams);
+            }
+            String[] accept = new String[in.readInt()];
+            for (int i = 0; i < accept.length; i++) {
+                accept[i] = in.readUTF();
+            }
+            result.setAccept(accept);
+            for (int i = in.readInt(); i > 0; i--) {
+                result.addCookie(in.readUTF(), in.readUTF());
+            }
+            for (int i = in.readInt(); i > 0; i--) {
+                result.addHeader(in.readUTF(), in.readUTF());
+            }
+            if (in.readBoolean()) {
+                String mediaType = in.readUTF();
+                int length = in.readInt();
+                byte[] body = null;
+                if (length >= 0) {
+                    body = new byte[length];
+                    in.readFully(body);
+                }
+                result.setEntity(body, mediaType);
+            }
+            return result.build();
+        } catch (IOException e) {
+            // The CRC matched, so this is a record we wrote.
+            throw new IllegalStateException("Corrupt journal record", e);
+        }
+    }
+
+    /**
+     * Where a record is, in its segment.
+     */
+    static final class Record {
+
+        private final Segment segment;
+        private final int offset;
+        private final int length;
+
+        Record(final Segment segment, final int offset, final int length) {
+            this.segment = segment;
+            this.offset = offset;
+            this.length = length;
+        }
+
+        byte[] payload() {
+            byte[] result = new byte[length];
+            ByteBuffer view = segment.buffer.duplicate();
+            view.position(offset + RECORD_HEADER_BYTES);
+            view.get(result);
+            return result;
+        }
+    }
+
+    /**
+     * One mapped journal file. Guarded by itself.
+     */
+    static final class Segment {
+
+        private final Path file;
+        private final MappedByteBuffer buffer;
+        private int position;
+        private int undelivered;
+        private boolean sealed;
+
+        private Segment(final Path file, final MappedByteBuffer buffer) {
+            this.file = file;
+            this.buffer = buffer;
+        }
+
+        static Segment create(final Path file, final long size) throws IOException {
+            try (FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE_NEW, StandardOpenOption.READ,
+                    StandardOpenOption.WRITE)) {
+                return new Segment(file, channel.map(FileChannel.MapMode.READ_WRITE, 0, size));
+            }
+        }
+
+        static Segment open(final Path file) throws IOException {
+            try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+                return new Segment(file, channel.map(FileChannel.MapMode.READ_WRITE, 0, channel.size()));
+            }
+        }
+
+        synchronized int remaining() {
+            return buffer.capacity() - position;
+        }
+
+        /**
+         * Write the length last, so that a reader never sees a record before the rest of it is there.
+         */
+        synchronized Record append(final byte[] payload) {
+            CRC32 crc = new CRC32();
+            crc.update(payload);
+            ByteBuffer view = buffer.duplicate();
+            view.position(position + 4);
+            view.putInt((int) crc.getValue()).put(PENDING).put(payload);
+            buffer.putInt(position, payload.length);
+            Record result = new Record(this, position, payload.length);
+            position += RECORD_HEADER_BYTES + payload.length;
+            undelivered++;
+            return result;
+        }
+
+        /**
+         * Find the undelivered records, stopping at the end of the data or at the first torn record.
+         */
+        synchronized List<Record> scan() {
+            List<Record> result = new ArrayList<>();
+            ByteBuffer view = buffer.duplicate();
+            while (buffer.capacity() - position >= RECORD_HEADER_BYTES) {
+                int length = buffer.getInt(position);
+                if (length <= 0 || length > buffer.capacity() - position - RECORD_HEADER_BYTES) {
+                    break;
+                }
+                byte[] payload = new byte[length];
+                view.position(position + RECORD_HEADER_BYTES);
+                view.get(payload);
+                CRC32 crc = new CRC32();
+                crc.update(payload);
+                if (buffer.getInt(position + 4) != (int) crc.getValue()) {
+                    break;
+                }
+                if (buffer.get(position + 8) == PENDING) {
+                    result.add(new Record(this, position, length));
+                    undelivered++;
+                }
+                position += RECORD_HEADER_BYTES + length;
+            }
+            return result;
+        }
+
+        synchronized void done(final Record record) {
+            buffer.put(record.offset + 8, DONE);
+            undelivered--;
+            deleteIfDone();
+        }
+
+        /**
+         * No more records will be appended.
+         */
+        synchronized void seal() {
+            sealed = true;
+            deleteIfDone();
+        }
+
+        private void deleteIfDone() {
+            if (sealed && undelivered == 0) {
+                try {
+                    Files.deleteIfExists(file);
+                } catch (IOException e) {
+                    // still mapped (on some platforms); an empty segment is dropped again on next startup
+                }
+            }
+        }
+    }
+}
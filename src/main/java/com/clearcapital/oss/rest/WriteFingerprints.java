@@ -0,0 +1,216 @@
+package com.clearcapital.oss.rest;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+import javax.ws.rs.ProcessingException;
+
+import com.clearcapital.oss.json.JsonSerializer;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+/**
+ * Fingerprints of the last value written or read at each entity path, so that a {@link BaseResourceClient} can skip
+ * writing a value the server already has. See {@link BaseResourceClient#setWriteFingerprints(WriteFingerprints)}.
+ *
+ * <p>
+ * A fingerprint is 128 bits of the SHA-256 of the entity's serialized form, so it costs a serialization but no copy of
+ * the entity; beyond {@code maxEntries}, the least recently used are dropped. Use an {@code objectMapper} configured
+ * as the one that encodes requests. Paths include the resource uri, so one instance may be shared by several clients.
+ * Thread-safe.
+ * </p>
+ */
+public class WriteFingerprints {
+
+    public static final int DEFAULT_MAX_ENTRIES = 1 << 16;
+
+    private static final String ALGORITHM = "SHA-256";
+
+    private final ObjectMapper objectMapper;
+    private final Map<String, Fingerprint> fingerprints;
+
+    private final AtomicLong skipped = new AtomicLong();
+    private final AtomicLong written = new AtomicLong();
+
+    public WriteFingerprints() {
+        this(DEFAULT_MAX_ENTRIES);
+    }
+
+    public WriteFingerprints(final int maxEntries) {
+        this(defaultObjectMapper(), maxEntries);
+    }
+
+    public WriteFingerprints(final ObjectMapper objectMapper, final int maxEntries) {
+        this.objectMapper = objectMapper;
+        this.fingerprints = new LinkedHashMap<String, Fingerprint>(16, 0.75f, true) {
+
+            private static final long serialVersionUID = 1L;
+
+            @Override
+            protected boolean removeEldestEntry(final Map.Entry<String, Fingerprint> eldest) {
+                return size() > maxEntries;
+            }
+        };
+    }
+
+    private static ObjectMapper defaultObjectMapper() {
+        ObjectMapper result = new ObjectMapper();
+        JsonSerializer.configureObjectMapper(result);
+        return result;
+    }
+
+    /**
+     * @return the fingerprint of {@code entity}'s serialized form.
+     */
+    public Fingerprint fingerprint(final Object entity) {
+        MessageDigest digest = newDigest();
+        try (OutputStream out = new DigestOutputStream(digest)) {
+            objectMapper.writeValue(out, entity);
+        } catch (IOException e) {
+            throw new ProcessingException(e);
+        }
+        byte[] hash = digest.digest();
+        return new Fingerprint(toLong(hash, 0), toLong(hash, 8));
+    }
+
+    /**
+     * Check whether a write of {@code fingerprint} to {@code path} can be skipped, counting it as skipped or written.
+     *
+     * @return true if {@code fingerprint} is what was last written to or read from {@code path}.
+     */
+    public boolean isUnchanged(final String path, final Fingerprint fingerprint) {
+        Fingerprint last;
+        synchronized (fingerprints) {
+            last = fingerprints.get(path);
+        }
+        if (fingerprint.equals(last)) {
+            skipped.incrementAndGet();
+            return true;
+        }
+        written.incrementAndGet();
+        return false;
+    }
+
+    public void put(final String path, final Fingerprint fingerprint) {
+        synchronized (fingerprints) {
+            fingerprints.put(path, fingerprint);
+        }
+    }
+
+    public void remove(final String path) {
+        synchronized (fingerprints) {
+            fingerprints.remove(path);
+        }
+    }
+
+    /**
+     * Forget every path that starts with {@code prefix}.
+     */
+    public void removeAll(final String prefix) {
+        synchronized (fingerprints) {
+            fingerprints.keySet().removeIf(path -> path.startsWith(prefix));
+        }
+    }
+
+    public void clear() {
+        synchronized (fingerprints) {
+            fingerprints.clear();
+        }
+    }
+
+    public int size() {
+        synchronized (fingerprints) {
+            return fingerprints.size();
+        }
+    }
+
+    /**
+     * @return the number of writes skipped because the value was unchanged.
+     */
+    public long getSkipped() {
+        return skipped.get();
+    }
+
+    /**
+     * @return the number of writes checked and found to change the value. Forced writes are not counted.
+     */
+    public long getWritten() {
+        return written.get();
+    }
+
+    private static MessageDigest newDigest() {
+        try {
+            return MessageDigest.getInstance(ALGORITHM);
+        } catch (NoSuchAlgorithmException e) {
+            // Every Java platform is required to support SHA-256.
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static long toLong(final byte[] bytes, final int offset) {
+        long result = 0;
+        for (int i = offset; i < offset + 8; i++) {
+            result = (result << 8) | (bytes[i] & 0xff);
+        }
+        return result;
+    }
+
+    /**
+     * A content fingerprint.
+     */
+    public static final class Fingerprint {
+
+        private final long high;
+        private final long low;
+
+        Fingerprint(final long high, final long low) {
+            this.high = high;
+            this.low = low;
+        }
+
+        @Override
+        public boolean equals(final Object obj) {
+            if (!(obj instanceof Fingerprint)) {
+                return false;
+            }
+            Fingerprint that = (Fingerprint) obj;
+            return high == that.high && low == that.low;
+        }
+
+        @Override
+        public int hashCode() {
+            return (int) (high ^ (high >>> 32));
+        }
+
+        @Override
+        public String toString() {
+            return String.format("%016x%016x", high, low);
+        }
+    }
+
+    /**
+     * Feeds everything written to it into a digest, without buffering it.
+     */
+    private static class DigestOutputStream extends OutputStream {
+
+        private final MessageDigest digest;
+
+        DigestOutputStream(final MessageDigest digest) {
+            this.digest = digest;
+        }
+
+        @Override
+        public void write(final int b) {
+            digest.update((byte) b);
+        }
+
+        @Override
+        public void write(final byte[] b, final int off, final int len) {
+            digest.update(b, off, len);
+        }
+    }
+}
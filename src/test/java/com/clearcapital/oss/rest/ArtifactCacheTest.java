@@ -0,0 +1,98 @@
+package com.clearcapital.oss.rest;
+
+import static com.github.tomakehurst.wiremock.client.WireMock.aResponse;
+import static com.github.tomakehurst.wiremock.client.WireMock.get;
+import static com.github.tomakehurst.wiremock.client.WireMock.getRequestedFor;
+import static com.github.tomakehurst.wiremock.client.WireMock.stubFor;
+import static com.github.tomakehurst.wiremock.client.WireMock.urlPathEqualTo;
+import static com.github.tomakehurst.wiremock.client.WireMock.verify;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import javax.ws.rs.client.ClientBuilder;
+import javax.ws.rs.client.WebTarget;
+import javax.ws.rs.core.Response.Status;
+
+import org.apache.commons.io.IOUtils;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import com.github.tomakehurst.wiremock.junit.WireMockRule;
+
+public class ArtifactCacheTest {
+
+    private static final String BASE_URI = "http://localhost:5309";
+    private static final String V1_ENTRIES = "/v1/entries";
+
+    @Rule
+    public WireMockRule wireMockRule = new WireMockRule(5309);
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private static InputStream content(String value) {
+        return new ByteArrayInputStream(value.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static String read(InputStream stream) throws Exception {
+        try (InputStream in = stream) {
+            return IOUtils.toString(in, "UTF-8");
+        }
+    }
+
+    @Test
+    public void testPutGetSurvivesRestart() throws Exception {
+        Path directory = folder.getRoot().toPath();
+        ArtifactCache cache = new ArtifactCache(directory, 1024);
+        assertNull(cache.get(V1_ENTRIES, 1L, 2L, ".pdf"));
+        assertEquals("hello", read(cache.put(V1_ENTRIES, 1L, 2L, ".pdf", content("hello"))));
+        assertEquals("hello", read(cache.get(V1_ENTRIES, 1L, 2L, ".pdf")));
+        assertNull(cache.get(V1_ENTRIES, 1L, 3L, ".pdf"));
+
+        // a crashed write leaves only a temporary file behind
+        Files.write(directory.resolve("partial.artifact123.tmp"), new byte[] { 1, 2, 3 });
+
+        ArtifactCache reopened = new ArtifactCache(directory, 1024);
+        assertEquals(1, reopened.size());
+        assertEquals(5, reopened.getTotalBytes());
+        assertEquals("hello", read(reopened.get(V1_ENTRIES, 1L, 2L, ".pdf")));
+        assertEquals(false, Files.exists(directory.resolve("partial.artifact123.tmp")));
+    }
+
+    @Test
+    public void testEvictsLeastRecentlyUsed() throws Exception {
+        ArtifactCache cache = new ArtifactCache(folder.getRoot().toPath(), 10);
+        read(cache.put(V1_ENTRIES, 1L, 1L, ".bin", content("aaaa")));
+        read(cache.put(V1_ENTRIES, 2L, 1L, ".bin", content("bbbb")));
+        read(cache.get(V1_ENTRIES, 1L, 1L, ".bin"));
+        read(cache.put(V1_ENTRIES, 3L, 1L, ".bin", content("cccc")));
+
+        assertNotNull(cache.get(V1_ENTRIES, 1L, 1L, ".bin"));
+        assertNull(cache.get(V1_ENTRIES, 2L, 1L, ".bin"));
+        assertNotNull(cache.get(V1_ENTRIES, 3L, 1L, ".bin"));
+        assertEquals(8, cache.getTotalBytes());
+    }
+
+    @Test
+    public void testReadStreamVersionUsesCache() throws Exception {
+        stubFor(get(urlPathEqualTo(V1_ENTRIES + "/1/versions/2.pdf"))
+                .willReturn(aResponse().withStatus(Status.OK.getStatusCode()).withBody("%PDF")));
+
+        WebTarget webTarget = ClientBuilder.newClient().target(BASE_URI);
+        BaseResourceClient<DemoRestableObject> client = new BaseResourceClient<>(webTarget,
+                DemoRestableObject.class, V1_ENTRIES);
+        client.setArtifactCache(new ArtifactCache(folder.getRoot().toPath(), 1024));
+
+        assertEquals("%PDF", read(client.readStreamVersion(1L, 2L, ".pdf", 1L)));
+        assertEquals("%PDF", read(client.readStreamVersion(1L, 2L, ".pdf", 1L)));
+        verify(1, getRequestedFor(urlPathEqualTo(V1_ENTRIES + "/1/versions/2.pdf")));
+    }
+}
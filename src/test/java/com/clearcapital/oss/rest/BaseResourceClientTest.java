@@ -191,6 +191,27 @@ public class BaseResourceClientTest {
         }
     }
 
+    @Test
+    public void testReadByIdWithSession() throws Exception {
+        DemoRestableObject entity = DemoRestableObject.builder().setEntry("foo").build();
+        stubFor(get(urlPathEqualTo(V1_ENTRIES + "/1")).withHeader(COOKIE, buildSessionCookieMatcher())
+                .willReturn(aResponse().withStatus(Status.OK.getStatusCode()).withHeader(CONTENT_TYPE, APPLICATION_JSON)
+                        .withBody(JsonSerializer.getInstance().getStringRepresentation(entity))));
+
+        SessionClient<DemoRestableObject> session = client.withSession(1L);
+        assertEquals(1L, session.getSessionId());
+        assertEquals(entity, session.read(1L));
+        assertEquals(entity, session.read(1L));
+
+        // Make sure that we've mocked things correctly — that is, that our mock really is checking the cookie.
+        try {
+            client.withSession(2L).read(1L);
+            fail("Should've thrown");
+        } catch (NotFoundException e) {
+            // (yey)
+        }
+    }
+
     @Test
     public void testReadList() throws Exception {
         ImmutableList<DemoRestableObject> entity = ImmutableList.of(DemoRestableObject.builder().setEntry("a").build(),
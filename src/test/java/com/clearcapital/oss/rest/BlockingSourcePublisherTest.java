@@ -0,0 +1,239 @@
+package com.clearcapital.oss.rest;
+
+import static com.github.tomakehurst.wiremock.client.WireMock.aResponse;
+import static com.github.tomakehurst.wiremock.client.WireMock.get;
+import static com.github.tomakehurst.wiremock.client.WireMock.getRequestedFor;
+import static com.github.tomakehurst.wiremock.client.WireMock.stubFor;
+import static com.github.tomakehurst.wiremock.client.WireMock.urlPathEqualTo;
+import static com.github.tomakehurst.wiremock.client.WireMock.verify;
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import javax.ws.rs.client.ClientBuilder;
+import javax.ws.rs.core.MultivaluedHashMap;
+import javax.ws.rs.core.Response.Status;
+
+import org.apache.http.entity.ContentType;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.reactivestreams.Subscriber;
+import org.reactivestreams.Subscription;
+
+import com.clearcapital.oss.json.JsonSerializer;
+import com.github.tomakehurst.wiremock.junit.WireMockRule;
+import com.google.common.collect.ImmutableList;
+import com.sun.net.httpserver.HttpServer;
+
+public class BlockingSourcePublisherTest {
+
+    private static final String APPLICATION_JSON = ContentType.APPLICATION_JSON.getMimeType();
+    private static final String CONTENT_TYPE = "Content-Type";
+    private static final String BASE_URI = "http://localhost:5309";
+    private static final String V1_ENTRIES = "/v1/entries";
+
+    private BaseResourceClient<DemoRestableObject> client;
+
+    @Rule
+    public WireMockRule wireMockRule = new WireMockRule(5309);
+
+    /**
+     * Requests {@code batch} items at a time, and cancels after {@code cancelAfter}.
+     */
+    static class CollectingSubscriber<T> implements Subscriber<T> {
+
+        final List<T> items = new ArrayList<>();
+        final CountDownLatch finished = new CountDownLatch(1);
+        final int batch;
+        final int cancelAfter;
+        Subscription subscription;
+        volatile Throwable error;
+        volatile boolean completed;
+
+        CollectingSubscriber(int batch, int cancelAfter) {
+            this.batch = batch;
+            this.cancelAfter = cancelAfter;
+        }
+
+        @Override
+        public void onSubscribe(Subscription s) {
+            subscription = s;
+            s.request(batch);
+        }
+
+        @Override
+        public void onNext(T item) {
+            items.add(item);
+            if (items.size() == cancelAfter) {
+                subscription.cancel();
+                finished.countDown();
+            } else if (items.size() % batch == 0) {
+                subscription.request(batch);
+            }
+        }
+
+        @Override
+        public void onError(Throwable t) {
+            error = t;
+            finished.countDown();
+        }
+
+        @Override
+        public void onComplete() {
+            completed = true;
+            finished.countDown();
+        }
+
+        void await() throws InterruptedException {
+            assertTrue(finished.await(10, TimeUnit.SECONDS));
+        }
+    }
+
+    @Before
+    public void beforeTest() {
+        client = new BaseResourceClient<>(ClientBuilder.newClient().target(BASE_URI), DemoRestableObject.class,
+                V1_ENTRIES);
+    }
+
+    private static List<DemoRestableObject> entries(int count) {
+        List<DemoRestableObject> result = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            result.add(DemoRestableObject.builder().setEntry("entry" + i).build());
+        }
+        return result;
+    }
+
+    @Test
+    public void testPublishList() throws Exception {
+        List<DemoRestableObject> entries = entries(25);
+        stubFor(get(urlPathEqualTo(V1_ENTRIES)).willReturn(aResponse().withStatus(Status.OK.getStatusCode())
+                .withHeader(CONTENT_TYPE, APPLICATION_JSON)
+                .withBody(JsonSerializer.getInstance().getStringRepresentation(entries))));
+
+        CollectingSubscriber<DemoRestableObject> subscriber = new CollectingSubscriber<>(4, -1);
+        client.publishList(1L, new MultivaluedHashMap<String, String>()).subscribe(subscriber);
+        subscriber.await();
+
+        assertNull(subscriber.error);
+        assertTrue(subscriber.completed);
+        assertEquals(entries, subscriber.items);
+    }
+
+    @Test
+    public void testCancel() throws Exception {
+        stubFor(get(urlPathEqualTo(V1_ENTRIES)).willReturn(aResponse().withStatus(Status.OK.getStatusCode())
+                .withHeader(CONTENT_TYPE, APPLICATION_JSON)
+                .withBody(JsonSerializer.getInstance().getStringRepresentation(entries(10)))));
+
+        CollectingSubscriber<DemoRestableObject> subscriber = new CollectingSubscriber<>(1, 3);
+        client.publishList(1L, new MultivaluedHashMap<String, String>()).subscribe(subscriber);
+        subscriber.await();
+
+        Thread.sleep(100);
+        assertEquals(ImmutableList.copyOf(entries(3)), subscriber.items);
+        assertFalse(subscriber.completed);
+    }
+
+    @Test
+    public void testCancelDropsConnection() throws Exception {
+        // An endless list, written until the client goes away.
+        CountDownLatch dropped = new CountDownLatch(1);
+        HttpServer server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+        server.createContext(V1_ENTRIES, exchange -> {
+            exchange.getResponseHeaders().set(CONTENT_TYPE, APPLICATION_JSON);
+            exchange.sendResponseHeaders(Status.OK.getStatusCode(), 0);
+            byte[] entry = "{\"entry\":\"entry\"},".getBytes(StandardCharsets.UTF_8);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write('[');
+                while (true) {
+                    out.write(entry);
+                }
+            } catch (IOException e) {
+                dropped.countDown();
+            }
+        });
+        ExecutorService executor = Executors.newCachedThreadPool();
+        server.setExecutor(executor);
+        server.start();
+        try {
+            URI uri = new URI("http://localhost:" + server.getAddress().getPort());
+            RestClient restClient = new RestClient(RestClientConfiguration.builder().setUri(uri)
+                    .setKey("someone@somewhere.com").setPassword("Passw0rd").setWithLoggingFilter(false)
+                    .setTransport(TransportType.DIRECT).build());
+            try {
+                CollectingSubscriber<DemoRestableObject> subscriber = new CollectingSubscriber<>(1, 1);
+                new BaseResourceClient<>(restClient.getTransport(), DemoRestableObject.class, V1_ENTRIES)
+                        .publishList(1L, new MultivaluedHashMap<String, String>()).subscribe(subscriber);
+                subscriber.await();
+                assertTrue(dropped.await(10, TimeUnit.SECONDS));
+            } finally {
+                restClient.close();
+            }
+        } finally {
+            server.stop(0);
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    public void testNothingSentWithoutDemand() throws Exception {
+        client.publishList(1L, new MultivaluedHashMap<String, String>()).subscribe(
+                new CollectingSubscriber<DemoRestableObject>(0, -1) {
+
+                    @Override
+                    public void onSubscribe(Subscription s) {
+                    }
+                });
+        Thread.sleep(100);
+        verify(0, getRequestedFor(urlPathEqualTo(V1_ENTRIES)));
+    }
+
+    @Test
+    public void testError() throws Exception {
+        stubFor(get(urlPathEqualTo(V1_ENTRIES)).willReturn(aResponse().withStatus(Status.NOT_FOUND.getStatusCode())));
+
+        CollectingSubscriber<DemoRestableObject> subscriber = new CollectingSubscriber<>(1, -1);
+        client.publishList(1L, new MultivaluedHashMap<String, String>()).subscribe(subscriber);
+        subscriber.await();
+
+        assertTrue(subscriber.error instanceof javax.ws.rs.NotFoundException);
+    }
+
+    @Test
+    public void testPublishStream() throws Exception {
+        byte[] body = new byte[50000];
+        for (int i = 0; i < body.length; i++) {
+            body[i] = (byte) i;
+        }
+        stubFor(get(urlPathEqualTo(V1_ENTRIES + "/1.pdf")).willReturn(aResponse()
+                .withStatus(Status.OK.getStatusCode()).withHeader(CONTENT_TYPE, "application/pdf").withBody(body)));
+
+        CollectingSubscriber<ByteBuffer> subscriber = new CollectingSubscriber<>(2, -1);
+        client.publishStream(1L, ".pdf", 1L).subscribe(subscriber);
+        subscriber.await();
+
+        assertTrue(subscriber.completed);
+        ByteArrayOutputStream received = new ByteArrayOutputStream();
+        for (ByteBuffer chunk : subscriber.items) {
+            received.write(chunk.array(), chunk.arrayOffset() + chunk.position(), chunk.remaining());
+        }
+        assertArrayEquals(body, received.toByteArray());
+    }
+}
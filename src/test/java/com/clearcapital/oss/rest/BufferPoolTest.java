@@ -0,0 +1,144 @@
+package com.clearcapital.oss.rest;
+
+import static com.github.tomakehurst.wiremock.client.WireMock.aResponse;
+import static com.github.tomakehurst.wiremock.client.WireMock.equalToJson;
+import static com.github.tomakehurst.wiremock.client.WireMock.get;
+import static com.github.tomakehurst.wiremock.client.WireMock.post;
+import static com.github.tomakehurst.wiremock.client.WireMock.stubFor;
+import static com.github.tomakehurst.wiremock.client.WireMock.urlPathEqualTo;
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.InputStream;
+import java.lang.ref.WeakReference;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+import javax.ws.rs.core.Response.Status;
+
+import org.apache.http.entity.ContentType;
+import org.junit.Rule;
+import org.junit.Test;
+
+import com.clearcapital.oss.json.JsonSerializer;
+import com.github.tomakehurst.wiremock.junit.WireMockRule;
+
+public class BufferPoolTest {
+
+    private static final String APPLICATION_JSON = ContentType.APPLICATION_JSON.getMimeType();
+    private static final String CONTENT_TYPE = "Content-Type";
+    private static final String BASE_URI = "http://localhost:5309";
+    private static final String V1_ENTRIES = "/v1/entries";
+
+    @Rule
+    public WireMockRule wireMockRule = new WireMockRule(5309);
+
+    @Test
+    public void testReuse() {
+        BufferPool pool = new BufferPool(2, 16, false);
+        BufferPool.Buffer first = pool.acquire();
+        byte[] array = first.array();
+        first.close();
+        first.close();
+        assertEquals(1, pool.getAvailable());
+
+        BufferPool.Buffer second = pool.acquire();
+        assertSame(array, second.array());
+        BufferPool.Buffer third = pool.acquire();
+        BufferPool.Buffer fourth = pool.acquire();
+        assertNotSame(third.array(), fourth.array());
+        second.close();
+        third.close();
+        fourth.close();
+        assertEquals(2, pool.getAvailable());
+        assertEquals(3, pool.getAllocated());
+    }
+
+    @Test
+    public void testOutput() throws Exception {
+        BufferPool pool = new BufferPool(4, 16, false);
+        byte[] bytes = "a body that spans a few buffers".getBytes(StandardCharsets.UTF_8);
+        BufferPool.Output output = pool.output();
+        output.write(bytes[0]);
+        output.write(bytes, 1, bytes.length - 1);
+        assertEquals(bytes.length, output.size());
+        assertArrayEquals(bytes, output.toByteArray());
+        assertEquals(new String(bytes, StandardCharsets.UTF_8), output.toString(StandardCharsets.UTF_8));
+        ByteArrayOutputStream copy = new ByteArrayOutputStream();
+        output.writeTo(copy);
+        assertArrayEquals(bytes, copy.toByteArray());
+        output.close();
+        assertEquals(0, pool.getAvailable());
+        output.release();
+        assertEquals(2, pool.getAvailable());
+
+        try (InputStream in = pool.buffered(new ByteArrayInputStream(bytes))) {
+            byte[] read = new byte[bytes.length];
+            read[0] = (byte) in.read();
+            int offset = 1;
+            int count;
+            while ((count = in.read(read, offset, Math.min(5, read.length - offset))) > 0) {
+                offset += count;
+            }
+            assertArrayEquals(bytes, read);
+            assertEquals(-1, in.read());
+        }
+        assertEquals(2, pool.getAvailable());
+    }
+
+    @Test
+    public void testLeakDetection() throws Exception {
+        BufferPool pool = new BufferPool(2, 16, true);
+        pool.acquire().close();
+        WeakReference<BufferPool.Buffer> leaked = new WeakReference<>(pool.acquire());
+        for (int i = 0; i < 50 && pool.getLeaks() == 0; i++) {
+            System.gc();
+            Thread.sleep(10);
+            pool.detectLeaks();
+        }
+        assertEquals(null, leaked.get());
+        assertEquals(1, pool.getLeaks());
+    }
+
+    @Test
+    public void testDirectTransportReturnsBuffers() throws Exception {
+        DemoRestableObject entity = DemoRestableObject.builder().setEntry("a value longer than one small buffer")
+                .build();
+        String json = JsonSerializer.getInstance().getStringRepresentation(entity);
+        byte[] bytes = new byte[100];
+        Arrays.fill(bytes, (byte) 7);
+        stubFor(post(urlPathEqualTo(V1_ENTRIES)).withRequestBody(equalToJson(json)).willReturn(aResponse()
+                .withStatus(Status.OK.getStatusCode()).withHeader(CONTENT_TYPE, APPLICATION_JSON).withBody(json)));
+        stubFor(get(urlPathEqualTo(V1_ENTRIES + "/1.bin")).willReturn(aResponse()
+                .withStatus(Status.OK.getStatusCode()).withHeader(CONTENT_TYPE, "application/octet-stream")
+                .withBody(bytes)));
+
+        RestClient restClient = new RestClient(RestClientConfiguration.builder().setUri(new URI(BASE_URI))
+                .setKey("someone@somewhere.com").setPassword("Passw0rd").setWithLoggingFilter(false)
+                .setTransport(TransportType.DIRECT).setBufferSize(16).setDetectBufferLeaks(true).build());
+        BufferPool pool = restClient.getBufferPool();
+        try {
+            BaseResourceClient<DemoRestableObject> client = new BaseResourceClient<>(restClient.getTransport(),
+                    DemoRestableObject.class, V1_ENTRIES);
+            assertEquals(entity, client.create(entity));
+            try (InputStream in = client.readStream(1L, ".bin", 1L)) {
+                ByteArrayOutputStream copy = new ByteArrayOutputStream();
+                int b;
+                while ((b = in.read()) >= 0) {
+                    copy.write(b);
+                }
+                assertArrayEquals(bytes, copy.toByteArray());
+            }
+        } finally {
+            restClient.close();
+        }
+
+        assertEquals(pool.getAllocated(), pool.getAvailable());
+        assertEquals(0, pool.getLeaks());
+    }
+}
@@ -0,0 +1,207 @@
+package com.clearcapital.oss.rest;
+
+import static com.github.tomakehurst.wiremock.client.WireMock.aResponse;
+import static com.github.tomakehurst.wiremock.client.WireMock.delete;
+import static com.github.tomakehurst.wiremock.client.WireMock.deleteRequestedFor;
+import static com.github.tomakehurst.wiremock.client.WireMock.equalTo;
+import static com.github.tomakehurst.wiremock.client.WireMock.put;
+import static com.github.tomakehurst.wiremock.client.WireMock.putRequestedFor;
+import static com.github.tomakehurst.wiremock.client.WireMock.stubFor;
+import static com.github.tomakehurst.wiremock.client.WireMock.urlPathEqualTo;
+import static com.github.tomakehurst.wiremock.client.WireMock.verify;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+import javax.ws.rs.NotFoundException;
+import javax.ws.rs.core.Response.Status;
+
+import org.apache.http.entity.ContentType;
+import org.junit.Rule;
+import org.junit.Test;
+
+import com.clearcapital.oss.json.JsonSerializer;
+import com.github.tomakehurst.wiremock.junit.WireMockRule;
+
+public class BulkExecutorTest {
+
+    private static final String APPLICATION_JSON = ContentType.APPLICATION_JSON.getMimeType();
+    private static final String CONTENT_TYPE = "Content-Type";
+    private static final String BASE_URI = "http://localhost:5309";
+    private static final String V1_ENTRIES = "/v1/entries";
+
+    @Rule
+    public WireMockRule wireMockRule = new WireMockRule(5309);
+
+    @Test
+    public void testReportsEveryOutcome() throws Exception {
+        DemoRestableObject updated = DemoRestableObject.builder().setEntry("updated").build();
+        stubFor(put(urlPathEqualTo(V1_ENTRIES + "/1")).willReturn(aResponse().withStatus(Status.OK.getStatusCode())
+                .withHeader(CONTENT_TYPE, APPLICATION_JSON)
+                .withBody(JsonSerializer.getInstance().getStringRepresentation(updated))));
+        stubFor(put(urlPathEqualTo(V1_ENTRIES + "/two")).willReturn(aResponse()
+                .withStatus(Status.CREATED.getStatusCode()).withHeader(CONTENT_TYPE, APPLICATION_JSON)
+                .withBody(JsonSerializer.getInstance().getStringRepresentation(updated))));
+        stubFor(delete(urlPathEqualTo(V1_ENTRIES + "/3"))
+                .willReturn(aResponse().withStatus(Status.NO_CONTENT.getStatusCode())));
+        stubFor(delete(urlPathEqualTo(V1_ENTRIES + "/4"))
+                .willReturn(aResponse().withStatus(Status.NOT_FOUND.getStatusCode())));
+
+        RestClient restClient = new RestClient(RestClientConfiguration.builder().setUri(new URI(BASE_URI))
+                .setKey("someone@somewhere.com").setPassword("Passw0rd").setWithLoggingFilter(false).build());
+        try {
+            BaseResourceClient<DemoRestableObject> client = new BaseResourceClient<>(restClient.getTransport(),
+                    DemoRestableObject.class, V1_ENTRIES);
+            DemoRestableObject entity = DemoRestableObject.builder().setEntry("foo").build();
+            List<BulkResult<DemoRestableObject>> results = client.bulk(
+                    Stream.of(BulkOperation.update(1L, entity), BulkOperation.delete(4L),
+                            BulkOperation.overwrite("two", entity), BulkOperation.delete(3L)),
+                    1L, 3, false);
+
+            assertEquals(4, results.size());
+            for (int i = 0; i < results.size(); i++) {
+                assertEquals(i, results.get(i).getIndex());
+            }
+            assertEquals(Status.OK.getStatusCode(), results.get(0).getStatus());
+            assertEquals(updated, results.get(0).getEntity());
+            assertFalse(results.get(1).isSuccess());
+            assertEquals(Status.NOT_FOUND.getStatusCode(), results.get(1).getStatus());
+            assertTrue(results.get(1).getError() instanceof NotFoundException);
+            assertEquals(Status.CREATED.getStatusCode(), results.get(2).getStatus());
+            assertEquals(updated, results.get(2).getEntity());
+            assertTrue(results.get(3).isSuccess());
+            assertEquals(Status.NO_CONTENT.getStatusCode(), results.get(3).getStatus());
+            assertNull(results.get(3).getEntity());
+        } finally {
+            restClient.close();
+        }
+        verify(1, putRequestedFor(urlPathEqualTo(V1_ENTRIES + "/1")).withHeader("Cookie", equalTo("X-SessionId=1")));
+        verify(1, deleteRequestedFor(urlPathEqualTo(V1_ENTRIES + "/4")));
+    }
+
+    @Test
+    public void testKeepsOrderPerIdWhenOrdered() {
+        Map<String, List<String>> sent = new ConcurrentHashMap<>();
+        Map<String, AtomicInteger> inFlight = new ConcurrentHashMap<>();
+        AtomicInteger overlaps = new AtomicInteger();
+        AtomicInteger maxInFlight = new AtomicInteger();
+        AtomicInteger total = new AtomicInteger();
+        RestTransport transport = request -> {
+            String path = request.getPath().toString();
+            AtomicInteger count = inFlight.computeIfAbsent(path, k -> new AtomicInteger());
+            if (count.incrementAndGet() > 1) {
+                overlaps.incrementAndGet();
+            }
+            maxInFlight.accumulateAndGet(total.incrementAndGet(), Math::max);
+            try {
+                Thread.sleep(2);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            sent.computeIfAbsent(path, k -> Collections.synchronizedList(new ArrayList<String>()))
+                    .add(((DemoRestableObject) request.getEntity()).getEntry());
+            total.decrementAndGet();
+            count.decrementAndGet();
+            return new LoadBalancedTransportTest.StatusResponse(Status.OK.getStatusCode());
+        };
+        BaseResourceClient<DemoRestableObject> client = new BaseResourceClient<>(transport,
+                DemoRestableObject.class, V1_ENTRIES);
+
+        List<BulkOperation<DemoRestableObject>> operations = IntStream.range(0, 60)
+                .mapToObj(i -> BulkOperation.update((long) (i % 3),
+                        DemoRestableObject.builder().setEntry(Integer.toString(i)).build()))
+                .collect(Collectors.toList());
+        List<BulkResult<DemoRestableObject>> results = client.withSession(1L).bulk(operations.stream(), 4, true);
+
+        assertEquals(60, results.size());
+        assertEquals(0, overlaps.get());
+        assertTrue(maxInFlight.get() <= 4);
+        for (int id = 0; id < 3; id++) {
+            List<String> expected = new ArrayList<>();
+            for (int i = id; i < 60; i += 3) {
+                expected.add(Integer.toString(i));
+            }
+            assertEquals(expected, sent.get("[" + V1_ENTRIES + ", " + id + "]"));
+        }
+    }
+
+    @Test
+    public void testResultsFailureStopsRun() {
+        AtomicInteger calls = new AtomicInteger();
+        BaseResourceClient<DemoRestableObject> client = new BaseResourceClient<>(request -> {
+            calls.incrementAndGet();
+            return new LoadBalancedTransportTest.StatusResponse(Status.NO_CONTENT.getStatusCode());
+        }, DemoRestableObject.class, V1_ENTRIES);
+
+        try {
+            client.bulk(IntStream.range(0, 1000).mapToObj(i -> BulkOperation.<DemoRestableObject> delete((long) i))
+                    .iterator(), 1L, 2, false, result -> {
+                        throw new IllegalStateException("full");
+                    });
+            fail("Should've thrown");
+        } catch (IllegalStateException e) {
+            // (yey)
+        }
+        assertTrue(calls.get() < 1000);
+    }
+
+    @Test
+    public void testResultsFailureDropsQueuedOperations() {
+        CountDownLatch queued = new CountDownLatch(1);
+        AtomicInteger calls = new AtomicInteger();
+        BaseResourceClient<DemoRestableObject> client = new BaseResourceClient<>(request -> {
+            try {
+                queued.await(10, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            calls.incrementAndGet();
+            return new LoadBalancedTransportTest.StatusResponse(Status.NO_CONTENT.getStatusCode());
+        }, DemoRestableObject.class, V1_ENTRIES);
+
+        // every operation is on the same id, so all but the first wait behind it
+        Iterator<BulkOperation<DemoRestableObject>> deletes = IntStream.range(0, 10)
+                .mapToObj(i -> BulkOperation.<DemoRestableObject> delete(1L)).iterator();
+        Iterator<BulkOperation<DemoRestableObject>> operations = new Iterator<BulkOperation<DemoRestableObject>>() {
+
+            @Override
+            public boolean hasNext() {
+                boolean result = deletes.hasNext();
+                if (!result) {
+                    queued.countDown();
+                }
+                return result;
+            }
+
+            @Override
+            public BulkOperation<DemoRestableObject> next() {
+                return deletes.next();
+            }
+        };
+        try {
+            client.bulk(operations, 1L, 2, true, result -> {
+                throw new IllegalStateException("full");
+            });
+            fail("Should've thrown");
+        } catch (IllegalStateException e) {
+            // (yey)
+        }
+        assertEquals(1, calls.get());
+    }
+}
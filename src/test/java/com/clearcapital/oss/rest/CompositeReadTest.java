@@ -0,0 +1,138 @@
+package com.clearcapital.oss.rest;
+
+import static com.github.tomakehurst.wiremock.client.WireMock.aResponse;
+import static com.github.tomakehurst.wiremock.client.WireMock.equalTo;
+import static com.github.tomakehurst.wiremock.client.WireMock.get;
+import static com.github.tomakehurst.wiremock.client.WireMock.getRequestedFor;
+import static com.github.tomakehurst.wiremock.client.WireMock.stubFor;
+import static com.github.tomakehurst.wiremock.client.WireMock.urlEqualTo;
+import static com.github.tomakehurst.wiremock.client.WireMock.urlPathEqualTo;
+import static com.github.tomakehurst.wiremock.client.WireMock.verify;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.net.URI;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+import javax.ws.rs.InternalServerErrorException;
+import javax.ws.rs.NotFoundException;
+import javax.ws.rs.core.GenericType;
+import javax.ws.rs.core.Response.Status;
+
+import org.apache.http.entity.ContentType;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+
+import com.clearcapital.oss.json.JsonSerializer;
+import com.github.tomakehurst.wiremock.junit.WireMockRule;
+
+public class CompositeReadTest {
+
+    private static final String APPLICATION_JSON = ContentType.APPLICATION_JSON.getMimeType();
+    private static final String CONTENT_TYPE = "Content-Type";
+    private static final String BASE_URI = "http://localhost:5309";
+    private static final String V1_ENTRIES = "/v1/entries";
+    private static final int DELAY_MILLIS = 400;
+
+    private static final CompositeRead.Child<List<DemoRestableObject>> ITEMS = CompositeRead.child("items",
+            DemoRestableObject.listGenericType);
+    private static final CompositeRead.Child<Map<Long, Long>> COUNTS = CompositeRead.child("counts",
+            new GenericType<Map<Long, Long>>() {
+            });
+    private static final CompositeRead.Child<List<DemoRestableObject>> NOTES = CompositeRead.child("notes",
+            DemoRestableObject.listGenericType);
+
+    @Rule
+    public WireMockRule wireMockRule = new WireMockRule(5309);
+
+    private RestClient restClient;
+    private BaseResourceClient<DemoRestableObject> client;
+
+    private final DemoRestableObject parent = DemoRestableObject.builder().setEntry("parent").build();
+    private final List<DemoRestableObject> items = Arrays.asList(DemoRestableObject.builder().setEntry("a").build(),
+            DemoRestableObject.builder().setEntry("b").build());
+
+    @Before
+    public void setUp() throws Exception {
+        stubJson(V1_ENTRIES + "/1", parent);
+        stubJson(V1_ENTRIES + "/1/items", items);
+        stubJson(V1_ENTRIES + "/1/counts", Collections.singletonMap(7L, 2L));
+        stubFor(get(urlPathEqualTo(V1_ENTRIES + "/1/notes")).willReturn(aResponse()
+                .withStatus(Status.INTERNAL_SERVER_ERROR.getStatusCode()).withFixedDelay(DELAY_MILLIS)));
+
+        // Its own pool, closed after each test, rather than HttpURLConnection's JVM-wide keep-alive cache, which can
+        // hand a later test a connection to an earlier test's (stopped) server.
+        restClient = new RestClient(RestClientConfiguration.builder().setUri(new URI(BASE_URI))
+                .setKey("someone@somewhere.com").setPassword("Passw0rd").setWithLoggingFilter(false)
+                .setTransport(TransportType.DIRECT).build());
+        client = new BaseResourceClient<>(restClient.getTransport(), DemoRestableObject.class, V1_ENTRIES);
+    }
+
+    @After
+    public void tearDown() {
+        restClient.close();
+    }
+
+    private void stubJson(final String path, final Object body) throws Exception {
+        stubFor(get(urlPathEqualTo(path)).willReturn(aResponse().withStatus(Status.OK.getStatusCode())
+                .withHeader(CONTENT_TYPE, APPLICATION_JSON).withFixedDelay(DELAY_MILLIS)
+                .withBody(JsonSerializer.getInstance().getStringRepresentation(body))));
+    }
+
+    @Test
+    public void testReadsConcurrentlyWithPartialFailure() {
+        CompositeRead read = CompositeRead.builder().addChild(ITEMS).addChild(COUNTS).addChild(NOTES).build();
+        // Warm the connection pool, so that timing is of the reads alone.
+        client.withSession(1L).readComposite(1L, read);
+
+        long start = System.nanoTime();
+        CompositeEntity<DemoRestableObject> result = client.withSession(1L).readComposite(1L, read);
+        long elapsedMillis = (System.nanoTime() - start) / 1000000;
+        assertTrue("Took " + elapsedMillis + "ms", elapsedMillis < 3 * DELAY_MILLIS);
+
+        assertEquals(parent, result.getParent());
+        assertEquals(items, result.get(ITEMS));
+        assertEquals(Long.valueOf(2), result.get(COUNTS).get(7L));
+        assertFalse(result.isComplete());
+        assertEquals(1, result.getErrors().size());
+        assertTrue(result.getError(NOTES) instanceof InternalServerErrorException);
+        assertNull(result.getError(ITEMS));
+        try {
+            result.get(NOTES);
+            fail("Should've thrown");
+        } catch (InternalServerErrorException e) {
+            // (yey)
+        }
+        verify(getRequestedFor(urlPathEqualTo(V1_ENTRIES + "/1/items")).withHeader("Cookie",
+                equalTo("X-SessionId=1")));
+    }
+
+    @Test
+    public void testWithoutParent() {
+        CompositeRead read = CompositeRead.builder().addChild(ITEMS).setWithParent(false).build();
+        CompositeEntity<DemoRestableObject> result = client.readComposite(1L, 1L, read);
+        assertNull(result.getParent());
+        assertTrue(result.isComplete());
+        assertEquals(items, result.get(ITEMS));
+        verify(0, getRequestedFor(urlEqualTo(V1_ENTRIES + "/1")));
+        try {
+            result.get(COUNTS);
+            fail("Should've thrown");
+        } catch (IllegalArgumentException e) {
+            // (yey)
+        }
+    }
+
+    @Test(expected = NotFoundException.class)
+    public void testParentFailureThrows() {
+        client.readComposite(2L, 1L, CompositeRead.builder().addChild(ITEMS).build());
+    }
+}
@@ -0,0 +1,188 @@
+package com.clearcapital.oss.rest;
+
+import static com.github.tomakehurst.wiremock.client.WireMock.aResponse;
+import static com.github.tomakehurst.wiremock.client.WireMock.get;
+import static com.github.tomakehurst.wiremock.client.WireMock.getRequestedFor;
+import static com.github.tomakehurst.wiremock.client.WireMock.stubFor;
+import static com.github.tomakehurst.wiremock.client.WireMock.urlPathEqualTo;
+import static com.github.tomakehurst.wiremock.client.WireMock.verify;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import javax.ws.rs.core.Response.Status;
+
+import org.apache.http.entity.ContentType;
+import org.junit.Rule;
+import org.junit.Test;
+
+import com.clearcapital.oss.json.JsonSerializer;
+import com.github.tomakehurst.wiremock.junit.WireMockRule;
+import com.sun.net.httpserver.HttpServer;
+
+public class DeadlineTest {
+
+    private static final String APPLICATION_JSON = ContentType.APPLICATION_JSON.getMimeType();
+    private static final String CONTENT_TYPE = "Content-Type";
+    private static final String BASE_URI = "http://localhost:5309";
+    private static final String V1_ENTRIES = "/v1/entries";
+
+    @Rule
+    public WireMockRule wireMockRule = new WireMockRule(5309);
+
+    private static RestClient restClient(TransportType transport, Long requestTimeoutMillis) throws Exception {
+        return new RestClient(RestClientConfiguration.builder().setUri(new URI(BASE_URI))
+                .setKey("someone@somewhere.com").setPassword("Passw0rd").setWithLoggingFilter(false)
+                .setTransport(transport).setRequestTimeoutMillis(requestTimeoutMillis).build());
+    }
+
+    private static void stubSlowEntity(int delayMillis) throws Exception {
+        DemoRestableObject entity = DemoRestableObject.builder().setEntry("foo").build();
+        stubFor(get(urlPathEqualTo(V1_ENTRIES + "/1")).willReturn(aResponse().withStatus(Status.OK.getStatusCode())
+                .withHeader(CONTENT_TYPE, APPLICATION_JSON).withFixedDelay(delayMillis)
+                .withBody(JsonSerializer.getInstance().getStringRepresentation(entity))));
+    }
+
+    private static void assertCutOff(RestClient restClient) {
+        BaseResourceClient<DemoRestableObject> client = new BaseResourceClient<>(restClient.getTransport(),
+                DemoRestableObject.class, V1_ENTRIES);
+        long start = System.nanoTime();
+        try {
+            client.read(1L);
+            fail("expected DeadlineExceededException");
+        } catch (DeadlineExceededException e) {
+            assertTrue(System.nanoTime() - start < TimeUnit.MILLISECONDS.toNanos(1500));
+        }
+    }
+
+    @Test
+    public void testScopes() {
+        assertNull(Deadline.current());
+        Deadline outer = Deadline.after(1, TimeUnit.SECONDS);
+        Deadline.Scope scope = outer.enter();
+        try {
+            Deadline.Scope inner = Deadline.after(1, TimeUnit.HOURS).enter();
+            try {
+                assertSame(outer, Deadline.current());
+            } finally {
+                inner.close();
+            }
+            Deadline earlier = Deadline.after(1, TimeUnit.MILLISECONDS);
+            assertSame(earlier, earlier.runWithin(Deadline::current));
+            assertSame(outer, Deadline.current());
+        } finally {
+            scope.close();
+        }
+        assertNull(Deadline.current());
+    }
+
+    @Test
+    public void testDirectAbortsInFlight() throws Exception {
+        stubSlowEntity(3000);
+        RestClient restClient = restClient(TransportType.DIRECT, null);
+        try {
+            Deadline.after(200, TimeUnit.MILLISECONDS).runWithin(() -> {
+                assertCutOff(restClient);
+                return null;
+            });
+        } finally {
+            restClient.close();
+        }
+    }
+
+    @Test
+    public void testDefaultRequestTimeout() throws Exception {
+        stubSlowEntity(3000);
+        RestClient restClient = restClient(TransportType.DEFAULT, 200L);
+        try {
+            assertCutOff(restClient);
+        } finally {
+            restClient.close();
+        }
+    }
+
+    @Test
+    public void testExpiredDeadlineSendsNothing() throws Exception {
+        stubSlowEntity(0);
+        RestClient restClient = restClient(TransportType.DIRECT, null);
+        Deadline deadline = Deadline.after(0, TimeUnit.MILLISECONDS);
+        try {
+            deadline.runWithin(() -> {
+                assertCutOff(restClient);
+                return null;
+            });
+        } finally {
+            restClient.close();
+        }
+        verify(0, getRequestedFor(urlPathEqualTo(V1_ENTRIES + "/1")));
+    }
+
+    @Test
+    public void testDefaultRequestTimeoutDoesNotCutOffStreams() throws Exception {
+        // 8 chunks, 100ms apart, so the body takes well over the 300ms timeout to arrive.
+        HttpServer server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+        server.createContext(V1_ENTRIES, exchange -> {
+            exchange.sendResponseHeaders(Status.OK.getStatusCode(), 0);
+            try (OutputStream out = exchange.getResponseBody()) {
+                for (int i = 0; i < 8; i++) {
+                    out.write(new byte[1024]);
+                    out.flush();
+                    Thread.sleep(100);
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        });
+        ExecutorService executor = Executors.newCachedThreadPool();
+        server.setExecutor(executor);
+        server.start();
+        try {
+            URI uri = new URI("http://localhost:" + server.getAddress().getPort());
+            RestClient restClient = new RestClient(RestClientConfiguration.builder().setUri(uri)
+                    .setKey("someone@somewhere.com").setPassword("Passw0rd").setWithLoggingFilter(false)
+                    .setTransport(TransportType.DIRECT).setRequestTimeoutMillis(300L).build());
+            try {
+                BaseResourceClient<DemoRestableObject> client = new BaseResourceClient<>(restClient.getTransport(),
+                        DemoRestableObject.class, V1_ENTRIES);
+                try (InputStream in = client.readStream(1L, ".bin", 1L)) {
+                    assertEquals(8 * 1024, count(in));
+                }
+
+                // A deadline the caller enters still bounds reading the stream.
+                try (InputStream in = Deadline.after(300, TimeUnit.MILLISECONDS)
+                        .runWithin(() -> client.readStream(1L, ".bin", 1L))) {
+                    count(in);
+                    fail("expected the stream to be cut off");
+                } catch (IOException e) {
+                    // expected
+                }
+            } finally {
+                restClient.close();
+            }
+        } finally {
+            server.stop(0);
+            executor.shutdownNow();
+        }
+    }
+
+    private static long count(InputStream in) throws IOException {
+        byte[] buffer = new byte[512];
+        long result = 0;
+        int read;
+        while ((read = in.read(buffer)) >= 0) {
+            result += read;
+        }
+        return result;
+    }
+}
@@ -0,0 +1,44 @@
+package com.clearcapital.oss.rest;
+
+import java.util.List;
+
+import javax.ws.rs.CookieParam;
+import javax.ws.rs.DELETE;
+import javax.ws.rs.GET;
+import javax.ws.rs.HeaderParam;
+import javax.ws.rs.POST;
+import javax.ws.rs.PUT;
+import javax.ws.rs.Path;
+import javax.ws.rs.PathParam;
+import javax.ws.rs.QueryParam;
+import javax.ws.rs.core.Response;
+
+@TypedClient
+@Path("/v1/entries")
+public interface DemoEntries {
+
+    @GET
+    @Path("{id: \\d+}")
+    DemoRestableObject read(@PathParam("id") long id, @CookieParam("X-SessionId") Long sessionId);
+
+    @GET
+    List<DemoRestableObject> readList(@QueryParam("entry") List<String> entries, @QueryParam("limit") Integer limit,
+            @CookieParam("X-SessionId") Long sessionId);
+
+    @GET
+    @Path("{id}/available")
+    boolean available(@PathParam("id") long id, @HeaderParam("X-Trace") String trace);
+
+    @PUT
+    @Path("{key}")
+    DemoRestableObject overwrite(@PathParam("key") String key, DemoRestableObject entity,
+            @CookieParam("X-SessionId") Long sessionId);
+
+    @DELETE
+    @Path("{id}")
+    Response delete(@PathParam("id") long id, @CookieParam("X-SessionId") Long sessionId);
+
+    @POST
+    @Path("{id}/versions/v{version}")
+    void touch(@PathParam("id") long id, @PathParam("version") int version);
+}
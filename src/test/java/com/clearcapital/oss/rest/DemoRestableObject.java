@@ -22,7 +22,7 @@ public class DemoRestableObject {
     
     @Override
     public int hashCode() {
-        return Objects.hashCode(this,entry);
+        return Objects.hashCode(entry);
     }
 
     @Override
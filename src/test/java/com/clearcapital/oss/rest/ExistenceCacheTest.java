@@ -0,0 +1,150 @@
+package com.clearcapital.oss.rest;
+
+import static com.github.tomakehurst.wiremock.client.WireMock.aResponse;
+import static com.github.tomakehurst.wiremock.client.WireMock.delete;
+import static com.github.tomakehurst.wiremock.client.WireMock.get;
+import static com.github.tomakehurst.wiremock.client.WireMock.getRequestedFor;
+import static com.github.tomakehurst.wiremock.client.WireMock.stubFor;
+import static com.github.tomakehurst.wiremock.client.WireMock.urlPathEqualTo;
+import static com.github.tomakehurst.wiremock.client.WireMock.verify;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import javax.ws.rs.client.ClientBuilder;
+import javax.ws.rs.client.WebTarget;
+import javax.ws.rs.core.Response.Status;
+
+import org.apache.http.entity.ContentType;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+
+import com.github.tomakehurst.wiremock.junit.WireMockRule;
+
+public class ExistenceCacheTest {
+
+    private static final String APPLICATION_JSON = ContentType.APPLICATION_JSON.getMimeType();
+    private static final String CONTENT_TYPE = "Content-Type";
+    private static final String BASE_URI = "http://localhost:5309";
+    private static final String V1_ENTRIES = "/v1/entries";
+    private static final String ENTRY_AVAILABLE = V1_ENTRIES + "/7/available";
+    private static final String VERSION_AVAILABLE = V1_ENTRIES + "/7/versions/3/available";
+    private static final Long SESSION_ID = 11L;
+
+    private final AtomicLong now = new AtomicLong();
+    private BaseResourceClient<DemoRestableObject> client;
+
+    @Rule
+    public WireMockRule wireMockRule = new WireMockRule(5309);
+
+    @Before
+    public void beforeTest() {
+        WebTarget webTarget = ClientBuilder.newClient().target(BASE_URI);
+        client = new BaseResourceClient<>(webTarget, DemoRestableObject.class, V1_ENTRIES);
+        client.setExistenceCache(new ExistenceCache(100, TimeUnit.NANOSECONDS, 1000, now::get), null);
+    }
+
+    private static void stubAnswer(String path, boolean answer) {
+        stubFor(get(urlPathEqualTo(path)).willReturn(aResponse().withStatus(Status.OK.getStatusCode())
+                .withHeader(CONTENT_TYPE, APPLICATION_JSON).withBody(Boolean.toString(answer))));
+    }
+
+    @Test
+    public void testPositiveVersionIsKeptIndefinitely() {
+        stubAnswer(VERSION_AVAILABLE, true);
+
+        assertTrue(client.versionAvailable(7L, 3L, SESSION_ID));
+        now.addAndGet(TimeUnit.DAYS.toNanos(1));
+        assertTrue(client.versionAvailable(7L, 3L, SESSION_ID));
+
+        verify(1, getRequestedFor(urlPathEqualTo(VERSION_AVAILABLE)));
+        assertEquals(1, client.getExistenceCache().getHits());
+    }
+
+    @Test
+    public void testNegativeVersionExpires() {
+        stubAnswer(VERSION_AVAILABLE, false);
+
+        assertFalse(client.versionAvailable(7L, 3L, SESSION_ID));
+        assertFalse(client.versionAvailable(7L, 3L, SESSION_ID));
+        verify(1, getRequestedFor(urlPathEqualTo(VERSION_AVAILABLE)));
+
+        now.addAndGet(100);
+        stubAnswer(VERSION_AVAILABLE, true);
+        assertTrue(client.versionAvailable(7L, 3L, SESSION_ID));
+        verify(2, getRequestedFor(urlPathEqualTo(VERSION_AVAILABLE)));
+    }
+
+    @Test
+    public void testAvailableExpires() {
+        stubAnswer(ENTRY_AVAILABLE, true);
+
+        assertTrue(client.available(7L));
+        assertTrue(client.available(7L, SESSION_ID));
+        verify(1, getRequestedFor(urlPathEqualTo(ENTRY_AVAILABLE)));
+
+        now.addAndGet(100);
+        assertTrue(client.available(7L));
+        verify(2, getRequestedFor(urlPathEqualTo(ENTRY_AVAILABLE)));
+    }
+
+    @Test
+    public void testDeleteInvalidates() {
+        stubAnswer(ENTRY_AVAILABLE, true);
+        stubAnswer(VERSION_AVAILABLE, true);
+        stubFor(delete(urlPathEqualTo(V1_ENTRIES + "/7"))
+                .willReturn(aResponse().withStatus(Status.NO_CONTENT.getStatusCode())));
+
+        assertTrue(client.available(7L));
+        assertTrue(client.versionAvailable(7L, 3L, SESSION_ID));
+
+        client.delete(7L, SESSION_ID).close();
+        stubAnswer(ENTRY_AVAILABLE, false);
+        stubAnswer(VERSION_AVAILABLE, false);
+
+        assertFalse(client.available(7L));
+        assertFalse(client.versionAvailable(7L, 3L, SESSION_ID));
+        verify(2, getRequestedFor(urlPathEqualTo(ENTRY_AVAILABLE)));
+        verify(2, getRequestedFor(urlPathEqualTo(VERSION_AVAILABLE)));
+    }
+
+    @Test
+    public void testWrittenDropsNegativeAnswers() {
+        ExistenceCache cache = client.getExistenceCache();
+        cache.putAvailable(7L, false);
+        cache.putVersionAvailable(7L, 3L, false);
+
+        cache.written(7L);
+
+        assertTrue(cache.getAvailable(7L));
+        assertEquals(null, cache.getVersionAvailable(7L, 3L));
+    }
+
+    @Test
+    public void testLongPairSet() {
+        LongPairSet set = new LongPairSet();
+        for (long id = 0; id < 1000; id++) {
+            for (long updateId = 0; updateId < 5; updateId++) {
+                set.add(id, updateId);
+            }
+        }
+        set.add(Long.MIN_VALUE, 1L);
+        assertEquals(5000, set.size());
+        assertFalse(set.contains(Long.MIN_VALUE, 1L));
+
+        for (long id = 0; id < 1000; id += 2) {
+            set.remove(id, 0L);
+        }
+        set.removeAll(999L);
+        assertEquals(5000 - 500 - 5, set.size());
+
+        for (long id = 0; id < 1000; id++) {
+            assertEquals(id % 2 != 0 && id != 999, set.contains(id, 0L));
+            assertEquals(id != 999, set.contains(id, 4L));
+        }
+    }
+}
@@ -0,0 +1,136 @@
+package com.clearcapital.oss.rest;
+
+import static com.github.tomakehurst.wiremock.client.WireMock.aResponse;
+import static com.github.tomakehurst.wiremock.client.WireMock.containing;
+import static com.github.tomakehurst.wiremock.client.WireMock.delete;
+import static com.github.tomakehurst.wiremock.client.WireMock.equalTo;
+import static com.github.tomakehurst.wiremock.client.WireMock.get;
+import static com.github.tomakehurst.wiremock.client.WireMock.post;
+import static com.github.tomakehurst.wiremock.client.WireMock.stubFor;
+import static com.github.tomakehurst.wiremock.client.WireMock.urlPathEqualTo;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.fail;
+
+import java.io.InputStream;
+import java.net.URI;
+
+import javax.ws.rs.NotFoundException;
+import javax.ws.rs.core.MultivaluedHashMap;
+import javax.ws.rs.core.MultivaluedMap;
+import javax.ws.rs.core.Response;
+import javax.ws.rs.core.Response.Status;
+
+import org.apache.commons.io.IOUtils;
+import org.apache.http.entity.ContentType;
+import org.apache.http.impl.client.HttpClients;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+
+import com.clearcapital.oss.json.JsonSerializer;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.tomakehurst.wiremock.junit.WireMockRule;
+import com.google.common.collect.ImmutableList;
+
+public class HttpClientTransportTest {
+
+    private static final String APPLICATION_JSON = ContentType.APPLICATION_JSON.getMimeType();
+    private static final String CONTENT_TYPE = "Content-Type";
+    private static final String COOKIE = "Cookie";
+    private static final String BASE_URI = "http://localhost:5309";
+    private static final String V1_ENTRIES = "/v1/entries";
+
+    private HttpClientTransport transport;
+    private BaseResourceClient<DemoRestableObject> client;
+
+    @Rule
+    public WireMockRule wireMockRule = new WireMockRule(5309);
+
+    @Before
+    public void beforeTest() throws Exception {
+        transport = new HttpClientTransport(HttpClients.createDefault(), new URI(BASE_URI),
+                new JacksonEntityCodec(new ObjectMapper()));
+        client = new BaseResourceClient<>(transport, DemoRestableObject.class, V1_ENTRIES);
+    }
+
+    @After
+    public void afterTest() throws Exception {
+        transport.close();
+    }
+
+    @Test
+    public void testReadByIdSession() throws Exception {
+        DemoRestableObject entity = DemoRestableObject.builder().setEntry("foo").build();
+        stubFor(get(urlPathEqualTo(V1_ENTRIES + "/1")).withHeader(COOKIE, containing("X-SessionId=1"))
+                .willReturn(aResponse().withStatus(Status.OK.getStatusCode()).withHeader(CONTENT_TYPE, APPLICATION_JSON)
+                        .withBody(JsonSerializer.getInstance().getStringRepresentation(entity))));
+
+        assertEquals(entity, client.read(1L, 1L));
+
+        try {
+            client.read(1L, 2L);
+            fail("Should've thrown");
+        } catch (NotFoundException e) {
+            // (yey)
+        }
+    }
+
+    @Test
+    public void testCreateQueryParamsSession() throws Exception {
+        DemoRestableObject entity = DemoRestableObject.builder().setEntry("foo").build();
+        stubFor(post(urlPathEqualTo(V1_ENTRIES)).withHeader(COOKIE, containing("X-SessionId=1"))
+                .withQueryParam("name", equalTo("867-5309"))
+                .willReturn(aResponse().withStatus(Status.CREATED.getStatusCode())
+                        .withHeader(CONTENT_TYPE, APPLICATION_JSON)
+                        .withBody(JsonSerializer.getInstance().getStringRepresentation(entity))));
+
+        MultivaluedMap<String, String> queryParams = new MultivaluedHashMap<>();
+        queryParams.putSingle("name", "867-5309");
+        assertEquals(entity, client.create(entity, queryParams, 1L));
+    }
+
+    @Test
+    public void testReadList() throws Exception {
+        ImmutableList<DemoRestableObject> entity = ImmutableList.of(DemoRestableObject.builder().setEntry("a").build(),
+                DemoRestableObject.builder().setEntry("b").build());
+        stubFor(get(urlPathEqualTo(V1_ENTRIES))
+                .willReturn(aResponse().withStatus(Status.OK.getStatusCode()).withHeader(CONTENT_TYPE, APPLICATION_JSON)
+                        .withBody(JsonSerializer.getInstance().getStringRepresentation(entity))));
+
+        assertEquals(entity, client.readList(DemoRestableObject.listGenericType));
+    }
+
+    @Test
+    public void testReadStream() throws Exception {
+        stubFor(get(urlPathEqualTo(V1_ENTRIES + "/1.pdf"))
+                .willReturn(aResponse().withStatus(Status.OK.getStatusCode()).withBody("%PDF")));
+
+        try (InputStream stream = client.readStream(1L, ".pdf", 1L)) {
+            assertEquals("%PDF", IOUtils.toString(stream, "UTF-8"));
+        }
+    }
+
+    @Test
+    public void testDeleteReturnsResponse() throws Exception {
+        stubFor(delete(urlPathEqualTo(V1_ENTRIES + "/1"))
+                .willReturn(aResponse().withStatus(Status.NO_CONTENT.getStatusCode())));
+
+        Response response = client.delete(1L, 1L);
+        assertEquals(Status.NO_CONTENT.getStatusCode(), response.getStatus());
+        assertEquals(Status.NOT_FOUND.getStatusCode(), client.delete(2L, 1L).getStatus());
+    }
+
+    @Test
+    public void testBuildUri() throws Exception {
+        RestRequest request = RestRequest.builder("GET").addPath("/v1/entries/").addPath("key with space")
+                .addPath("%41").build();
+        assertEquals(BASE_URI + "/v1/entries/key%20with%20space/%41", transport.buildUri(request));
+
+        MultivaluedMap<String, String> queryParams = new MultivaluedHashMap<>();
+        queryParams.add("q", "a b&c=d");
+        queryParams.add("q", "\u00e9");
+        request = RestRequest.builder("GET").addPath("v1").setQueryParams(queryParams).build();
+        assertEquals(BASE_URI + "/v1?q=a%20b%26c%3Dd&q=%C3%A9", transport.buildUri(request));
+    }
+}
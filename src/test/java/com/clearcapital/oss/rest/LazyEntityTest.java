@@ -0,0 +1,101 @@
+package com.clearcapital.oss.rest;
+
+import static com.github.tomakehurst.wiremock.client.WireMock.aResponse;
+import static com.github.tomakehurst.wiremock.client.WireMock.get;
+import static com.github.tomakehurst.wiremock.client.WireMock.stubFor;
+import static com.github.tomakehurst.wiremock.client.WireMock.urlPathEqualTo;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+
+import javax.ws.rs.core.GenericType;
+import javax.ws.rs.core.Response.Status;
+
+import org.apache.http.entity.ContentType;
+import org.junit.Rule;
+import org.junit.Test;
+
+import com.clearcapital.oss.json.JsonSerializer;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.tomakehurst.wiremock.junit.WireMockRule;
+
+public class LazyEntityTest {
+
+    private static final String APPLICATION_JSON = ContentType.APPLICATION_JSON.getMimeType();
+    private static final String CONTENT_TYPE = "Content-Type";
+    private static final String BASE_URI = "http://localhost:5309";
+    private static final String V1_ENTRIES = "/v1/entries";
+
+    private static final String NESTED = "{\"id\":7,\"skipped\":{\"deep\":[1,[2,3],{\"x\":4}]},\"name\":\"seven\","
+            + "\"address\":{\"city\":\"Boston\",\"zip\":null},\"tags\":[\"a\",\"b\",\"c\"],"
+            + "\"items\":[{\"sku\":\"x1\"},{\"sku\":\"x2\"}]}";
+
+    @Rule
+    public WireMockRule wireMockRule = new WireMockRule(5309);
+
+    @SuppressWarnings("rawtypes")
+    private static LazyEntity<Map> nested() {
+        ObjectMapper objectMapper = RestClient.buildObjectMapper(WireFormat.JSON);
+        return new LazyEntity<>(NESTED.getBytes(StandardCharsets.UTF_8), objectMapper, Map.class);
+    }
+
+    @Test
+    public void testParts() {
+        @SuppressWarnings("rawtypes")
+        LazyEntity<Map> entity = nested();
+
+        assertEquals(Integer.valueOf(7), entity.get("/id", Integer.class));
+        assertEquals("seven", entity.get("/name", String.class));
+        assertEquals("Boston", entity.get("/address/city", String.class));
+        assertEquals("c", entity.get("/tags/2", String.class));
+        assertEquals("x2", entity.get("/items/1/sku", String.class));
+        assertEquals(Arrays.asList("a", "b", "c"), entity.get("/tags", new GenericType<List<String>>() {
+        }));
+        assertEquals(4, entity.getTree("/skipped/deep/2/x").asInt());
+        assertEquals(NESTED.length(), entity.size());
+        assertEquals(6, entity.get().size());
+    }
+
+    @Test
+    public void testMissingParts() {
+        @SuppressWarnings("rawtypes")
+        LazyEntity<Map> entity = nested();
+
+        assertNull(entity.get("/nope", String.class));
+        assertNull(entity.get("/tags/3", String.class));
+        assertNull(entity.get("/tags/x", String.class));
+        assertNull(entity.get("/name/x", String.class));
+        assertNull(entity.get("/address/zip", String.class));
+        assertTrue(entity.has("/address/zip"));
+        assertTrue(entity.has(""));
+        assertFalse(entity.has("/address/street"));
+        assertFalse(entity.has("/items/2/sku"));
+    }
+
+    @Test
+    public void testReadLazy() throws Exception {
+        DemoRestableObject demo = DemoRestableObject.builder().setEntry("foo").build();
+        stubFor(get(urlPathEqualTo(V1_ENTRIES + "/1")).willReturn(aResponse().withStatus(Status.OK.getStatusCode())
+                .withHeader(CONTENT_TYPE, APPLICATION_JSON)
+                .withBody(JsonSerializer.getInstance().getStringRepresentation(demo))));
+
+        RestClient restClient = new RestClient(RestClientConfiguration.builder().setUri(new URI(BASE_URI))
+                .setKey("someone@somewhere.com").setPassword("Passw0rd").setWithLoggingFilter(false).build());
+        try {
+            BaseResourceClient<DemoRestableObject> client = new BaseResourceClient<>(restClient.getTransport(),
+                    DemoRestableObject.class, V1_ENTRIES);
+            LazyEntity<DemoRestableObject> entity = client.withSession(1L).readLazy(1L);
+            assertEquals("foo", entity.get("/entry", String.class));
+            assertEquals(demo, entity.get());
+        } finally {
+            restClient.close();
+        }
+    }
+}
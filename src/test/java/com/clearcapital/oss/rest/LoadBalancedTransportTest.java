@@ -0,0 +1,179 @@
+package com.clearcapital.oss.rest;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.lang.reflect.Type;
+import java.util.Arrays;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import javax.ws.rs.HttpMethod;
+import javax.ws.rs.ProcessingException;
+import javax.ws.rs.core.Response;
+
+import org.junit.Test;
+
+public class LoadBalancedTransportTest {
+
+    private static final long MILLI = TimeUnit.MILLISECONDS.toNanos(1);
+
+    private final AtomicLong now = new AtomicLong();
+
+    static class StatusResponse implements RestResponse {
+
+        private final int status;
+
+        StatusResponse(int status) {
+            this.status = status;
+        }
+
+        @Override
+        public int getStatus() {
+            return status;
+        }
+
+        @Override
+        public String getHeaderString(String name) {
+            return null;
+        }
+
+        @Override
+        public <U> U readEntity(Type type) {
+            return null;
+        }
+
+        @Override
+        public Response toResponse() {
+            return Response.status(status).build();
+        }
+
+        @Override
+        public Response toBufferedResponse() {
+            return toResponse();
+        }
+
+        @Override
+        public void abort() {
+        }
+
+        @Override
+        public void close() {
+        }
+    }
+
+    private RestTransport respondingAfter(final long latency, final AtomicInteger calls) {
+        return request -> {
+            calls.incrementAndGet();
+            now.addAndGet(latency);
+            return new StatusResponse(200);
+        };
+    }
+
+    private static RestRequest request() {
+        return RestRequest.builder(HttpMethod.GET).addPath("/v1/entries").build();
+    }
+
+    private LoadBalancedTransport loadBalancer(RestTransport... transports) {
+        return new LoadBalancedTransport(Arrays.asList(transports), 1000, 60000, TimeUnit.MILLISECONDS, now::get);
+    }
+
+    @Test
+    public void testPrefersFasterEndpoint() {
+        AtomicInteger slowCalls = new AtomicInteger();
+        AtomicInteger fastCalls = new AtomicInteger();
+        LoadBalancedTransport transport = loadBalancer(respondingAfter(10 * MILLI, slowCalls),
+                respondingAfter(MILLI, fastCalls));
+
+        for (int i = 0; i < 100; i++) {
+            transport.invoke(request()).close();
+        }
+        assertTrue(slowCalls.get() >= 1);
+        assertTrue(fastCalls.get() >= 95);
+    }
+
+    @Test
+    public void testEjectsFailingEndpointWithBackoff() {
+        final AtomicInteger deadCalls = new AtomicInteger();
+        AtomicInteger liveCalls = new AtomicInteger();
+        LoadBalancedTransport transport = loadBalancer(request -> {
+            deadCalls.incrementAndGet();
+            throw new ProcessingException("Connection refused");
+        }, respondingAfter(0, liveCalls));
+        LoadBalancedTransport.Endpoint dead = transport.getEndpoints().get(0);
+
+        int failures = 0;
+        for (int i = 0; i < 50; i++) {
+            try {
+                transport.invoke(request()).close();
+            } catch (ProcessingException e) {
+                failures++;
+            }
+        }
+        assertEquals(LoadBalancedTransport.EJECT_AFTER_FAILURES, failures);
+        assertEquals(failures, deadCalls.get());
+        assertTrue(dead.isEjected());
+
+        // After the backoff the endpoint is tried again; one more failure ejects it for twice as long.
+        now.addAndGet(1000 * MILLI);
+        for (int i = 0; i < 50; i++) {
+            try {
+                transport.invoke(request()).close();
+            } catch (ProcessingException e) {
+                failures++;
+            }
+        }
+        assertEquals(LoadBalancedTransport.EJECT_AFTER_FAILURES + 1, failures);
+        assertFalse(dead.isAvailable(now.get() + 1999 * MILLI));
+        assertTrue(dead.isAvailable(now.get() + 2000 * MILLI));
+    }
+
+    @Test
+    public void testHealthCheck() {
+        final AtomicInteger status = new AtomicInteger(503);
+        LoadBalancedTransport transport = loadBalancer(request -> new StatusResponse(status.get()),
+                respondingAfter(MILLI, new AtomicInteger()));
+        LoadBalancedTransport.Endpoint endpoint = transport.getEndpoints().get(0);
+
+        transport.checkHealth(endpoint, "/health");
+        assertTrue(endpoint.isEjected());
+
+        status.set(200);
+        transport.checkHealth(endpoint, "/health");
+        assertFalse(endpoint.isEjected());
+    }
+
+    @Test
+    public void testHealthChecksDoNotPileUp() throws Exception {
+        final CountDownLatch released = new CountDownLatch(1);
+        final AtomicInteger probes = new AtomicInteger();
+        final AtomicLong timeoutMillis = new AtomicLong(-1);
+        // Hangs until released, whatever its deadline, like a connection that cannot be aborted.
+        LoadBalancedTransport transport = loadBalancer(request -> {
+            probes.incrementAndGet();
+            timeoutMillis.set(Deadline.current().remaining(TimeUnit.MILLISECONDS));
+            try {
+                released.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            throw new ProcessingException("Read timed out");
+        }, respondingAfter(MILLI, new AtomicInteger()));
+        try {
+            transport.startHealthChecks("/health", 20, TimeUnit.MILLISECONDS);
+            Thread.sleep(200);
+            assertEquals(1, probes.get());
+            assertTrue(timeoutMillis.get() <= 20);
+
+            released.countDown();
+            Thread.sleep(200);
+            assertTrue(probes.get() > 1);
+            assertTrue(transport.getEndpoints().get(0).isEjected());
+        } finally {
+            transport.close();
+        }
+    }
+}
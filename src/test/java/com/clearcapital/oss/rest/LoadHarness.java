@@ -0,0 +1,409 @@
+package com.clearcapital.oss.rest;
+
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.PrintStream;
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.Locale;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+import org.HdrHistogram.Histogram;
+import org.HdrHistogram.Recorder;
+
+/**
+ * A load and soak harness: drives a {@link RestClient} against an in-process {@link StubServer} with a mix of
+ * {@code read}, {@code readList}, {@code create} and {@code readStream} calls, and reports the latency distribution,
+ * throughput, allocation rate, GC activity and time spent waiting for connections. For sizing connection pools and
+ * comparing {@link TransportType}s; not run as part of the build.
+ *
+ * <p>
+ * Open-loop runs issue requests at a constant {@code rate}, whatever the response times, as production traffic
+ * arrives. Closed-loop runs keep {@code threads} callers busy, each making its next call once the last returns,
+ * optionally paced to one per {@code interval}. Latency is measured from when each call was due rather than when it
+ * was actually made, so that a stall shows in the tail for every call it held up rather than just the one it hit
+ * (coordinated omission). Unpaced closed-loop runs have no schedule to measure against, and are reported uncorrected.
+ * </p>
+ *
+ * <pre>
+ * java -cp target/test-classes:target/classes:_dependencies_ com.clearcapital.oss.rest.LoadHarness \
+ *     --transport=DIRECT --mode=OPEN --rate=2000 --threads=64 --duration=300 --latency=5 --errors=0.01
+ * </pre>
+ *
+ * <p>
+ * See {@link Options} for the rest of the settings.
+ * </p>
+ */
+public class LoadHarness {
+
+    enum Mode {
+        OPEN, CLOSED
+    }
+
+    enum Operation {
+        READ, READ_LIST, CREATE, READ_STREAM
+    }
+
+    /**
+     * Settings, each given on the command line as {@code --name=value}.
+     */
+    static class Options {
+
+        TransportType transport = TransportType.DIRECT;
+        Mode mode = Mode.OPEN;
+        /** Calls per second, for open-loop runs. */
+        int rate = 500;
+        /** Callers; for open-loop runs, the most calls in flight at once. */
+        int threads = 32;
+        /** Microseconds between each closed-loop caller's calls; 0 for back to back. */
+        long interval = 0;
+        /** Seconds to measure, after {@code warmup} seconds unmeasured. */
+        long duration = 30;
+        long warmup = 5;
+        /** Seconds between progress lines; 0 for none. */
+        long report = 5;
+        /** Milliseconds the stub server takes to answer, plus up to {@code jitter} more. */
+        long latency = 5;
+        long jitter = 0;
+        /** The fraction of calls the stub server answers with a 503. */
+        double errors = 0;
+        /** Relative weights of {@link Operation}s, by name. */
+        String mix = "read=70,readList=10,create=15,readStream=5";
+        int listSize = 20;
+        int streamBytes = 64 * 1024;
+        int maxConnections = RestClient.DEFAULT_MAX_CONNECTIONS;
+        /** If set, the full latency distribution is written here, in HdrHistogram's percentile format. */
+        String hgrm;
+
+        static Options parse(final String... args) {
+            Options result = new Options();
+            for (String arg : args) {
+                int equals = arg.indexOf('=');
+                if (!arg.startsWith("--") || equals < 0) {
+                    throw new IllegalArgumentException("Expected --name=value, not " + arg);
+                }
+                String name = arg.substring(2, equals);
+                String value = arg.substring(equals + 1);
+                switch (name) {
+                case "transport":
+                    result.transport = TransportType.valueOf(value.toUpperCase(Locale.ROOT));
+                    break;
+                case "mode":
+                    result.mode = Mode.valueOf(value.toUpperCase(Locale.ROOT));
+                    break;
+                case "rate":
+                    result.rate = Integer.parseInt(value);
+                    break;
+                case "threads":
+                    result.threads = Integer.parseInt(value);
+                    break;
+                case "interval":
+                    result.interval = Long.parseLong(value);
+                    break;
+                case "duration":
+                    result.duration = Long.parseLong(value);
+                    break;
+                case "warmup":
+                    result.warmup = Long.parseLong(value);
+                    break;
+                case "report":
+                    result.report = Long.parseLong(value);
+                    break;
+                case "latency":
+                    result.latency = Long.parseLong(value);
+                    break;
+                case "jitter":
+                    result.jitter = Long.parseLong(value);
+                    break;
+                case "errors":
+                    result.errors = Double.parseDouble(value);
+                    break;
+                case "mix":
+                    result.mix = value;
+                    break;
+                case "listSize":
+                    result.listSize = Integer.parseInt(value);
+                    break;
+                case "streamBytes":
+                    result.streamBytes = Integer.parseInt(value);
+                    break;
+                case "maxConnections":
+                    result.maxConnections = Integer.parseInt(value);
+                    break;
+                case "hgrm":
+                    result.hgrm = value;
+                    break;
+                default:
+                    throw new IllegalArgumentException("Unknown option " + name);
+                }
+            }
+            return result;
+        }
+
+        /**
+         * @return the cumulative weight of each {@link Operation}, in order.
+         */
+        int[] weights() {
+            int[] result = new int[Operation.values().length];
+            for (String entry : mix.split(",")) {
+                String[] pair = entry.trim().split("=");
+                String name = pair[0].trim().replaceAll("([a-z])([A-Z])", "$1_$2").toUpperCase(Locale.ROOT);
+                result[Operation.valueOf(name).ordinal()] = Integer.parseInt(pair[1].trim());
+            }
+            for (int i = 1; i < result.length; i++) {
+                result[i] += result[i - 1];
+            }
+            if (result[result.length - 1] <= 0) {
+                throw new IllegalArgumentException("No operations in mix " + mix);
+            }
+            return result;
+        }
+    }
+
+    /**
+     * What one measured run did.
+     */
+    static class Result {
+
+        final Histogram latency = new Histogram(3);
+        final Histogram connect = new Histogram(3);
+        final LongAdder errors = new LongAdder();
+        final LongAdder allocatedBytes = new LongAdder();
+        boolean corrected;
+        long elapsedNanos;
+        long gcCount;
+        long gcMillis;
+
+        long getOperations() {
+            return latency.getTotalCount();
+        }
+
+        double getThroughput() {
+            return getOperations() / (elapsedNanos / 1e9);
+        }
+
+        void print(final PrintStream out) {
+            double seconds = elapsedNanos / 1e9;
+            out.printf(Locale.ROOT, "%d calls, %d errors in %.1fs: %.1f calls/s%n", getOperations(), errors.sum(),
+                    seconds, getThroughput());
+            out.printf(Locale.ROOT, "latency%s (ms): %s%n", corrected ? "" : " (uncorrected)", percentiles(latency));
+            if (connect.getTotalCount() > 0) {
+                out.printf(Locale.ROOT, "connection wait (ms): %s%n", percentiles(connect));
+            }
+            long allocated = allocatedBytes.sum();
+            out.printf(Locale.ROOT, "allocated by callers: %.1f MB/s, %d bytes/call%n", allocated / seconds / 1e6,
+                    getOperations() > 0 ? allocated / getOperations() : 0);
+            out.printf(Locale.ROOT, "GC (whole JVM): %d collections, %d ms%n", gcCount, gcMillis);
+        }
+
+        private static String percentiles(final Histogram histogram) {
+            return String.format(Locale.ROOT, "p50 %.2f, p90 %.2f, p99 %.2f, p99.9 %.2f, p99.99 %.2f, max %.2f",
+                    millis(histogram.getValueAtPercentile(50)), millis(histogram.getValueAtPercentile(90)),
+                    millis(histogram.getValueAtPercentile(99)), millis(histogram.getValueAtPercentile(99.9)),
+                    millis(histogram.getValueAtPercentile(99.99)), millis(histogram.getMaxValue()));
+        }
+
+        private static double millis(final long nanos) {
+            return nanos / 1e6;
+        }
+    }
+
+    public static void main(final String[] args) throws Exception {
+        Options options = Options.parse(args);
+        Result result = run(options, System.out);
+        result.print(System.out);
+        if (options.hgrm != null) {
+            try (PrintStream out = new PrintStream(new FileOutputStream(options.hgrm), false, "UTF-8")) {
+                result.latency.outputPercentileDistribution(out, 1e6);
+            }
+        }
+        System.exit(0);
+    }
+
+    static Result run(final Options options, final PrintStream progress) throws Exception {
+        try (StubServer server = new StubServer(options.latency, options.jitter, TimeUnit.MILLISECONDS, options.errors,
+                options.listSize, options.streamBytes)) {
+            RestClient restClient = new RestClient(RestClientConfiguration.builder().setUri(server.getUri())
+                    .setKey("load").setPassword("harness").setWithLoggingFilter(false)
+                    .setTransport(options.transport).setMaxConnections(options.maxConnections)
+                    .setMaxConnectionsPerRoute(options.maxConnections).build());
+            try {
+                SessionClient<DemoRestableObject> client = new BaseResourceClient<>(restClient.getTransport(),
+                        DemoRestableObject.class, StubServer.V1_ENTRIES).withSession(1L);
+                Recorder connect = new Recorder(3);
+                restClient.addTimingListener(timing -> {
+                    if (timing.getConnectNanos() >= 0) {
+                        connect.recordValue(timing.getConnectNanos());
+                    }
+                });
+
+                if (options.warmup > 0) {
+                    drive(options, client, TimeUnit.SECONDS.toNanos(options.warmup), new Result(), null);
+                    connect.reset();
+                }
+
+                Result result = new Result();
+                long gcCount = gcCount();
+                long gcMillis = gcMillis();
+                drive(options, client, TimeUnit.SECONDS.toNanos(options.duration), result, progress);
+                result.gcCount = gcCount() - gcCount;
+                result.gcMillis = gcMillis() - gcMillis;
+                result.connect.add(connect.getIntervalHistogram());
+                return result;
+            } finally {
+                restClient.close();
+            }
+        }
+    }
+
+    /**
+     * Make calls for {@code durationNanos}, recording them in {@code result}, and wait for the last to finish.
+     */
+    private static void drive(final Options options, final SessionClient<DemoRestableObject> client,
+            final long durationNanos, final Result result, final PrintStream progress) throws InterruptedException {
+        int[] weights = options.weights();
+        Recorder latency = new Recorder(3);
+        ExecutorService callers = Executors.newFixedThreadPool(options.threads, countingAllocations(result));
+        ScheduledExecutorService reporter = Executors.newSingleThreadScheduledExecutor();
+        long start = System.nanoTime();
+        long end = start + durationNanos;
+        if (progress != null && options.report > 0) {
+            reporter.scheduleAtFixedRate(() -> {
+                Histogram interval = latency.getIntervalHistogram();
+                synchronized (result) {
+                    result.latency.add(interval);
+                }
+                progress.printf(Locale.ROOT, "%6.1fs %8.1f calls/s, p99 %.2f ms, max %.2f ms%n",
+                        (System.nanoTime() - start) / 1e9, interval.getTotalCount() / (double) options.report,
+                        interval.getValueAtPercentile(99) / 1e6, interval.getMaxValue() / 1e6);
+            }, options.report, options.report, TimeUnit.SECONDS);
+        }
+
+        if (options.mode == Mode.OPEN) {
+            long period = TimeUnit.SECONDS.toNanos(1) / Math.max(1, options.rate);
+            for (long due = start; due < end; due += period) {
+                long wait = due - System.nanoTime();
+                if (wait > 0) {
+                    LockSupport.parkNanos(wait);
+                }
+                long intended = due;
+                callers.execute(() -> call(client, weights, intended, latency, result));
+            }
+        } else {
+            long period = TimeUnit.MICROSECONDS.toNanos(options.interval);
+            for (int i = 0; i < options.threads; i++) {
+                callers.execute(() -> {
+                    long next = start;
+                    while (true) {
+                        long intended;
+                        if (period > 0) {
+                            intended = next;
+                            next += period;
+                            long wait = intended - System.nanoTime();
+                            if (wait > 0) {
+                                LockSupport.parkNanos(wait);
+                            }
+                        } else {
+                            intended = System.nanoTime();
+                        }
+                        if (intended >= end) {
+                            return;
+                        }
+                        call(client, weights, intended, latency, result);
+                    }
+                });
+            }
+        }
+
+        callers.shutdown();
+        callers.awaitTermination(Long.MAX_VALUE, TimeUnit.NANOSECONDS);
+        reporter.shutdownNow();
+        reporter.awaitTermination(Long.MAX_VALUE, TimeUnit.NANOSECONDS);
+        result.elapsedNanos = System.nanoTime() - start;
+        result.corrected = options.mode == Mode.OPEN || options.interval > 0;
+        synchronized (result) {
+            result.latency.add(latency.getIntervalHistogram());
+        }
+    }
+
+    private static void call(final SessionClient<DemoRestableObject> client, final int[] weights, final long intended,
+            final Recorder latency, final Result result) {
+        try {
+            ThreadLocalRandom random = ThreadLocalRandom.current();
+            int pick = random.nextInt(weights[weights.length - 1]);
+            long id = 1 + random.nextInt(1000);
+            switch (pick < weights[0] ? Operation.READ
+                    : pick < weights[1] ? Operation.READ_LIST
+                            : pick < weights[2] ? Operation.CREATE : Operation.READ_STREAM) {
+            case READ:
+                client.read(id);
+                break;
+            case READ_LIST:
+                client.readList(DemoRestableObject.listGenericType);
+                break;
+            case CREATE:
+                client.create(DemoRestableObject.builder().setEntry("entry" + id).build());
+                break;
+            case READ_STREAM:
+                try (InputStream in = client.readStream(id, ".bin")) {
+                    byte[] buffer = new byte[8192];
+                    while (in.read(buffer) >= 0) {
+                        // drain
+                    }
+                }
+                break;
+            }
+        } catch (IOException | RuntimeException e) {
+            result.errors.increment();
+        } finally {
+            latency.recordValue(System.nanoTime() - intended);
+        }
+    }
+
+    /**
+     * Threads that add what they allocated to {@code result} as they finish.
+     */
+    private static ThreadFactory countingAllocations(final Result result) {
+        ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+        return runnable -> new Thread(() -> {
+            long before = allocatedBytes(bean);
+            try {
+                runnable.run();
+            } finally {
+                result.allocatedBytes.add(allocatedBytes(bean) - before);
+            }
+        }, "load-harness");
+    }
+
+    private static long allocatedBytes(final ThreadMXBean bean) {
+        if (bean instanceof com.sun.management.ThreadMXBean) {
+            return ((com.sun.management.ThreadMXBean) bean).getThreadAllocatedBytes(Thread.currentThread().getId());
+        }
+        return 0;
+    }
+
+    private static long gcCount() {
+        long total = 0;
+        for (GarbageCollectorMXBean bean : ManagementFactory.getGarbageCollectorMXBeans()) {
+            total += Math.max(0, bean.getCollectionCount());
+        }
+        return total;
+    }
+
+    private static long gcMillis() {
+        long total = 0;
+        for (GarbageCollectorMXBean bean : ManagementFactory.getGarbageCollectorMXBeans()) {
+            total += Math.max(0, bean.getCollectionTime());
+        }
+        return total;
+    }
+}
@@ -0,0 +1,45 @@
+package com.clearcapital.oss.rest;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayOutputStream;
+import java.io.PrintStream;
+
+import org.junit.Test;
+
+/**
+ * Short runs of {@link LoadHarness}, to keep it working; real runs are made by hand.
+ */
+public class LoadHarnessTest {
+
+    @Test
+    public void testOpenLoop() throws Exception {
+        LoadHarness.Options options = LoadHarness.Options.parse("--mode=open", "--rate=200", "--duration=1",
+                "--warmup=0", "--latency=1", "--report=0");
+        LoadHarness.Result result = LoadHarness.run(options, null);
+
+        assertEquals(200, result.getOperations(), 5);
+        assertEquals(0, result.errors.sum());
+        assertTrue(result.corrected);
+        assertTrue(result.latency.getValueAtPercentile(50) >= 1000000);
+        assertTrue(result.connect.getTotalCount() > 0);
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        result.print(new PrintStream(out, true, "UTF-8"));
+        assertTrue(out.toString("UTF-8").contains("calls/s"));
+    }
+
+    @Test
+    public void testClosedLoopWithErrors() throws Exception {
+        LoadHarness.Options options = LoadHarness.Options.parse("--mode=closed", "--threads=4", "--duration=1",
+                "--warmup=0", "--latency=0", "--errors=0.5", "--transport=default", "--mix=read=1,readStream=1");
+        LoadHarness.Result result = LoadHarness.run(options, null);
+
+        assertTrue(result.getOperations() > 0);
+        assertTrue(result.errors.sum() > 0);
+        assertTrue(result.errors.sum() < result.getOperations());
+        assertFalse(result.corrected);
+    }
+}
@@ -0,0 +1,141 @@
+package com.clearcapital.oss.rest;
+
+import static com.github.tomakehurst.wiremock.client.WireMock.aResponse;
+import static com.github.tomakehurst.wiremock.client.WireMock.get;
+import static com.github.tomakehurst.wiremock.client.WireMock.stubFor;
+import static com.github.tomakehurst.wiremock.client.WireMock.urlPathEqualTo;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.net.URI;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+
+import javax.ws.rs.HttpMethod;
+import javax.ws.rs.ProcessingException;
+import javax.ws.rs.core.HttpHeaders;
+import javax.ws.rs.core.MediaType;
+import javax.ws.rs.core.Response.Status;
+
+import org.apache.http.entity.ContentType;
+import org.junit.Rule;
+import org.junit.Test;
+
+import com.clearcapital.oss.json.JsonSerializer;
+import com.github.tomakehurst.wiremock.junit.WireMockRule;
+
+public class LoggingTransportTest {
+
+    private static final String APPLICATION_JSON = ContentType.APPLICATION_JSON.getMimeType();
+    private static final String CONTENT_TYPE = "Content-Type";
+    private static final String BASE_URI = "http://localhost:5309";
+    private static final String V1_ENTRIES = "/v1/entries";
+
+    @Rule
+    public WireMockRule wireMockRule = new WireMockRule(5309);
+
+    private final List<String> written = new ArrayList<>();
+    private final Queue<Runnable> writers = new ArrayDeque<>();
+
+    private RequestLog log(int capacity) {
+        return new RequestLog(capacity, written::add, writers::add);
+    }
+
+    private void runWriters() {
+        Runnable writer;
+        while ((writer = writers.poll()) != null) {
+            writer.run();
+        }
+    }
+
+    @Test
+    public void testRedactsAndTruncates() {
+        RequestLog log = log(8);
+        RestTransport transport = new LoggingTransport(
+                request -> new LoadBalancedTransportTest.StatusResponse(Status.CREATED.getStatusCode()), log, 1, 16,
+                new JacksonEntityCodec(RestClient.buildObjectMapper(WireFormat.JSON)));
+        DemoRestableObject entity = DemoRestableObject.builder().setEntry("a rather long entry").build();
+        transport.invoke(RestRequest.builder(HttpMethod.POST).addPath(V1_ENTRIES).addPath("1")
+                .addHeader(HttpHeaders.COOKIE, "theme=dark; " + BaseResourceClient.sessionCookie(42))
+                .addHeader(HttpHeaders.AUTHORIZATION, "Basic c2VjcmV0").addCookie("X-SessionId", "42")
+                .setEntity(entity, MediaType.APPLICATION_JSON).build());
+        assertEquals(1, log.getQueued());
+        assertTrue(written.isEmpty());
+        runWriters();
+
+        assertEquals(1, written.size());
+        String record = written.get(0);
+        assertTrue(record, record.startsWith("POST /v1/entries/1\n"));
+        assertTrue(record, record.contains("> Cookie: theme=dark; X-SessionId=<redacted>\n"));
+        assertTrue(record, record.contains("> Authorization: <redacted>\n"));
+        assertTrue(record, record.contains("> Cookie: X-SessionId=<redacted>\n"));
+        assertTrue(record, record.contains("> {\"entry\":\"a rath... (more than 16 bytes)\n"));
+        assertTrue(record, record.contains("< 201 in "));
+        assertFalse(record, record.contains("42"));
+        assertFalse(record, record.contains("c2VjcmV0"));
+    }
+
+    @Test
+    public void testDropsWhenFull() {
+        RequestLog log = log(2);
+        RestTransport transport = new LoggingTransport(request -> {
+            throw new ProcessingException("refused");
+        }, log, 1, 0, null);
+        for (int i = 0; i < 3; i++) {
+            try {
+                transport.invoke(RestRequest.builder(HttpMethod.GET).addPath(V1_ENTRIES).build());
+                fail("Should've thrown");
+            } catch (ProcessingException e) {
+                // (yey)
+            }
+        }
+        assertEquals(1, writers.size());
+        assertEquals(2, log.getQueued());
+        assertEquals(1, log.getDropped());
+        runWriters();
+        assertEquals(2, log.getWritten());
+        assertTrue(written.get(0), written.get(0).contains("< failed: javax.ws.rs.ProcessingException: refused"));
+
+        log.close();
+        assertFalse(log.offer("after close"));
+        assertEquals(2, log.getDropped());
+    }
+
+    @Test
+    public void testSamples() {
+        RequestLog log = log(8);
+        RestTransport transport = new LoggingTransport(
+                request -> new LoadBalancedTransportTest.StatusResponse(Status.OK.getStatusCode()), log, 0, 0, null);
+        transport.invoke(RestRequest.builder(HttpMethod.GET).addPath(V1_ENTRIES).build());
+        assertEquals(0, log.getQueued());
+        assertEquals(0, log.getDropped());
+    }
+
+    @Test
+    public void testConfiguredOnRestClient() throws Exception {
+        stubFor(get(urlPathEqualTo(V1_ENTRIES + "/1")).willReturn(aResponse().withStatus(Status.OK.getStatusCode())
+                .withHeader(CONTENT_TYPE, APPLICATION_JSON).withBody(JsonSerializer.getInstance()
+                        .getStringRepresentation(DemoRestableObject.builder().setEntry("foo").build()))));
+
+        RestClient restClient = new RestClient(RestClientConfiguration.builder().setUri(new URI(BASE_URI))
+                .setKey("someone@somewhere.com").setPassword("Passw0rd").setWithLoggingFilter(false)
+                .setTransport(TransportType.DIRECT).setRequestLogSampleRate(1.0).build());
+        try {
+            BaseResourceClient<DemoRestableObject> client = new BaseResourceClient<>(restClient.getTransport(),
+                    DemoRestableObject.class, V1_ENTRIES);
+            client.read(1L, 7L);
+            RequestLog log = restClient.getRequestLog();
+            long deadline = System.currentTimeMillis() + 5000;
+            while (log.getWritten() < 1 && System.currentTimeMillis() < deadline) {
+                Thread.sleep(10);
+            }
+            assertEquals(1, log.getWritten());
+        } finally {
+            restClient.close();
+        }
+    }
+}
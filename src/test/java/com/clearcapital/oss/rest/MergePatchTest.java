@@ -0,0 +1,124 @@
+package com.clearcapital.oss.rest;
+
+import static com.github.tomakehurst.wiremock.client.WireMock.aResponse;
+import static com.github.tomakehurst.wiremock.client.WireMock.containing;
+import static com.github.tomakehurst.wiremock.client.WireMock.equalToJson;
+import static com.github.tomakehurst.wiremock.client.WireMock.get;
+import static com.github.tomakehurst.wiremock.client.WireMock.patch;
+import static com.github.tomakehurst.wiremock.client.WireMock.patchRequestedFor;
+import static com.github.tomakehurst.wiremock.client.WireMock.put;
+import static com.github.tomakehurst.wiremock.client.WireMock.putRequestedFor;
+import static com.github.tomakehurst.wiremock.client.WireMock.stubFor;
+import static com.github.tomakehurst.wiremock.client.WireMock.urlPathEqualTo;
+import static com.github.tomakehurst.wiremock.client.WireMock.verify;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.net.URI;
+
+import javax.ws.rs.core.Response.Status;
+
+import org.apache.http.entity.ContentType;
+import org.apache.http.impl.client.HttpClients;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+
+import com.clearcapital.oss.json.JsonSerializer;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.tomakehurst.wiremock.junit.WireMockRule;
+
+public class MergePatchTest {
+
+    private static final String APPLICATION_JSON = ContentType.APPLICATION_JSON.getMimeType();
+    private static final String CONTENT_TYPE = "Content-Type";
+    private static final String BASE_URI = "http://localhost:5309";
+    private static final String V1_ENTRIES = "/v1/entries";
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private HttpClientTransport transport;
+    private BaseResourceClient<DemoRestableObject> client;
+
+    @Rule
+    public WireMockRule wireMockRule = new WireMockRule(5309);
+
+    @Before
+    public void beforeTest() throws Exception {
+        transport = new HttpClientTransport(HttpClients.createDefault(), new URI(BASE_URI),
+                new JacksonEntityCodec(objectMapper));
+        client = new BaseResourceClient<>(transport, DemoRestableObject.class, V1_ENTRIES);
+        client.setEntitySnapshots(new EntitySnapshots(objectMapper, 16), null);
+    }
+
+    @After
+    public void afterTest() throws Exception {
+        transport.close();
+    }
+
+    private JsonNode json(String value) throws Exception {
+        return objectMapper.readTree(value.replace('\'', '"'));
+    }
+
+    private static String body(DemoRestableObject entity) throws Exception {
+        return JsonSerializer.getInstance().getStringRepresentation(entity);
+    }
+
+    @Test
+    public void testDiff() throws Exception {
+        JsonNode source = json("{'a':1,'b':{'c':2,'d':[1,2]},'e':'x','f':null}");
+        JsonNode target = json("{'a':1,'b':{'c':3,'d':[1,2]},'g':true,'f':null}");
+
+        JsonNode patch = MergePatch.diff(source, target);
+        assertEquals(json("{'b':{'c':3},'e':null,'g':true}"), patch);
+        assertEquals(json("{'a':1,'b':{'c':3,'d':[1,2]},'f':null,'g':true}"), MergePatch.apply(source, patch));
+        assertTrue(MergePatch.isEmpty(MergePatch.diff(target, target)));
+        assertEquals(json("[3]"), MergePatch.diff(json("[1,2]"), json("[3]")));
+    }
+
+    @Test
+    public void testPatchAfterRead() throws Exception {
+        DemoRestableObject original = DemoRestableObject.builder().setEntry("foo").build();
+        DemoRestableObject modified = DemoRestableObject.builder().setEntry("bar").build();
+        stubFor(get(urlPathEqualTo(V1_ENTRIES + "/1")).willReturn(aResponse().withStatus(Status.OK.getStatusCode())
+                .withHeader(CONTENT_TYPE, APPLICATION_JSON).withBody(body(original))));
+        stubFor(patch(urlPathEqualTo(V1_ENTRIES + "/1")).withHeader(CONTENT_TYPE, containing(MergePatch.MEDIA_TYPE))
+                .withRequestBody(equalToJson("{\"entry\":\"bar\"}"))
+                .willReturn(aResponse().withStatus(Status.OK.getStatusCode())
+                        .withHeader(CONTENT_TYPE, APPLICATION_JSON).withBody(body(modified))));
+
+        assertEquals(original, client.read(1L, 1L));
+        assertEquals(modified, client.patch(1L, modified, 1L));
+        verify(0, putRequestedFor(urlPathEqualTo(V1_ENTRIES + "/1")));
+    }
+
+    @Test
+    public void testPatchWithoutSnapshotPuts() throws Exception {
+        DemoRestableObject modified = DemoRestableObject.builder().setEntry("bar").build();
+        stubFor(put(urlPathEqualTo(V1_ENTRIES + "/1")).willReturn(aResponse().withStatus(Status.OK.getStatusCode())
+                .withHeader(CONTENT_TYPE, APPLICATION_JSON).withBody(body(modified))));
+
+        assertEquals(modified, client.patch(1L, modified, 1L));
+        verify(0, patchRequestedFor(urlPathEqualTo(V1_ENTRIES + "/1")));
+    }
+
+    @Test
+    public void testPatchRefused() throws Exception {
+        DemoRestableObject original = DemoRestableObject.builder().setEntry("foo").build();
+        DemoRestableObject modified = DemoRestableObject.builder().setEntry("bar").build();
+        stubFor(get(urlPathEqualTo(V1_ENTRIES + "/1")).willReturn(aResponse().withStatus(Status.OK.getStatusCode())
+                .withHeader(CONTENT_TYPE, APPLICATION_JSON).withBody(body(original))));
+        stubFor(patch(urlPathEqualTo(V1_ENTRIES + "/1"))
+                .willReturn(aResponse().withStatus(Status.METHOD_NOT_ALLOWED.getStatusCode())));
+        stubFor(put(urlPathEqualTo(V1_ENTRIES + "/1")).willReturn(aResponse().withStatus(Status.OK.getStatusCode())
+                .withHeader(CONTENT_TYPE, APPLICATION_JSON).withBody(body(modified))));
+
+        client.read(1L, 1L);
+        assertEquals(modified, client.patch(1L, modified, 1L));
+        client.read(1L, 1L);
+        assertEquals(modified, client.patch(1L, modified, 1L));
+        verify(1, patchRequestedFor(urlPathEqualTo(V1_ENTRIES + "/1")));
+        verify(2, putRequestedFor(urlPathEqualTo(V1_ENTRIES + "/1")));
+    }
+}
@@ -0,0 +1,172 @@
+package com.clearcapital.oss.rest;
+
+import static com.github.tomakehurst.wiremock.client.WireMock.aResponse;
+import static com.github.tomakehurst.wiremock.client.WireMock.equalTo;
+import static com.github.tomakehurst.wiremock.client.WireMock.get;
+import static com.github.tomakehurst.wiremock.client.WireMock.stubFor;
+import static com.github.tomakehurst.wiremock.client.WireMock.urlPathEqualTo;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.fail;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import javax.ws.rs.InternalServerErrorException;
+import javax.ws.rs.client.ClientBuilder;
+import javax.ws.rs.client.WebTarget;
+import javax.ws.rs.core.MultivaluedHashMap;
+import javax.ws.rs.core.MultivaluedMap;
+import javax.ws.rs.core.Response.Status;
+
+import org.apache.http.entity.ContentType;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+
+import com.clearcapital.oss.json.JsonSerializer;
+import com.github.tomakehurst.wiremock.junit.WireMockRule;
+import com.google.common.collect.ImmutableList;
+
+public class PageIteratorTest {
+
+    private static final String APPLICATION_JSON = ContentType.APPLICATION_JSON.getMimeType();
+    private static final String CONTENT_TYPE = "Content-Type";
+    private static final String BASE_URI = "http://localhost:5309";
+    private static final String V1_ENTRIES = "/v1/entries";
+
+    private BaseResourceClient<DemoRestableObject> client;
+
+    @Rule
+    public WireMockRule wireMockRule = new WireMockRule(5309);
+
+    @Before
+    public void beforeTest() {
+        WebTarget webTarget = ClientBuilder.newClient().target(BASE_URI);
+        client = new BaseResourceClient<>(webTarget, DemoRestableObject.class, V1_ENTRIES);
+    }
+
+    private static List<DemoRestableObject> entries(String... values) {
+        List<DemoRestableObject> result = new ArrayList<>();
+        for (String value : values) {
+            result.add(DemoRestableObject.builder().setEntry(value).build());
+        }
+        return result;
+    }
+
+    private static List<DemoRestableObject> drain(PageIterator<DemoRestableObject> iterator) {
+        List<DemoRestableObject> result = new ArrayList<>();
+        while (iterator.hasNext()) {
+            result.add(iterator.next());
+        }
+        return result;
+    }
+
+    private void stubOffsetPage(String offset, Status status, List<DemoRestableObject> page) throws Exception {
+        stubFor(get(urlPathEqualTo(V1_ENTRIES)).withQueryParam("offset", equalTo(offset))
+                .withQueryParam("limit", equalTo("2")).withQueryParam("kind", equalTo("demo"))
+                .willReturn(aResponse().withStatus(status.getStatusCode()).withHeader(CONTENT_TYPE, APPLICATION_JSON)
+                        .withBody(JsonSerializer.getInstance().getStringRepresentation(page))));
+    }
+
+    private MultivaluedMap<String, String> kindParams() {
+        MultivaluedMap<String, String> result = new MultivaluedHashMap<>();
+        result.putSingle("kind", "demo");
+        return result;
+    }
+
+    @Test
+    public void testOffsetLimitWithPrefetch() throws Exception {
+        stubOffsetPage("0", Status.OK, entries("a", "b"));
+        stubOffsetPage("2", Status.OK, entries("c", "d"));
+        stubOffsetPage("4", Status.OK, entries("e"));
+
+        try (PageIterator<DemoRestableObject> iterator = client.readPages(1L, kindParams(),
+                DemoRestableObject.listGenericType, PageStrategy.offsetLimit("offset", "limit", 2), 2)) {
+            assertEquals(entries("a", "b", "c", "d", "e"), drain(iterator));
+        }
+    }
+
+    @Test
+    public void testOffsetLimitWithoutPrefetch() throws Exception {
+        stubOffsetPage("0", Status.OK, entries("a", "b"));
+        stubOffsetPage("2", Status.OK, entries());
+
+        try (PageIterator<DemoRestableObject> iterator = client.readPages(1L, kindParams(),
+                DemoRestableObject.listGenericType, PageStrategy.offsetLimit("offset", "limit", 2), 0)) {
+            assertEquals(entries("a", "b"), drain(iterator));
+        }
+    }
+
+    @Test
+    public void testErrorSurfacesAfterEarlierPages() throws Exception {
+        stubOffsetPage("0", Status.OK, entries("a", "b"));
+        stubOffsetPage("2", Status.INTERNAL_SERVER_ERROR, entries());
+
+        try (PageIterator<DemoRestableObject> iterator = client.readPages(1L, kindParams(),
+                DemoRestableObject.listGenericType, PageStrategy.offsetLimit("offset", "limit", 2), 1)) {
+            assertEquals(entries("a", "b").get(0), iterator.next());
+            assertEquals(entries("a", "b").get(1), iterator.next());
+            try {
+                iterator.hasNext();
+                fail("Should've thrown");
+            } catch (InternalServerErrorException e) {
+                // (yey)
+            }
+            assertFalse(iterator.hasNext());
+        }
+    }
+
+    @Test
+    public void testCursor() throws Exception {
+        // WireMock prefers the most recent matching stub, so the unqualified first page goes first.
+        stubFor(get(urlPathEqualTo(V1_ENTRIES))
+                .willReturn(aResponse().withStatus(Status.OK.getStatusCode()).withHeader(CONTENT_TYPE, APPLICATION_JSON)
+                        .withHeader("X-Next-Cursor", "abc")
+                        .withBody(JsonSerializer.getInstance().getStringRepresentation(entries("a")))));
+        stubFor(get(urlPathEqualTo(V1_ENTRIES)).withQueryParam("cursor", equalTo("abc"))
+                .willReturn(aResponse().withStatus(Status.OK.getStatusCode()).withHeader(CONTENT_TYPE, APPLICATION_JSON)
+                        .withBody(JsonSerializer.getInstance().getStringRepresentation(entries("b")))));
+
+        try (PageIterator<DemoRestableObject> iterator = client.readPages(1L, null,
+                DemoRestableObject.listGenericType, PageStrategy.cursor("cursor", "X-Next-Cursor"), 1)) {
+            assertEquals(entries("a", "b"), drain(iterator));
+        }
+    }
+
+    @Test
+    public void testLinkHeader() throws Exception {
+        stubFor(get(urlPathEqualTo(V1_ENTRIES))
+                .willReturn(aResponse().withStatus(Status.OK.getStatusCode()).withHeader(CONTENT_TYPE, APPLICATION_JSON)
+                        .withHeader("Link", "<" + BASE_URI + V1_ENTRIES + "?page=2>; rel=\"next\", <"
+                                + BASE_URI + V1_ENTRIES + "?page=9>; rel=\"last\"")
+                        .withBody(JsonSerializer.getInstance().getStringRepresentation(entries("a")))));
+        stubFor(get(urlPathEqualTo(V1_ENTRIES)).withQueryParam("page", equalTo("2"))
+                .willReturn(aResponse().withStatus(Status.OK.getStatusCode()).withHeader(CONTENT_TYPE, APPLICATION_JSON)
+                        .withBody(JsonSerializer.getInstance().getStringRepresentation(entries("b")))));
+
+        try (PageIterator<DemoRestableObject> iterator = client.readPages(1L, null,
+                DemoRestableObject.listGenericType, PageStrategy.linkHeader(), 1)) {
+            assertEquals(entries("a", "b"), drain(iterator));
+        }
+    }
+
+    @Test
+    public void testFindNextLink() {
+        assertEquals("/x?page=2",
+                LinkHeaderPageStrategy.findNextLink("</x?page=1>; rel=prev, </x?page=2>; rel=\"next last\""));
+        assertEquals("/x?page=2", LinkHeaderPageStrategy.findNextLink("</x?page=2>; rel=next, </x?page=9>; rel=last"));
+        assertNull(LinkHeaderPageStrategy.findNextLink("</x?page=1>; rel=\"prev\""));
+        assertNull(LinkHeaderPageStrategy.findNextLink(null));
+    }
+
+    @Test
+    public void testOffsetLimitParams() {
+        PageStrategy strategy = new OffsetLimitPageStrategy("offset", "limit", 2);
+        MultivaluedMap<String, String> first = strategy.firstPage(null);
+        assertEquals("0", first.getFirst("offset"));
+        assertEquals("2", strategy.nextPage(first, ImmutableList.of(1, 2), null).getFirst("offset"));
+        assertNull(strategy.nextPage(first, ImmutableList.of(1), null));
+    }
+}
@@ -0,0 +1,165 @@
+package com.clearcapital.oss.rest;
+
+import static com.github.tomakehurst.wiremock.client.WireMock.aResponse;
+import static com.github.tomakehurst.wiremock.client.WireMock.get;
+import static com.github.tomakehurst.wiremock.client.WireMock.getRequestedFor;
+import static com.github.tomakehurst.wiremock.client.WireMock.stubFor;
+import static com.github.tomakehurst.wiremock.client.WireMock.urlPathEqualTo;
+import static com.github.tomakehurst.wiremock.client.WireMock.verify;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.util.Collections;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import javax.ws.rs.ClientErrorException;
+import javax.ws.rs.client.ClientBuilder;
+import javax.ws.rs.client.WebTarget;
+import javax.ws.rs.core.Response.Status;
+
+import org.apache.http.entity.ContentType;
+import org.junit.Rule;
+import org.junit.Test;
+
+import com.github.tomakehurst.wiremock.junit.WireMockRule;
+
+public class RateLimiterTest {
+
+    private static final String APPLICATION_JSON = ContentType.APPLICATION_JSON.getMimeType();
+    private static final String CONTENT_TYPE = "Content-Type";
+    private static final String BASE_URI = "http://localhost:5309";
+    private static final String V1_ENTRIES = "/v1/entries";
+    private static final long SECOND = TimeUnit.SECONDS.toNanos(1);
+
+    private final AtomicLong now = new AtomicLong();
+
+    @Rule
+    public WireMockRule wireMockRule = new WireMockRule(5309);
+
+    @Test
+    public void testBurstThenSpaced() {
+        RateLimiter limiter = new RateLimiter(10, 3, now::get);
+
+        assertTrue(limiter.tryAcquire());
+        assertTrue(limiter.tryAcquire());
+        assertTrue(limiter.tryAcquire());
+        assertFalse(limiter.tryAcquire());
+
+        now.addAndGet(SECOND / 10);
+        assertTrue(limiter.tryAcquire());
+        assertFalse(limiter.tryAcquire());
+    }
+
+    @Test
+    public void testThrottledThenRecovers() {
+        RateLimiter limiter = new RateLimiter(10, 1, now::get);
+
+        limiter.onThrottled(2 * SECOND);
+        assertEquals(5.0, limiter.getPermitsPerSecond(), 0.001);
+        now.addAndGet(SECOND);
+        assertFalse(limiter.tryAcquire());
+        now.addAndGet(SECOND);
+        assertTrue(limiter.tryAcquire());
+
+        for (int i = 0; i < 1000; i++) {
+            limiter.onSuccess();
+        }
+        assertEquals(10.0, limiter.getPermitsPerSecond(), 0.001);
+    }
+
+    @Test
+    public void testThrottledOncePerWindow() {
+        RateLimiter limiter = new RateLimiter(10, 1, now::get);
+
+        for (int i = 0; i < 5; i++) {
+            limiter.onThrottled(2 * SECOND);
+        }
+        assertEquals(5.0, limiter.getPermitsPerSecond(), 0.001);
+
+        now.addAndGet(SECOND);
+        limiter.onThrottled(0);
+        assertEquals(5.0, limiter.getPermitsPerSecond(), 0.001);
+
+        now.addAndGet(SECOND);
+        limiter.onThrottled(0);
+        assertEquals(2.5, limiter.getPermitsPerSecond(), 0.001);
+        limiter.onThrottled(0);
+        assertEquals(2.5, limiter.getPermitsPerSecond(), 0.001);
+    }
+
+    @Test
+    public void testTransportReleasesUriPermitWhenTargetIsExhausted() {
+        RateLimiter targetLimiter = new RateLimiter(1, 1, now::get);
+        RateLimiter uriLimiter = new RateLimiter(1, 1, now::get);
+        assertTrue(targetLimiter.tryAcquire());
+
+        WebTarget webTarget = ClientBuilder.newClient().target(BASE_URI);
+        RateLimitedTransport transport = new RateLimitedTransport(new JerseyTransport(webTarget), targetLimiter,
+                Collections.singletonMap(V1_ENTRIES, uriLimiter), 0, TimeUnit.MILLISECONDS);
+        BaseResourceClient<DemoRestableObject> client = new BaseResourceClient<>(transport, DemoRestableObject.class,
+                V1_ENTRIES);
+
+        try {
+            client.read(7L);
+            fail("expected the target limiter to hold the request back");
+        } catch (RateLimitExceededException e) {
+            // expected
+        }
+        assertTrue(uriLimiter.tryAcquire());
+        verify(0, getRequestedFor(urlPathEqualTo(V1_ENTRIES + "/7")));
+    }
+
+    @Test
+    public void testParseRetryAfter() {
+        assertEquals(3 * SECOND, RateLimitedTransport.parseRetryAfter("3", 0));
+        assertEquals(0, RateLimitedTransport.parseRetryAfter(null, 0));
+        assertEquals(0, RateLimitedTransport.parseRetryAfter("soon", 0));
+        assertEquals(2 * SECOND, RateLimitedTransport.parseRetryAfter("Thu, 01 Jan 1970 00:00:02 GMT", 0));
+    }
+
+    @Test
+    public void testTransportFailsFastAfterTooManyRequests() {
+        stubFor(get(urlPathEqualTo(V1_ENTRIES + "/7")).willReturn(aResponse().withStatus(
+                RateLimitedTransport.TOO_MANY_REQUESTS).withHeader(RateLimitedTransport.RETRY_AFTER, "60")));
+
+        WebTarget webTarget = ClientBuilder.newClient().target(BASE_URI);
+        RateLimitedTransport transport = new RateLimitedTransport(new JerseyTransport(webTarget), null,
+                Collections.singletonMap(V1_ENTRIES, new RateLimiter(1000, 10)), 0, TimeUnit.MILLISECONDS);
+        BaseResourceClient<DemoRestableObject> client = new BaseResourceClient<>(transport, DemoRestableObject.class,
+                V1_ENTRIES);
+
+        try {
+            client.read(7L);
+            fail("expected a 429");
+        } catch (ClientErrorException e) {
+            assertEquals(RateLimitedTransport.TOO_MANY_REQUESTS, e.getResponse().getStatus());
+        }
+        try {
+            client.read(7L);
+            fail("expected the limiter to hold the request back");
+        } catch (RateLimitExceededException e) {
+            // expected
+        }
+        verify(1, getRequestedFor(urlPathEqualTo(V1_ENTRIES + "/7")));
+    }
+
+    @Test
+    public void testTransportOnlyLimitsConfiguredUris() {
+        stubFor(get(urlPathEqualTo("/v1/other")).willReturn(aResponse().withStatus(Status.OK.getStatusCode())
+                .withHeader(CONTENT_TYPE, APPLICATION_JSON).withBody("{}")));
+
+        WebTarget webTarget = ClientBuilder.newClient().target(BASE_URI);
+        RateLimitedTransport transport = new RateLimitedTransport(new JerseyTransport(webTarget), null,
+                Collections.singletonMap(V1_ENTRIES, new RateLimiter(1, 1)), 0, TimeUnit.MILLISECONDS);
+        BaseResourceClient<DemoRestableObject> client = new BaseResourceClient<>(transport, DemoRestableObject.class,
+                "/v1/other");
+
+        for (int i = 0; i < 5; i++) {
+            client.read();
+        }
+        verify(5, getRequestedFor(urlPathEqualTo("/v1/other")));
+    }
+}
@@ -0,0 +1,227 @@
+package com.clearcapital.oss.rest;
+
+import static com.github.tomakehurst.wiremock.client.WireMock.aResponse;
+import static com.github.tomakehurst.wiremock.client.WireMock.get;
+import static com.github.tomakehurst.wiremock.client.WireMock.getRequestedFor;
+import static com.github.tomakehurst.wiremock.client.WireMock.stubFor;
+import static com.github.tomakehurst.wiremock.client.WireMock.urlPathEqualTo;
+import static com.github.tomakehurst.wiremock.client.WireMock.verify;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.fail;
+
+import java.net.URI;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+import javax.ws.rs.ProcessingException;
+import javax.ws.rs.core.Response.Status;
+
+import org.apache.http.entity.ContentType;
+import org.junit.Rule;
+import org.junit.Test;
+
+import com.clearcapital.oss.json.JsonSerializer;
+import com.github.tomakehurst.wiremock.junit.WireMockRule;
+
+public class RefreshAheadCacheTest {
+
+    private static final String APPLICATION_JSON = ContentType.APPLICATION_JSON.getMimeType();
+    private static final String CONTENT_TYPE = "Content-Type";
+    private static final String BASE_URI = "http://localhost:5309";
+    private static final String V1_ENTRIES = "/v1/entries";
+
+    @Rule
+    public WireMockRule wireMockRule = new WireMockRule(5309);
+
+    private final AtomicLong clock = new AtomicLong();
+    private final Queue<Runnable> refreshes = new ArrayDeque<>();
+
+    /** ttl 100, refreshed 20 ahead, served up to 50 stale. */
+    private RefreshAheadCache cache(int maxConcurrentRefreshes) {
+        return new RefreshAheadCache(100, 20, 50, TimeUnit.NANOSECONDS, maxConcurrentRefreshes, 16, refreshes::add,
+                clock::get);
+    }
+
+    private void runRefreshes() {
+        Runnable refresh;
+        while ((refresh = refreshes.poll()) != null) {
+            refresh.run();
+        }
+    }
+
+    @Test
+    public void testRefreshesAheadServingStale() {
+        RefreshAheadCache cache = cache(2);
+        AtomicInteger loads = new AtomicInteger();
+        assertEquals(Integer.valueOf(1), cache.get("k", loads::incrementAndGet));
+        assertEquals(Integer.valueOf(1), cache.get("k", loads::incrementAndGet));
+        assertEquals(0, refreshes.size());
+
+        clock.set(80);
+        assertEquals(Integer.valueOf(1), cache.get("k", loads::incrementAndGet));
+        clock.set(120);
+        assertEquals(Integer.valueOf(1), cache.get("k", loads::incrementAndGet));
+        assertEquals(1, refreshes.size());
+        runRefreshes();
+        assertEquals(Integer.valueOf(2), cache.get("k", loads::incrementAndGet));
+
+        assertEquals(1, cache.getMisses());
+        assertEquals(4, cache.getHits());
+        assertEquals(1, cache.getRefreshes());
+        assertEquals(2, loads.get());
+    }
+
+    @Test
+    public void testBoundsConcurrentRefreshes() {
+        RefreshAheadCache cache = cache(1);
+        cache.get("a", () -> "a");
+        cache.get("b", () -> "b");
+        clock.set(90);
+        cache.get("a", () -> "a");
+        cache.get("b", () -> "b");
+        assertEquals(1, refreshes.size());
+        runRefreshes();
+        cache.get("b", () -> "b");
+        assertEquals(1, refreshes.size());
+    }
+
+    @Test
+    public void testFailures() {
+        RefreshAheadCache cache = cache(2);
+        AtomicBoolean down = new AtomicBoolean(true);
+        AtomicInteger loads = new AtomicInteger();
+        Supplier<Integer> loader = () -> {
+            if (down.get()) {
+                throw new ProcessingException("down");
+            }
+            return loads.incrementAndGet();
+        };
+        try {
+            cache.get("k", loader);
+            fail("Should've thrown");
+        } catch (ProcessingException e) {
+            // (yey)
+        }
+        assertEquals(0, cache.size());
+        down.set(false);
+        assertEquals(Integer.valueOf(1), cache.get("k", loader));
+
+        // A failed refresh keeps the old value, and is retried after a tenth of the ttl.
+        down.set(true);
+        clock.set(80);
+        cache.get("k", loader);
+        runRefreshes();
+        assertEquals(1, cache.getRefreshFailures());
+        assertEquals(Integer.valueOf(1), cache.get("k", loader));
+        assertEquals(0, refreshes.size());
+        clock.set(90);
+        assertEquals(Integer.valueOf(1), cache.get("k", loader));
+        assertEquals(1, refreshes.size());
+        runRefreshes();
+
+        // Too stale to serve.
+        down.set(false);
+        clock.set(151);
+        assertEquals(Integer.valueOf(2), cache.get("k", loader));
+        assertEquals(3, cache.getMisses());
+    }
+
+    @Test
+    public void testConcurrentFirstReadersShareOneLoad() throws Exception {
+        RefreshAheadCache cache = cache(2);
+        CountDownLatch loading = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        AtomicInteger loads = new AtomicInteger();
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        try {
+            Future<Integer> first = executor.submit(() -> cache.get("k", () -> {
+                loading.countDown();
+                try {
+                    release.await();
+                } catch (InterruptedException e) {
+                    throw new IllegalStateException(e);
+                }
+                return loads.incrementAndGet();
+            }));
+            loading.await();
+            Future<Integer> second = executor.submit(() -> cache.get("k", loads::incrementAndGet));
+            Thread.sleep(50);
+            release.countDown();
+            assertEquals(Integer.valueOf(1), first.get());
+            assertEquals(Integer.valueOf(1), second.get());
+            assertEquals(1, loads.get());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    public void testConcurrentStaleReadersShareOneLoad() throws Exception {
+        RefreshAheadCache cache = cache(2);
+        CountDownLatch loading = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        AtomicInteger loads = new AtomicInteger();
+        AtomicBoolean slow = new AtomicBoolean();
+        Supplier<Integer> loader = () -> {
+            if (slow.get()) {
+                loading.countDown();
+                try {
+                    release.await();
+                } catch (InterruptedException e) {
+                    throw new IllegalStateException(e);
+                }
+            }
+            return loads.incrementAndGet();
+        };
+        assertEquals(Integer.valueOf(1), cache.get("k", loader));
+
+        slow.set(true);
+        clock.set(151);
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        try {
+            Future<Integer> first = executor.submit(() -> cache.get("k", loader));
+            loading.await();
+            Future<Integer> second = executor.submit(() -> cache.get("k", loader));
+            Thread.sleep(50);
+            release.countDown();
+            assertEquals(Integer.valueOf(2), first.get());
+            assertEquals(Integer.valueOf(2), second.get());
+            assertEquals(2, loads.get());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    public void testReadListThroughCache() throws Exception {
+        List<DemoRestableObject> entries = Arrays.asList(DemoRestableObject.builder().setEntry("foo").build());
+        stubFor(get(urlPathEqualTo(V1_ENTRIES)).willReturn(aResponse().withStatus(Status.OK.getStatusCode())
+                .withHeader(CONTENT_TYPE, APPLICATION_JSON)
+                .withBody(JsonSerializer.getInstance().getStringRepresentation(entries))));
+
+        RestClient restClient = new RestClient(RestClientConfiguration.builder().setUri(new URI(BASE_URI))
+                .setKey("someone@somewhere.com").setPassword("Passw0rd").setWithLoggingFilter(false).build());
+        try {
+            BaseResourceClient<DemoRestableObject> client = new BaseResourceClient<>(restClient.getTransport(),
+                    DemoRestableObject.class, V1_ENTRIES);
+            client.setRefreshAheadCache(new RefreshAheadCache());
+            assertEquals(entries, client.readList(1L, DemoRestableObject.listGenericType));
+            assertEquals(entries, client.withSession(1L).readList(DemoRestableObject.listGenericType));
+            client.readList(2L, DemoRestableObject.listGenericType);
+        } finally {
+            restClient.close();
+        }
+        verify(2, getRequestedFor(urlPathEqualTo(V1_ENTRIES)));
+    }
+}
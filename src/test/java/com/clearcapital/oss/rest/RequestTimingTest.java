@@ -0,0 +1,159 @@
+package com.clearcapital.oss.rest;
+
+import static com.github.tomakehurst.wiremock.client.WireMock.aResponse;
+import static com.github.tomakehurst.wiremock.client.WireMock.get;
+import static com.github.tomakehurst.wiremock.client.WireMock.post;
+import static com.github.tomakehurst.wiremock.client.WireMock.stubFor;
+import static com.github.tomakehurst.wiremock.client.WireMock.urlPathEqualTo;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.InputStream;
+import java.net.URI;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+
+import javax.ws.rs.NotFoundException;
+import javax.ws.rs.core.Response.Status;
+
+import org.apache.http.entity.ContentType;
+import org.junit.Rule;
+import org.junit.Test;
+
+import com.clearcapital.oss.json.JsonSerializer;
+import com.github.tomakehurst.wiremock.junit.WireMockRule;
+
+public class RequestTimingTest {
+
+    private static final String APPLICATION_JSON = ContentType.APPLICATION_JSON.getMimeType();
+    private static final String CONTENT_TYPE = "Content-Type";
+    private static final String BASE_URI = "http://localhost:5309";
+    private static final String V1_ENTRIES = "/v1/entries";
+
+    @Rule
+    public WireMockRule wireMockRule = new WireMockRule(5309);
+
+    private static RestClient restClient(TransportType transport) throws Exception {
+        return new RestClient(RestClientConfiguration.builder().setUri(new URI(BASE_URI))
+                .setKey("someone@somewhere.com").setPassword("Passw0rd").setWithLoggingFilter(false)
+                .setTransport(transport).build());
+    }
+
+    private static String stubEntity(int delayMillis) throws Exception {
+        String body = JsonSerializer.getInstance()
+                .getStringRepresentation(DemoRestableObject.builder().setEntry("foo").build());
+        stubFor(get(urlPathEqualTo(V1_ENTRIES + "/1")).willReturn(aResponse().withStatus(Status.OK.getStatusCode())
+                .withHeader(CONTENT_TYPE, APPLICATION_JSON).withFixedDelay(delayMillis).withBody(body)));
+        return body;
+    }
+
+    @Test
+    public void testDirectPhases() throws Exception {
+        String body = stubEntity(100);
+        RestClient restClient = restClient(TransportType.DIRECT);
+        List<RequestTiming> timings = new CopyOnWriteArrayList<>();
+        restClient.addTimingListener(timings::add);
+        try {
+            BaseResourceClient<DemoRestableObject> client = new BaseResourceClient<>(restClient.getTransport(),
+                    DemoRestableObject.class, V1_ENTRIES);
+            client.read(1L);
+        } finally {
+            restClient.close();
+        }
+
+        assertEquals(1, timings.size());
+        RequestTiming timing = timings.get(0);
+        assertEquals("GET", timing.getMethod());
+        assertEquals(V1_ENTRIES, timing.getResource());
+        assertEquals(Status.OK.getStatusCode(), timing.getStatus());
+        assertEquals(-1, timing.getRequestBytes());
+        assertEquals(body.length(), timing.getResponseBytes());
+        assertTrue(timing.getConnectNanos() >= 0);
+        assertTrue(timing.getSendNanos() >= 0);
+        assertTrue(timing.getWaitNanos() >= TimeUnit.MILLISECONDS.toNanos(100));
+        assertTrue(timing.getResponseNanos() >= timing.getConnectNanos() + timing.getWaitNanos());
+        assertTrue(timing.getReadNanos() >= 0);
+        assertTrue(timing.getTotalNanos() >= timing.getResponseNanos() + timing.getReadNanos());
+        assertNull(RequestTiming.current());
+    }
+
+    @Test
+    public void testStreamReportedOnceRead() throws Exception {
+        byte[] body = new byte[64 * 1024];
+        stubFor(get(urlPathEqualTo(V1_ENTRIES + "/1.bin"))
+                .willReturn(aResponse().withStatus(Status.OK.getStatusCode()).withBody(body)));
+        RestClient restClient = restClient(TransportType.DIRECT);
+        List<RequestTiming> timings = new CopyOnWriteArrayList<>();
+        restClient.addTimingListener(timings::add);
+        try {
+            BaseResourceClient<DemoRestableObject> client = new BaseResourceClient<>(restClient.getTransport(),
+                    DemoRestableObject.class, V1_ENTRIES);
+            try (InputStream in = client.readStream(1L, ".bin", 1L)) {
+                assertEquals(0, timings.size());
+                byte[] buffer = new byte[4096];
+                while (in.read(buffer) >= 0) {
+                    // drain
+                }
+                assertEquals(1, timings.size());
+            }
+        } finally {
+            restClient.close();
+        }
+
+        assertEquals(1, timings.size());
+        RequestTiming timing = timings.get(0);
+        assertEquals(body.length, timing.getResponseBytes());
+        assertTrue(timing.getReadNanos() >= 0);
+        assertTrue(timing.getTotalNanos() >= timing.getResponseNanos() + timing.getReadNanos());
+    }
+
+    @Test
+    public void testRequestBytesAndErrors() throws Exception {
+        stubFor(post(urlPathEqualTo(V1_ENTRIES)).willReturn(aResponse().withStatus(Status.NOT_FOUND.getStatusCode())));
+        RestClient restClient = restClient(TransportType.DIRECT);
+        List<RequestTiming> timings = new CopyOnWriteArrayList<>();
+        restClient.addTimingListener(timings::add);
+        DemoRestableObject entity = DemoRestableObject.builder().setEntry("foo").build();
+        try {
+            new BaseResourceClient<>(restClient.getTransport(), DemoRestableObject.class, V1_ENTRIES).create(entity);
+            fail("Should've thrown");
+        } catch (NotFoundException e) {
+            // (yey)
+        } finally {
+            restClient.close();
+        }
+
+        assertEquals(1, timings.size());
+        assertEquals(Status.NOT_FOUND.getStatusCode(), timings.get(0).getStatus());
+        assertEquals(JsonSerializer.getInstance().getStringRepresentation(entity).length(),
+                timings.get(0).getRequestBytes());
+    }
+
+    @Test
+    public void testJerseyAndRemoval() throws Exception {
+        stubEntity(0);
+        RestClient restClient = restClient(TransportType.DEFAULT);
+        List<RequestTiming> timings = new CopyOnWriteArrayList<>();
+        RequestTimingListener listener = timings::add;
+        restClient.addTimingListener(listener);
+        try {
+            BaseResourceClient<DemoRestableObject> client = new BaseResourceClient<>(restClient.getTransport(),
+                    DemoRestableObject.class, V1_ENTRIES);
+            client.read(1L);
+            restClient.removeTimingListener(listener);
+            client.read(1L);
+        } finally {
+            restClient.close();
+        }
+
+        assertEquals(1, timings.size());
+        RequestTiming timing = timings.get(0);
+        assertEquals(Status.OK.getStatusCode(), timing.getStatus());
+        assertEquals(-1, timing.getConnectNanos());
+        assertTrue(timing.getResponseNanos() >= 0);
+        assertTrue(timing.getReadNanos() >= 0);
+    }
+}
@@ -69,6 +69,21 @@ public class RestClientConfigurationTest {
         assertEquals(false, conf.getWithLoggingFilter());
     }
 
+    @Test
+    public void testDeserializeTransport() throws Exception {
+        String json =//@formatter:off
+                "{\"uri\":\"http://localhost:8080/\","
+                + "\"transport\":\"POOLED\","
+                + "\"maxConnections\":8,"
+                + "\"maxConnectionsPerRoute\":4}"; // @formatter:on
+
+        RestClientConfiguration conf = JsonSerializer.getInstance().getObject(json, RestClientConfiguration.class);
+        assertNotNull(conf);
+        assertEquals(TransportType.POOLED, conf.getTransport());
+        assertEquals(Integer.valueOf(8), conf.getMaxConnections());
+        assertEquals(Integer.valueOf(4), conf.getMaxConnectionsPerRoute());
+    }
+
     static public class Holder {
 
         @JsonProperty
@@ -0,0 +1,213 @@
+package com.clearcapital.oss.rest;
+
+import static com.github.tomakehurst.wiremock.client.WireMock.aResponse;
+import static com.github.tomakehurst.wiremock.client.WireMock.containing;
+import static com.github.tomakehurst.wiremock.client.WireMock.get;
+import static com.github.tomakehurst.wiremock.client.WireMock.stubFor;
+import static com.github.tomakehurst.wiremock.client.WireMock.urlPathEqualTo;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.InputStream;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+
+import javax.ws.rs.NotFoundException;
+import javax.ws.rs.ProcessingException;
+import javax.ws.rs.core.Response.Status;
+
+import org.apache.http.entity.ContentType;
+import org.junit.Rule;
+import org.junit.Test;
+
+import com.clearcapital.oss.json.JsonSerializer;
+import com.github.tomakehurst.wiremock.junit.WireMockRule;
+
+public class RestClientTest {
+
+    private static final String APPLICATION_JSON = ContentType.APPLICATION_JSON.getMimeType();
+    private static final String CONTENT_TYPE = "Content-Type";
+    private static final String BASE_URI = "http://localhost:5309";
+    private static final String V1_ENTRIES = "/v1/entries";
+
+    @Rule
+    public WireMockRule wireMockRule = new WireMockRule(5309);
+
+    private RestClientConfiguration.Builder configurationBuilder() throws Exception {
+        return RestClientConfiguration.builder().setUri(new URI(BASE_URI)).setKey("someone@somewhere.com")
+                .setPassword("Passw0rd").setWithLoggingFilter(false);
+    }
+
+    @Test
+    public void testPooledTransport() throws Exception {
+        DemoRestableObject entity = DemoRestableObject.builder().setEntry("foo").build();
+        stubFor(get(urlPathEqualTo(V1_ENTRIES + "/1"))
+                .willReturn(aResponse().withStatus(Status.OK.getStatusCode()).withHeader(CONTENT_TYPE, APPLICATION_JSON)
+                        .withBody(JsonSerializer.getInstance().getStringRepresentation(entity))));
+
+        RestClient restClient = new RestClient(configurationBuilder().setTransport(TransportType.POOLED)
+                .setMaxConnections(2).setMaxConnectionsPerRoute(1).build());
+        try {
+            BaseResourceClient<DemoRestableObject> client = new BaseResourceClient<>(restClient.getWebTarget(),
+                    DemoRestableObject.class, V1_ENTRIES);
+            // More requests than pooled connections; each must hand its connection back to the pool.
+            for (int i = 0; i < 3; i++) {
+                assertEquals(entity, client.read(1L));
+            }
+        } finally {
+            restClient.close();
+        }
+    }
+
+    @Test
+    public void testPooledTransportReleasesFailedResponses() throws Exception {
+        DemoRestableObject entity = DemoRestableObject.builder().setEntry("foo").build();
+        stubFor(get(urlPathEqualTo(V1_ENTRIES + "/1"))
+                .willReturn(aResponse().withStatus(Status.OK.getStatusCode()).withHeader(CONTENT_TYPE, APPLICATION_JSON)
+                        .withBody(JsonSerializer.getInstance().getStringRepresentation(entity))));
+        stubFor(get(urlPathEqualTo(V1_ENTRIES + "/2")).willReturn(
+                aResponse().withStatus(Status.NOT_FOUND.getStatusCode()).withBody("no such entry")));
+
+        RestClient restClient = new RestClient(configurationBuilder().setTransport(TransportType.POOLED)
+                .setMaxConnections(1).setMaxConnectionsPerRoute(1).setConnectionRequestTimeoutMillis(2000).build());
+        try {
+            BaseResourceClient<DemoRestableObject> client = new BaseResourceClient<>(restClient.getTransport(),
+                    DemoRestableObject.class, V1_ENTRIES);
+            // With one pooled connection, a failed read that kept its connection would time out the next one.
+            NotFoundException failure = null;
+            for (int i = 0; i < 3; i++) {
+                try {
+                    client.read(2L);
+                    fail();
+                } catch (NotFoundException e) {
+                    failure = e;
+                }
+            }
+            assertEquals(entity, client.read(1L));
+            assertEquals("no such entry", failure.getResponse().readEntity(String.class));
+        } finally {
+            restClient.close();
+        }
+    }
+
+    @Test
+    public void testDirectTransportKeepsErrorBody() throws Exception {
+        stubFor(get(urlPathEqualTo(V1_ENTRIES + "/2")).willReturn(
+                aResponse().withStatus(Status.NOT_FOUND.getStatusCode()).withBody("no such entry")));
+
+        RestClient restClient = new RestClient(configurationBuilder().setTransport(TransportType.DIRECT)
+                .setMaxConnectionsPerRoute(1).setConnectionRequestTimeoutMillis(2000).build());
+        try {
+            BaseResourceClient<DemoRestableObject> client = new BaseResourceClient<>(restClient.getTransport(),
+                    DemoRestableObject.class, V1_ENTRIES);
+            for (int i = 0; i < 3; i++) {
+                try {
+                    client.read(2L);
+                    fail();
+                } catch (NotFoundException e) {
+                    assertEquals("no such entry",
+                            new String((byte[]) e.getResponse().getEntity(), StandardCharsets.UTF_8));
+                }
+            }
+        } finally {
+            restClient.close();
+        }
+    }
+
+    @Test
+    public void testDirectTransport() throws Exception {
+        DemoRestableObject entity = DemoRestableObject.builder().setEntry("foo").build();
+        stubFor(get(urlPathEqualTo(V1_ENTRIES + "/1")).withHeader("Authorization", containing("BASIC "))
+                .willReturn(aResponse().withStatus(Status.OK.getStatusCode()).withHeader(CONTENT_TYPE, APPLICATION_JSON)
+                        .withBody(JsonSerializer.getInstance().getStringRepresentation(entity))));
+
+        RestClient restClient = new RestClient(configurationBuilder().setTransport(TransportType.DIRECT).build());
+        try {
+            BaseResourceClient<DemoRestableObject> client = new BaseResourceClient<>(restClient.getTransport(),
+                    DemoRestableObject.class, V1_ENTRIES);
+            assertEquals(entity, client.read(1L));
+        } finally {
+            restClient.close();
+        }
+    }
+
+    @Test
+    public void testWarmUp() throws Exception {
+        DemoRestableObject entity = DemoRestableObject.builder().setEntry("foo").build();
+        stubFor(get(urlPathEqualTo(V1_ENTRIES + "/1"))
+                .willReturn(aResponse().withStatus(Status.OK.getStatusCode()).withHeader(CONTENT_TYPE, APPLICATION_JSON)
+                        .withBody(JsonSerializer.getInstance().getStringRepresentation(entity))));
+
+        RestClient restClient = new RestClient(configurationBuilder().setTransport(TransportType.DIRECT)
+                .setMaxConnectionsPerRoute(3).setWarmupConnections(2).build());
+        try {
+            // capped by the per-route limit
+            assertEquals(3, restClient.warmUp(5, 5, TimeUnit.SECONDS));
+            restClient.warmUpCodecs(DemoRestableObject.class);
+
+            BaseResourceClient<DemoRestableObject> client = new BaseResourceClient<>(restClient.getTransport(),
+                    DemoRestableObject.class, V1_ENTRIES);
+            assertEquals(entity, client.read(1L));
+        } finally {
+            restClient.close();
+        }
+    }
+
+    @Test
+    public void testWarmUpReleasesLateConnections() throws Exception {
+        DemoRestableObject entity = DemoRestableObject.builder().setEntry("foo").build();
+        stubFor(get(urlPathEqualTo(V1_ENTRIES + "/1"))
+                .willReturn(aResponse().withStatus(Status.OK.getStatusCode()).withHeader(CONTENT_TYPE, APPLICATION_JSON)
+                        .withBody(JsonSerializer.getInstance().getStringRepresentation(entity))));
+        stubFor(get(urlPathEqualTo(V1_ENTRIES + "/1.bin"))
+                .willReturn(aResponse().withStatus(Status.OK.getStatusCode()).withBody(new byte[100000])));
+
+        RestClient restClient = new RestClient(configurationBuilder().setTransport(TransportType.DIRECT)
+                .setMaxConnectionsPerRoute(1).setConnectionRequestTimeoutMillis(2000).build());
+        try {
+            BaseResourceClient<DemoRestableObject> client = new BaseResourceClient<>(restClient.getTransport(),
+                    DemoRestableObject.class, V1_ENTRIES);
+            // While the only connection is held, warming up gives up; it gets the connection once it is let go.
+            InputStream held = client.readStream(1L, ".bin", 1L);
+            try {
+                assertEquals(0, restClient.warmUp(1, 100, TimeUnit.MILLISECONDS));
+            } finally {
+                held.close();
+            }
+            Thread.sleep(100);
+            assertEquals(entity, client.read(1L));
+        } finally {
+            restClient.close();
+        }
+    }
+
+    @Test
+    public void testLoadBalancedEndpoints() throws Exception {
+        DemoRestableObject entity = DemoRestableObject.builder().setEntry("foo").build();
+        stubFor(get(urlPathEqualTo(V1_ENTRIES + "/1"))
+                .willReturn(aResponse().withStatus(Status.OK.getStatusCode()).withHeader(CONTENT_TYPE, APPLICATION_JSON)
+                        .withBody(JsonSerializer.getInstance().getStringRepresentation(entity))));
+
+        // Nothing listens on 5310.
+        RestClient restClient = new RestClient(configurationBuilder().setUri(null).setTransport(TransportType.DIRECT)
+                .setUris(Arrays.asList(new URI(BASE_URI), new URI("http://localhost:5310"))).build());
+        try {
+            BaseResourceClient<DemoRestableObject> client = new BaseResourceClient<>(restClient.getTransport(),
+                    DemoRestableObject.class, V1_ENTRIES);
+            int failures = 0;
+            for (int i = 0; i < 20; i++) {
+                try {
+                    assertEquals(entity, client.read(1L));
+                } catch (ProcessingException e) {
+                    failures++;
+                }
+            }
+            assertTrue(failures <= LoadBalancedTransport.EJECT_AFTER_FAILURES);
+        } finally {
+            restClient.close();
+        }
+    }
+}
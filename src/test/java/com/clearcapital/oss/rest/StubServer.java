@@ -0,0 +1,158 @@
+package com.clearcapital.oss.rest;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import com.clearcapital.oss.json.JsonSerializer;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+/**
+ * An in-process HTTP server standing in for a resource at {@code /v1/entries}, with injected latency and errors, for
+ * {@link LoadHarness}. Unlike WireMock, it has no request journal and a thread per request, so that it does not
+ * become the bottleneck under load.
+ *
+ * <pre>
+ * GET  /v1/entries           a list of {@code listSize} entries
+ * POST /v1/entries           echoes the entity
+ * GET  /v1/entries/_id_      one entry
+ * GET  /v1/entries/_id_.bin  {@code streamBytes} bytes
+ * </pre>
+ */
+class StubServer implements AutoCloseable {
+
+    static final String V1_ENTRIES = "/v1/entries";
+
+    private final HttpServer server;
+    private final ExecutorService executor;
+    private final long latencyNanos;
+    private final long jitterNanos;
+    private final double errorRate;
+    private final byte[] entity;
+    private final byte[] list;
+    private final byte[] stream;
+    private final AtomicLong requests = new AtomicLong();
+
+    /**
+     * @param latency
+     *            added to every response.
+     * @param jitter
+     *            up to this much more is added at random.
+     * @param errorRate
+     *            the fraction of requests answered with a 503.
+     */
+    StubServer(final long latency, final long jitter, final TimeUnit unit, final double errorRate,
+            final int listSize, final int streamBytes) throws Exception {
+        this.latencyNanos = unit.toNanos(latency);
+        this.jitterNanos = unit.toNanos(jitter);
+        this.errorRate = errorRate;
+
+        DemoRestableObject demo = DemoRestableObject.builder().setEntry("entry").build();
+        List<DemoRestableObject> entries = new ArrayList<>(listSize);
+        for (int i = 0; i < listSize; i++) {
+            entries.add(DemoRestableObject.builder().setEntry("entry" + i).build());
+        }
+        this.entity = JsonSerializer.getInstance().getStringRepresentation(demo).getBytes(StandardCharsets.UTF_8);
+        this.list = JsonSerializer.getInstance().getStringRepresentation(entries).getBytes(StandardCharsets.UTF_8);
+        this.stream = new byte[streamBytes];
+
+        // Otherwise Nagle's algorithm holds each response body back until the headers are acknowledged.
+        System.setProperty("sun.net.httpserver.nodelay", "true");
+        server = HttpServer.create(new InetSocketAddress("localhost", 0), 1024);
+        server.createContext(V1_ENTRIES, this::handle);
+        executor = Executors.newCachedThreadPool(runnable -> {
+            Thread thread = new Thread(runnable, "stub-server");
+            thread.setDaemon(true);
+            return thread;
+        });
+        server.setExecutor(executor);
+        server.start();
+    }
+
+    URI getUri() {
+        return URI.create("http://localhost:" + server.getAddress().getPort());
+    }
+
+    long getRequests() {
+        return requests.get();
+    }
+
+    private void handle(final HttpExchange exchange) throws IOException {
+        requests.incrementAndGet();
+        try (InputStream in = exchange.getRequestBody()) {
+            byte[] request = readFully(in);
+            pause();
+            ThreadLocalRandom random = ThreadLocalRandom.current();
+            if (errorRate > 0 && random.nextDouble() < errorRate) {
+                exchange.sendResponseHeaders(503, -1);
+                return;
+            }
+
+            String path = exchange.getRequestURI().getPath();
+            String method = exchange.getRequestMethod();
+            if ("POST".equals(method)) {
+                respond(exchange, "application/json", request);
+            } else if (path.length() <= V1_ENTRIES.length() + 1) {
+                respond(exchange, "application/json", list);
+            } else if (path.endsWith(".bin")) {
+                respond(exchange, "application/octet-stream", stream);
+            } else {
+                respond(exchange, "application/json", entity);
+            }
+        } finally {
+            exchange.close();
+        }
+    }
+
+    private void pause() {
+        long nanos = latencyNanos + (jitterNanos > 0 ? ThreadLocalRandom.current().nextLong(jitterNanos) : 0);
+        if (nanos > 0) {
+            try {
+                TimeUnit.NANOSECONDS.sleep(nanos);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    private static void respond(final HttpExchange exchange, final String contentType, final byte[] body)
+            throws IOException {
+        exchange.getResponseHeaders().set("Content-Type", contentType);
+        // 0 would mean chunked
+        exchange.sendResponseHeaders(200, body.length > 0 ? body.length : -1);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(body);
+        }
+    }
+
+    private static byte[] readFully(final InputStream in) throws IOException {
+        byte[] buffer = new byte[4096];
+        int total = 0;
+        int read;
+        while ((read = in.read(buffer, total, buffer.length - total)) >= 0) {
+            total += read;
+            if (total == buffer.length) {
+                buffer = Arrays.copyOf(buffer, buffer.length * 2);
+            }
+        }
+        return Arrays.copyOf(buffer, total);
+    }
+
+    @Override
+    public void close() {
+        server.stop(0);
+        executor.shutdownNow();
+    }
+}
@@ -0,0 +1,134 @@
+package com.clearcapital.oss.rest;
+
+import static com.github.tomakehurst.wiremock.client.WireMock.aResponse;
+import static com.github.tomakehurst.wiremock.client.WireMock.delete;
+import static com.github.tomakehurst.wiremock.client.WireMock.equalTo;
+import static com.github.tomakehurst.wiremock.client.WireMock.equalToJson;
+import static com.github.tomakehurst.wiremock.client.WireMock.get;
+import static com.github.tomakehurst.wiremock.client.WireMock.getRequestedFor;
+import static com.github.tomakehurst.wiremock.client.WireMock.post;
+import static com.github.tomakehurst.wiremock.client.WireMock.postRequestedFor;
+import static com.github.tomakehurst.wiremock.client.WireMock.put;
+import static com.github.tomakehurst.wiremock.client.WireMock.stubFor;
+import static com.github.tomakehurst.wiremock.client.WireMock.urlEqualTo;
+import static com.github.tomakehurst.wiremock.client.WireMock.urlPathEqualTo;
+import static com.github.tomakehurst.wiremock.client.WireMock.verify;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.lang.reflect.ParameterizedType;
+import java.lang.reflect.Type;
+import java.net.URI;
+import java.util.Arrays;
+import java.util.List;
+
+import javax.ws.rs.NotFoundException;
+import javax.ws.rs.core.Response.Status;
+
+import org.apache.http.entity.ContentType;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+
+import com.clearcapital.oss.json.JsonSerializer;
+import com.github.tomakehurst.wiremock.junit.WireMockRule;
+
+public class TypedClientTest {
+
+    private static final String APPLICATION_JSON = ContentType.APPLICATION_JSON.getMimeType();
+    private static final String CONTENT_TYPE = "Content-Type";
+    private static final String BASE_URI = "http://localhost:5309";
+    private static final String V1_ENTRIES = "/v1/entries";
+
+    @Rule
+    public WireMockRule wireMockRule = new WireMockRule(5309);
+
+    private RestClient restClient;
+    private DemoEntries entries;
+
+    private final DemoRestableObject foo = DemoRestableObject.builder().setEntry("foo").build();
+
+    @Before
+    public void setUp() throws Exception {
+        restClient = new RestClient(RestClientConfiguration.builder().setUri(new URI(BASE_URI))
+                .setKey("someone@somewhere.com").setPassword("Passw0rd").setWithLoggingFilter(false)
+                .setTransport(TransportType.DIRECT).build());
+        restClient.warmUpCodecs(DemoEntriesClient.responseTypes());
+        entries = new DemoEntriesClient(restClient.getTransport());
+    }
+
+    @After
+    public void tearDown() {
+        restClient.close();
+    }
+
+    private String json(Object value) throws Exception {
+        return JsonSerializer.getInstance().getStringRepresentation(value);
+    }
+
+    @Test
+    public void testReads() throws Exception {
+        stubFor(get(urlPathEqualTo(V1_ENTRIES)).willReturn(aResponse().withStatus(Status.OK.getStatusCode())
+                .withHeader(CONTENT_TYPE, APPLICATION_JSON).withBody(json(Arrays.asList(foo, foo)))));
+        stubFor(get(urlPathEqualTo(V1_ENTRIES + "/1")).willReturn(aResponse().withStatus(Status.OK.getStatusCode())
+                .withHeader(CONTENT_TYPE, APPLICATION_JSON).withBody(json(foo))));
+        stubFor(get(urlPathEqualTo(V1_ENTRIES + "/1/available")).willReturn(aResponse()
+                .withStatus(Status.OK.getStatusCode()).withHeader(CONTENT_TYPE, APPLICATION_JSON).withBody("true")));
+
+        assertEquals(foo, entries.read(1, 7L));
+        List<DemoRestableObject> list = entries.readList(Arrays.asList("a", "b"), null, 7L);
+        assertEquals(Arrays.asList(foo, foo), list);
+        assertEquals(DemoRestableObject.class, list.get(0).getClass());
+        assertTrue(entries.available(1, "trace-1"));
+
+        verify(getRequestedFor(urlPathEqualTo(V1_ENTRIES + "/1")).withHeader("Cookie", equalTo("X-SessionId=7")));
+        verify(getRequestedFor(urlEqualTo(V1_ENTRIES + "?entry=a&entry=b")));
+        verify(getRequestedFor(urlPathEqualTo(V1_ENTRIES + "/1/available")).withHeader("X-Trace",
+                equalTo("trace-1")));
+    }
+
+    @Test
+    public void testWrites() throws Exception {
+        stubFor(put(urlPathEqualTo(V1_ENTRIES + "/foo")).withRequestBody(equalToJson(json(foo))).willReturn(
+                aResponse().withStatus(Status.OK.getStatusCode()).withHeader(CONTENT_TYPE, APPLICATION_JSON)
+                        .withBody(json(foo))));
+        stubFor(delete(urlPathEqualTo(V1_ENTRIES + "/2"))
+                .willReturn(aResponse().withStatus(Status.NOT_FOUND.getStatusCode())));
+        stubFor(post(urlPathEqualTo(V1_ENTRIES + "/3/versions/v4"))
+                .willReturn(aResponse().withStatus(Status.NO_CONTENT.getStatusCode())));
+
+        assertEquals(foo, entries.overwrite("foo", foo, 7L));
+        assertEquals(Status.NOT_FOUND.getStatusCode(), entries.delete(2, 7L).getStatus());
+        entries.touch(3, 4);
+        verify(postRequestedFor(urlPathEqualTo(V1_ENTRIES + "/3/versions/v4")));
+    }
+
+    @Test(expected = NotFoundException.class)
+    public void testThrowsUnsuccessful() {
+        stubFor(get(urlPathEqualTo(V1_ENTRIES + "/9"))
+                .willReturn(aResponse().withStatus(Status.NOT_FOUND.getStatusCode())));
+        entries.read(9, 7L);
+    }
+
+    @Test
+    public void testResponseTypes() {
+        Type[] types = DemoEntriesClient.responseTypes();
+        assertEquals(3, types.length);
+        assertEquals(DemoRestableObject.class, types[0]);
+        assertEquals(List.class, ((ParameterizedType) types[1]).getRawType());
+        assertEquals(DemoRestableObject.class, ((ParameterizedType) types[1]).getActualTypeArguments()[0]);
+        assertEquals(Boolean.class, types[2]);
+    }
+
+    @Test
+    public void testSegments() {
+        List<List<String[]>> segments = TypedClientProcessor.segments("/{id: \\d{1,9}}/versions/v{version}/");
+        assertEquals(3, segments.size());
+        assertEquals("id", segments.get(0).get(0)[1]);
+        assertEquals("versions", segments.get(1).get(0)[0]);
+        assertEquals("v", segments.get(2).get(0)[0]);
+        assertEquals("version", segments.get(2).get(1)[1]);
+        assertEquals("\"a\\\"b\\\\c\\n\"", TypedClientProcessor.literal("a\"b\\c\n"));
+    }
+}
@@ -0,0 +1,114 @@
+package com.clearcapital.oss.rest;
+
+import static com.github.tomakehurst.wiremock.client.WireMock.aResponse;
+import static com.github.tomakehurst.wiremock.client.WireMock.equalTo;
+import static com.github.tomakehurst.wiremock.client.WireMock.get;
+import static com.github.tomakehurst.wiremock.client.WireMock.stubFor;
+import static com.github.tomakehurst.wiremock.client.WireMock.urlPathEqualTo;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import javax.ws.rs.client.ClientBuilder;
+import javax.ws.rs.client.WebTarget;
+import javax.ws.rs.core.GenericType;
+import javax.ws.rs.core.Response.Status;
+
+import org.apache.http.entity.ContentType;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+
+import com.clearcapital.oss.json.JsonSerializer;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import com.github.tomakehurst.wiremock.junit.WireMockRule;
+import com.google.common.collect.ImmutableList;
+
+public class VersionSyncTest {
+
+    private static final String APPLICATION_JSON = ContentType.APPLICATION_JSON.getMimeType();
+    private static final String CONTENT_TYPE = "Content-Type";
+    private static final String BASE_URI = "http://localhost:5309";
+    private static final String V1_ENTRIES = "/v1/entries";
+    private static final String VERSIONS = V1_ENTRIES + "/7/versions";
+
+    static public class DemoVersion {
+
+        static final GenericType<List<DemoVersion>> listGenericType = new GenericType<List<DemoVersion>>() {
+        };
+
+        @JsonProperty
+        long updateId;
+
+        @JsonProperty
+        String entry;
+
+        public DemoVersion() {
+        }
+
+        DemoVersion(long updateId, String entry) {
+            this.updateId = updateId;
+            this.entry = entry;
+        }
+    }
+
+    private BaseResourceClient<DemoRestableObject> client;
+
+    @Rule
+    public WireMockRule wireMockRule = new WireMockRule(5309);
+
+    @Before
+    public void beforeTest() {
+        WebTarget webTarget = ClientBuilder.newClient().target(BASE_URI);
+        client = new BaseResourceClient<>(webTarget, DemoRestableObject.class, V1_ENTRIES);
+    }
+
+    private static String body(DemoVersion... versions) throws Exception {
+        return JsonSerializer.getInstance().getStringRepresentation(ImmutableList.copyOf(versions));
+    }
+
+    private static List<Long> updateIds(List<DemoVersion> versions) {
+        List<Long> result = new ArrayList<>();
+        for (DemoVersion version : versions) {
+            result.add(version.updateId);
+        }
+        return result;
+    }
+
+    @Test
+    public void testSyncWithSinceParam() throws Exception {
+        stubFor(get(urlPathEqualTo(VERSIONS))
+                .willReturn(aResponse().withStatus(Status.OK.getStatusCode()).withHeader(CONTENT_TYPE, APPLICATION_JSON)
+                        .withBody(body(new DemoVersion(2, "b"), new DemoVersion(1, "a")))));
+        stubFor(get(urlPathEqualTo(VERSIONS)).withQueryParam("since", equalTo("2"))
+                .willReturn(aResponse().withStatus(Status.OK.getStatusCode()).withHeader(CONTENT_TYPE, APPLICATION_JSON)
+                        .withBody(body(new DemoVersion(3, "c")))));
+
+        VersionSync<DemoVersion> sync = new VersionSync<>(client, DemoVersion.listGenericType,
+                version -> version.updateId, "since");
+        assertNull(sync.getLatestUpdateId(7L));
+
+        assertEquals(ImmutableList.of(1L, 2L), updateIds(sync.sync(7L, 1L)));
+        assertEquals(ImmutableList.of(3L), updateIds(sync.sync(7L, 1L)));
+        assertEquals(Long.valueOf(3), sync.getLatestUpdateId(7L));
+        assertEquals(ImmutableList.of(1L, 2L, 3L), ImmutableList.copyOf(sync.getVersions(7L).keySet()));
+        assertEquals("c", sync.getVersions(7L).get(3L).entry);
+    }
+
+    @Test
+    public void testSyncWithClientSideFilter() throws Exception {
+        stubFor(get(urlPathEqualTo(VERSIONS))
+                .willReturn(aResponse().withStatus(Status.OK.getStatusCode()).withHeader(CONTENT_TYPE, APPLICATION_JSON)
+                        .withBody(body(new DemoVersion(1, "a"), new DemoVersion(2, "b")))));
+
+        VersionSync<DemoVersion> sync = new VersionSync<>(client, DemoVersion.listGenericType,
+                version -> version.updateId, null);
+        assertEquals(ImmutableList.of(1L, 2L), updateIds(sync.sync(7L, 1L)));
+        assertEquals(ImmutableList.of(), updateIds(sync.sync(7L, 1L)));
+
+        sync.forget(7L);
+        assertEquals(0, sync.getVersions(7L).size());
+    }
+}
@@ -0,0 +1,125 @@
+package com.clearcapital.oss.rest;
+
+import static com.github.tomakehurst.wiremock.client.WireMock.aResponse;
+import static com.github.tomakehurst.wiremock.client.WireMock.containing;
+import static com.github.tomakehurst.wiremock.client.WireMock.get;
+import static com.github.tomakehurst.wiremock.client.WireMock.post;
+import static com.github.tomakehurst.wiremock.client.WireMock.postRequestedFor;
+import static com.github.tomakehurst.wiremock.client.WireMock.stubFor;
+import static com.github.tomakehurst.wiremock.client.WireMock.urlPathEqualTo;
+import static com.github.tomakehurst.wiremock.client.WireMock.verify;
+import static org.junit.Assert.assertEquals;
+
+import java.net.URI;
+
+import javax.ws.rs.core.Response.Status;
+
+import org.apache.http.entity.ContentType;
+import org.junit.Rule;
+import org.junit.Test;
+
+import com.clearcapital.oss.json.JsonSerializer;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.tomakehurst.wiremock.junit.WireMockRule;
+
+public class WireFormatTest {
+
+    private static final String APPLICATION_JSON = ContentType.APPLICATION_JSON.getMimeType();
+    private static final String CONTENT_TYPE = "Content-Type";
+    private static final String BASE_URI = "http://localhost:5309";
+    private static final String V1_ENTRIES = "/v1/entries";
+
+    @Rule
+    public WireMockRule wireMockRule = new WireMockRule(5309);
+
+    private static RestClient restClient(TransportType transport, WireFormat wireFormat) throws Exception {
+        return new RestClient(RestClientConfiguration.builder().setUri(new URI(BASE_URI))
+                .setKey("someone@somewhere.com").setPassword("Passw0rd").setWithLoggingFilter(false)
+                .setTransport(transport).setWireFormat(wireFormat).build());
+    }
+
+    private static BaseResourceClient<DemoRestableObject> resourceClient(RestClient restClient) {
+        BaseResourceClient<DemoRestableObject> client = new BaseResourceClient<>(restClient.getTransport(),
+                DemoRestableObject.class, V1_ENTRIES);
+        client.setWireFormat(restClient.getWireFormat());
+        return client;
+    }
+
+    private static byte[] encode(WireFormat format, Object entity) throws Exception {
+        return new ObjectMapper(format.newFactory()).writeValueAsBytes(entity);
+    }
+
+    @Test
+    public void testReadSmileThroughJersey() throws Exception {
+        DemoRestableObject entity = DemoRestableObject.builder().setEntry("foo").build();
+        stubFor(get(urlPathEqualTo(V1_ENTRIES + "/1")).withHeader("Accept", containing(WireFormat.SMILE.getMediaType()))
+                .willReturn(aResponse().withStatus(Status.OK.getStatusCode())
+                        .withHeader(CONTENT_TYPE, WireFormat.SMILE.getMediaType())
+                        .withBody(encode(WireFormat.SMILE, entity))));
+
+        RestClient restClient = restClient(TransportType.DEFAULT, WireFormat.SMILE);
+        try {
+            assertEquals(entity, resourceClient(restClient).read(1L));
+        } finally {
+            restClient.close();
+        }
+    }
+
+    @Test
+    public void testCreateCborDirect() throws Exception {
+        DemoRestableObject entity = DemoRestableObject.builder().setEntry("foo").build();
+        stubFor(post(urlPathEqualTo(V1_ENTRIES)).withHeader(CONTENT_TYPE, containing(WireFormat.CBOR.getMediaType()))
+                .willReturn(aResponse().withStatus(Status.OK.getStatusCode())
+                        .withHeader(CONTENT_TYPE, WireFormat.CBOR.getMediaType())
+                        .withBody(encode(WireFormat.CBOR, entity))));
+
+        RestClient restClient = restClient(TransportType.DIRECT, WireFormat.CBOR);
+        try {
+            assertEquals(entity, resourceClient(restClient).create(entity));
+        } finally {
+            restClient.close();
+        }
+    }
+
+    @Test
+    public void testCborRoundTripThroughJersey() throws Exception {
+        DemoRestableObject entity = DemoRestableObject.builder().setEntry("foo").build();
+        stubFor(post(urlPathEqualTo(V1_ENTRIES)).withHeader(CONTENT_TYPE, containing(WireFormat.CBOR.getMediaType()))
+                .willReturn(aResponse().withStatus(Status.OK.getStatusCode())
+                        .withHeader(CONTENT_TYPE, WireFormat.CBOR.getMediaType())
+                        .withBody(encode(WireFormat.CBOR, entity))));
+
+        // Both binary formats must survive Jersey's provider registration, whichever connector is in use.
+        for (TransportType transport : new TransportType[] { TransportType.DEFAULT, TransportType.POOLED }) {
+            RestClient restClient = restClient(transport, WireFormat.CBOR);
+            try {
+                assertEquals(entity, resourceClient(restClient).create(entity));
+            } finally {
+                restClient.close();
+            }
+        }
+        verify(2, postRequestedFor(urlPathEqualTo(V1_ENTRIES)));
+    }
+
+    @Test
+    public void testFallsBackToJson() throws Exception {
+        DemoRestableObject entity = DemoRestableObject.builder().setEntry("foo").build();
+        stubFor(post(urlPathEqualTo(V1_ENTRIES)).willReturn(aResponse().withStatus(Status.OK.getStatusCode())
+                .withHeader(CONTENT_TYPE, APPLICATION_JSON)
+                .withBody(JsonSerializer.getInstance().getStringRepresentation(entity))));
+        stubFor(post(urlPathEqualTo(V1_ENTRIES)).withHeader(CONTENT_TYPE, containing(WireFormat.CBOR.getMediaType()))
+                .willReturn(aResponse().withStatus(Status.UNSUPPORTED_MEDIA_TYPE.getStatusCode())));
+
+        RestClient restClient = restClient(TransportType.DIRECT, WireFormat.CBOR);
+        try {
+            BaseResourceClient<DemoRestableObject> client = resourceClient(restClient);
+            assertEquals(entity, client.create(entity));
+            assertEquals(WireFormat.JSON, client.getWireFormat());
+
+            assertEquals(entity, client.create(entity));
+            verify(3, postRequestedFor(urlPathEqualTo(V1_ENTRIES)));
+        } finally {
+            restClient.close();
+        }
+    }
+}
@@ -0,0 +1,208 @@
+package com.clearcapital.oss.rest;
+
+import static com.github.tomakehurst.wiremock.client.WireMock.aResponse;
+import static com.github.tomakehurst.wiremock.client.WireMock.equalTo;
+import static com.github.tomakehurst.wiremock.client.WireMock.equalToJson;
+import static com.github.tomakehurst.wiremock.client.WireMock.post;
+import static com.github.tomakehurst.wiremock.client.WireMock.postRequestedFor;
+import static com.github.tomakehurst.wiremock.client.WireMock.put;
+import static com.github.tomakehurst.wiremock.client.WireMock.putRequestedFor;
+import static com.github.tomakehurst.wiremock.client.WireMock.stubFor;
+import static com.github.tomakehurst.wiremock.client.WireMock.urlPathEqualTo;
+import static com.github.tomakehurst.wiremock.client.WireMock.verify;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.RandomAccessFile;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+import javax.ws.rs.HttpMethod;
+import javax.ws.rs.ProcessingException;
+import javax.ws.rs.core.MediaType;
+import javax.ws.rs.core.Response.Status;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import com.clearcapital.oss.json.JsonSerializer;
+import com.github.tomakehurst.wiremock.junit.WireMockRule;
+import com.github.tomakehurst.wiremock.stubbing.Scenario;
+
+public class WriteBehindJournalTest {
+
+    private static final String BASE_URI = "http://localhost:5309";
+    private static final String V1_ENTRIES = "/v1/entries";
+    private static final String COOKIE = "Cookie";
+
+    @Rule
+    public WireMockRule wireMockRule = new WireMockRule(5309);
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private static RestClient restClient() throws Exception {
+        return new RestClient(RestClientConfiguration.builder().setUri(new URI(BASE_URI))
+                .setKey("someone@somewhere.com").setPassword("Passw0rd").setWithLoggingFilter(false)
+                .setTransport(TransportType.DIRECT).build());
+    }
+
+    private static WriteBehindJournal journal(Path directory, RestTransport transport) throws Exception {
+        return new WriteBehindJournal(directory, transport, 2, 8, 4096, false, 10, 50, TimeUnit.MILLISECONDS);
+    }
+
+    private static RestRequest request(String key, int value) {
+        return RestRequest.builder(HttpMethod.PUT).addPath(V1_ENTRIES).addPath(key)
+                .setEntity("{\"entry\":\"" + value + "\"}", MediaType.APPLICATION_JSON).build();
+    }
+
+    @Test
+    public void testNoResponseWritesAreJournaled() throws Exception {
+        DemoRestableObject entity = DemoRestableObject.builder().setEntry("foo").build();
+        String json = JsonSerializer.getInstance().getStringRepresentation(entity);
+        stubFor(post(urlPathEqualTo(V1_ENTRIES)).willReturn(aResponse().withStatus(Status.OK.getStatusCode())));
+        stubFor(put(urlPathEqualTo(V1_ENTRIES + "/key")).willReturn(aResponse().withStatus(Status.OK.getStatusCode())));
+
+        RestClient restClient = restClient();
+        try (WriteBehindJournal journal = journal(folder.getRoot().toPath(), restClient.getTransport())) {
+            BaseResourceClient<DemoRestableObject> client = new BaseResourceClient<>(restClient.getTransport(),
+                    DemoRestableObject.class, V1_ENTRIES);
+            client.setWriteBehindJournal(journal);
+            // Journaled as JSON whatever the format, as the write cannot fall back to JSON later.
+            client.setWireFormat(WireFormat.CBOR);
+            client.createNoResponse(entity, 1L);
+            client.withSession(1L).updateNoResponse("key", entity);
+
+            assertTrue(journal.awaitDrained(10, TimeUnit.SECONDS));
+            assertEquals(2, journal.getDelivered());
+        } finally {
+            restClient.close();
+        }
+        verify(1, postRequestedFor(urlPathEqualTo(V1_ENTRIES)).withRequestBody(equalToJson(json))
+                .withHeader(COOKIE, equalTo("X-SessionId=1"))
+                .withHeader("Content-Type", equalTo(MediaType.APPLICATION_JSON)));
+        verify(1, putRequestedFor(urlPathEqualTo(V1_ENTRIES + "/key")).withRequestBody(equalToJson(json)));
+    }
+
+    @Test
+    public void testRetriesAndRejects() throws Exception {
+        stubFor(put(urlPathEqualTo(V1_ENTRIES + "/a")).inScenario("flaky").whenScenarioStateIs(Scenario.STARTED)
+                .willReturn(aResponse().withStatus(Status.SERVICE_UNAVAILABLE.getStatusCode()))
+                .willSetStateTo("recovered"));
+        stubFor(put(urlPathEqualTo(V1_ENTRIES + "/a")).inScenario("flaky").whenScenarioStateIs("recovered")
+                .willReturn(aResponse().withStatus(Status.NO_CONTENT.getStatusCode())));
+        stubFor(put(urlPathEqualTo(V1_ENTRIES + "/b"))
+                .willReturn(aResponse().withStatus(Status.BAD_REQUEST.getStatusCode())));
+
+        RestClient restClient = restClient();
+        try (WriteBehindJournal journal = journal(folder.getRoot().toPath(), restClient.getTransport())) {
+            journal.append(request("a", 1));
+            journal.append(request("b", 2));
+
+            assertTrue(journal.awaitDrained(10, TimeUnit.SECONDS));
+            assertEquals(1, journal.getDelivered());
+            assertEquals(1, journal.getRejected());
+            assertEquals(0, journal.getPending());
+        } finally {
+            restClient.close();
+        }
+        verify(2, putRequestedFor(urlPathEqualTo(V1_ENTRIES + "/a")));
+    }
+
+    @Test
+    public void testParksUnauthorizedUntilRestart() throws Exception {
+        stubFor(put(urlPathEqualTo(V1_ENTRIES + "/a"))
+                .willReturn(aResponse().withStatus(Status.UNAUTHORIZED.getStatusCode())));
+        stubFor(put(urlPathEqualTo(V1_ENTRIES + "/b")).willReturn(aResponse().withStatus(Status.OK.getStatusCode())));
+        Path directory = folder.getRoot().toPath();
+
+        RestClient restClient = restClient();
+        try {
+            try (WriteBehindJournal journal = journal(directory, restClient.getTransport())) {
+                journal.append(request("a", 1));
+                journal.append(request("b", 2));
+
+                assertTrue(journal.awaitDrained(10, TimeUnit.SECONDS));
+                assertEquals(1, journal.getDelivered());
+                assertEquals(1, journal.getParked());
+                assertEquals(0, journal.getRejected());
+            }
+
+            // Once the server takes it again, the parked write is sent after the next startup.
+            stubFor(put(urlPathEqualTo(V1_ENTRIES + "/a"))
+                    .willReturn(aResponse().withStatus(Status.OK.getStatusCode())));
+            try (WriteBehindJournal journal = journal(directory, restClient.getTransport())) {
+                assertTrue(journal.awaitDrained(10, TimeUnit.SECONDS));
+                assertEquals(1, journal.getDelivered());
+            }
+        } finally {
+            restClient.close();
+        }
+        verify(2, putRequestedFor(urlPathEqualTo(V1_ENTRIES + "/a")));
+        verify(1, putRequestedFor(urlPathEqualTo(V1_ENTRIES + "/b")));
+    }
+
+    @Test
+    public void testRedeliveredAfterRestart() throws Exception {
+        stubFor(put(urlPathEqualTo(V1_ENTRIES + "/key")).willReturn(aResponse().withStatus(Status.OK.getStatusCode())));
+        Path directory = folder.getRoot().toPath();
+
+        // Nothing gets through before the "crash".
+        RestTransport down = request -> {
+            throw new ProcessingException("down");
+        };
+        WriteBehindJournal journal = journal(directory, down);
+        for (int i = 0; i < 3; i++) {
+            journal.append(request("key", i));
+        }
+        journal.close();
+        assertEquals(3, journal.getPending());
+
+        // Tear the last record.
+        int recordBytes = 9 + WriteBehindJournal.encode(request("key", 0)).length;
+        try (RandomAccessFile file = new RandomAccessFile(
+                directory.resolve(WriteBehindJournal.segmentName(0)).toFile(), "rw")) {
+            file.seek(3 * recordBytes - 1);
+            file.write('!');
+        }
+
+        RestClient restClient = restClient();
+        try (WriteBehindJournal reopened = journal(directory, restClient.getTransport())) {
+            assertTrue(reopened.awaitDrained(10, TimeUnit.SECONDS));
+            assertEquals(2, reopened.getDelivered());
+        } finally {
+            restClient.close();
+        }
+        verify(2, putRequestedFor(urlPathEqualTo(V1_ENTRIES + "/key")));
+        verify(1, putRequestedFor(urlPathEqualTo(V1_ENTRIES + "/key"))
+                .withRequestBody(equalToJson("{\"entry\":\"0\"}")));
+        assertEquals(0, directory.toFile().list().length);
+    }
+
+    @Test
+    public void testRollsSegments() throws Exception {
+        stubFor(put(urlPathEqualTo(V1_ENTRIES + "/key")).willReturn(aResponse().withStatus(Status.OK.getStatusCode())));
+        Path directory = folder.getRoot().toPath();
+        byte[] large = new byte[5000];
+        RestClient restClient = restClient();
+        try (WriteBehindJournal journal = journal(directory, restClient.getTransport())) {
+            for (int i = 0; i < 100; i++) {
+                journal.append(request("key", i));
+            }
+            journal.append(RestRequest.builder(HttpMethod.PUT).addPath(V1_ENTRIES).addPath("key")
+                    .setEntity(large, MediaType.APPLICATION_OCTET_STREAM).build());
+            journal.append(request("key", 100));
+            assertTrue(journal.awaitDrained(10, TimeUnit.SECONDS));
+            assertEquals(102, journal.getDelivered());
+        } finally {
+            restClient.close();
+        }
+        // Only the segment still being written remains.
+        assertEquals(1, directory.toFile().list().length);
+        verify(1, putRequestedFor(urlPathEqualTo(V1_ENTRIES + "/key"))
+                .withRequestBody(equalTo(new String(large, StandardCharsets.UTF_8))));
+    }
+}
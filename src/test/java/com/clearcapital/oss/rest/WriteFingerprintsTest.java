@@ -0,0 +1,117 @@
+package com.clearcapital.oss.rest;
+
+import static com.github.tomakehurst.wiremock.client.WireMock.aResponse;
+import static com.github.tomakehurst.wiremock.client.WireMock.delete;
+import static com.github.tomakehurst.wiremock.client.WireMock.get;
+import static com.github.tomakehurst.wiremock.client.WireMock.put;
+import static com.github.tomakehurst.wiremock.client.WireMock.putRequestedFor;
+import static com.github.tomakehurst.wiremock.client.WireMock.stubFor;
+import static com.github.tomakehurst.wiremock.client.WireMock.urlPathEqualTo;
+import static com.github.tomakehurst.wiremock.client.WireMock.urlPathMatching;
+import static com.github.tomakehurst.wiremock.client.WireMock.verify;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+
+import java.net.URI;
+
+import javax.ws.rs.core.Response.Status;
+
+import org.apache.http.entity.ContentType;
+import org.apache.http.impl.client.HttpClients;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+
+import com.clearcapital.oss.json.JsonSerializer;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.tomakehurst.wiremock.junit.WireMockRule;
+
+public class WriteFingerprintsTest {
+
+    private static final String APPLICATION_JSON = ContentType.APPLICATION_JSON.getMimeType();
+    private static final String CONTENT_TYPE = "Content-Type";
+    private static final String BASE_URI = "http://localhost:5309";
+    private static final String V1_ENTRIES = "/v1/entries";
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private HttpClientTransport transport;
+    private BaseResourceClient<DemoRestableObject> client;
+    private WriteFingerprints fingerprints;
+
+    @Rule
+    public WireMockRule wireMockRule = new WireMockRule(5309);
+
+    @Before
+    public void beforeTest() throws Exception {
+        transport = new HttpClientTransport(HttpClients.createDefault(), new URI(BASE_URI),
+                new JacksonEntityCodec(objectMapper));
+        client = new BaseResourceClient<>(transport, DemoRestableObject.class, V1_ENTRIES);
+        fingerprints = new WriteFingerprints(objectMapper, 16);
+        client.setWriteFingerprints(fingerprints);
+    }
+
+    @After
+    public void afterTest() throws Exception {
+        transport.close();
+    }
+
+    private static void stubEntity(DemoRestableObject entity) throws Exception {
+        String body = JsonSerializer.getInstance().getStringRepresentation(entity);
+        stubFor(get(urlPathMatching(V1_ENTRIES + "/.*")).willReturn(aResponse()
+                .withStatus(Status.OK.getStatusCode()).withHeader(CONTENT_TYPE, APPLICATION_JSON).withBody(body)));
+        stubFor(put(urlPathMatching(V1_ENTRIES + "/.*")).willReturn(aResponse()
+                .withStatus(Status.OK.getStatusCode()).withHeader(CONTENT_TYPE, APPLICATION_JSON).withBody(body)));
+    }
+
+    @Test
+    public void testFingerprint() {
+        DemoRestableObject foo = DemoRestableObject.builder().setEntry("foo").build();
+        assertEquals(fingerprints.fingerprint(foo),
+                fingerprints.fingerprint(DemoRestableObject.builder().setEntry("foo").build()));
+        assertNotEquals(fingerprints.fingerprint(foo),
+                fingerprints.fingerprint(DemoRestableObject.builder().setEntry("bar").build()));
+    }
+
+    @Test
+    public void testOverwriteUnchangedIsSkipped() throws Exception {
+        DemoRestableObject entity = DemoRestableObject.builder().setEntry("foo").build();
+        stubEntity(entity);
+
+        assertEquals(entity, client.overwrite("key", entity, 1L));
+        assertEquals(entity, client.overwrite("key", entity, 1L));
+        verify(1, putRequestedFor(urlPathEqualTo(V1_ENTRIES + "/key")));
+        assertEquals(1, fingerprints.getSkipped());
+        assertEquals(1, fingerprints.getWritten());
+
+        client.overwrite("key", entity, 1L, true);
+        verify(2, putRequestedFor(urlPathEqualTo(V1_ENTRIES + "/key")));
+    }
+
+    @Test
+    public void testUpdateAfterRead() throws Exception {
+        DemoRestableObject entity = DemoRestableObject.builder().setEntry("foo").build();
+        DemoRestableObject modified = DemoRestableObject.builder().setEntry("bar").build();
+        stubEntity(entity);
+
+        client.read(1L, 1L);
+        assertEquals(entity, client.update(1L, entity, 1L));
+        verify(0, putRequestedFor(urlPathEqualTo(V1_ENTRIES + "/1")));
+
+        client.update(1L, modified, 1L);
+        verify(1, putRequestedFor(urlPathEqualTo(V1_ENTRIES + "/1")));
+    }
+
+    @Test
+    public void testDeleteForgets() throws Exception {
+        DemoRestableObject entity = DemoRestableObject.builder().setEntry("foo").build();
+        stubEntity(entity);
+        stubFor(delete(urlPathEqualTo(V1_ENTRIES + "/1"))
+                .willReturn(aResponse().withStatus(Status.NO_CONTENT.getStatusCode())));
+
+        client.update(1L, entity, 1L);
+        client.delete(1L, 1L);
+        client.update(1L, entity, 1L);
+        verify(2, putRequestedFor(urlPathEqualTo(V1_ENTRIES + "/1")));
+    }
+}